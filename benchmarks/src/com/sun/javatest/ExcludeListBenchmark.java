@@ -0,0 +1,106 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for reading an exclude list, and for looking up tests in it.
+ * One test in ten is excluded, and one in twenty has some of its test cases excluded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExcludeListBenchmark {
+
+    @Param({"10000"})
+    public int tests;
+
+    private File dir;
+    private File file;
+    private ExcludeList excludeList;
+    private TestDescription[] tds;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        TestSuite ts = TestSuite.open(SyntheticSuite.html(tests));
+        List<TestDescription> list = SyntheticSuite.readTests(ts.getTestFinder());
+        tds = list.toArray(new TestDescription[0]);
+
+        dir = SyntheticSuite.createTempDirectory("exclude");
+        file = new File(dir, "bench.jtx");
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("### title Synthetic exclude list");
+            for (int i = 0; i < tds.length; i++) {
+                String url = tds[i].getRootRelativeURL();
+                if (i % 10 == 0) {
+                    out.println(url + " " + (1000000 + i) + " generic excluded test " + i);
+                } else if (i % 20 == 5) {
+                    out.println(url + "[case1,case2] " + (1000000 + i) + " generic excluded test cases " + i);
+                }
+            }
+        }
+
+        excludeList = new ExcludeList(file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SyntheticSuite.delete(dir);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ExcludeList parse() throws IOException, ExcludeList.Fault {
+        return new ExcludeList(file);
+    }
+
+    @Benchmark
+    public boolean excludesAllOf() {
+        return excludeList.excludesAllOf(tds[next++ % tds.length]);
+    }
+
+    @Benchmark
+    public String[] getTestCases() {
+        return excludeList.getTestCases(tds[next++ % tds.length]);
+    }
+}
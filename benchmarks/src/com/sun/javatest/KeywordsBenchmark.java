@@ -0,0 +1,98 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for parsing keyword expressions, and for evaluating them
+ * against the keywords of the tests in a test suite.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KeywordsBenchmark {
+
+    @Param({"10000"})
+    public int tests;
+
+    @Param({"expr"})
+    public String type;
+
+    @Param({
+            "positive",
+            "compile & !negative",
+            "(execute | compile) & !ShouldFail & positive & !(runtime | interactive)"
+    })
+    public String text;
+
+    private Keywords keywords;
+    private KeywordsFilter filter;
+    private TestDescription[] descriptions;
+    private List<Set<String>> keywordTables;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        TestSuite ts = TestSuite.open(SyntheticSuite.html(tests));
+        List<TestDescription> tds = SyntheticSuite.readTests(ts.getTestFinder());
+        descriptions = tds.toArray(new TestDescription[tds.size()]);
+        keywordTables = new ArrayList<>(tds.size());
+        for (TestDescription td : tds) {
+            keywordTables.add(td.getKeywordTable());
+        }
+        keywords = Keywords.create(type, text);
+        filter = new KeywordsFilter(keywords);
+    }
+
+    @Benchmark
+    public Keywords parse() throws Keywords.Fault {
+        return Keywords.create(type, text);
+    }
+
+    @Benchmark
+    public boolean accepts() {
+        return keywords.accepts(keywordTables.get(next++ % keywordTables.size()));
+    }
+
+    @Benchmark
+    public boolean filter() {
+        return filter.accepts(descriptions[next++ % descriptions.length]);
+    }
+}
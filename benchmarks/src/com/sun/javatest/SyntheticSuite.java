@@ -0,0 +1,275 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates test suites of a given size, for use by the benchmarks, by
+ * replicating the tests in the small test suites used by the unit tests.
+ * <p>
+ * Two forms of test suite can be generated: one in which the tests are
+ * described in HTML files, as in {@code unit-tests-data/suites/basic}, for
+ * use with the default {@link com.sun.javatest.finder.HTMLTestFinder HTMLTestFinder},
+ * and one in which each test is a source file with comment tags, as in
+ * {@code unit-tests-data/tagtests}, for use with
+ * {@link com.sun.javatest.finder.TagTestFinder TagTestFinder}.
+ * <p>
+ * Generated test suites are kept in the directory given by the system property
+ * {@code bench.dir}, and reused by later benchmarks for the same form and size.
+ * The tests to be replicated are found in the directory given by the system property
+ * {@code unit-tests.data.dir}.
+ */
+public class SyntheticSuite {
+    /**
+     * The number of tests in each generated HTML file.
+     */
+    public static final int TESTS_PER_FILE = 50;
+    /**
+     * The number of tests in each generated directory.
+     */
+    public static final int TESTS_PER_DIR = 1000;
+
+    private static final Pattern HTML_TEST = Pattern.compile(
+            "<a name=([A-Za-z0-9_]+)>.*?</table>", Pattern.DOTALL);
+    private static final Pattern TAG_TEST_CLASS = Pattern.compile("TagsSingleQuote");
+    private static final String COMPLETE = "complete";
+
+    private SyntheticSuite() {
+    }
+
+    /**
+     * Get a test suite of HTML test descriptions, generating it if necessary.
+     *
+     * @param tests the number of tests in the test suite
+     * @return the root directory of the test suite
+     * @throws IOException if there is a problem generating the test suite
+     */
+    public static File html(int tests) throws IOException {
+        File root = getRoot("html", tests);
+        if (new File(root, COMPLETE).exists()) {
+            return root;
+        }
+
+        List<String> templates = new ArrayList<>();
+        for (String group : new String[]{"comp", "exec"}) {
+            String text = read(new File(getTemplateDir(), "suites/basic/" + group + "/index.html"));
+            Matcher m = HTML_TEST.matcher(text);
+            while (m.find()) {
+                templates.add(m.group());
+            }
+        }
+        if (templates.isEmpty()) {
+            throw new IOException("no tests found in " + getTemplateDir());
+        }
+
+        List<String> dirs = new ArrayList<>();
+        for (int d = 0; d * TESTS_PER_DIR < tests; d++) {
+            String dirName = name("d", d);
+            File dir = new File(root, dirName);
+            dir.mkdirs();
+            List<String> files = new ArrayList<>();
+            int dirTests = Math.min(TESTS_PER_DIR, tests - d * TESTS_PER_DIR);
+            for (int f = 0; f * TESTS_PER_FILE < dirTests; f++) {
+                String fileName = name("t", f) + ".html";
+                try (PrintWriter out = open(new File(dir, fileName))) {
+                    out.println("<html><body>");
+                    int fileTests = Math.min(TESTS_PER_FILE, dirTests - f * TESTS_PER_FILE);
+                    for (int t = 0; t < fileTests; t++) {
+                        int n = d * TESTS_PER_DIR + f * TESTS_PER_FILE + t;
+                        String template = templates.get(n % templates.size());
+                        Matcher m = HTML_TEST.matcher(template);
+                        m.matches();
+                        out.println("<a name=" + m.group(1) + "_" + n + ">"
+                                + template.substring(m.end(1) + 1));
+                    }
+                    out.println("</body></html>");
+                }
+                files.add(fileName);
+            }
+            writeIndex(new File(dir, "index.html"), files);
+            dirs.add(dirName + "/index.html");
+        }
+        writeIndex(new File(root, "testsuite.html"), dirs);
+
+        return complete(root);
+    }
+
+    /**
+     * Get a test suite of source files with test description tags,
+     * generating it if necessary.
+     *
+     * @param tests the number of tests in the test suite
+     * @return the root directory of the test suite
+     * @throws IOException if there is a problem generating the test suite
+     */
+    public static File tags(int tests) throws IOException {
+        File root = getRoot("tags", tests);
+        if (new File(root, COMPLETE).exists()) {
+            return root;
+        }
+
+        String template = read(new File(getTemplateDir(), "tagtests/TagsDoubleQuote.java"));
+        for (int d = 0; d * TESTS_PER_DIR < tests; d++) {
+            File dir = new File(root, name("d", d));
+            dir.mkdirs();
+            int dirTests = Math.min(TESTS_PER_DIR, tests - d * TESTS_PER_DIR);
+            for (int t = 0; t < dirTests; t++) {
+                String className = "Tags" + (d * TESTS_PER_DIR + t);
+                try (PrintWriter out = open(new File(dir, className + ".java"))) {
+                    out.print(TAG_TEST_CLASS.matcher(template).replaceAll(className));
+                }
+            }
+        }
+
+        try (PrintWriter out = open(new File(root, "testsuite.jtt"))) {
+            out.println("name=Synthetic tag test suite");
+            out.println("finder=com.sun.javatest.finder.TagTestFinder");
+        }
+
+        return complete(root);
+    }
+
+    /**
+     * Read all the tests in a test suite.
+     *
+     * @param finder a test finder, initialized for the test suite
+     * @return the test descriptions for the tests
+     */
+    public static List<TestDescription> readTests(TestFinder finder) {
+        TestFinderQueue tfq = new TestFinderQueue(finder);
+        tfq.setTests((String[]) null);
+        List<TestDescription> tests = new ArrayList<>();
+        TestDescription td;
+        while ((td = tfq.next()) != null) {
+            tests.add(td);
+        }
+        return tests;
+    }
+
+    /**
+     * Create a typical result for a test, with some output in a compile section
+     * and an execute section.
+     *
+     * @param td the test description
+     * @return the test result
+     */
+    public static TestResult createResult(TestDescription td) {
+        TestResult tr = new TestResult(td);
+        tr.putProperty("script", "com.sun.javatest.lib.ExecStdTestSameJVMCmd");
+        for (String name : new String[]{"compile", "execute"}) {
+            TestResult.Section s = tr.createSection(name);
+            try (PrintWriter log = s.createOutput("log")) {
+                for (int i = 0; i < 20; i++) {
+                    log.println(name + " " + td.getRootRelativeURL() + ": line " + i);
+                }
+            }
+            try (PrintWriter out = s.createOutput("out")) {
+                out.println(td.getParameter("title"));
+            }
+            s.setStatus(Status.passed(name + " passed"));
+        }
+        tr.setStatus(Status.passed("test passed"));
+        return tr;
+    }
+    /**
+     * Create an empty directory for use by a benchmark, such as a work directory.
+     *
+     * @param prefix the prefix for the name of the directory
+     * @return the directory
+     * @throws IOException if the directory cannot be created
+     */
+    public static File createTempDirectory(String prefix) throws IOException {
+        File dir = getBenchDir();
+        dir.mkdirs();
+        return Files.createTempDirectory(dir.toPath(), prefix).toFile();
+    }
+
+    /**
+     * Delete a directory created by {@link #createTempDirectory}, and its contents.
+     *
+     * @param dir the directory
+     */
+    public static void delete(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                delete(f);
+            }
+        }
+        dir.delete();
+    }
+
+    private static File getRoot(String kind, int tests) {
+        File root = new File(getBenchDir(), "suite-" + kind + "-" + tests);
+        root.mkdirs();
+        return root;
+    }
+
+    private static File complete(File root) throws IOException {
+        new File(root, COMPLETE).createNewFile();
+        return root;
+    }
+
+    private static File getBenchDir() {
+        return new File(System.getProperty("bench.dir", System.getProperty("java.io.tmpdir") + "/jtbench"));
+    }
+
+    private static File getTemplateDir() {
+        return new File(System.getProperty("unit-tests.data.dir", "unit-tests-data"));
+    }
+
+    private static void writeIndex(File file, List<String> links) throws IOException {
+        try (PrintWriter out = open(file)) {
+            out.println("<html><body>");
+            for (String link : links) {
+                out.println("<a href=\"" + link + "\">" + link + "</a>");
+            }
+            out.println("</body></html>");
+        }
+    }
+
+    private static String name(String prefix, int n) {
+        return prefix + String.format("%04d", n);
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1);
+    }
+
+    private static PrintWriter open(File file) throws IOException {
+        return new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.ISO_8859_1));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for iterating over all the tests in a test result table, with
+ * various filters. A third of the tests have passed, a third have failed,
+ * and the rest have not been run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TRT_IteratorBenchmark {
+
+    @Param({"10000"})
+    public int tests;
+
+    @Param({"none", "keywords", "status", "exclude", "all"})
+    public String filters;
+
+    private File workDirRoot;
+    private TestResultTable trt;
+    private TestFilter[] testFilters;
+
+    @Setup
+    public void setUp() throws Exception {
+        TestSuite ts = TestSuite.open(SyntheticSuite.html(tests));
+        workDirRoot = SyntheticSuite.createTempDirectory("trt");
+        WorkDirectory wd = WorkDirectory.create(workDirRoot, ts);
+        trt = wd.getTestResultTable();
+        trt.waitUntilReady();
+
+        List<TestDescription> tds = SyntheticSuite.readTests(ts.getTestFinder());
+        ExcludeList excludeList = new ExcludeList();
+        for (int i = 0; i < tds.size(); i++) {
+            TestDescription td = tds.get(i);
+            switch (i % 3) {
+                case 0:
+                    trt.update(new TestResult(td, Status.passed("test passed")));
+                    break;
+                case 1:
+                    trt.update(new TestResult(td, Status.failed("test failed")));
+                    break;
+            }
+            if (i % 10 == 0) {
+                excludeList.addEntry(new ExcludeList.Entry(td.getRootRelativeURL(), null,
+                        new String[]{String.valueOf(i)}, new String[]{"generic"}, "excluded"));
+            }
+        }
+
+        List<TestFilter> list = new ArrayList<>();
+        if (filters.equals("keywords") || filters.equals("all")) {
+            list.add(new KeywordsFilter(Keywords.create(Keywords.EXPR, "positive & !ShouldFail")));
+        }
+        if (filters.equals("status") || filters.equals("all")) {
+            boolean[] statusValues = new boolean[Status.NUM_STATES];
+            statusValues[Status.FAILED] = true;
+            statusValues[Status.NOT_RUN] = true;
+            list.add(new StatusFilter(statusValues, trt));
+        }
+        if (filters.equals("exclude") || filters.equals("all")) {
+            list.add(new ExcludeListFilter(excludeList));
+        }
+        testFilters = list.toArray(new TestFilter[0]);
+
+        // ensure the whole table has been read from the test suite
+        count();
+    }
+
+    @TearDown
+    public void tearDown() {
+        trt.dispose();
+        SyntheticSuite.delete(workDirRoot);
+    }
+
+    @Benchmark
+    public int count() {
+        int n = 0;
+        for (TestResultTable.TreeIterator iter = trt.getIterator(testFilters); iter.hasNext(); iter.next()) {
+            n++;
+        }
+        return n;
+    }
+}
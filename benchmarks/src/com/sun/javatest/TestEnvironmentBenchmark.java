@@ -0,0 +1,110 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for creating a test environment, and for resolving the
+ * arguments of the tests in a test suite, in an environment that inherits
+ * from another and has properties which refer to other properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TestEnvironmentBenchmark {
+
+    @Param({"10000"})
+    public int tests;
+
+    /**
+     * The number of additional properties in the environment.
+     */
+    @Param({"100", "1000"})
+    public int properties;
+
+    private Map<String, String> props;
+    private TestEnvironment env;
+    private String[] values;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        props = new HashMap<>();
+        props.put("env.bench.inherits", "base");
+        props.put("env.base.javaHome", "/usr/lib/jvm/java");
+        props.put("env.base.java", "$javaHome$/bin$/java");
+        props.put("env.base.harnessClassDir", "/opt/jtharness/classes");
+        props.put("env.base.testSuiteRootURL", "file:/opt/testsuite/");
+        props.put("env.bench.testURL", "$testSuiteRootURL/tests/index.html");
+        props.put("env.bench.testWorkDir", "/tmp/work/tests");
+        props.put("env.bench.testClassDir", "$testWorkDir$/classes");
+        props.put("env.bench.classpath", "$testClassDir$:$harnessClassDir");
+        for (int i = 0; i < properties; i++) {
+            // each property refers to the one before, so that some values need several lookups
+            props.put("env.bench.prop" + i, i % 10 == 0 ? "value" + i : "-Dprop" + i + "=$prop" + (i - 1));
+        }
+        props.put("env.bench.command", "$java -classpath \"$classpath\" $prop" + (properties - 1));
+        env = new TestEnvironment("bench", props, "synthetic");
+
+        TestSuite ts = TestSuite.open(SyntheticSuite.html(tests));
+        List<TestDescription> tds = SyntheticSuite.readTests(ts.getTestFinder());
+        values = new String[tds.size()];
+        for (int i = 0; i < values.length; i++) {
+            StringBuilder sb = new StringBuilder("$command");
+            for (String name : new String[]{"executeClass", "executeArgs"}) {
+                String value = tds.get(i).getParameter(name);
+                if (value != null) {
+                    sb.append(' ').append(value);
+                }
+            }
+            values[i] = sb.toString();
+        }
+    }
+
+    @Benchmark
+    public TestEnvironment create() throws TestEnvironment.Fault {
+        return new TestEnvironment("bench", props, "synthetic");
+    }
+
+    @Benchmark
+    public String[] resolve() throws TestEnvironment.Fault {
+        return env.resolve(values[next++ % values.length]);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import com.sun.javatest.util.BackupPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for writing test results to JTR files, and reading them back,
+ * in each of the supported formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TestResultBenchmark {
+
+    @Param({"10000"})
+    public int tests;
+
+    @Param({"text", "binary"})
+    public String format;
+
+    private File workDirRoot;
+    private WorkDirectory workDir;
+    private TestDescription[] tds;
+    private File[] files;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        System.setProperty("javatest.jtrFormat", format);
+
+        TestSuite ts = TestSuite.open(SyntheticSuite.html(tests));
+        workDirRoot = SyntheticSuite.createTempDirectory("jtr");
+        workDir = WorkDirectory.create(workDirRoot, ts);
+
+        List<TestDescription> list = SyntheticSuite.readTests(ts.getTestFinder());
+        tds = list.toArray(new TestDescription[0]);
+        files = new File[tds.length];
+        for (int i = 0; i < tds.length; i++) {
+            TestResult tr = SyntheticSuite.createResult(tds[i]);
+            tr.writeResults(workDir, BackupPolicy.noBackups());
+            files[i] = tr.getFile();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.clearProperty("javatest.jtrFormat");
+        SyntheticSuite.delete(workDirRoot);
+    }
+
+    /**
+     * Create a result and write it to a file. A result cannot be written
+     * more than once, so the time includes that to create the result.
+     */
+    @Benchmark
+    public File write() throws IOException {
+        TestResult tr = SyntheticSuite.createResult(tds[next++ % tds.length]);
+        tr.writeResults(workDir, BackupPolicy.noBackups());
+        return tr.getFile();
+    }
+
+    @Benchmark
+    public Status readSummary() throws TestResult.Fault {
+        return new TestResult(files[next++ % files.length]).getStatus();
+    }
+
+    @Benchmark
+    public String readOutput() throws TestResult.Fault {
+        TestResult tr = new TestResult(files[next++ % files.length]);
+        return tr.getSection(1).getOutput("log");
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for reading and updating the cache of test results
+ * kept in a work directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TestResultCacheBenchmark {
+
+    @Param({"10000"})
+    public int tests;
+
+    private File dir;
+    private TestResultCacheFile cache;
+    private String[] names;
+    private Status[] statuses;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = SyntheticSuite.createTempDirectory("cache");
+        cache = new TestResultCacheFile(new File(dir, "ResultCache3.jtw"));
+
+        statuses = new Status[]{
+                Status.passed("test passed"),
+                Status.failed("test failed: exit code 1"),
+                Status.error("test error: timed out")
+        };
+        names = new String[tests];
+        for (int i = 0; i < tests; i++) {
+            names[i] = "d" + (i / SyntheticSuite.TESTS_PER_DIR) + "/t" + (i / SyntheticSuite.TESTS_PER_FILE)
+                    + "_Test" + i + ".jtr";
+            cache.put(names[i], statuses[i % statuses.length], i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        cache.close();
+        SyntheticSuite.delete(dir);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<TestResultCacheFile.Entry> readAll() throws IOException {
+        return cache.readAll();
+    }
+
+    @Benchmark
+    public TestResultCacheFile.Entry lookup() throws IOException {
+        return cache.lookup(names[next++ % names.length]);
+    }
+
+    @Benchmark
+    public void update() throws IOException {
+        int i = next++;
+        cache.put(names[i % names.length], statuses[i % statuses.length], i);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.finder;
+
+import com.sun.javatest.SyntheticSuite;
+import com.sun.javatest.TestDescription;
+import com.sun.javatest.TestFinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for reading all the tests in a test suite, for test suites
+ * in which tests are described in HTML files, and in which tests are
+ * described by tags in comments in source files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TestFinderBenchmark {
+
+    @Param({"10000"})
+    public int tests;
+
+    @Param({"html", "tag"})
+    public String finder;
+
+    private File root;
+
+    @Setup
+    public void setUp() throws Exception {
+        root = finder.equals("html")
+                ? new File(SyntheticSuite.html(tests), "testsuite.html")
+                : SyntheticSuite.tags(tests);
+    }
+
+    @Benchmark
+    public List<TestDescription> read() throws TestFinder.Fault {
+        TestFinder tf = finder.equals("html") ? new HTMLTestFinder() : new TagTestFinder();
+        tf.init(null, root, null);
+        List<TestDescription> tds = SyntheticSuite.readTests(tf);
+        if (tds.size() != tests) {
+            throw new IllegalStateException("expected " + tests + " tests, found " + tds.size());
+        }
+        return tds;
+    }
+}
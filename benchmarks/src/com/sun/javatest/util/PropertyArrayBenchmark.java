@@ -0,0 +1,88 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for getting and putting values in a property array, such as
+ * is used for the properties of a test result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PropertyArrayBenchmark {
+
+    /**
+     * The number of properties in the array.
+     */
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private String[] data;
+    private String[] keys;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        keys = new String[size];
+        data = new String[0];
+        for (int i = 0; i < size; i++) {
+            keys[i] = "key" + i;
+            data = PropertyArray.put(data, keys[i], "value" + i);
+        }
+    }
+
+    @Benchmark
+    public String get() {
+        return PropertyArray.get(data, keys[next++ % size]);
+    }
+
+    @Benchmark
+    public String getMissing() {
+        return PropertyArray.get(data, "missing");
+    }
+
+    @Benchmark
+    public String[] putExisting() {
+        return PropertyArray.put(data, keys[next++ % size], "newValue");
+    }
+
+    @Benchmark
+    public String[] putNew() {
+        return PropertyArray.put(data, "newKey", "newValue");
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import com.sun.javatest.util.I18NResourceBundle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * A utility to convert test result files between the text format and
+ * the compact binary format.
+ *
+ * @see TestResult
+ */
+public class ConvertJTR {
+    private static final I18NResourceBundle i18n = I18NResourceBundle.getBundleForClass(ConvertJTR.class);
+    private File[] inFiles = new File[0];
+    private boolean binary = true;
+    private PrintStream log = System.err;
+
+    /**
+     * Create a converter which will write result files in the binary format.
+     */
+    public ConvertJTR() {
+    }
+
+    /**
+     * Create a converter object based on command line args.
+     * It is an error if no input files are given.
+     *
+     * @param args Command line args.
+     * @throws ConvertJTR.BadArgs if problems are found in the given arguments.
+     * @see #main
+     */
+    public ConvertJTR(String... args) throws BadArgs {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-binary")) {
+                binary = true;
+            } else if (args[i].equals("-text")) {
+                binary = false;
+            } else if (args[i].startsWith("-")) {
+                throw new BadArgs(i18n, "convertJTR.badOpt", args[i]);
+            } else {
+                inFiles = new File[args.length - i];
+                for (int j = 0; j < inFiles.length; j++) {
+                    inFiles[j] = new File(args[i++]);
+                }
+            }
+        }
+
+        if (inFiles.length == 0) {
+            throw new BadArgs(i18n, "convertJTR.noInput");
+        }
+    }
+
+    /**
+     * Command line entry point.<br>
+     * Usage:
+     * <pre>
+     *    java com.sun.javatest.ConvertJTR options files...
+     * </pre>
+     * Arguments:
+     * <dl>
+     * <dt>-binary
+     * <dd>Write the result files in the compact binary format. This is the default.
+     * <dt>-text
+     * <dd>Write the result files in the text format.
+     * <dt>files...
+     * <dd>Result files, or directories such as work directories containing
+     * result files, to be converted.
+     * </dl>
+     *
+     * @param args Command line arguments, per the usage as described.
+     */
+    public static void main(String... args) {
+        try {
+            if (args.length == 0) {
+                usage(System.err);
+            } else {
+                ConvertJTR c = new ConvertJTR(args);
+                int n = c.run();
+                System.err.println(i18n.getString("convertJTR.converted", n));
+            }
+        } catch (BadArgs e) {
+            System.err.println(e.getMessage());
+            usage(System.err);
+            System.exit(1);
+        } catch (Throwable t) {
+            t.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Write out short command line help.
+     *
+     * @param out A stream to which to write the help.
+     */
+    private static void usage(PrintStream out) {
+        String program = System.getProperty("program", "java " + ConvertJTR.class.getName());
+        String msg = i18n.getString("convertJTR.usage", program);
+        int start = 0;
+        int i;
+        while ((i = msg.indexOf('\n', start)) != -1) {
+            out.println(msg.substring(start, i));
+            start = i + 1;
+        }
+        if (start < msg.length()) {
+            out.println(msg.substring(start));
+        }
+    }
+
+    /**
+     * Specify the format in which result files should be written.
+     *
+     * @param binary true if result files should be written in the binary
+     *               format, or false if they should be written in the text format
+     */
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+    }
+
+    /**
+     * Specify a stream to which to report files which cannot be converted.
+     *
+     * @param log the stream, or null if problems should not be reported
+     */
+    public void setLog(PrintStream log) {
+        this.log = log;
+    }
+
+    /**
+     * Convert the files and directories given on the command line.
+     *
+     * @return the number of files that were converted
+     */
+    public int run() {
+        int n = 0;
+        for (File f : inFiles) {
+            n += convert(f);
+        }
+        return n;
+    }
+
+    /**
+     * Convert a result file, or all the result files in a directory
+     * and its subdirectories. Files which are already in the requested
+     * format are left unchanged.
+     *
+     * @param file the result file or directory
+     * @return the number of files that were converted
+     */
+    public int convert(File file) {
+        if (file.isDirectory()) {
+            int n = 0;
+            File[] entries = file.listFiles();
+            if (entries != null) {
+                for (File f : entries) {
+                    // skip the internal data in a work directory
+                    if (f.isDirectory() && f.getName().equals(WorkDirectory.JTDATA)) {
+                        continue;
+                    }
+                    if (f.isDirectory() || f.getName().endsWith(".jtr")) {
+                        n += convert(f);
+                    }
+                }
+            }
+            return n;
+        }
+
+        try {
+            if (TestResult.isBinaryResultFile(file) == binary) {
+                return 0;
+            }
+            TestResult tr = new TestResult(file);
+            tr.rewriteResults(binary);
+            return 1;
+        } catch (IOException | TestResult.Fault e) {
+            if (log != null) {
+                log.println(i18n.getString("convertJTR.cantConvert", file, e.getMessage()));
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * This exception is used to report problems with command line arguments.
+     */
+    public static class BadArgs extends Exception {
+        BadArgs(I18NResourceBundle i18n, String key) {
+            super(i18n.getString(key));
+        }
+
+        BadArgs(I18NResourceBundle i18n, String key, Object arg) {
+            super(i18n.getString(key, arg));
+        }
+    }
+}
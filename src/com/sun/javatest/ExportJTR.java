@@ -0,0 +1,208 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import com.sun.javatest.util.I18NResourceBundle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A utility to write the results kept in the result store of a work
+ * directory as individual result files, for use by tools which read
+ * result files directly.
+ *
+ * @see ResultStore
+ */
+public class ExportJTR {
+    private static final I18NResourceBundle i18n = I18NResourceBundle.getBundleForClass(ExportJTR.class);
+    private File workDir;
+    private File outDir;
+    private PrintStream log = System.err;
+
+    /**
+     * Create an exporter for the results in a work directory.
+     *
+     * @param workDir the work directory
+     * @param outDir  the directory in which to write the result files,
+     *                or null to write them into the work directory
+     */
+    public ExportJTR(File workDir, File outDir) {
+        this.workDir = workDir;
+        this.outDir = outDir;
+    }
+
+    /**
+     * Create an exporter object based on command line args.
+     * It is an error if no work directory is given.
+     *
+     * @param args Command line args.
+     * @throws ExportJTR.BadArgs if problems are found in the given arguments.
+     * @see #main
+     */
+    public ExportJTR(String... args) throws BadArgs {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-o") && i + 1 < args.length) {
+                outDir = new File(args[++i]);
+            } else if (args[i].startsWith("-")) {
+                throw new BadArgs(i18n, "exportJTR.badOpt", args[i]);
+            } else if (workDir == null) {
+                workDir = new File(args[i]);
+            } else {
+                throw new BadArgs(i18n, "exportJTR.badArg", args[i]);
+            }
+        }
+
+        if (workDir == null) {
+            throw new BadArgs(i18n, "exportJTR.noWorkDir");
+        }
+    }
+
+    /**
+     * Command line entry point.<br>
+     * Usage:
+     * <pre>
+     *    java com.sun.javatest.ExportJTR options work-directory
+     * </pre>
+     * Arguments:
+     * <dl>
+     * <dt>-o dir
+     * <dd>Write the result files into the given directory. By default,
+     * they are written into the work directory.
+     * <dt>work-directory
+     * <dd>The work directory whose results are to be exported.
+     * </dl>
+     *
+     * @param args Command line arguments, per the usage as described.
+     */
+    public static void main(String... args) {
+        try {
+            if (args.length == 0) {
+                usage(System.err);
+            } else {
+                ExportJTR e = new ExportJTR(args);
+                int n = e.run();
+                System.err.println(i18n.getString("exportJTR.exported", n));
+            }
+        } catch (BadArgs e) {
+            System.err.println(e.getMessage());
+            usage(System.err);
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println(i18n.getString("exportJTR.error", e.getMessage()));
+            System.exit(2);
+        } catch (Throwable t) {
+            t.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Write out short command line help.
+     *
+     * @param out A stream to which to write the help.
+     */
+    private static void usage(PrintStream out) {
+        String program = System.getProperty("program", "java " + ExportJTR.class.getName());
+        String msg = i18n.getString("exportJTR.usage", program);
+        int start = 0;
+        int i;
+        while ((i = msg.indexOf('\n', start)) != -1) {
+            out.println(msg.substring(start, i));
+            start = i + 1;
+        }
+        if (start < msg.length()) {
+            out.println(msg.substring(start));
+        }
+    }
+
+    /**
+     * Specify a stream to which to report results which cannot be exported.
+     *
+     * @param log the stream, or null if problems should not be reported
+     */
+    public void setLog(PrintStream log) {
+        this.log = log;
+    }
+
+    /**
+     * Write a result file for each result in the store of the work directory.
+     * Existing files with the same names are replaced.
+     *
+     * @return the number of result files that were written
+     * @throws IOException if the work directory does not have a result
+     *                     store, or if it cannot be read
+     */
+    public int run() throws IOException {
+        File jtData = new File(workDir, WorkDirectory.JTDATA);
+        if (!ResultStore.exists(jtData)) {
+            throw new IOException(i18n.getString("exportJTR.noStore", workDir));
+        }
+
+        File dir = outDir == null ? workDir : outDir;
+        ResultStore store = ResultStore.open(jtData, false);
+        int n = 0;
+        for (String path : store.getPaths()) {
+            try {
+                byte[] data = store.get(path);
+                if (data != null) {
+                    write(new File(dir, path.replace('/', File.separatorChar)), data);
+                    n++;
+                }
+            } catch (IOException e) {
+                if (log != null) {
+                    log.println(i18n.getString("exportJTR.cantExport", path, e.getMessage()));
+                }
+            }
+        }
+        return n;
+    }
+
+    private static void write(File file, byte[] data) throws IOException {
+        File dir = file.getParentFile();
+        Files.createDirectories(dir.toPath());
+        File temp = new File(file.getPath() + ".tmp");
+        Files.write(temp.toPath(), data);
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * This exception is used to report problems with command line arguments.
+     */
+    public static class BadArgs extends Exception {
+        BadArgs(I18NResourceBundle i18n, String key) {
+            super(i18n.getString(key));
+        }
+
+        BadArgs(I18NResourceBundle i18n, String key, Object arg) {
+            super(i18n.getString(key, arg));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import com.sun.javatest.util.StringArray;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A dictionary of the keywords found on test descriptions and in keyword
+ * expressions. Each keyword is given an index in the dictionary, so that a
+ * set of keywords can be represented as a bit set, and a keyword expression
+ * can be evaluated with a few bit operations, without allocating memory.
+ * <p>
+ * The bit sets for the "keywords" parameters of test descriptions are
+ * shared between all the test descriptions with the same value, and so
+ * must not be modified.
+ *
+ * @see TestDescription#getKeywordSet
+ * @see Keywords#compile
+ */
+final class KeywordDictionary {
+    /**
+     * The bit set for an empty set of keywords.
+     */
+    static final long[] EMPTY = {};
+
+    /**
+     * The maximum number of different "keywords" parameters for which the
+     * bit sets are shared; beyond this, each test description gets its own.
+     */
+    private static final int MAX_SHARED_SETS = 16384;
+
+    private static final Map<String, Integer> indexes = new ConcurrentHashMap<>();
+    private static final Map<String, long[]> sets = new ConcurrentHashMap<>();
+
+    private KeywordDictionary() {
+    }
+
+    /**
+     * Get the index of a keyword in the dictionary, adding it if necessary.
+     *
+     * @param keyword the keyword, which should be in lower case
+     * @return the index of the keyword
+     */
+    static int indexOf(String keyword) {
+        Integer i = indexes.get(keyword);
+        if (i != null) {
+            return i;
+        }
+
+        synchronized (indexes) {
+            return indexes.computeIfAbsent(keyword, k -> indexes.size());
+        }
+    }
+
+    /**
+     * Get the bit set for the value of a "keywords" parameter,
+     * which is a white-space separated list of keywords in any case.
+     *
+     * @param keywords the value of the parameter, or null
+     * @return the bit set for the keywords, which must not be modified
+     */
+    static long[] getSet(String keywords) {
+        if (keywords == null || keywords.isEmpty()) {
+            return EMPTY;
+        }
+
+        long[] set = sets.get(keywords);
+        if (set == null) {
+            set = newSet(StringArray.split(keywords));
+            if (sets.size() < MAX_SHARED_SETS) {
+                long[] prev = sets.putIfAbsent(keywords, set);
+                if (prev != null) {
+                    set = prev;
+                }
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Create a new bit set for a collection of keywords.
+     *
+     * @param keywords the keywords, in any case
+     * @return the bit set for the keywords
+     */
+    static long[] newSet(Collection<String> keywords) {
+        return newSet(keywords.toArray(new String[keywords.size()]));
+    }
+
+    private static long[] newSet(String... keywords) {
+        int[] bits = new int[keywords.length];
+        int max = -1;
+        for (int i = 0; i < keywords.length; i++) {
+            bits[i] = indexOf(keywords[i].toLowerCase());
+            max = Math.max(max, bits[i]);
+        }
+
+        long[] set = new long[(max >> 6) + 1];
+        for (int b : bits) {
+            set[b >> 6] |= 1L << b;
+        }
+        return set;
+    }
+
+    /**
+     * Check whether a bit set contains a keyword.
+     *
+     * @param set   the bit set
+     * @param index the index of the keyword in the dictionary
+     * @return true if the set contains the keyword
+     */
+    static boolean contains(long[] set, int index) {
+        int word = index >> 6;
+        return word < set.length && (set[word] & (1L << index)) != 0;
+    }
+
+    /**
+     * Check whether a bit set contains all the keywords in another.
+     *
+     * @param set  the bit set
+     * @param mask the keywords to look for
+     * @return true if the set contains all the keywords in the mask
+     */
+    static boolean containsAll(long[] set, long[] mask) {
+        for (int i = 0; i < mask.length; i++) {
+            long s = i < set.length ? set[i] : 0;
+            if ((s & mask[i]) != mask[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether a bit set contains any of the keywords in another.
+     *
+     * @param set  the bit set
+     * @param mask the keywords to look for
+     * @return true if the set contains any of the keywords in the mask
+     */
+    static boolean containsAny(long[] set, long[] mask) {
+        int n = Math.min(set.length, mask.length);
+        for (int i = 0; i < n; i++) {
+            if ((set[i] & mask[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
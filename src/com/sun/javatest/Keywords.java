@@ -32,6 +32,7 @@ import com.sun.javatest.util.StringArray;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.function.Predicate;
 
 //------------------------------------------------------------------------------
 
@@ -55,6 +56,7 @@ public abstract class Keywords {
     public static final String EXPR = "expr";
     static I18NResourceBundle i18n = I18NResourceBundle.getBundleForClass(Keywords.class);
     protected String text;
+    private Predicate<long[]> compiled;
 
     /**
      * Create a keywords object.
@@ -185,6 +187,36 @@ public abstract class Keywords {
      */
     public abstract boolean accepts(Set<String> s);
 
+    /**
+     * Compile this keywords object into a predicate on sets of keywords
+     * represented as bit sets in the keyword dictionary, so that it can
+     * be evaluated without creating a set of strings for each test.
+     * Subtypes that cannot be compiled return null, and are evaluated
+     * with {@link #accepts(Set)}.
+     *
+     * @return a predicate equivalent to {@link #accepts(Set)}, or null
+     * @see KeywordDictionary
+     */
+    Predicate<long[]> compile() {
+        return null;
+    }
+
+    /**
+     * Get the compiled form of this keywords object, compiling it
+     * the first time it is required.
+     *
+     * @return the compiled form of this object, or null if it cannot be compiled
+     * @see #compile
+     */
+    Predicate<long[]> getCompiled() {
+        Predicate<long[]> p = compiled;
+        if (p == null) {
+            p = compile();
+            compiled = p;
+        }
+        return p;
+    }
+
     /**
      * An exception used to report errors while using a Keywords object.
      */
@@ -296,6 +328,12 @@ class AllKeywords extends SetKeywords {
         return s.containsAll(keys);
     }
 
+    @Override
+    Predicate<long[]> compile() {
+        long[] mask = KeywordDictionary.newSet(keys);
+        return s -> KeywordDictionary.containsAll(s, mask);
+    }
+
     @Override
     public String toString() {
         return "all of (" + allKwds + ")";
@@ -322,6 +360,12 @@ class AnyKeywords extends SetKeywords {
         return false;
     }
 
+    @Override
+    Predicate<long[]> compile() {
+        long[] mask = KeywordDictionary.newSet(keys);
+        return s -> KeywordDictionary.containsAny(s, mask);
+    }
+
     @Override
     public String toString() {
         return "any of (" + allKwds + ")";
@@ -526,6 +570,13 @@ class AndExprKeywords extends BinaryExprKeywords {
         return left.accepts(s) && right.accepts(s);
     }
 
+    @Override
+    Predicate<long[]> compile() {
+        Predicate<long[]> l = left.compile();
+        Predicate<long[]> r = right.compile();
+        return s -> l.test(s) && r.test(s);
+    }
+
     @Override
     int precedence() {
         return 1;
@@ -554,6 +605,11 @@ class NotExprKeywords extends ExprKeywords {
         return !expr.accepts(s);
     }
 
+    @Override
+    Predicate<long[]> compile() {
+        return expr.compile().negate();
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null) {
@@ -597,6 +653,13 @@ class OrExprKeywords extends BinaryExprKeywords {
         return left.accepts(s) || right.accepts(s);
     }
 
+    @Override
+    Predicate<long[]> compile() {
+        Predicate<long[]> l = left.compile();
+        Predicate<long[]> r = right.compile();
+        return s -> l.test(s) || r.test(s);
+    }
+
     @Override
     int precedence() {
         return 0;
@@ -625,6 +688,11 @@ class ParenExprKeywords extends ExprKeywords {
         return expr.accepts(s);
     }
 
+    @Override
+    Predicate<long[]> compile() {
+        return expr.compile();
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null) {
@@ -670,6 +738,12 @@ class TermExprKeywords extends ExprKeywords {
         return s.contains(key);
     }
 
+    @Override
+    Predicate<long[]> compile() {
+        int index = KeywordDictionary.indexOf(key);
+        return s -> KeywordDictionary.contains(s, index);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null) {
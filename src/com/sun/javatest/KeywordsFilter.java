@@ -28,6 +28,8 @@ package com.sun.javatest;
 
 import com.sun.javatest.util.I18NResourceBundle;
 
+import java.util.function.Predicate;
+
 /**
  * A test filter that filters tests according to the keywords on a test description.
  */
@@ -70,7 +72,8 @@ public class KeywordsFilter extends TestFilter {
 
     @Override
     public boolean accepts(TestDescription td) {
-        return keywords.accepts(td.getKeywordTable());
+        Predicate<long[]> p = keywords.getCompiled();
+        return p != null ? p.test(td.getKeywordSet()) : keywords.accepts(td.getKeywordTable());
     }
 
     @Override
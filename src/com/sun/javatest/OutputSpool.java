@@ -0,0 +1,341 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * A buffer for the text written to an output stream of a test result.
+ * The text is held in a list of fixed-size chunks, so that neither adding
+ * text to the end of the buffer nor discarding text from the beginning
+ * copies the text that is already there.
+ * <p>
+ * If a directory is given, the text is moved into a temporary file in that
+ * directory once more than a given amount of text is held in memory; after
+ * that, only recently written text is held in memory, and is added to the
+ * file a block at a time. The text is stored in the file as UTF-16 code
+ * units, two bytes per char, so that any position in the text can be
+ * found directly. The file is deleted when the buffer is closed, which
+ * the owner of the buffer must do once the text is no longer required.
+ * <p>
+ * This class is not thread-safe: the caller is expected to provide any
+ * synchronization that may be required.
+ */
+class OutputSpool extends Writer {
+    private static final int CHUNK_SIZE = 8192;
+    // once spilled, the amount of text held in memory before it is written to the file
+    private static final int FLUSH_SIZE = 8 * CHUNK_SIZE;
+    // the amount of discarded text at the start of the file before it is reclaimed
+    private static final int MIN_COMPACT_SIZE = 1024 * 1024;
+
+    private final File dir;
+    private final int threshold;
+
+    // text in the file, if any: positions in chars
+    private File file;
+    private RandomAccessFile raf;
+    private long fileStart;
+    private long fileEnd;
+
+    // text in memory, following any text in the file
+    private final ArrayDeque<char[]> chunks = new ArrayDeque<>();
+    private int firstChunkStart;    // offset of the text in the first chunk
+    private int lastChunkEnd;       // end of the text in the last chunk
+    private long memLength;
+
+    /**
+     * Create a buffer which is held in memory.
+     */
+    OutputSpool() {
+        this(null, 0);
+    }
+
+    /**
+     * Create a buffer which will be moved to a file when it holds more
+     * than a given amount of text.
+     *
+     * @param dir       the directory in which to create the file, or null
+     *                  if the buffer should always be held in memory
+     * @param threshold the number of chars to be held in memory before the
+     *                  buffer is moved to a file
+     */
+    OutputSpool(File dir, int threshold) {
+        this.dir = dir;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Get the number of chars in the buffer.
+     *
+     * @return the number of chars in the buffer
+     */
+    long length() {
+        return (fileEnd - fileStart) + memLength;
+    }
+
+    /**
+     * Check whether the buffer has been moved to a file.
+     *
+     * @return true if the buffer has been moved to a file
+     */
+    boolean isSpilled() {
+        return raf != null;
+    }
+
+    @Override
+    public void write(char[] buf, int offset, int len) throws IOException {
+        while (len > 0) {
+            if (chunks.isEmpty() || lastChunkEnd == CHUNK_SIZE) {
+                chunks.addLast(new char[CHUNK_SIZE]);
+                lastChunkEnd = 0;
+            }
+            int n = Math.min(len, CHUNK_SIZE - lastChunkEnd);
+            System.arraycopy(buf, offset, chunks.getLast(), lastChunkEnd, n);
+            lastChunkEnd += n;
+            memLength += n;
+            offset += n;
+            len -= n;
+        }
+
+        if (raf != null ? memLength >= FLUSH_SIZE : (dir != null && memLength > threshold)) {
+            flushToFile();
+        }
+    }
+
+    @Override
+    public void write(String s, int offset, int len) throws IOException {
+        char[] buf = new char[len];
+        s.getChars(offset, offset + len, buf, 0);
+        write(buf, 0, len);
+    }
+
+    @Override
+    public void flush() {
+        // no-op
+    }
+
+    /**
+     * Discard the content of the buffer, and delete the file, if any.
+     * The buffer may continue to be used after it has been closed.
+     */
+    @Override
+    public void close() {
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            raf = null;
+            file.delete();
+            file = null;
+        }
+        fileStart = fileEnd = 0;
+        chunks.clear();
+        firstChunkStart = lastChunkEnd = 0;
+        memLength = 0;
+    }
+
+    /**
+     * Discard text from the beginning of the buffer.
+     *
+     * @param n the number of chars to be discarded
+     * @throws IOException if there is a problem accessing the file
+     */
+    void discardFirst(long n) throws IOException {
+        n = Math.max(0, Math.min(n, length()));
+
+        long d = Math.min(n, fileEnd - fileStart);
+        fileStart += d;
+        n -= d;
+
+        while (n > 0) {
+            int avail = (chunks.size() == 1 ? lastChunkEnd : CHUNK_SIZE) - firstChunkStart;
+            if (n >= avail) {
+                chunks.removeFirst();
+                firstChunkStart = 0;
+                if (chunks.isEmpty()) {
+                    lastChunkEnd = 0;
+                }
+                memLength -= avail;
+                n -= avail;
+            } else {
+                firstChunkStart += (int) n;
+                memLength -= n;
+                n = 0;
+            }
+        }
+
+        if (fileStart >= MIN_COMPACT_SIZE && fileStart > fileEnd - fileStart) {
+            compactFile();
+        }
+    }
+
+    /**
+     * Discard text from the end of the buffer.
+     *
+     * @param newLength the number of chars to be kept
+     */
+    void truncate(long newLength) {
+        long fileLength = fileEnd - fileStart;
+        if (newLength <= fileLength) {
+            fileEnd = fileStart + Math.max(0, newLength);
+            chunks.clear();
+            firstChunkStart = lastChunkEnd = 0;
+            memLength = 0;
+            return;
+        }
+
+        long keep = newLength - fileLength;
+        while (memLength > keep) {
+            int avail = lastChunkEnd - (chunks.size() == 1 ? firstChunkStart : 0);
+            long n = Math.min(memLength - keep, avail);
+            if (n == avail) {
+                chunks.removeLast();
+                lastChunkEnd = chunks.isEmpty() ? 0 : CHUNK_SIZE;
+                if (chunks.isEmpty()) {
+                    firstChunkStart = 0;
+                }
+            } else {
+                lastChunkEnd -= (int) n;
+            }
+            memLength -= n;
+        }
+    }
+
+    /**
+     * Write the text in the buffer to a writer, starting at a given position.
+     *
+     * @param start the position of the first char to be written
+     * @param out   the writer
+     * @throws IOException if there is a problem reading the file or writing the text
+     */
+    void writeTo(long start, Writer out) throws IOException {
+        long pos = fileStart + start;
+        if (pos < fileEnd) {
+            byte[] bytes = new byte[2 * CHUNK_SIZE];
+            char[] chars = new char[CHUNK_SIZE];
+            while (pos < fileEnd) {
+                int n = (int) Math.min(CHUNK_SIZE, fileEnd - pos);
+                raf.seek(2 * pos);
+                raf.readFully(bytes, 0, 2 * n);
+                for (int i = 0; i < n; i++) {
+                    chars[i] = (char) (((bytes[2 * i] & 0xff) << 8) | (bytes[2 * i + 1] & 0xff));
+                }
+                out.write(chars, 0, n);
+                pos += n;
+            }
+            start = 0;
+        } else {
+            start = pos - fileEnd;
+        }
+
+        Iterator<char[]> iter = chunks.iterator();
+        for (int i = 0; iter.hasNext(); i++) {
+            char[] chunk = iter.next();
+            int from = (i == 0 ? firstChunkStart : 0);
+            int to = (iter.hasNext() ? CHUNK_SIZE : lastChunkEnd);
+            if (start >= to - from) {
+                start -= to - from;
+                continue;
+            }
+            from += (int) start;
+            start = 0;
+            out.write(chunk, from, to - from);
+        }
+    }
+
+    /**
+     * Get the text in the buffer.
+     *
+     * @return the text in the buffer
+     * @throws IOException if there is a problem reading the file
+     */
+    String getText() throws IOException {
+        StringWriter sw = new StringWriter((int) Math.min(length(), Integer.MAX_VALUE));
+        writeTo(0, sw);
+        return sw.toString();
+    }
+
+    private void flushToFile() throws IOException {
+        if (raf == null) {
+            dir.mkdirs();
+            file = File.createTempFile("output", ".tmp", dir);
+            raf = new RandomAccessFile(file, "rw");
+        }
+
+        byte[] bytes = new byte[2 * CHUNK_SIZE];
+        raf.seek(2 * fileEnd);
+        Iterator<char[]> iter = chunks.iterator();
+        for (int i = 0; iter.hasNext(); i++) {
+            char[] chunk = iter.next();
+            int from = (i == 0 ? firstChunkStart : 0);
+            int to = (iter.hasNext() ? CHUNK_SIZE : lastChunkEnd);
+            int n = 0;
+            for (int j = from; j < to; j++) {
+                char c = chunk[j];
+                bytes[n++] = (byte) (c >> 8);
+                bytes[n++] = (byte) c;
+            }
+            raf.write(bytes, 0, n);
+        }
+        fileEnd += memLength;
+
+        chunks.clear();
+        firstChunkStart = lastChunkEnd = 0;
+        memLength = 0;
+    }
+
+    /**
+     * Move the text in the file to the beginning of the file, reclaiming
+     * the space used by discarded text.
+     */
+    private void compactFile() throws IOException {
+        byte[] bytes = new byte[2 * FLUSH_SIZE];
+        long from = 2 * fileStart;
+        long to = 0;
+        long end = 2 * fileEnd;
+        while (from < end) {
+            int n = (int) Math.min(bytes.length, end - from);
+            raf.seek(from);
+            raf.readFully(bytes, 0, n);
+            raf.seek(to);
+            raf.write(bytes, 0, n);
+            from += n;
+            to += n;
+        }
+        raf.setLength(to);
+        fileEnd -= fileStart;
+        fileStart = 0;
+    }
+}
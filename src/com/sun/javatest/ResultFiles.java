@@ -0,0 +1,193 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Support for writing result files into a work directory.
+ * Directories which are known to exist are remembered, so that writing a
+ * result does not check for its directory every time.
+ * <p>
+ * If the system property {@code javatest.jtrSync} is set to {@code true},
+ * result files are also made durable before they are reported as written:
+ * the data of each file is forced to disk by the thread that wrote it,
+ * before the file is renamed into place, and then its directory is forced.
+ * Directory forces are group committed: a thread which needs a directory
+ * forced either forces it on behalf of all the threads waiting for that
+ * directory, or waits for a force which began after its own rename.
+ */
+class ResultFiles {
+    private static final String SYNC_PROP = "javatest.jtrSync";
+
+    private final Set<File> knownDirs = ConcurrentHashMap.newKeySet();
+    private final Map<File, DirectorySync> dirSyncs = new ConcurrentHashMap<>();
+    private final boolean sync;
+
+    ResultFiles() {
+        this(Boolean.getBoolean(SYNC_PROP));
+    }
+
+    ResultFiles(boolean sync) {
+        this.sync = sync;
+    }
+
+    /**
+     * Check whether result files are forced to disk when they are written.
+     *
+     * @return true if result files are forced to disk
+     */
+    boolean isSync() {
+        return sync;
+    }
+
+    /**
+     * Make sure a directory exists, unless it is already known to exist.
+     *
+     * @param dir the directory
+     */
+    void mkdirs(File dir) {
+        if (!knownDirs.contains(dir)) {
+            dir.mkdirs();
+            if (dir.isDirectory()) {
+                knownDirs.add(dir);
+            }
+        }
+    }
+
+    /**
+     * Forget that a directory is known to exist, because it may have been
+     * removed, and create it again.
+     *
+     * @param dir the directory
+     */
+    void remkdirs(File dir) {
+        knownDirs.remove(dir);
+        mkdirs(dir);
+    }
+
+    /**
+     * Force the data of a file which has just been written to disk,
+     * if result files are to be made durable.
+     *
+     * @param file the file
+     * @throws IOException if there is a problem forcing the file
+     */
+    void force(File file) throws IOException {
+        if (sync) {
+            try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                ch.force(true);
+            }
+        }
+    }
+
+    /**
+     * Force the entries of a directory to disk, after a file has been
+     * renamed into it, if result files are to be made durable.
+     * This does not return until a force of the directory which began
+     * after this method was called has completed.
+     *
+     * @param dir the directory
+     * @throws IOException if there is a problem forcing the directory
+     */
+    void forceDirectory(File dir) throws IOException {
+        if (sync) {
+            dirSyncs.computeIfAbsent(dir, DirectorySync::new).force();
+        }
+    }
+
+    private static class DirectorySync {
+        private final File dir;
+        private long requested;     // number of forces requested so far
+        private long completed;     // all forces up to this one have been done
+        private boolean forcing;
+
+        DirectorySync(File dir) {
+            this.dir = dir;
+        }
+
+        void force() throws IOException {
+            long covered;
+            synchronized (this) {
+                long ticket = ++requested;
+                while (completed < ticket && forcing) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                }
+
+                if (completed >= ticket) {
+                    return;
+                }
+
+                // this thread forces the directory for every request so far
+                forcing = true;
+                covered = requested;
+            }
+
+            boolean ok = false;
+            try {
+                forceDirectory(dir);
+                ok = true;
+            } finally {
+                synchronized (this) {
+                    forcing = false;
+                    if (ok) {
+                        completed = covered;
+                    }
+                    notifyAll();
+                }
+            }
+        }
+
+        private static void forceDirectory(File dir) throws IOException {
+            FileChannel ch;
+            try {
+                ch = FileChannel.open(dir.toPath(), StandardOpenOption.READ);
+            } catch (IOException e) {
+                // some platforms do not allow directories to be opened,
+                // and do not need them to be forced either
+                return;
+            }
+
+            try {
+                ch.force(true);
+            } finally {
+                ch.close();
+            }
+        }
+    }
+}
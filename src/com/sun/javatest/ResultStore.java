@@ -0,0 +1,847 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * A store for all the result files of a work directory, kept in a few
+ * large files instead of one file per test.
+ * <p>
+ * Results are appended to a log, which is split into segments.  A segment
+ * is a file with a header followed by records:
+ * <pre>
+ * int    magic ("JTRL")
+ * int    version (1)
+ * records:
+ *     int    magic ("JTRS")
+ *     int    length of the path, in bytes
+ *     byte[] the work relative path of the result file, as UTF-8
+ *     int    length of the content, or -1 if the result was removed
+ *     byte[] the content of the result file
+ *     int    CRC-32 of the path length, path, content length and content
+ * </pre>
+ * Only the last segment is appended to; a new segment is started when it
+ * grows beyond a given size.  When no more than half of an older segment
+ * is still in use, the records still in use are copied to the last segment
+ * and the old one is deleted.
+ * <p>
+ * An index of the records in use is written from time to time, and after
+ * every compaction.  When the store is opened, the index is read, and any
+ * records written after it are read from the log, up to the first record
+ * which is incomplete or damaged, such as one which was being written
+ * when the harness stopped; the log is truncated there.
+ */
+class ResultStore {
+    /**
+     * The system property which causes the results for a work directory to
+     * be kept in a store, if set to "log".  Once a work directory has a
+     * store, it is always used for that work directory.
+     */
+    static final String STORE_PROP = "javatest.resultStore";
+    static final String STORE_LOG = "log";
+    static final String DIR_NAME = "results";
+
+    private static final String INDEX_NAME = "index";
+    private static final String SEGMENT_PREFIX = "seg-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int SEGMENT_MAGIC = 0x4A54524C;    // "JTRL"
+    private static final int RECORD_MAGIC = 0x4A545253;     // "JTRS"
+    private static final int INDEX_MAGIC = 0x4A545249;      // "JTRI"
+    private static final int VERSION = 1;
+    private static final int SEGMENT_HEADER_SIZE = 8;
+    private static final int RECORD_OVERHEAD = 16;
+    private static final int REMOVED = -1;
+    private static final long DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final Map<File, ResultStore> stores = new HashMap<>();
+
+    private final File dir;
+    private final long segmentSize;
+    private final boolean sync;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Entry> entries = new TreeMap<>();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private Segment active;
+    private long unindexedBytes;
+    private boolean closed;
+    private Thread shutdownHook;
+
+    // group commit of forces of the log
+    private final Object forceLock = new Object();
+    private long appended;      // total number of bytes appended
+    private long forced;        // all bytes up to here have been forced
+
+    /**
+     * Get the store for a work directory, creating it if necessary.
+     * There is at most one store object for each directory.
+     * The store is closed, writing its index, when the JVM exits,
+     * unless it has been closed before then.
+     *
+     * @param jtData the system directory of the work directory
+     * @param sync   whether results should be forced to disk before
+     *               they are reported as written
+     * @return the store
+     * @throws IOException if there is a problem opening the store
+     */
+    static ResultStore open(File jtData, boolean sync) throws IOException {
+        File dir = new File(jtData, DIR_NAME).getCanonicalFile();
+        synchronized (stores) {
+            ResultStore s = stores.get(dir);
+            if (s == null) {
+                s = new ResultStore(dir, DEFAULT_SEGMENT_SIZE, sync);
+                s.shutdownHook = new Thread(s::closeOnShutdown, "ResultStore.shutdown[" + dir + "]");
+                Runtime.getRuntime().addShutdownHook(s.shutdownHook);
+                stores.put(dir, s);
+            }
+            return s;
+        }
+    }
+
+    /**
+     * Check whether a work directory has a store.
+     *
+     * @param jtData the system directory of the work directory
+     * @return true if the work directory has a store
+     */
+    static boolean exists(File jtData) {
+        return new File(jtData, DIR_NAME).isDirectory();
+    }
+
+    /**
+     * Check whether a store should be created for work directories which do
+     * not already have one.
+     *
+     * @return true if a store should be created
+     */
+    static boolean isRequested() {
+        return STORE_LOG.equals(System.getProperty(STORE_PROP));
+    }
+
+    ResultStore(File dir, long segmentSize, boolean sync) throws IOException {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.sync = sync;
+
+        Files.createDirectories(dir.toPath());
+        load();
+    }
+
+    /**
+     * Check whether the store contains a result.
+     *
+     * @param path the work relative path of the result file
+     * @return true if the store contains the result
+     */
+    boolean contains(String path) {
+        lock.readLock().lock();
+        try {
+            Entry e = entries.get(path);
+            return e != null && e.length != REMOVED;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the content of a result file.
+     *
+     * @param path the work relative path of the result file
+     * @return the content of the result file, or null if it is not in the store
+     * @throws IOException if there is a problem reading the store
+     */
+    byte[] get(String path) throws IOException {
+        lock.readLock().lock();
+        try {
+            Entry e = entries.get(path);
+            if (e == null || e.length == REMOVED) {
+                return null;
+            }
+
+            checkOpen();
+            ByteBuffer buf = ByteBuffer.allocate(e.length);
+            segments.get(e.segment).readFully(buf, e.dataOffset);
+            return buf.array();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get a stream to read the content of a result file.
+     *
+     * @param path the work relative path of the result file
+     * @return a stream to read the content, or null if it is not in the store
+     * @throws IOException if there is a problem reading the store
+     */
+    InputStream getInputStream(String path) throws IOException {
+        byte[] data = get(path);
+        return data == null ? null : new ByteArrayInputStream(data);
+    }
+
+    /**
+     * Get the paths of all the result files in the store.
+     *
+     * @return the work relative paths of the result files, in order
+     */
+    List<String> getPaths() {
+        lock.readLock().lock();
+        try {
+            List<String> paths = new ArrayList<>(entries.size());
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                if (e.getValue().length != REMOVED) {
+                    paths.add(e.getKey());
+                }
+            }
+            return paths;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the paths of the result files in a directory and its subdirectories.
+     *
+     * @param dirPath the work relative path of the directory, or an empty
+     *                string for all the result files
+     * @return the work relative paths of the result files, in order
+     */
+    List<String> getPaths(String dirPath) {
+        if (dirPath.isEmpty()) {
+            return getPaths();
+        }
+
+        String prefix = dirPath.endsWith("/") ? dirPath : dirPath + "/";
+        lock.readLock().lock();
+        try {
+            List<String> paths = new ArrayList<>();
+            // '/' + 1 == '0', so this is every path which starts with the prefix
+            SortedMap<String, Entry> sub = entries.subMap(prefix,
+                    prefix.substring(0, prefix.length() - 1) + '0');
+            for (Map.Entry<String, Entry> e : sub.entrySet()) {
+                if (e.getValue().length != REMOVED) {
+                    paths.add(e.getKey());
+                }
+            }
+            return paths;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace a result file.  When this method returns the result
+     * has been written to the log, and if requested, forced to disk.
+     *
+     * @param path the work relative path of the result file
+     * @param data the content of the result file
+     * @throws IOException if there is a problem writing to the store
+     */
+    void put(String path, byte[] data) throws IOException {
+        append(path, data);
+    }
+
+    /**
+     * Remove a result file.
+     *
+     * @param path the work relative path of the result file
+     * @return true if the store contained the result file
+     * @throws IOException if there is a problem writing to the store
+     */
+    boolean remove(String path) throws IOException {
+        if (!contains(path)) {
+            return false;
+        }
+
+        append(path, null);
+        return true;
+    }
+
+    /**
+     * Write the index of the store, so that the log does not have to be
+     * read when the store is next opened.
+     *
+     * @throws IOException if there is a problem writing the index
+     */
+    void writeIndex() throws IOException {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            writeIndex0();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Write the index and close the store.  The store must not be used
+     * after it has been closed; a new one can be obtained from {@link #open}.
+     * Closing a store which has already been closed has no effect.
+     *
+     * @throws IOException if there is a problem writing the index
+     */
+    void close() throws IOException {
+        synchronized (stores) {
+            if (stores.get(dir) == this) {
+                stores.remove(dir);
+            }
+        }
+
+        if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+            // important to avoid a memory leak
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // it's ok if shutdown is in progress now
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            try {
+                if (unindexedBytes > 0) {
+                    writeIndex0();
+                }
+            } finally {
+                for (Segment s : segments.values()) {
+                    s.channel.close();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Check whether the store has been closed.
+     *
+     * @return true if the store has been closed
+     */
+    boolean isClosed() {
+        lock.readLock().lock();
+        try {
+            return closed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void closeOnShutdown() {
+        try {
+            close();
+        } catch (IOException e) {
+            // the log is replayed when the store is next opened
+        }
+    }
+
+    private void append(String path, byte[] data) throws IOException {
+        long end;
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            if (active.size >= segmentSize) {
+                roll();
+            }
+
+            Entry e = appendRecord(active, path, data);
+            replace(path, e);
+            end = appended;
+
+            if (unindexedBytes >= segmentSize / 2) {
+                writeIndex0();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (sync) {
+            force(end);
+        }
+    }
+
+    /**
+     * Force the log to disk, at least up to the given position.
+     * Threads waiting to force the log are served by a single force.
+     */
+    private void force(long end) throws IOException {
+        synchronized (forceLock) {
+            if (forced >= end) {
+                return;
+            }
+
+            long target;
+            Segment s;
+            lock.readLock().lock();
+            try {
+                target = appended;
+                s = active;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            s.channel.force(false);
+            forced = target;
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("result store has been closed: " + dir);
+        }
+    }
+
+    private Entry appendRecord(Segment s, String path, byte[] data) throws IOException {
+        byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        int length = data == null ? REMOVED : data.length;
+        int recordLength = RECORD_OVERHEAD + pathBytes.length + Math.max(length, 0);
+
+        ByteBuffer buf = ByteBuffer.allocate(recordLength);
+        buf.putInt(RECORD_MAGIC);
+        buf.putInt(pathBytes.length);
+        buf.put(pathBytes);
+        buf.putInt(length);
+        if (data != null) {
+            buf.put(data);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), 4, recordLength - 8);
+        buf.putInt((int) crc.getValue());
+        buf.flip();
+
+        long offset = s.size;
+        while (buf.hasRemaining()) {
+            s.channel.write(buf, offset + buf.position());
+        }
+        s.size += recordLength;
+        appended += recordLength;
+        unindexedBytes += recordLength;
+
+        return new Entry(s.id, offset + recordLength - 4 - Math.max(length, 0), length, recordLength);
+    }
+
+    /**
+     * Record a new entry for a path, updating the accounting of the space
+     * in use in each segment.
+     */
+    private void replace(String path, Entry e) {
+        Entry old = entries.put(path, e);
+        if (old != null) {
+            Segment s = segments.get(old.segment);
+            if (s != null) {
+                s.release(old);
+            }
+        }
+
+        if (e.length == REMOVED && segments.firstKey() == e.segment) {
+            // nothing older can be brought back by replaying the log
+            entries.remove(path);
+        } else {
+            segments.get(e.segment).use(e);
+        }
+    }
+
+    private void roll() throws IOException {
+        if (sync) {
+            active.channel.force(false);
+        }
+
+        active = createSegment(active.id + 1);
+        compact();
+    }
+
+    /**
+     * Copy the records still in use from segments which are mostly unused
+     * to the active segment, and delete them.
+     */
+    private void compact() throws IOException {
+        List<Segment> victims = new ArrayList<>();
+        boolean oldest = true;
+        for (Segment s : segments.values()) {
+            if (s == active) {
+                break;
+            }
+            // removal records are not needed in the oldest segment
+            long inUse = oldest ? s.liveBytes - s.removedBytes : s.liveBytes;
+            if (inUse * 2 <= s.size - SEGMENT_HEADER_SIZE) {
+                victims.add(s);
+            } else {
+                oldest = false;
+            }
+        }
+
+        if (victims.isEmpty()) {
+            return;
+        }
+
+        for (Segment s : victims) {
+            List<Map.Entry<String, Entry>> moves = new ArrayList<>();
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                if (e.getValue().segment == s.id) {
+                    moves.add(e);
+                }
+            }
+
+            boolean isOldest = segments.firstKey() == s.id;
+            for (Map.Entry<String, Entry> m : moves) {
+                Entry e = m.getValue();
+                if (e.length == REMOVED) {
+                    if (isOldest) {
+                        entries.remove(m.getKey());
+                        s.release(e);
+                    } else {
+                        replace(m.getKey(), appendRecord(active, m.getKey(), null));
+                    }
+                } else {
+                    ByteBuffer buf = ByteBuffer.allocate(e.length);
+                    s.readFully(buf, e.dataOffset);
+                    replace(m.getKey(), appendRecord(active, m.getKey(), buf.array()));
+                }
+            }
+        }
+
+        if (sync) {
+            active.channel.force(false);
+        }
+
+        // the index must not refer to the segments before they are deleted
+        for (Segment s : victims) {
+            segments.remove(s.id);
+        }
+        writeIndex0();
+
+        for (Segment s : victims) {
+            s.channel.close();
+            Files.deleteIfExists(s.file.toPath());
+        }
+    }
+
+    private void writeIndex0() throws IOException {
+        File temp = new File(dir, INDEX_NAME + ".tmp");
+        try (FileChannel ch = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch)));
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(segments.size());
+            for (Segment s : segments.values()) {
+                out.writeInt(s.id);
+                out.writeLong(s.size);
+            }
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> me : entries.entrySet()) {
+                Entry e = me.getValue();
+                out.writeUTF(me.getKey());
+                out.writeInt(e.segment);
+                out.writeLong(e.dataOffset);
+                out.writeInt(e.length);
+                out.writeInt(e.recordLength);
+            }
+            out.writeInt(INDEX_MAGIC);
+            out.flush();
+            if (sync) {
+                ch.force(true);
+            }
+        }
+
+        Files.move(temp.toPath(), new File(dir, INDEX_NAME).toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        unindexedBytes = 0;
+    }
+
+    private void load() throws IOException {
+        // find the segments
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                String name = f.getName();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        int id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                                name.length() - SEGMENT_SUFFIX.length()));
+                        segments.put(id, new Segment(id, f));
+                    } catch (NumberFormatException e) {
+                        // not a segment
+                    }
+                }
+            }
+        }
+
+        Map<Integer, Long> indexed = readIndex();
+        int lastIndexed = indexed.isEmpty() ? 0 : Collections.max(indexed.keySet());
+
+        // read any records after those in the index
+        for (Iterator<Segment> iter = segments.values().iterator(); iter.hasNext(); ) {
+            Segment s = iter.next();
+            Long from = indexed.get(s.id);
+            if (from == null && s.id < lastIndexed) {
+                // left over from a compaction which had not finished
+                iter.remove();
+                Files.deleteIfExists(s.file.toPath());
+                continue;
+            }
+            if (!s.open(from == null ? SEGMENT_HEADER_SIZE : from)) {
+                iter.remove();
+                continue;
+            }
+            scan(s, from == null ? SEGMENT_HEADER_SIZE : from);
+        }
+
+        // drop anything in segments which no longer exist
+        entries.values().removeIf(e -> !segments.containsKey(e.segment));
+        for (Segment s : segments.values()) {
+            s.liveBytes = 0;
+            s.removedBytes = 0;
+        }
+        for (Entry e : entries.values()) {
+            segments.get(e.segment).use(e);
+        }
+
+        active = segments.isEmpty() ? createSegment(1) : segments.lastEntry().getValue();
+        appended = forced = 0;
+    }
+
+    /**
+     * Read the index, if there is a valid one.
+     *
+     * @return the length of each segment covered by the index
+     */
+    private Map<Integer, Long> readIndex() {
+        Map<Integer, Long> indexed = new HashMap<>();
+        File f = new File(dir, INDEX_NAME);
+        if (!f.exists()) {
+            return indexed;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(f.toPath())))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != VERSION) {
+                return indexed;
+            }
+
+            int nSegments = in.readInt();
+            for (int i = 0; i < nSegments; i++) {
+                int id = in.readInt();
+                long size = in.readLong();
+                indexed.put(id, size);
+            }
+
+            int nEntries = in.readInt();
+            for (int i = 0; i < nEntries; i++) {
+                String path = in.readUTF();
+                entries.put(path, new Entry(in.readInt(), in.readLong(), in.readInt(), in.readInt()));
+            }
+
+            if (in.readInt() != INDEX_MAGIC) {
+                throw new IOException("bad index");
+            }
+
+            return indexed;
+        } catch (IOException e) {
+            // ignore the index, and read all the segments
+            entries.clear();
+            indexed.clear();
+            return indexed;
+        }
+    }
+
+    /**
+     * Read the records in a segment from a given position, and truncate the
+     * segment after the last complete record.
+     */
+    private void scan(Segment s, long from) throws IOException {
+        long pos = from;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(s.file.toPath())))) {
+            in.skipBytes((int) from);
+            while (pos < s.size) {
+                if (in.readInt() != RECORD_MAGIC) {
+                    break;
+                }
+                int pathLength = in.readInt();
+                if (pathLength < 0 || pos + RECORD_OVERHEAD + pathLength > s.size) {
+                    break;
+                }
+                byte[] pathBytes = new byte[pathLength];
+                in.readFully(pathBytes);
+                int length = in.readInt();
+                if (length < REMOVED || pos + RECORD_OVERHEAD + pathLength + Math.max(length, 0) > s.size) {
+                    break;
+                }
+                byte[] data = new byte[Math.max(length, 0)];
+                in.readFully(data);
+                int checksum = in.readInt();
+
+                CRC32 crc = new CRC32();
+                ByteBuffer b = ByteBuffer.allocate(8);
+                b.putInt(pathLength);
+                crc.update(b.array(), 0, 4);
+                crc.update(pathBytes);
+                b.clear();
+                b.putInt(length);
+                crc.update(b.array(), 0, 4);
+                crc.update(data);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                int recordLength = RECORD_OVERHEAD + pathLength + data.length;
+                entries.put(new String(pathBytes, StandardCharsets.UTF_8),
+                        new Entry(s.id, pos + RECORD_OVERHEAD - 4 + pathLength, length, recordLength));
+                pos += recordLength;
+                unindexedBytes += recordLength;
+            }
+        } catch (EOFException e) {
+            // incomplete record
+        }
+
+        if (pos < s.size) {
+            s.channel.truncate(pos);
+            s.size = pos;
+        }
+    }
+
+    private Segment createSegment(int id) throws IOException {
+        File f = new File(dir, SEGMENT_PREFIX + String.format("%06d", id) + SEGMENT_SUFFIX);
+        Segment s = new Segment(id, f);
+        s.channel = FileChannel.open(f.toPath(), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+        header.putInt(SEGMENT_MAGIC);
+        header.putInt(VERSION);
+        header.flip();
+        while (header.hasRemaining()) {
+            s.channel.write(header, header.position());
+        }
+        s.size = SEGMENT_HEADER_SIZE;
+        segments.put(id, s);
+        return s;
+    }
+
+    /**
+     * The location of a result file in the log.
+     */
+    private static class Entry {
+        final int segment;
+        final long dataOffset;
+        final int length;           // or REMOVED
+        final int recordLength;
+
+        Entry(int segment, long dataOffset, int length, int recordLength) {
+            this.segment = segment;
+            this.dataOffset = dataOffset;
+            this.length = length;
+            this.recordLength = recordLength;
+        }
+    }
+
+    private static class Segment {
+        final int id;
+        final File file;
+        FileChannel channel;
+        long size;
+        long liveBytes;         // bytes of records in use
+        long removedBytes;      // bytes of removal records in use
+
+        Segment(int id, File file) {
+            this.id = id;
+            this.file = file;
+        }
+
+        /**
+         * Open the segment, checking the header.
+         *
+         * @param minSize the size the segment is expected to have
+         * @return false if the segment is not valid
+         */
+        boolean open(long minSize) throws IOException {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            size = channel.size();
+
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+            if (size < Math.max(minSize, SEGMENT_HEADER_SIZE)) {
+                channel.close();
+                return false;
+            }
+            readFully(header, 0);
+            if (header.getInt(0) != SEGMENT_MAGIC || header.getInt(4) != VERSION) {
+                channel.close();
+                return false;
+            }
+            return true;
+        }
+
+        void readFully(ByteBuffer buf, long offset) throws IOException {
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, offset + buf.position()) < 0) {
+                    throw new EOFException(file.getPath());
+                }
+            }
+        }
+
+        void use(Entry e) {
+            liveBytes += e.recordLength;
+            if (e.length == REMOVED) {
+                removedBytes += e.recordLength;
+            }
+        }
+
+        void release(Entry e) {
+            liveBytes -= e.recordLength;
+            if (e.length == REMOVED) {
+                removedBytes -= e.recordLength;
+            }
+        }
+    }
+}
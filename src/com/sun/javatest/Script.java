@@ -140,6 +140,7 @@ public abstract class Script {
     private static final String DEFAULT_EXECUTE_COMMAND = "execute";
     private static final String DEFAULT_RMIC_COMMAND = "rmic";
     private static final String defaultClassDir = "classes";
+    private static final String OUTPUT_SPILL_DIR = "output";
     private static ResourceTable sourceTable = new ResourceTable();
     private static String osInfo;
     private static boolean debugAlarm = Boolean.getBoolean("debug.com.sun.javatest.Script.Alarm");
@@ -243,6 +244,7 @@ public abstract class Script {
         this.td = td;
         testResult = new TestResult(td);
         trOut = testResult.getTestCommentWriter();
+        initOutputSpillDir();
     }
 
     /**
@@ -276,6 +278,14 @@ public abstract class Script {
      */
     public void initWorkDir(WorkDirectory workDir) {
         this.workDir = workDir;
+        initOutputSpillDir();
+    }
+
+    // any test output too big to be kept in memory is kept in the work directory
+    private void initOutputSpillDir() {
+        if (testResult != null && workDir != null) {
+            testResult.setOutputSpillDir(workDir.getSystemFile(OUTPUT_SPILL_DIR));
+        }
     }
 
     /**
@@ -408,6 +418,7 @@ public abstract class Script {
         env.put("testDir", td.getFile().getParent());
         env.put("testURL", descUrl);
         env.put("testPath", td.getRootRelativeURL());
+        env.put("testKeywords", td.getKeywords());
 
         int timeout = getTestTimeout();
         PrintStream out = System.out;
@@ -468,14 +479,22 @@ public abstract class Script {
         //allows for potential aditional status modification in Script subclasses
         setTestResultStatus(testResult, execStatus);
 
+        boolean written = false;
         try {
             if (execStatus.getType() != Status.PASSED || jtrIfPassed) {
                 testResult.writeResults(workDir, backupPolicy);
+                written = true;
             }
         } catch (IOException e) {
             // ignore it; the test will have an error status already
             //throw new JavaTestError("Unable to write result file! " + e);
         }
+
+        if (!written) {
+            // there is no result file from which any output kept in
+            // temporary files could be reloaded
+            testResult.restoreSpilledOutput();
+        }
     }
 
     /**
@@ -1434,6 +1453,7 @@ public abstract class Script {
         private Thread threadToInterrupt;
         private int count;
         private Timer.Entry entry;
+        private boolean cancelled;
 
         Alarm(int delay) {
             this(delay, Thread.currentThread());
@@ -1456,10 +1476,16 @@ public abstract class Script {
                 System.err.println(i18n.getString("script.alarm.cancelled", this));
             }
             alarmTimer.cancel(entry);
+            cancelled = true;
         }
 
         @Override
         public synchronized void timeout() {
+            if (cancelled) {
+                // the callback was already on its way when the alarm was cancelled
+                return;
+            }
+
             if (count == 0) {
                 trOut.println(i18n.getString("script.timeout", Float.valueOf(delay / 1000.f)));
             } else if (count % 100 == 0) {
@@ -33,13 +33,14 @@ import com.sun.javatest.util.DynamicArray;
 import com.sun.javatest.util.I18NResourceBundle;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Hashtable;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * This is the implementation of a tree node structure for TestResultTable.
@@ -52,19 +53,46 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
 
     //static protected boolean debug = Boolean.getBoolean("debug." + TRT_TreeNode.class.getName());
     static protected int debug = Debug.getInt(TRT_TreeNode.class);
-    // no per-instance array of observers, use a static Hashtable of arrays
-    private static Map<TRT_TreeNode, TestResultTable.TreeNodeObserver[]> observerTable = new Hashtable<>(16);
     private static I18NResourceBundle i18n = I18NResourceBundle.getBundleForClass(TRT_TreeNode.class);
     /**
-     * null if the node has not been scanned, zero length if it is actually empty
+     * Nodes with fewer children than this are searched for tests linearly,
+     * larger ones build a hash index of their tests.
+     */
+    private static final int MIN_INDEXED_CHILDREN = 16;
+    private static final AtomicIntegerFieldUpdater<TRT_TreeNode> counterUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(TRT_TreeNode.class, "counter");
+    /**
+     * null if the node has not been scanned, zero length if it is actually empty.
+     * <p>
+     * Children are only changed while holding the lock on this node, but are
+     * read without locking.  Writers fill in a slot before publishing it by
+     * writing {@code childCount}, and never shrink the array, so a reader
+     * which reads {@code childCount} first and then {@code children} can
+     * always safely read that many slots.
      */
     private Object[] children;            // contains combo of TreeNodes or TestResults
+    private volatile int childCount;    // number of slots in use in children, the rest is spare capacity
+    /**
+     * Open addressing table of the tests in this node, by work relative path.
+     * Each slot is a pair of the path hash and the child index plus one,
+     * an index of zero marks an empty slot.  Only built for nodes with at
+     * least MIN_INDEXED_CHILDREN children, and rebuilt whenever children
+     * are removed.
+     */
+    private volatile int[] testIndex;
+    private int indexedTests;
+    private volatile TestResultTable.TreeNodeObserver[] observers;
     private TRT_TreeNode parent;        // should never be null, unless root
     private TestResultTable table;      // what table this node is in
-    private int counter;                // nodes below this point and including self
-    private int[] childStats;
+    private volatile int counter;       // nodes below this point and including self
+    private volatile int[] childStats;
+    private final Object childStatsLock = new Object();
+    private int childStatsVersion;      // guarded by childStatsLock, changed on each invalidation
     private String name;                // basically the directory name, null means root node
-    private OptionalLong lastScanDate = OptionalLong.empty();
+    private volatile OptionalLong lastScanDate = OptionalLong.empty();
+    // set once scanIfNeeded has finished scanning the node; lastScanDate
+    // is set earlier, while the scan is in progress, to prevent recursion
+    private volatile boolean scanned;
     /**
      * List of files that makeup the on-disk contents of this node.
      * These are probably HTML files with test descriptions in them.  The string is a
@@ -179,28 +207,45 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      * It is assumed that if a node has null childStats, that all nodes between
      * it and the root are also marked invalid.
      */
-    private static void refreshChildStats(TRT_TreeNode node) {
-        if (node.childStats != null) {
-            return;        // nothing to do
+    private static int[] refreshChildStats(TRT_TreeNode node) {
+        int[] childStats = node.childStats;
+        if (childStats != null) {
+            return childStats;        // nothing to do
+        }
+
+        int version;
+        synchronized (node.childStatsLock) {
+            version = node.childStatsVersion;
         }
 
-        node.childStats = new int[Status.NUM_STATES];
+        childStats = new int[Status.NUM_STATES];
 
-        for (int i = 0; i < node.children.length; i++) {
-            if (node.children[i] instanceof TRT_TreeNode) {
+        int count = node.childCount;
+        Object[] children = node.children;
+        for (int i = 0; i < count; i++) {
+            if (children[i] instanceof TRT_TreeNode) {
                 // node is another branch
-                TRT_TreeNode child = (TRT_TreeNode) node.children[i];
+                TRT_TreeNode child = (TRT_TreeNode) children[i];
                 int[] stats = child.getChildStatus();
 
                 for (int j = 0; j < stats.length; j++) {
-                    node.childStats[j] += stats[j];
+                    childStats[j] += stats[j];
                 }
-            } else {
+            } else if (children[i] != null) {
                 // node is a test result
-                TestResult tr = (TestResult) node.children[i];
-                node.childStats[tr.getStatus().getType()]++;
+                TestResult tr = (TestResult) children[i];
+                childStats[tr.getStatus().getType()]++;
+            }
+        }
+
+        // only keep the counts if nothing changed while they were calculated
+        synchronized (node.childStatsLock) {
+            if (node.childStatsVersion == version) {
+                node.childStats = childStats;
             }
         }
+
+        return childStats;
     }
 
     /**
@@ -208,13 +253,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      */
     @Override
     public synchronized void addObserver(TestResultTable.TreeNodeObserver obs) {
-        TestResultTable.TreeNodeObserver[] observers = observerTable.get(this);
-
-        if (observers == null) {
-            observers = new TestResultTable.TreeNodeObserver[0];
-        }
-        observers = DynamicArray.append(observers, obs);
-        observerTable.put(this, observers);
+        observers = DynamicArray.append(observers, obs, TestResultTable.TreeNodeObserver.class);
     }
 
     /**
@@ -222,16 +261,8 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      */
     @Override
     public synchronized void removeObserver(TestResultTable.TreeNodeObserver obs) {
-        TestResultTable.TreeNodeObserver[] observers = observerTable.get(this);
-        if (observers == null) {
-            return;
-        }
-
-        observers = DynamicArray.remove(observers, obs);
-        if (observers == null) {
-            observerTable.remove(this);
-        } else {
-            observerTable.put(this, observers);
+        if (observers != null) {
+            observers = DynamicArray.remove(observers, obs);
         }
     }
 
@@ -291,11 +322,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     public int getChildCount() {
         scanIfNeeded();
 
-        if (children == null) {
-            return 0;
-        } else {
-            return children.length;
-        }
+        return childCount;
     }
 
     @Override
@@ -318,7 +345,9 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             scanIfNeeded();
         }
 
-        if (children == null || index >= children.length) {
+        int count = childCount;
+        Object[] children = this.children;
+        if (children == null || index < 0 || index >= count) {
             return null;
         } else {
             return children[index];
@@ -332,14 +361,24 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     public TestResult[] getTestResults() {
         scanIfNeeded();
 
-        TestResult[] leafs = null;
+        int count = childCount;
+        Object[] children = this.children;
+        int tests = 0;
+        for (int i = 0; i < count; i++) {
+            if (children[i] instanceof TestResult) {
+                tests++;
+            }
+        }
 
-        if (children != null && children.length != 0) {
-            for (Object child : children) {
-                if (child instanceof TestResult) {
-                    leafs = (TestResult[]) DynamicArray.append(leafs, child);
-                }
-            }   // for
+        if (tests == 0) {
+            return null;
+        }
+
+        TestResult[] leafs = new TestResult[tests];
+        for (int i = 0, j = 0; i < count && j < tests; i++) {
+            if (children[i] instanceof TestResult) {
+                leafs[j++] = (TestResult) children[i];
+            }
         }
 
         return leafs;
@@ -394,15 +433,17 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     public TestResultTable.TreeNode[] getTreeNodes() {
         scanIfNeeded();
 
+        int count = childCount;
+        Object[] children = this.children;
         if (children == null) {
             return null;
         }
 
         TestResultTable.TreeNode[] leafs = null;
 
-        for (Object child : children) {
-            if (child instanceof TreeNode) {
-                leafs = (TreeNode[]) DynamicArray.append(leafs, child);
+        for (int i = 0; i < count; i++) {
+            if (children[i] instanceof TreeNode) {
+                leafs = (TreeNode[]) DynamicArray.append(leafs, children[i]);
             }
         }
 
@@ -422,13 +463,15 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     public boolean isLeaf(int index) {
         scanIfNeeded();
 
-        if (index < 0 || index >= children.length) {
+        int count = childCount;
+        Object[] children = this.children;
+        if (index < 0 || index >= count) {
             return false;
         } else if (children[index] instanceof TestResult) {
             return true;
         } else if (children[index] instanceof TRT_TreeNode) {
             // if there are no nodes or tests below, then...
-            return children == null || children.length == 0;
+            return count == 0;
         } else        // should never be the case
         {
             return false;
@@ -439,11 +482,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     public int[] getChildStatus() {
         scanSubtree(this);
 
-        if (childStats == null) {
-            refreshChildStats(this);
-        }
-
-        return childStats;
+        return refreshChildStats(this);
     }
 
     @Override
@@ -463,7 +502,17 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
         } else if (children == null) {
             return -1;      // not found
         } else {
-            for (int i = 0; i < children.length; i++) {
+            if (target instanceof TestResult) {
+                int index = findTest(((TestResult) target).getWorkRelativePath());
+                if (index >= 0 && getChild(index, true) == target) {
+                    return index;
+                }
+            }
+
+            // the index may have missed a concurrent change, or target is a branch
+            int count = childCount;
+            Object[] children = this.children;
+            for (int i = 0; i < count; i++) {
                 if (children[i] == target) {
                     return i;
                 }
@@ -490,11 +539,13 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
         //if (file.isDirectory())
         //   throw new JavaTestError(i18n, "trttn.noPaths");
 
-        if (children == null || children.length == 0) {
+        int count = childCount;
+        Object[] children = this.children;
+        if (count == 0) {
             return null;
         }
 
-        for (int i = 0; i < children.length; i++) {
+        for (int i = 0; i < count; i++) {
             if (children[i] instanceof TestResult) {
                 TestResult tr = (TestResult) children[i];
 
@@ -510,7 +561,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
 
                 if (name.equals(url)) {
                     found = (TestResult) children[i];
-                    i = children.length;    // exit loop
+                    i = count;    // exit loop
                 } else {
                     found = null;
                 }
@@ -556,7 +607,10 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     }
 
     void invalidateChildStats() {
-        childStats = null;
+        synchronized (childStatsLock) {
+            childStatsVersion++;
+            childStats = null;
+        }
         notifyCounterChange();
         TRT_TreeNode parent = (TRT_TreeNode) getParent();
 
@@ -577,7 +631,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      */
     @java.lang.Deprecated
     void incNodeCounter() {
-        counter++;
+        counterUpdater.incrementAndGet(this);
     }
 
     // -- END REFRESH METHODS --
@@ -654,7 +708,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      *
      * @return The index of the request test result.  -1 if not found.
      */
-    synchronized int getResultIndex(String jtrPath, boolean suppressScan) {
+    int getResultIndex(String jtrPath, boolean suppressScan) {
         if (jtrPath == null) {
             throw new JavaTestError(i18n, "trttn.nullSearch");
         }
@@ -663,28 +717,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             scanIfNeeded();
         }
 
-        int found = -1;
-
-        if (children != null && children.length != 0) {
-            for (int i = 0; i < children.length; i++) {
-                if (children[i] instanceof TestResult) {
-                    TestResult tr = (TestResult) children[i];
-
-                    if (tr.getWorkRelativePath().equals(jtrPath)) {
-                        found = i;
-                        break;
-                    } else {
-                        // not a previous instance of this TR, skip it
-                        // placeholder to avoid dangling else
-                    }
-                } else {
-                    // this is a TreeNode, skip it
-                    // placeholder to avoid dangling else
-                }
-            }   // for
-        }   // outer if
-
-        return found;
+        return findTest(jtrPath);
     }
 
     /**
@@ -710,7 +743,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      *             "api/java_lang"
      * @return The index of the requested TRT_TreeNode.
      */
-    synchronized int getNodeIndex(String name, boolean suppressScan) {
+    int getNodeIndex(String name, boolean suppressScan) {
         if (!suppressScan) {
             scanIfNeeded();
         }
@@ -721,10 +754,12 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             throw new JavaTestError(i18n, "trttn.nullSearch");
         }
 
-        if (children == null || children.length == 0) {
+        int count = childCount;
+        Object[] children = this.children;
+        if (count == 0) {
             found = -1;
         } else {
-            for (int i = 0; i < children.length; i++) {
+            for (int i = 0; i < count; i++) {
                 if (children[i] instanceof TRT_TreeNode) {
                     TRT_TreeNode tn = (TRT_TreeNode) children[i];
                     if (tn.getName().equals(name)) {
@@ -747,7 +782,17 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     /**
      * In the case where a test finder is being used, nodes are read lazily.
      */
-    synchronized void scanIfNeeded() {
+    void scanIfNeeded() {
+        // checked without locking first, so that readers of nodes which
+        // have been scanned do not contend with writers
+        if (table.getTestFinder() == null || scanned) {
+            return;
+        }
+
+        scanIfNeeded0();
+    }
+
+    private synchronized void scanIfNeeded0() {
         if (debug > 0) {
             Debug.println("starting scanIfNeeded() on node " + getName());
         }
@@ -792,6 +837,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
         File thisDir = new File(TestResultTable.getRootRelativePath(this));
         long lmd = table.getLastModifiedTime(thisDir);
         if (lastScanDate.isPresent() && lmd <= lastScanDate.getAsLong()) {
+            scanned = true;
             return;
         }
 
@@ -817,6 +863,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
         }
 
         lastScanDate = OptionalLong.of(lmd);
+        scanned = true;
 
         // send observer msg?
         // delete unneeded objects from TestResultTable.TreeNode?
@@ -845,6 +892,17 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             }
         }
 
+        ResultStore store = workdir == null ? null : workdir.getResultStore();
+        if (store != null) {
+            try {
+                store.remove(tr.getWorkRelativePath());
+            } catch (IOException e) {
+                if (debug > 0) {
+                    e.printStackTrace(Debug.getWriter());
+                }
+            }
+        }
+
         String name = tr.getTestName();
         String filename = null;
         int lastSlash = name.lastIndexOf('/');
@@ -899,9 +957,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             //File thisDir = new File(getTestSuiteRootPathPrefix(),
             //              TestResultTable.getRootRelativePath(this));
             File thisDir = new File(TestResultTable.getRootRelativePath(this));
-            TestFinder finder = table.getTestFinder();
 
-            File[] files = null;
             long thisScanDate = table.getLastModifiedTime(thisDir);
 
             // may be less than if the custom finder starts to return a
@@ -910,15 +966,8 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
                 return false;
             }
 
-            synchronized (finder) {
-                finder.read(thisDir);
-                // we should not get back any tests
-                File[] tmp = finder.getFiles();
-
-                // shallow copy before releasing finder
-                files = new File[tmp.length];
-                System.arraycopy(tmp, 0, files, 0, tmp.length);
-            }   // sync
+            // we should not get back any tests
+            File[] files = readFile(thisDir, false).getFiles();
 
 
             OptionalLong cachedScanDate = lastScanDate;
@@ -1090,17 +1139,8 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             System.out.println("Updating file " + fileToScan.getPath());
         }
 
-        TestFinder finder = table.getTestFinder();
-        TestDescription[] tds = null;
         // what if test ids removed?
-        synchronized (finder) {
-            finder.read(fileToScan);
-            TestDescription[] tds_tmp = finder.getTests();
-
-            // shallow copy for safety
-            tds = new TestDescription[tds_tmp.length];
-            System.arraycopy(tds_tmp, 0, tds, 0, tds_tmp.length);
-        }       // sync
+        TestDescription[] tds = readFile(fileToScan, false).getTests();
 
         for (TestDescription td : tds) {
             TestResult tr = getTestResult(td.getRootRelativeURL());
@@ -1192,17 +1232,13 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
                 oldTd == null) {
             // run the finder on the correct file
             // find the matching TD
-            TestFinder finder = table.getTestFinder();
-            synchronized (finder) {
-                finder.read(fileToScan);
-                TestDescription[] tds = finder.getTests();
-                for (TestDescription td : tds) {
-                    if (td.getRootRelativeURL().equals(name)) {
-                        possibleNew = td;   // found
-                        break;
-                    }
+            TestDescription[] tds = readFile(fileToScan, false).getTests();
+            for (TestDescription td : tds) {
+                if (td.getRootRelativeURL().equals(name)) {
+                    possibleNew = td;   // found
+                    break;
                 }
-            }   // sync
+            }
         } else {
         }
         // postcondition - oldTd may still be null
@@ -1218,9 +1254,8 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     }
 
     private TestResult replaceTest(TestResult newTr, int index) {
-        TestResult oldTr = (TestResult) children[index];
+        TestResult oldTr = setTest(index, newTr);
 
-        children[index] = newTr;
         notifyReplacedResult(oldTr, newTr, index);
         newTr.setParent(this);
         oldTr.setParent(null);
@@ -1250,38 +1285,15 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
         }
         ArrayList<TestResult> result = new ArrayList<>();
 
-        TestDescription[] tds = null;
-        File[] files = null;
-        TestFinder tf = table.getTestFinder();
-
-        // finder object has state, so we need to control access to it
-        synchronized (tf) {
-            tf.read(file);
-            TestDescription[] tds_tmp = tf.getTests();
-            File[] files_tmp = tf.getFiles();
-
-            // shallow copy everything just in case...
-            // copy tests array
-            if (tds_tmp != null && tds_tmp.length != 0) {
-                tds = new TestDescription[tds_tmp.length];
-                System.arraycopy(tds_tmp, 0, tds, 0, tds_tmp.length);
-            } else {
-                tds = new TestDescription[0];
-            }
-
-            // copy files array
-            if (files_tmp != null && files_tmp.length != 0) {
-                files = new File[files_tmp.length];
-                System.arraycopy(files_tmp, 0, files, 0, files_tmp.length);
-            } else {
-                files = new File[0];
-            }
+        // the first scan of a file may use the result read ahead by the crawler
+        TestFinderCrawler.Entry entry = readFile(file, true);
+        TestDescription[] tds = entry.getTests();
+        File[] files = entry.getFiles();
 
-            if (debug > 0) {
-                Debug.println("Read " + tds.length + " tests, and " +
-                        files.length + " files.");
-            }
-        }   // sync
+        if (debug > 0) {
+            Debug.println("Read " + tds.length + " tests, and " +
+                    files.length + " files.");
+        }
 
         // process the tests
         for (TestDescription td : tds) {
@@ -1303,6 +1315,60 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
         return result;
     }
 
+    /**
+     * Read a file using the test finder.  If the test suite is being read in
+     * parallel, a copy of the finder is used, so that other nodes may read
+     * files at the same time; otherwise, access to the shared finder is
+     * serialized, since the finder object has state.  The first scan of a
+     * file may use the index in the work directory, if the file has not
+     * changed since it was last read; the index is updated after every read.
+     *
+     * @param file       The file to read.
+     * @param prefetched True if the result may have been read ahead of time
+     *                   by the crawler, false if the file must be read now.
+     * @return The tests and files that were found.
+     */
+    private TestFinderCrawler.Entry readFile(File file, boolean prefetched) {
+        TestFinderCrawler crawler = table.getFinderCrawler();
+        if (crawler != null) {
+            // the crawler takes care of the index, if any
+            TestFinderCrawler.Entry entry = prefetched ? crawler.take(file) : null;
+            return entry != null ? entry : crawler.read(file);
+        }
+
+        TestFinderIndex index = table.getFinderIndex();
+        if (prefetched && index != null) {
+            TestFinderCrawler.Entry entry = index.lookup(file);
+            if (entry != null) {
+                return entry;
+            }
+        }
+
+        TestFinder tf = table.getTestFinder();
+        TestFinderCrawler.Entry entry;
+        synchronized (tf) {
+            long readTime = System.currentTimeMillis();
+            int errorCount = tf.getErrorCount();
+            tf.read(file);
+            TestDescription[] tds = tf.getTests();
+            File[] files = tf.getFiles();
+            // the errors have already been reported; they are only noted
+            // here, so that the file is not added to the index
+            String[] errors = tf.getErrorCount() == errorCount ? new String[0] : tf.getErrors();
+
+            // shallow copy everything before releasing finder, just in case...
+            entry = new TestFinderCrawler.Entry(
+                    tds == null ? new TestDescription[0] : tds.clone(),
+                    files == null ? new File[0] : files.clone(),
+                    errors, readTime);
+        }   // sync
+
+        if (index != null) {
+            index.store(file, entry);
+        }
+        return entry;
+    }
+
     /**
      * Takes the files the Finder returned and creates any needed nodes.
      */
@@ -1620,7 +1686,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             Debug.println("   -> local node ref: " + this);
             Debug.println("   -> local node name: " + this.getName());
             Debug.println("   -> local size: " +
-                    (children == null ? 0 : children.length));
+                    childCount);
         }
 
         int oldIndex = getTestIndex(tr, suppressScan);
@@ -1635,21 +1701,14 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
                     Debug.println("   -> no old entry for " + tr);
                 }
 
-                try {
-                    // XXX should cache result of Class.forName
-                    children = DynamicArray.append(children, tr, Class.forName("java.lang.Object"));
-                    tr.setParent(this);
-                    bubbleUpCounterInc();
-                    notifyInsResult(tr, children.length - 1);
-                }       // try
-                catch (ClassNotFoundException e) {
-                    throw new JavaTestError(i18n, "trttn.noObject", e);
-                }       // catch
+                int index = appendChild(tr);
+                tr.setParent(this);
+                bubbleUpCounterInc();
+                notifyInsResult(tr, index);
             }
         } else if (shouldReplaceTest(oldIndex, tr, suppressScan)) {
             // replace a previous result
-            oldTR = (TestResult) children[oldIndex];
-            children[oldIndex] = tr;
+            oldTR = setTest(oldIndex, tr);
             if (debug > 0) {
                 Debug.println("   -> ** replacing existing TR with " + tr);
                 Debug.println("   -> " + tr.getTestName());
@@ -1697,12 +1756,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             scanIfNeeded();
         }
 
-        try {
-            children = DynamicArray.append(children, tn,
-                    Class.forName("java.lang.Object"));
-        } catch (ClassNotFoundException e) {
-            throw new JavaTestError(i18n, "trttn.noObject", e);
-        }
+        appendChild(tn);
     }
 
     /**
@@ -1714,10 +1768,9 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             throw new IllegalStateException("Node is empty!");
         }
 
-        for (int i = 0; i < children.length; i++) {
+        for (int i = 0; i < childCount; i++) {
             if (children[i] == tn) {
-                Object[] newarr = DynamicArray.remove(children, i);
-                children = newarr == null ? new Object[0] : newarr;
+                removeChild(i);
                 invalidateChildStats();
                 notifyRemovedBranch(i);
 
@@ -1739,17 +1792,156 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             throw new IllegalStateException("Node is empty!");
         }
 
-        for (int i = 0; i < children.length; i++) {
-            if (children[i] == tr) {
-                Object[] newarr = DynamicArray.remove(children, i);
-                children = newarr == null ? new Object[0] : newarr;
-                invalidateChildStats();
-                notifyRemovedResult(tr, i);
-                return i;
+        int i = getIndex(tr, true);
+        if (i >= 0) {
+            removeChild(i);
+            invalidateChildStats();
+            notifyRemovedResult(tr, i);
+        }
+
+        return i;
+    }
+
+    /**
+     * Append a test or node to the children of this node, growing the
+     * storage geometrically so that a series of inserts does not copy the
+     * array each time.  Must be called while holding the lock on this node.
+     *
+     * @return the index of the new child
+     */
+    private int appendChild(Object child) {
+        int index = childCount;
+        Object[] children = this.children;
+        if (children == null || index == children.length) {
+            int capacity = index < 4 ? 4 : index + (index >> 1);
+            children = children == null ? new Object[capacity] : Arrays.copyOf(children, capacity);
+        }
+
+        children[index] = child;
+        this.children = children;
+
+        if (child instanceof TestResult) {
+            if (testIndex != null) {
+                addToTestIndex(((TestResult) child).getWorkRelativePath(), index);
+            } else if (index + 1 >= MIN_INDEXED_CHILDREN) {
+                testIndex = indexTests(children, index + 1);
             }
-        }   // for
+        }
 
-        return -1;      // not found!
+        childCount = index + 1;     // publish the new child
+        return index;
+    }
+
+    /**
+     * Remove the child at the given index.  A new array of the same length
+     * is used so that readers of the old one still see a consistent list.
+     * Must be called while holding the lock on this node.
+     */
+    private void removeChild(int index) {
+        int count = childCount;
+        Object[] newChildren = new Object[children.length];
+        System.arraycopy(children, 0, newChildren, 0, index);
+        System.arraycopy(children, index + 1, newChildren, index, count - index - 1);
+        childCount = count - 1;
+        children = newChildren;
+        testIndex = count - 1 < MIN_INDEXED_CHILDREN ? null : indexTests(newChildren, count - 1);
+    }
+
+    /**
+     * Replace the test at the given index.
+     * Must be called while holding the lock on this node.
+     *
+     * @return the test which was replaced
+     */
+    private TestResult setTest(int index, TestResult tr) {
+        TestResult old = (TestResult) children[index];
+        children[index] = tr;
+        if (testIndex != null && !old.getTestName().equals(tr.getTestName())) {
+            testIndex = indexTests(children, childCount);
+        }
+        return old;
+    }
+
+    /**
+     * Find the index of the test with the given JTR path in this node.
+     * This does not lock the node; if the node is being changed concurrently
+     * the result may not reflect the change.
+     *
+     * @return the index of the test, -1 if not found
+     */
+    private int findTest(String jtrPath) {
+        int count = childCount;
+        Object[] children = this.children;
+        int[] testIndex = this.testIndex;
+
+        if (testIndex == null) {
+            for (int i = 0; i < count; i++) {
+                if (children[i] instanceof TestResult &&
+                        ((TestResult) children[i]).getWorkRelativePath().equals(jtrPath)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int hash = jtrPath.hashCode();
+        int mask = testIndex.length / 2 - 1;
+        for (int slot = mix(hash) & mask; testIndex[2 * slot + 1] != 0; slot = (slot + 1) & mask) {
+            if (testIndex[2 * slot] == hash) {
+                int i = testIndex[2 * slot + 1] - 1;
+                if (i < count && children[i] instanceof TestResult &&
+                        ((TestResult) children[i]).getWorkRelativePath().equals(jtrPath)) {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Build a new index of the tests in the given children.  The table is
+     * completely filled in before it is returned, so that it can be
+     * published to readers in one step.
+     */
+    private int[] indexTests(Object[] children, int count) {
+        int slots = Integer.highestOneBit(Math.max(count, MIN_INDEXED_CHILDREN) * 2 - 1) * 2;
+        int[] table = new int[2 * slots];
+        indexedTests = 0;
+        for (int i = 0; i < count; i++) {
+            if (children[i] instanceof TestResult) {
+                putTestIndex(table, ((TestResult) children[i]).getWorkRelativePath(), i);
+                indexedTests++;
+            }
+        }
+        return table;
+    }
+
+    private void addToTestIndex(String jtrPath, int index) {
+        if (2 * (indexedTests + 1) > testIndex.length / 2) {
+            // keep the table at most half full; the new table includes the new test
+            testIndex = indexTests(children, index + 1);
+        } else {
+            putTestIndex(testIndex, jtrPath, index);
+            indexedTests++;
+        }
+    }
+
+    private static void putTestIndex(int[] table, String jtrPath, int index) {
+        int mask = table.length / 2 - 1;
+        int hash = jtrPath.hashCode();
+        int slot = mix(hash) & mask;
+        while (table[2 * slot + 1] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        // fill in the hash first, so that concurrent readers which see
+        // the index also see the right hash
+        table[2 * slot] = hash;
+        table[2 * slot + 1] = index + 1;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
     }
 
     /**
@@ -1770,8 +1962,8 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     private boolean shouldReplaceTest(int index, TestResult newone,
                                       boolean suppressScan) {
         // check for out of range indexes, types and null
-        if (!(children[index] instanceof TestResult) || newone == null ||
-                index < 0 || index >= children.length) {
+        if (newone == null || index < 0 || index >= childCount ||
+                !(children[index] instanceof TestResult)) {
             return false;
         }
 
@@ -1849,7 +2041,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      * The current node's counter IS incremented.
      */
     void bubbleUpCounterInc() {
-        counter++;
+        counterUpdater.incrementAndGet(this);
         notifyCounterChange();
         TRT_TreeNode parent = (TRT_TreeNode) getParent();
 
@@ -1888,7 +2080,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     }
 
     private void notifyInsBranch(TRT_TreeNode newNode, int index) {
-        TestResultTable.TreeNodeObserver[] observers = observerTable.get(this);
+        TestResultTable.TreeNodeObserver[] observers = this.observers;
 
         if (observers != null) {
             for (TestResultTable.TreeNodeObserver observer : observers) {
@@ -1901,7 +2093,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     //private int currDepth;           // currently unused
 
     private void notifyInsResult(TestResult test, int index) {
-        TestResultTable.TreeNodeObserver[] observers = observerTable.get(this);
+        TestResultTable.TreeNodeObserver[] observers = this.observers;
 
         if (observers != null) {
             for (TestResultTable.TreeNodeObserver observer : observers) {
@@ -1911,7 +2103,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     }
 
     private void notifyReplacedResult(TestResult oldTest, TestResult newTest, int index) {
-        TestResultTable.TreeNodeObserver[] observers = observerTable.get(this);
+        TestResultTable.TreeNodeObserver[] observers = this.observers;
 
         if (observers != null) {
             for (TestResultTable.TreeNodeObserver observer : observers) {
@@ -1921,7 +2113,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     }
 
     private void notifyRemovedBranch(int index) {
-        TestResultTable.TreeNodeObserver[] observers = observerTable.get(this);
+        TestResultTable.TreeNodeObserver[] observers = this.observers;
 
         if (observers != null) {
             for (TestResultTable.TreeNodeObserver observer : observers) {
@@ -1931,7 +2123,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     }
 
     private void notifyRemovedResult(TestResult test, int index) {
-        TestResultTable.TreeNodeObserver[] observers = observerTable.get(this);
+        TestResultTable.TreeNodeObserver[] observers = this.observers;
 
         if (observers != null) {
             for (TestResultTable.TreeNodeObserver observer : observers) {
@@ -1941,7 +2133,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     }
 
     private void notifyCounterChange() {
-        TestResultTable.TreeNodeObserver[] observers = observerTable.get(this);
+        TestResultTable.TreeNodeObserver[] observers = this.observers;
         if (observers != null) {
             for (TestResultTable.TreeNodeObserver observer : observers) {
                 observer.countersInvalidated(this);
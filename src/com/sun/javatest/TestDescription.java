@@ -79,6 +79,12 @@ public class TestDescription implements Serializable {
      * @see #getRootRelativeURL
      */
     private String rrurl;
+    /**
+     * Cached version of the keywords, as a set in the keyword dictionary.
+     *
+     * @see #getKeywordSet
+     */
+    private transient volatile long[] keywordSet;
 
     /**
      * Construct a test description from the parameters of a recognized descriptions.
@@ -348,6 +354,23 @@ public class TestDescription implements Serializable {
         return s;
     }
 
+    /**
+     * Get the set of keywords for this test description, as a bit set
+     * of indexes in the keyword dictionary. The result is shared, and
+     * must not be modified.
+     *
+     * @return the set of keywords
+     * @see KeywordDictionary
+     */
+    long[] getKeywordSet() {
+        long[] s = keywordSet;
+        if (s == null) {
+            s = KeywordDictionary.getSet(getParameter("keywords"));
+            keywordSet = s;
+        }
+        return s;
+    }
+
     /**
      * Get the set of source files for this test description,
      * as specified by the "source" parameter.
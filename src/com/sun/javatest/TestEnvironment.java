@@ -36,11 +36,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class provides "environments", as embodied by groups of related properties.
@@ -71,7 +73,9 @@ public class TestEnvironment {
     private final String name;
     private final String[] inherits;
     private Map<String, Element> table = new HashMap<>();
+    private Layer shared = new Layer(new HashMap<>());
     private Map<String, String[]> extras = new HashMap<>();
+    private Map<String, Resolved> resolved = new HashMap<>();
     private final Map<String, Element> cache = new HashMap<>();
 
     /**
@@ -197,7 +201,7 @@ public class TestEnvironment {
         name = o.name;
         inherits = o.inherits;
         table = o.table;
-        extras = new HashMap<>(o.extras);
+        shared = o.share();
     }
 
     /**
@@ -263,6 +267,9 @@ public class TestEnvironment {
 
     /**
      * Create a copy of the current environment.
+     * The copy shares the entries of this environment, and any values that
+     * have been resolved from them, until either environment is changed by
+     * calling {@code put}.
      *
      * @return a copy of the current environment
      */
@@ -270,6 +277,28 @@ public class TestEnvironment {
         return new TestEnvironment(this);
     }
 
+    /**
+     * Make the entries put in this environment, and the values resolved from
+     * them, available to be shared with a copy of the environment.
+     */
+    private synchronized Layer share() {
+        if (!extras.isEmpty()) {
+            Map<String, String[]> m = new HashMap<>(shared.extras);
+            m.putAll(extras);
+            Layer l = new Layer(m);
+            for (Map.Entry<String, Resolved> e : shared.resolved.entrySet()) {
+                if (!e.getValue().dependsOnAny(extras.keySet())) {
+                    l.resolved.put(e.getKey(), e.getValue());
+                }
+            }
+            l.resolved.putAll(resolved);
+            shared = l;
+            extras = new HashMap<>();
+            resolved = new HashMap<>();
+        }
+        return shared;
+    }
+
     /**
      * Get the distinguishing name for the properties of this environment.
      *
@@ -313,8 +342,7 @@ public class TestEnvironment {
         // used to save values without subjecting them to any $ or # processing
         // Note further that the main props table is considered IMMUTABLE,
         // because it is shared amongst the clones.
-        String[] v = {value};
-        extras.put(name, v);
+        put(name, new String[]{value});
     }
 
     /**
@@ -329,6 +357,9 @@ public class TestEnvironment {
         // Note further that the main props table is considered IMMUTABLE,
         // because it is shared amongst the clones.
         extras.put(name, value);
+
+        // forget any values that may have depended on the old value
+        resolved.values().removeIf(r -> r.deps.contains(name));
     }
 
     /**
@@ -358,10 +389,13 @@ public class TestEnvironment {
     }
 
     /**
-     * @return all external global properties.
+     * @return all external global properties. Changes to the map do not
+     * affect the environment.
      */
     public Map<String, String[]> getExtraValues() {
-        return extras;
+        Map<String, String[]> m = new HashMap<>(shared.extras);
+        m.putAll(extras);
+        return m;
     }
 
     /**
@@ -374,38 +408,92 @@ public class TestEnvironment {
      * @see #resolve
      */
     public String[] lookup(String key) throws Fault {
-        return lookup(key, null);
+        String[] v = lookup(key, new Context());
+        return v.length == 0 ? v : v.clone();
     }
 
-    private String[] lookup(String key, Vector<String> activeKeys) throws Fault {
-        String[] v = extras.get(key);
+    private String[] lookup(String key, Context ctx) throws Fault {
+        ctx.deps.add(key);
+
+        String[] v = getExtra(key);
         if (v != null) {
             return v;
         }
 
-
         Element elem = table.get(key);
-        if (elem != null) {
-            cache.put(key, elem);
-            if (activeKeys == null) {
-                activeKeys = new Vector<>();
-            } else if (activeKeys.contains(key)) {
-                throw new Fault(i18n, "env.recursive",
-                        key, elem.getDefinedInFile());
+        if (elem == null) {
+            return EMPTY_STRING_ARRAY;
+        }
+
+        Resolved r = getResolved(key, ctx.inlineCommentsDisabled);
+        if (r != null) {
+            for (Element e : r.elements) {
+                cache.put(e.key, e);
             }
+            ctx.deps.addAll(r.deps);
+            ctx.elements.addAll(Arrays.asList(r.elements));
+            return r.value;
+        }
 
-            activeKeys.add(key);
-            try {
-                return resolve(elem.getValue(), activeKeys);
-            } catch (Fault e) {
-                throw new Fault(i18n, "env.badName",
-                        key, elem.getDefinedInFile(), e.getMessage());
-            } finally {
-                activeKeys.remove(key);
+        cache.put(key, elem);
+        if (ctx.activeKeys.contains(key)) {
+            throw new Fault(i18n, "env.recursive",
+                    key, elem.getDefinedInFile());
+        }
+
+        // collect the names and elements used by this entry separately,
+        // so that they can be saved with its value, and then add them to
+        // those of the enclosing entry, if any
+        Set<String> outerDeps = ctx.deps;
+        List<Element> outerElements = ctx.elements;
+        ctx.deps = new HashSet<>();
+        ctx.elements = new ArrayList<>();
+        ctx.elements.add(elem);
+        ctx.activeKeys.add(key);
+        try {
+            r = new Resolved(resolve(elem.getTemplate(), ctx), ctx);
+            putResolved(key, r);
+            return r.value;
+        } catch (Fault e) {
+            throw new Fault(i18n, "env.badName",
+                    key, elem.getDefinedInFile(), e.getMessage());
+        } finally {
+            ctx.activeKeys.remove(key);
+            outerDeps.addAll(ctx.deps);
+            outerElements.addAll(ctx.elements);
+            ctx.deps = outerDeps;
+            ctx.elements = outerElements;
+        }
+    }
+
+    private String[] getExtra(String key) {
+        String[] v = extras.get(key);
+        return v != null ? v : shared.extras.get(key);
+    }
+
+    /**
+     * Get a previously resolved value for an entry, if it is still valid.
+     * Values resolved in a copy of this environment can be used, unless they
+     * depend on a value that has been put in this environment since it
+     * was copied.
+     */
+    private Resolved getResolved(String key, boolean inlineCommentsDisabled) {
+        Resolved r = resolved.get(key);
+        if (r == null) {
+            r = shared.resolved.get(key);
+            if (r != null && r.dependsOnAny(extras.keySet())) {
+                r = null;
             }
         }
+        return r != null && r.inlineCommentsDisabled == inlineCommentsDisabled ? r : null;
+    }
 
-        return EMPTY_STRING_ARRAY;
+    private void putResolved(String key, Resolved r) {
+        if (r.dependsOnAny(extras.keySet())) {
+            resolved.put(key, r);
+        } else {
+            shared.resolved.put(key, r);
+        }
     }
 
     /**
@@ -427,25 +515,59 @@ public class TestEnvironment {
      *                               of the argument.
      */
     public String[] resolve(String s) throws Fault {
-        return resolve(s, null);
+        return resolve(new Template(s), new Context());
     }
 
-    private String[] resolve(String s, Vector<String> activeKeys) throws Fault {
+    private String[] resolve(Template t, Context ctx) throws Fault {
         Vector<String> v = new Vector<>();
         StringBuilder current = new StringBuilder(64);
         char term = 0;
 
         loop:
-        for (int i = 0; i < s.length(); i++) {
-            char c = s.charAt(i);
+        for (int i = 0; i < t.ops.length; i++) {
+            Object op = t.ops[i];
+            if (op instanceof String) {
+                // other characters start a word if needed, then go into the word
+                if (term == 0) {
+                    term = ' ';
+                }
+                current.append((String) op);
+                continue;
+            } else if (op instanceof Substitution) {
+                String[] val = ((Substitution) op).apply(this, ctx);
+                if (val.length > 0) {
+                    // only start a new word if there is something to substitute
+                    if (term == 0) {
+                        term = ' ';
+                    }
+                    for (int vi = 0; vi < val.length; vi++) {
+                        if (vi == 0) {
+                            current.append(val[vi]);
+                        } else if (term == '"') {
+                            current.append(' ');
+                            current.append(val[vi]);
+                        } else {
+                            v.add(current.toString());
+                            current.setLength(0);
+                            current.append(val[vi]);
+                        }
+                    }
+                }
+                continue;
+            } else if (op instanceof Failure) {
+                throw ((Failure) op).toFault();
+            }
+
+            char c = (Character) op;
             switch (c) {
                 case '#':
+                case Template.COMMENT_AFTER_SPACE:
                     // # at top level introduces comment to end of line and terminates
                     //command (if found); otherwise, it goes into the current word
-                    if ((!isInlineCommentsDisabled() || i == 0 || s.charAt(i - 1) == ' ' || s.charAt(i - 1) == '\t') && (term == 0 || term == ' ')) {
+                    if ((!ctx.inlineCommentsDisabled || c == Template.COMMENT_AFTER_SPACE) && (term == 0 || term == ' ')) {
                         break loop;
                     } else {
-                        current.append(c);
+                        current.append('#');
                     }
                     break;
 
@@ -462,107 +584,6 @@ public class TestEnvironment {
                     }
                     break;
 
-                case '$':
-                    // dollar introduces a name to be substituted, provided it does not
-                    // appear in single quotes. Special values: $/ is File.separatorChar,
-                    // $: is File.pathSeparatorChar, and $$ is $
-                    if (term != '\'') {
-                        StringBuffer buf = new StringBuffer();
-                        String name = null;
-                        String[] nameArgs = null;
-                        try {
-                            c = s.charAt(++i);
-                            switch (c) {
-                                case '/':
-                                    current.append(File.separatorChar);
-                                    continue loop;
-
-                                case ':':
-                                    current.append(File.pathSeparatorChar);
-                                    continue loop;
-
-                                case '$':
-                                    current.append('$');
-                                    continue loop;
-
-                                case '{':
-                                    c = s.charAt(++i);
-                                    while (c != ':' && c != '}') {
-                                        buf.append(c);
-                                        c = s.charAt(++i);
-                                    }
-                                    name = convertToName(resolve(buf.toString()));
-
-                                    // pick up optional nameArgs after embedded ':'
-                                    if (c == ':') {
-                                        buf = new StringBuffer();
-                                        c = s.charAt(++i);
-                                        while (c != '}') {
-                                            buf.append(c);
-                                            c = s.charAt(++i);
-                                        }
-                                        nameArgs = StringArray.split(buf.toString());
-                                    }
-
-                                    break;
-
-                                default:
-                                    if (isNameChar(c)) {
-                                        while (i < s.length() && isNameChar(s.charAt(i))) {
-                                            buf.append(s.charAt(i++));
-                                        }
-                                        i--;
-                                    } else {
-                                        throw new Fault(i18n, "env.badExprChar", Character.valueOf(c));
-                                    }
-                                    name = buf.toString();
-                            }
-
-                            String[] val = lookup(name, activeKeys);
-
-                            // apply nameArgs, if any
-                            if (nameArgs != null) {
-                                for (String arg : nameArgs) {
-                                    if (arg.startsWith("FS=") && arg.length() == 4) {
-                                        substituteChar(val, File.separatorChar, arg.charAt(3));
-                                    } else if (arg.startsWith("PS=") && arg.length() == 4) {
-                                        substituteChar(val, File.pathSeparatorChar, arg.charAt(3));
-                                    } else if (arg.startsWith("MAP=")) {
-                                        substituteMap(val, lookup("map." + arg.substring(4), activeKeys));
-                                    } else if (arg.equals("MAP")) {
-                                        substituteMap(val, lookup("map", activeKeys));
-                                    } else {
-                                        throw new Fault(i18n, "env.badOption", arg);
-                                    }
-                                }
-                            }
-
-                            if (val != null && val.length > 0) {
-                                // only start a new word if there is something to substitute
-                                if (term == 0) {
-                                    term = ' ';
-                                }
-                                for (int vi = 0; vi < val.length; vi++) {
-                                    if (vi == 0) {
-                                        current.append(val[vi]);
-                                    } else if (term == '"') {
-                                        current.append(' ');
-                                        current.append(val[vi]);
-                                    } else {
-                                        v.add(current.toString());
-                                        current.setLength(0);
-                                        current.append(val[vi]);
-                                    }
-                                }
-                            }
-                        } catch (IndexOutOfBoundsException e) {
-                            throw new Fault(i18n, "env.badExpr");
-                        }
-                    } else {
-                        current.append(c);
-                    }
-                    break;
-
                 case ' ':
                 case '\t':
                     // space or tab are skipped if not in a word; if in a word and
@@ -579,12 +600,8 @@ public class TestEnvironment {
                     }
                     break;
 
-
                 default:
-                    // other characters start a word if needed, then go into the word
-                    if (term == 0) {
-                        term = ' ';
-                    }
+                    // the result of $/, $: or $$, or a $ in single quotes
                     current.append(c);
                     break;
             }
@@ -847,6 +864,277 @@ public class TestEnvironment {
 
     //endregion
 
+    /**
+     * The entries put in an environment before it was copied, and the values
+     * resolved from them. This is shared by the environment and its copies,
+     * and is never modified, except to add resolved values.
+     */
+    private static class Layer {
+        final Map<String, String[]> extras;
+        final Map<String, Resolved> resolved = new ConcurrentHashMap<>();
+
+        Layer(Map<String, String[]> extras) {
+            this.extras = extras;
+        }
+    }
+
+    /**
+     * The resolved value of an entry, with the names that were looked up
+     * to resolve it and the elements that were used. The value is valid
+     * for as long as none of those names are given a new value with put.
+     */
+    private static class Resolved {
+        final String[] value;
+        final Set<String> deps;
+        final Element[] elements;
+        final boolean inlineCommentsDisabled;
+
+        Resolved(String[] value, Context ctx) {
+            this.value = value;
+            this.deps = ctx.deps;
+            this.elements = ctx.elements.toArray(new Element[ctx.elements.size()]);
+            this.inlineCommentsDisabled = ctx.inlineCommentsDisabled;
+        }
+
+        boolean dependsOnAny(Set<String> names) {
+            for (String name : names) {
+                if (deps.contains(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The state of a call of lookup or resolve.
+     */
+    private static class Context {
+        final boolean inlineCommentsDisabled = isInlineCommentsDisabled();
+        final Set<String> activeKeys = new HashSet<>();
+        Set<String> deps = new HashSet<>();
+        List<Element> elements = new ArrayList<>();
+    }
+
+    /**
+     * A value that has been split into the operations needed to resolve it,
+     * so that the text of the value need only be scanned once. Each operation
+     * is one of the following:
+     * <ul>
+     * <li>a String, for a run of characters that go into the current word
+     * <li>a Character, for a quote, white space or comment character, or for
+     * a character that is added to the current word without starting one,
+     * such as the result of {@code $/}
+     * <li>a Substitution, for a {@code $} reference to another entry
+     * <li>a Failure, for an error in the text
+     * </ul>
+     */
+    private static class Template {
+        /**
+         * A {@code #} that follows white space, and so is a comment
+         * even if inline comments are disabled.
+         */
+        static final char COMMENT_AFTER_SPACE = '\0';
+
+        final Object[] ops;
+
+        Template(String s) {
+            List<Object> l = new ArrayList<>();
+            StringBuilder text = new StringBuilder();
+            char quote = 0;
+
+            loop:
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (!isSpecial(c)) {
+                    text.append(c);
+                    continue;
+                }
+
+                if (text.length() > 0) {
+                    l.add(text.toString());
+                    text.setLength(0);
+                }
+
+                switch (c) {
+                    case '#':
+                        l.add(i == 0 || s.charAt(i - 1) == ' ' || s.charAt(i - 1) == '\t' ? COMMENT_AFTER_SPACE : c);
+                        break;
+
+                    case '\'':
+                    case '\"':
+                        // whether or not a string is quoted does not depend on
+                        // any substitutions, so the quotes can be tracked here
+                        if (quote == 0) {
+                            quote = c;
+                        } else if (quote == c) {
+                            quote = 0;
+                        }
+                        l.add(c);
+                        break;
+
+                    case '$':
+                        if (quote == '\'') {
+                            l.add(c);
+                            break;
+                        }
+                        if (++i == s.length()) {
+                            l.add(new Failure("env.badExpr"));
+                            break loop;
+                        }
+                        c = s.charAt(i);
+                        switch (c) {
+                            case '/':
+                                l.add(File.separatorChar);
+                                break;
+
+                            case ':':
+                                l.add(File.pathSeparatorChar);
+                                break;
+
+                            case '$':
+                                l.add('$');
+                                break;
+
+                            case '{':
+                                int end = s.indexOf('}', i);
+                                int colon = s.indexOf(':', i);
+                                if (colon != -1 && end == -1) {
+                                    // the error is reported after the name has been resolved
+                                    l.add(new Substitution(s.substring(i + 1, colon), null, false));
+                                    break loop;
+                                } else if (end == -1) {
+                                    l.add(new Failure("env.badExpr"));
+                                    break loop;
+                                } else if (colon != -1 && colon < end) {
+                                    l.add(new Substitution(s.substring(i + 1, colon),
+                                            StringArray.split(s.substring(colon + 1, end)), true));
+                                } else {
+                                    l.add(new Substitution(s.substring(i + 1, end), null, true));
+                                }
+                                i = end;
+                                break;
+
+                            default:
+                                if (isNameChar(c)) {
+                                    int start = i;
+                                    while (i < s.length() && isNameChar(s.charAt(i))) {
+                                        i++;
+                                    }
+                                    l.add(new Substitution(s.substring(start, i)));
+                                    i--;
+                                } else {
+                                    l.add(new Failure("env.badExprChar", c));
+                                    break loop;
+                                }
+                        }
+                        break;
+
+                    default:
+                        // space or tab
+                        l.add(c);
+                        break;
+                }
+            }
+
+            if (text.length() > 0) {
+                l.add(text.toString());
+            }
+            ops = l.toArray();
+        }
+
+        private static boolean isSpecial(char c) {
+            return c == '#' || c == '\'' || c == '\"' || c == '$' || c == ' ' || c == '\t';
+        }
+    }
+
+    /**
+     * A reference to another entry in a value, written as
+     * {@code $name}, {@code ${name}} or {@code ${name:options}}.
+     */
+    private static class Substitution {
+        private final String name;
+        private final Template nameTemplate;
+        private final String[] nameArgs;
+        private final boolean terminated;
+
+        Substitution(String name) {
+            this.name = name;
+            nameTemplate = null;
+            nameArgs = null;
+            terminated = true;
+        }
+
+        Substitution(String nameText, String[] nameArgs, boolean terminated) {
+            // the name in ${...} is resolved, and may refer to other entries
+            if (isName(nameText)) {
+                name = nameText;
+                nameTemplate = null;
+            } else {
+                name = null;
+                nameTemplate = new Template(nameText);
+            }
+            this.nameArgs = nameArgs;
+            this.terminated = terminated;
+        }
+
+        String[] apply(TestEnvironment env, Context ctx) throws Fault {
+            String n = name != null ? name : convertToName(env.resolve(nameTemplate, ctx));
+            if (!terminated) {
+                throw new Fault(i18n, "env.badExpr");
+            }
+
+            String[] val = env.lookup(n, ctx);
+
+            // apply nameArgs, if any
+            if (nameArgs != null) {
+                val = val.clone();
+                for (String arg : nameArgs) {
+                    if (arg.startsWith("FS=") && arg.length() == 4) {
+                        substituteChar(val, File.separatorChar, arg.charAt(3));
+                    } else if (arg.startsWith("PS=") && arg.length() == 4) {
+                        substituteChar(val, File.pathSeparatorChar, arg.charAt(3));
+                    } else if (arg.startsWith("MAP=")) {
+                        substituteMap(val, env.lookup("map." + arg.substring(4), ctx));
+                    } else if (arg.equals("MAP")) {
+                        substituteMap(val, env.lookup("map", ctx));
+                    } else {
+                        throw new Fault(i18n, "env.badOption", arg);
+                    }
+                }
+            }
+
+            return val;
+        }
+
+        private static boolean isName(String s) {
+            for (int i = 0; i < s.length(); i++) {
+                if (!isNameChar(s.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * An error found while compiling a template, to be reported if the
+     * erroneous part of the value is used.
+     */
+    private static class Failure {
+        private final String key;
+        private final Object[] args;
+
+        Failure(String key, Object... args) {
+            this.key = key;
+            this.args = args;
+        }
+
+        Fault toFault() {
+            return args.length == 0 ? new Fault(i18n, key) : new Fault(i18n, key, args);
+        }
+    }
+
     /**
      * This exception is used to report resolving values in an environment.
      */
@@ -872,6 +1160,7 @@ public class TestEnvironment {
         String value;
         String definedInEnv;
         String definedInFile;
+        private Template template;
 
         /**
          * Create an entry for a test environment.
@@ -888,6 +1177,19 @@ public class TestEnvironment {
             this.definedInFile = definedInFile;
         }
 
+        /**
+         * Get the value of this entry, compiled so that it can be resolved
+         * without being scanned again.
+         */
+        Template getTemplate() {
+            Template t = template;
+            if (t == null) {
+                t = new Template(value);
+                template = t;
+            }
+            return t;
+        }
+
         /**
          * Get the name of this entry.
          *
@@ -70,6 +70,7 @@ public abstract class TestFinder {
     //----------member variables------------------------------------------------
     private File root;
     private File rootDir;
+    private String[] initArgs;
     private ErrorHandler errHandler;
 
     //--------------------------------------------------------------------------
@@ -113,6 +114,50 @@ public abstract class TestFinder {
 
         setRoot(testSuiteRoot);
         this.env = env;
+        initArgs = args;
+    }
+
+    /**
+     * Get the args given to {@link #init(String[], File, TestEnvironment) init}.
+     *
+     * @return the args, or null if none were given
+     */
+    String[] getInitArgs() {
+        return initArgs;
+    }
+
+    /**
+     * Create a new test finder which reads files in the same way as this one,
+     * but which shares no per-read state with it, so that the two finders may
+     * be used to read different files at the same time.  The new finder has
+     * the same root, comparator and error handler as this one.
+     * The default implementation returns null, meaning that this finder
+     * cannot be copied, and that all files must be read through this finder.
+     *
+     * @return a new, initialized test finder, or null if this finder cannot be copied
+     * @throws TestFinder.Fault if there is a problem initializing the new finder
+     * @see #initCopy
+     */
+    public TestFinder copy() throws Fault {
+        return null;
+    }
+
+    /**
+     * Initialize a newly created instance of the same class as this finder,
+     * for use by {@link #copy}. The new finder is initialized with the args,
+     * root and environment that were given to this finder's {@code init}
+     * method, and is given the same comparator and error handler.
+     *
+     * @param f   the newly created finder, which must not yet have been initialized
+     * @param <T> the type of the finder
+     * @return the finder, after it has been initialized
+     * @throws TestFinder.Fault if there is a problem initializing the finder
+     */
+    protected <T extends TestFinder> T initCopy(T f) throws Fault {
+        f.init(initArgs, root, env);
+        f.setComparator(comp);
+        f.setErrorHandler(errHandler);
+        return f;
     }
 
     /**
@@ -0,0 +1,320 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Reads the files of a test suite ahead of time, on several threads at once,
+ * using copies of a test finder, or from a {@link TestFinderIndex} if one is
+ * given. Each file that is read is also crawled: the files found in it are
+ * scheduled to be read as well, so that a whole test suite may be read in
+ * parallel from a single starting point.
+ * Clients still walk the test suite in their own order, taking the results
+ * for each file as they come to it, so that the order in which tests are
+ * found is the same as if the files had been read one at a time.
+ *
+ * <p>Parallel reading is enabled by setting the system property
+ * {@code javatest.finder.parallelism} to the number of threads to be used,
+ * and is only available for test finders that support {@link TestFinder#copy}.
+ */
+class TestFinderCrawler {
+    /**
+     * The number of threads used to read files. If less than 2, files are not
+     * read in parallel.
+     */
+    static final int PARALLELISM = Integer.getInteger("javatest.finder.parallelism", 1);
+
+    private final TestFinder finder;
+    private final TestFinderIndex index;
+    private final TestFinder.ErrorHandler errHandler;
+    private final Queue<TestFinder> readers = new ConcurrentLinkedQueue<>();
+    private final Set<String> claimed = ConcurrentHashMap.newKeySet();
+    private final Map<String, ReadTask> pending = new ConcurrentHashMap<>();
+
+    private TestFinderCrawler(TestFinder finder, TestFinderIndex index, TestFinder reader) {
+        this.finder = finder;
+        this.index = index;
+        // errors are reported when the result of a read is taken, on the
+        // thread that takes it, rather than from the reading threads
+        errHandler = reader.getErrorHandler();
+        reader.setErrorHandler(null);
+        readers.add(reader);
+    }
+
+    /**
+     * Create a crawler to read files for a test finder, if parallel reading
+     * has been enabled.
+     *
+     * @param finder the finder to be copied to read files
+     * @param index  an index of files that have already been read, or null
+     * @return a crawler, or null if parallel reading is not enabled, or
+     * if the finder cannot be copied
+     */
+    static TestFinderCrawler create(TestFinder finder, TestFinderIndex index) {
+        return PARALLELISM < 2 ? null : newInstance(finder, index);
+    }
+
+    /**
+     * Create a crawler to read files for a test finder.
+     *
+     * @param finder the finder to be copied to read files
+     * @param index  an index of files that have already been read, or null
+     * @return a crawler, or null if the finder cannot be copied
+     */
+    static TestFinderCrawler newInstance(TestFinder finder, TestFinderIndex index) {
+        try {
+            TestFinder reader = finder.copy();
+            return reader == null ? null : new TestFinderCrawler(finder, index, reader);
+        } catch (TestFinder.Fault e) {
+            return null;
+        }
+    }
+
+    /**
+     * Schedule files to be read. The files found in each file are read in
+     * turn, unless the file names a specific test with a trailing
+     * {@code #id}.
+     *
+     * @param files the files to be read
+     */
+    void prefetch(Iterable<File> files) {
+        for (File f : files) {
+            String path = f.getPath();
+            int index = path.indexOf('#');
+            ReadTask t = (index == -1) ? schedule(f, true)
+                    : schedule(new File(path.substring(0, index)), false);
+            if (t != null) {
+                Pool.INSTANCE.execute(t);
+            }
+        }
+    }
+
+    /**
+     * Take the result of reading a file, waiting for it to be read if necessary.
+     * If the file has not yet been scheduled, it is scheduled now, and the files
+     * found in it will be read ahead as well.
+     * Any errors that were reported while reading the file are passed on to the
+     * error handler of the finder.
+     *
+     * @param file the file that was read
+     * @return the result of reading the file, or null if the result has
+     * already been taken, or if the file has been modified since it was read;
+     * in either case the caller should read the file itself
+     */
+    Entry take(File file) {
+        String key = key(file);
+        ReadTask t = pending.remove(key);
+        if (t == null) {
+            t = schedule(file, true);
+            if (t == null) {
+                return null;
+            }
+            pending.remove(key);
+            Pool.INSTANCE.execute(t);
+        }
+
+        t.join();
+        Entry e = t.entry;
+        if (finder.lastModified(file) > e.readTime) {
+            return null;
+        }
+
+        reportErrors(e);
+        return e;
+    }
+
+    /**
+     * Read a file now, using a copy of the finder, without crawling the
+     * files found in it, and without using the index, if any; the index is
+     * updated with the result. This may be called on several threads at once.
+     *
+     * @param file the file to be read
+     * @return the result of reading the file
+     */
+    Entry read(File file) {
+        Entry e = readEntry(file);
+        if (index != null) {
+            index.store(file, e);
+        }
+        reportErrors(e);
+        return e;
+    }
+
+    private void reportErrors(Entry e) {
+        if (errHandler != null) {
+            for (String msg : e.errors) {
+                errHandler.error(msg);
+            }
+        }
+    }
+
+    private ReadTask schedule(File file, boolean crawl) {
+        String key = key(file);
+        if (!claimed.add(key)) {
+            return null;
+        }
+
+        ReadTask t = new ReadTask(file, crawl);
+        pending.put(key, t);
+        return t;
+    }
+
+    private Entry readEntry(File file) {
+        TestFinder reader = readers.poll();
+        if (reader == null) {
+            try {
+                reader = finder.copy();
+            } catch (TestFinder.Fault e) {
+                reader = null;
+            }
+            if (reader == null) {
+                // should not happen, since the finder has been copied before
+                throw new IllegalStateException("cannot copy test finder");
+            }
+            reader.setErrorHandler(null);
+        }
+
+        try {
+            long readTime = System.currentTimeMillis();
+            reader.read(file);
+            return new Entry(reader.getTests(), reader.getFiles(), reader.getErrors(), readTime);
+        } finally {
+            reader.clearErrors();
+            readers.offer(reader);
+        }
+    }
+
+    private String key(File file) {
+        return (file.isAbsolute() ? file : new File(finder.getRootDir(), file.getPath())).getPath();
+    }
+
+    /**
+     * The result of reading a file.
+     */
+    static class Entry {
+        private final TestDescription[] tests;
+        private final File[] files;
+        private final String[] errors;
+        private final long readTime;
+
+        Entry(TestDescription[] tests, File[] files, String[] errors, long readTime) {
+            this.tests = tests;
+            this.files = files;
+            this.errors = errors;
+            this.readTime = readTime;
+        }
+
+        /**
+         * Get the test descriptions found in the file, as given by
+         * {@link TestFinder#getTests}.
+         *
+         * @return the test descriptions found in the file
+         */
+        TestDescription[] getTests() {
+            return tests;
+        }
+
+        /**
+         * Get the files found in the file, as given by {@link TestFinder#getFiles}.
+         *
+         * @return the files found in the file
+         */
+        File[] getFiles() {
+            return files;
+        }
+
+        /**
+         * Get the errors that were reported while reading the file.
+         *
+         * @return the errors that were reported while reading the file
+         */
+        String[] getErrors() {
+            return errors;
+        }
+
+        /**
+         * Get the time at which the file was read.
+         *
+         * @return the time at which the file was read
+         */
+        long getReadTime() {
+            return readTime;
+        }
+    }
+
+    private class ReadTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final File file;
+        private final boolean crawl;
+        private Entry entry;
+
+        ReadTask(File file, boolean crawl) {
+            this.file = file;
+            this.crawl = crawl;
+        }
+
+        @Override
+        protected void compute() {
+            entry = (index == null ? null : index.lookup(file));
+            if (entry == null) {
+                entry = readEntry(file);
+                if (index != null) {
+                    index.store(file, entry);
+                }
+            }
+            if (crawl) {
+                // the subtasks are not joined: the result for this file is
+                // available as soon as it has been read
+                List<ReadTask> tasks = new ArrayList<>();
+                for (File f : entry.files) {
+                    ReadTask t = schedule(f, true);
+                    if (t != null) {
+                        tasks.add(t);
+                    }
+                }
+                for (int i = tasks.size() - 1; i >= 0; i--) {
+                    tasks.get(i).fork();
+                }
+            }
+        }
+    }
+
+    private static class Pool {
+        static final ForkJoinPool INSTANCE = new ForkJoinPool(
+                PARALLELISM < 2 ? Runtime.getRuntime().availableProcessors() : PARALLELISM);
+    }
+}
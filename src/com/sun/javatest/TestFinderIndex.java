@@ -0,0 +1,438 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import com.sun.javatest.finder.BinaryTestFinder;
+import com.sun.javatest.finder.HTMLTestFinder;
+import com.sun.javatest.finder.TagTestFinder;
+import com.sun.javatest.finder.TestFinderDecorator;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * An index, kept in the work directory, of the results of reading the files
+ * of a test suite with a test finder, so that files which have not changed
+ * need not be read again when the work directory is next opened.
+ * Each file is recorded with its last-modified time, as given by
+ * {@link TestFinder#lastModified}, and its size; if either has changed, the
+ * entry for the file is ignored and the file is read again.
+ * <pre>
+ * header:   magic finderClass rootDir argCount arg*
+ * records:  length crc path lastModified size tests files
+ * test:     rootRelativePath fieldCount (name value)*
+ * </pre>
+ * The index is discarded if the finder, its root directory or the args
+ * with which it was initialized have changed.
+ * The file is only ever appended to, one record at a time, so that it
+ * remains usable if the harness exits while it is being written;
+ * a later record for a file replaces any earlier one. Records which fail
+ * their checksum, and anything following a record which is incomplete,
+ * are ignored; when any such damage is found, or when the file has
+ * accumulated too many replaced records, the file is rewritten with just
+ * the valid records when it is next opened.
+ * <p>
+ * Files which cause the finder to report errors are not indexed, so that
+ * the errors are reported each time the file is read.
+ * <p>
+ * By default, the index is only used with {@link HTMLTestFinder} and
+ * {@link TagTestFinder}, which read each test from a single file; other
+ * finders may read tests whose content depends on other files, such as
+ * files of default values, and so can only use the index if the system
+ * property {@code javatest.finder.index} is set to {@code true}.
+ * The index can be disabled by setting the property to {@code false}.
+ */
+class TestFinderIndex {
+    static final String FILE_NAME = "finder.index";
+
+    private static final int MAGIC = 0x4a544932; // "JTI2"
+    private static final String ENABLED_PROP = "javatest.finder.index";
+
+    private final File file;
+    private final TestFinder finder;
+    private final Map<String, Record> records = new ConcurrentHashMap<>();
+    private FileChannel channel;
+
+    private TestFinderIndex(File file, TestFinder finder) {
+        this.file = file;
+        this.finder = finder;
+    }
+
+    /**
+     * Open the index for a work directory, creating it if necessary.
+     *
+     * @param workDir the work directory in which to keep the index
+     * @param finder  the finder used to read the files
+     * @return the index, or null if the index is disabled, or is not
+     * applicable to the finder, or cannot be opened
+     */
+    static TestFinderIndex open(WorkDirectory workDir, TestFinder finder) {
+        if (!isApplicable(finder)) {
+            return null;
+        }
+
+        TestFinderIndex index = new TestFinderIndex(workDir.getSystemFile(FILE_NAME), finder);
+        try {
+            index.load();
+            return index;
+        } catch (IOException e) {
+            index.close();
+            return null;
+        }
+    }
+
+    /**
+     * Get the result of reading a file, if the file has not changed since
+     * it was last read.
+     *
+     * @param f the file to be read
+     * @return the tests and files found in the file, or null if the file
+     * is not in the index or has changed since it was indexed
+     */
+    TestFinderCrawler.Entry lookup(File f) {
+        File af = absolute(f);
+        Record r = records.get(af.getPath());
+        if (r == null || r.lastModified != finder.lastModified(f) || r.size != af.length()) {
+            return null;
+        }
+
+        try {
+            return r.decode();
+        } catch (IOException e) {
+            records.remove(af.getPath(), r);
+            return null;
+        }
+    }
+
+    /**
+     * Record the result of reading a file. Results which include errors
+     * are not recorded.
+     *
+     * @param f the file that was read
+     * @param e the tests and files found in the file
+     */
+    void store(File f, TestFinderCrawler.Entry e) {
+        if (e.getErrors().length > 0) {
+            return;
+        }
+
+        File af = absolute(f);
+        try {
+            // the time is that before the file was read, in case the file
+            // was changed while being read
+            long lastModified = finder.lastModified(f);
+            if (lastModified > e.getReadTime()) {
+                return;
+            }
+
+            Record r = new Record(af.getPath(), lastModified, af.length(), e);
+            Record prev = records.put(r.path, r);
+            if (prev == null || !prev.sameAs(r)) {
+                append(r);
+            }
+        } catch (IOException ex) {
+            // the index is only an optimization; stop updating it
+            close();
+        }
+    }
+
+    /**
+     * Close the file containing the index.
+     */
+    synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+            }
+            channel = null;
+        }
+    }
+
+    private File absolute(File f) {
+        return f.isAbsolute() ? f : new File(finder.getRootDir(), f.getPath());
+    }
+
+    private synchronized void append(Record r) throws IOException {
+        if (channel == null) {
+            return;
+        }
+
+        byte[] data = r.data;
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        ByteBuffer b = ByteBuffer.allocate(8 + data.length);
+        b.putInt(data.length).putInt((int) crc.getValue()).put(data).flip();
+        while (b.hasRemaining()) {
+            channel.write(b);
+        }
+    }
+
+    private void load() throws IOException {
+        List<String> header = getHeader();
+        int replaced = 0;
+        boolean valid = false;
+        boolean damaged = false;
+
+        if (file.exists()) {
+            // lengths read from the file are checked against what remains of it
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file.toPath())));
+            try {
+                valid = in.readInt() == MAGIC && readHeader(in).equals(header);
+                while (valid && in.available() > 0) {
+                    int length = in.readInt();
+                    int crc = in.readInt();
+                    if (length < 0 || length > in.available()) {
+                        // an incomplete record: nothing after it can be trusted
+                        damaged = true;
+                        break;
+                    }
+                    byte[] data = new byte[length];
+                    in.readFully(data);
+
+                    CRC32 c = new CRC32();
+                    c.update(data, 0, data.length);
+                    if ((int) c.getValue() != crc) {
+                        // ignore the corrupt record and carry on
+                        damaged = true;
+                        continue;
+                    }
+                    Record r;
+                    try {
+                        r = new Record(data);
+                    } catch (IOException e) {
+                        damaged = true;
+                        continue;
+                    }
+                    if (records.put(r.path, r) != null) {
+                        replaced++;
+                    }
+                }
+            } catch (EOFException e) {
+                // truncated header or record; keep what has been read
+                damaged = true;
+            }
+        }
+
+        // rewrite the file if need be, so that new records are not
+        // appended after any damaged ones
+        if (!valid || damaged || replaced > records.size()) {
+            rewrite(header);
+        }
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void rewrite(List<String> header) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+            out.writeInt(MAGIC);
+            writeHeader(out, header);
+            for (Record r : records.values()) {
+                CRC32 crc = new CRC32();
+                crc.update(r.data, 0, r.data.length);
+                out.writeInt(r.data.length);
+                out.writeInt((int) crc.getValue());
+                out.write(r.data);
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Get the values which identify the finder for which the index was written:
+     * the class of the finder, its root directory and its args.
+     */
+    private List<String> getHeader() {
+        List<String> header = new ArrayList<>();
+        header.add(getFinderClass(finder).getName());
+        header.add(finder.getRootDir().getPath());
+        String[] args = finder.getInitArgs();
+        if (args != null) {
+            header.addAll(Arrays.asList(args));
+        }
+        return header;
+    }
+
+    private static void writeHeader(DataOutputStream out, List<String> header) throws IOException {
+        out.writeUTF(header.get(0));
+        out.writeUTF(header.get(1));
+        out.writeInt(header.size() - 2);
+        for (String arg : header.subList(2, header.size())) {
+            writeString(out, arg);
+        }
+    }
+
+    private static List<String> readHeader(DataInputStream in) throws IOException {
+        List<String> header = new ArrayList<>();
+        header.add(in.readUTF());
+        header.add(in.readUTF());
+        int n = in.readInt();
+        if (n < 0 || n > in.available()) {
+            throw new EOFException();
+        }
+        for (int i = 0; i < n; i++) {
+            header.add(readString(in));
+        }
+        return header;
+    }
+
+    /**
+     * Check whether the index should be used for a finder.
+     */
+    private static boolean isApplicable(TestFinder finder) {
+        String prop = System.getProperty(ENABLED_PROP);
+        Class<?> c = getFinderClass(finder);
+        if ("false".equalsIgnoreCase(prop) || c == BinaryTestFinder.class) {
+            // a binary test finder already reads from a prebuilt index
+            return false;
+        }
+        return "true".equalsIgnoreCase(prop) || c == HTMLTestFinder.class || c == TagTestFinder.class;
+    }
+
+    private static Class<?> getFinderClass(TestFinder finder) {
+        if (finder instanceof TestFinderDecorator) {
+            finder = ((TestFinderDecorator) finder).getCurrentTestFinder();
+        }
+        return finder.getClass();
+    }
+
+    /**
+     * The entry for a file in the index, held in its encoded form until needed.
+     */
+    private class Record {
+        final String path;
+        final long lastModified;
+        final long size;
+        final byte[] data;
+
+        Record(String path, long lastModified, long size, TestFinderCrawler.Entry e) throws IOException {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.size = size;
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeString(out, path);
+            out.writeLong(lastModified);
+            out.writeLong(size);
+            TestDescription[] tests = e.getTests();
+            out.writeInt(tests.length);
+            for (TestDescription td : tests) {
+                writeString(out, td.getRootRelativePath());
+                out.writeInt(td.getParameterCount());
+                for (Iterator<String> iter = td.getParameterKeys(); iter.hasNext(); ) {
+                    String key = iter.next();
+                    writeString(out, key);
+                    writeString(out, td.getParameter(key));
+                }
+            }
+            File[] files = e.getFiles();
+            out.writeInt(files.length);
+            for (File f : files) {
+                writeString(out, f.getPath());
+            }
+            out.close();
+            data = bytes.toByteArray();
+        }
+
+        Record(byte[] data) throws IOException {
+            this.data = data;
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            path = readString(in);
+            lastModified = in.readLong();
+            size = in.readLong();
+        }
+
+        boolean sameAs(Record other) {
+            return Arrays.equals(data, other.data);
+        }
+
+        TestFinderCrawler.Entry decode() throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            readString(in);
+            in.readLong();
+            in.readLong();
+
+            File root = finder.getRootDir();
+            TestDescription[] tests = new TestDescription[in.readInt()];
+            for (int i = 0; i < tests.length; i++) {
+                File tf = new File(readString(in).replace('/', File.separatorChar));
+                int n = in.readInt();
+                Map<String, String> params = new HashMap<>(n * 2);
+                for (int j = 0; j < n; j++) {
+                    // as for TestFinder.processEntry
+                    params.put(readString(in).intern(), readString(in).intern());
+                }
+                tests[i] = new TestDescription(root, tf, params);
+            }
+            File[] files = new File[in.readInt()];
+            for (int i = 0; i < files.length; i++) {
+                files[i] = new File(readString(in));
+            }
+            return new TestFinderCrawler.Entry(tests, files, new String[0], System.currentTimeMillis());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        // the stream is always in memory, so available() is exact
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new EOFException();
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -64,6 +64,7 @@ public class TestFinderQueue {
     private static int workerIndex;
     private static I18NResourceBundle i18n = I18NResourceBundle.getBundleForClass(TestFinder.class);
     private TestFinder testFinder;
+    private TestFinderCrawler crawler;
     private Queue<File> tests;
     private TestFilter[] filters;
     private String selectedId;
@@ -146,6 +147,7 @@ public class TestFinderQueue {
             errorCount++;
             notifier.error(msg);
         });
+        crawler = TestFinderCrawler.create(testFinder, null);
     }
 
     //---------------------------------------------------------------
@@ -219,6 +221,12 @@ public class TestFinderQueue {
         }
 
         filesRemainingCount = filesToRead.size() + tests.size();
+
+        // start reading all the tests now, if they can be read in parallel;
+        // readNextFile will pick up the results in order
+        if (crawler != null) {
+            crawler.prefetch(tests);
+        }
     }
 
     /**
@@ -532,15 +540,18 @@ public class TestFinderQueue {
         fileInsertPosn = filesToRead.size();
 
         notifier.reading(f);
+        TestFinderCrawler.Entry entry = (crawler == null ? null : crawler.take(f));
         try {
-            testFinder.read(f);
+            if (entry == null) {
+                testFinder.read(f);
+            }
         } finally {
-            TestDescription[] tds = testFinder.getTests();
+            TestDescription[] tds = (entry == null ? testFinder.getTests() : entry.getTests());
             for (TestDescription td : tds) {
                 foundTestDescription(td);
             }
 
-            File[] files = testFinder.getFiles();
+            File[] files = (entry == null ? testFinder.getFiles() : entry.getFiles());
             for (File file : files) {
                 foundFile(file);
             }
@@ -29,24 +29,40 @@ package com.sun.javatest;
 import com.sun.javatest.util.BackupPolicy;
 import com.sun.javatest.util.DynamicArray;
 import com.sun.javatest.util.I18NResourceBundle;
+import com.sun.javatest.util.PrefetchIterator;
 import com.sun.javatest.util.PropertyArray;
 import com.sun.javatest.util.PropertyUtils;
 import com.sun.javatest.util.StringArray;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.FilterWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.ParseException;
@@ -64,6 +80,9 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Vector;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The TestResult object encapsulates the results from a test.
@@ -226,15 +245,34 @@ public class TestResult {
     private static final String JTR_V2_SECTRESULT = "result: ";
     private static final String JTR_V2_TSTRESULT = "test result: ";
     private static final String JTR_V2_SECTSTREAM = "----------";
+
+    // version 3 result files are binary; the contents are described in writeVersion3
+    private static final int JTR_V3_MAGIC = 0x4a545233; // "JTR3"
+    private static final int JTR_V3_VERSION = 3;
+    private static final int JTR_V3_TABLE_OFFSET = 8;
+    // if set to "binary", result files are written in the version 3 format
+    private static final String JTR_FORMAT_PROP = "javatest.jtrFormat";
+    private static final String JTR_FORMAT_BINARY = "binary";
     private static final String lineSeparator = System.getProperty("line.separator");
     private static final int DEFAULT_MAX_SHRINK_LIST_SIZE = 128;
     private static final int maxShrinkListSize =
             Integer.getInteger("javatest.numCachedResults", DEFAULT_MAX_SHRINK_LIST_SIZE).intValue();
+    // the number of results reloaded ahead of their use by prefetch, and the
+    // number of threads to do so
+    private static final int DEFAULT_PREFETCH_AMOUNT = 256;
+    private static final int prefetchAmount =
+            Integer.getInteger("javatest.prefetchResults", DEFAULT_PREFETCH_AMOUNT).intValue();
+    private static final int prefetchThreads =
+            Integer.getInteger("javatest.prefetchThreads", Runtime.getRuntime().availableProcessors()).intValue();
 
     //----------ACCESS FUNCTIONS (TEST STATUS)----------------------------------
     private static final int DEFAULT_MAX_OUTPUT_SIZE = 100000;
     private static final int commonOutputSize =
             Integer.getInteger("javatest.maxOutputSize", DEFAULT_MAX_OUTPUT_SIZE).intValue();
+    // the amount of output held in memory for an output stream before it is moved to a file
+    private static final int DEFAULT_OUTPUT_SPILL_THRESHOLD = 256 * 1024;
+    private static final int outputSpillThreshold =
+            Integer.getInteger("javatest.outputSpillThreshold", DEFAULT_OUTPUT_SPILL_THRESHOLD).intValue();
 
     //----------ACCESS METHODS (TEST OUTPUT)----------------------------------
     // because so few test results will typically be observed (e.g. at most one)
@@ -242,10 +280,25 @@ public class TestResult {
     // such arrays here.
     private static Map<TestResult, Observer[]> observersTable = new Hashtable<>(16);
     private static LinkedList<WeakReference<TestResult>> shrinkList = new LinkedList<>();
+    // extra room in the shrink list, for results reloaded by prefetch; guarded by shrinkList
+    private static int reservedShrinkListSize;
+    private static final ThreadPoolExecutor shrinker = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+        Thread t = new Thread(r, "TestResult.shrinker");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        shrinker.allowCoreThreadTimeOut(true);
+    }
+
     private static I18NResourceBundle i18n = I18NResourceBundle.getBundleForClass(TestResult.class);
     private static boolean debug = Boolean.getBoolean("debug." + TestResult.class.getName());
     // the following fields should be valid for all test results
     private File resultsFile;           // if set, location where test results are stored
+    private ResultStore store;          // if set, store in which test results are kept
+    private String storePath;           // path of the results in the store
     private Status execStatus;          // pre-compare result
     private String testURL;             // URL for this test, equal to the one in TD.getRootRelativeURL
 
@@ -290,6 +343,7 @@ public class TestResult {
     @java.lang.Deprecated
     private Section[] sections;         // sections of output written during test execution
     private int maxTROutputSize = 0;    // maximum output size for this test result
+    private File outputSpillDir;        // if set, where to put output that is too big to keep in memory
     // only valid when this TR is in a TRT, should remain when shrunk
     private TestResultTable.TreeNode parent;
 
@@ -371,7 +425,7 @@ public class TestResult {
      */
     public TestResult(WorkDirectory workDir, String workRelativePath) throws Fault {
         //resultsFile = workDir.getFile(workRelativePath.replace('/', File.separatorChar));
-        resultsFile = workDir.getFile(workRelativePath);
+        setResultsFile(workDir, workRelativePath);
         reload();
 
         testURL = desc.getRootRelativeURL();
@@ -417,7 +471,7 @@ public class TestResult {
         }
 
         testURL = url;
-        resultsFile = workDir.getFile(getWorkRelativePath());
+        setResultsFile(workDir, getWorkRelativePath());
         execStatus = status;
     }
 
@@ -446,7 +500,7 @@ public class TestResult {
         }
 
         testURL = url;
-        resultsFile = workDir.getFile(getWorkRelativePath());
+        setResultsFile(workDir, getWorkRelativePath());
         execStatus = status;
         this.endTime = endTime;
     }
@@ -543,6 +597,124 @@ public class TestResult {
         return p.endsWith(EXTN);
     }
 
+    /**
+     * Read just enough of a result file to create a minimal TestResult
+     * which is capable of reloading itself: that is, the name of the test,
+     * its status and the time it finished.
+     * Reading stops at the end of the test result properties; the test
+     * description and environment are skipped over without being parsed,
+     * and the sections are not read at all.
+     *
+     * @param file    the result file to be read
+     * @param workDir the work directory containing the result file
+     * @return a minimal test result, or null if the file does not contain
+     * the information that is needed, such as if it is in an older format;
+     * in that case, the full file should be read instead
+     * @throws ResultFileNotFoundFault if the file cannot be found
+     * @throws ReloadFault             if there is a problem reading the file
+     * @see #TestResult(File)
+     */
+    static TestResult readSummary(File file, WorkDirectory workDir)
+            throws ResultFileNotFoundFault, ReloadFault {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return readSummary(in, file, workDir);
+        } catch (FileNotFoundException e) {
+            throw new ResultFileNotFoundFault(i18n, "rslt.fileNotFound", file);
+        } catch (IOException e) {
+            throw new ReloadFault(i18n, "rslt.badFile", e);
+        }
+    }
+
+    /**
+     * Read the summary of a test result from a result store.
+     *
+     * @param store   the store containing the result
+     * @param path    the work relative path of the result in the store
+     * @param workDir the work directory containing the result
+     * @return a minimal test result, or null if the result does not contain
+     * the information that is needed
+     * @throws ResultFileNotFoundFault if the result is not in the store
+     * @throws ReloadFault             if there is a problem reading the result
+     * @see #readSummary(File, WorkDirectory)
+     */
+    static TestResult readSummary(ResultStore store, String path, WorkDirectory workDir)
+            throws ResultFileNotFoundFault, ReloadFault {
+        File file = workDir.getFile(path);
+        try (InputStream in = store.getInputStream(path)) {
+            if (in == null) {
+                throw new ResultFileNotFoundFault(i18n, "rslt.fileNotFound", file);
+            }
+            return readSummary(in, file, workDir);
+        } catch (IOException e) {
+            throw new ReloadFault(i18n, "rslt.badFile", e);
+        }
+    }
+
+    private static TestResult readSummary(InputStream in, File file, WorkDirectory workDir)
+            throws ReloadFault, IOException {
+        try {
+            String[] trProps = isBinaryResultFile(in) ? readSummaryVersion3(in) : readSummaryVersion2(in, file);
+            if (trProps == null) {
+                return null;
+            }
+
+            String url = PropertyArray.get(trProps, TEST);
+            String status = PropertyArray.get(trProps, EXEC_STATUS);
+            if (url == null || status == null) {
+                return null;
+            }
+
+            long endTime = -1;
+            String end = PropertyArray.get(trProps, END);
+            if (end != null) {
+                try {
+                    endTime = parseDate(end).getTime();
+                } catch (ParseException e) {
+                    // leave it to be determined from the full file, if needed
+                }
+            }
+
+            return new TestResult(url, workDir, Status.parse(status), endTime);
+        } catch (RuntimeException e) {
+            throw new ReloadFault(i18n, "rslt.badRuntimeErr", file.getPath(), e.getLocalizedMessage());
+        }
+    }
+
+    private static String[] readSummaryVersion2(InputStream is, File file)
+            throws ReloadFault, IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+        String line = in.readLine();
+        if (line == null) {
+            throw new ReloadFault(i18n, "rslt.empty", file);
+        }
+
+        if (!line.equals(JTR_V2_HEADER)) {
+            return null;
+        }
+
+        while ((line = in.readLine()) != null) {
+            if (line.startsWith(JTR_V2_RESPROPS)) {
+                break;
+            }
+        }
+
+        if (line == null) {
+            throw new ReloadFault(i18n, "rslt.badFormat");
+        }
+
+        return PropertyArray.load(in);
+    }
+
+    private static String[] readSummaryVersion3(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(is);
+        if (in.readInt() != JTR_V3_MAGIC || in.readInt() != JTR_V3_VERSION) {
+            return null;
+        }
+        in.readLong();      // table offset
+        readString(in);     // status, also in the properties
+        return readStrings(in);
+    }
+
     /**
      * Parse the date format used for timestamps, such as the start/stop timestamp.
      *
@@ -715,6 +887,45 @@ public class TestResult {
         maxTROutputSize = size;
     }
 
+    /**
+     * Get the maximum number of characters of output which is kept for a
+     * stream created by {@link Section#createOutput}. Output written to the
+     * stream beyond that is replaced by a message, except for the output
+     * at the end. This can be used by code which copies output to the
+     * stream, to avoid copying output which will not be kept.
+     *
+     * @param out the stream
+     * @return the maximum number of characters, or -1 if the stream was not
+     * created by {@code createOutput}
+     * @see #setMaxOutputSize
+     */
+    public static int getMaxOutputSize(Writer out) {
+        return out instanceof OutputWriter ? ((OutputWriter) out).getMaxOutputSize() : -1;
+    }
+
+    private synchronized int getMaxOutputSize() {
+        return maxTROutputSize > 0 ? maxTROutputSize : commonOutputSize;
+    }
+
+    /**
+     * Set the directory in which to keep temporary copies of any output
+     * which is too big to be kept in memory while the test is running.
+     * The size of output which is kept in memory is given by the system
+     * property javatest.outputSpillThreshold. Since no more output than
+     * allowed by javatest.maxOutputSize is kept for each stream, output is
+     * only moved to the directory if that limit has been raised above the
+     * threshold. If no directory is set, all output is kept in memory.
+     *
+     * @param dir the directory for temporary copies of output
+     */
+    synchronized void setOutputSpillDir(File dir) {
+        if (!isMutable()) {
+            throw new IllegalStateException(
+                    "This TestResult is no longer mutable!");
+        }
+        outputSpillDir = dir;
+    }
+
     /**
      * Reconstruct the results of a previously run test.
      *
@@ -730,12 +941,12 @@ public class TestResult {
 
 
         try {
-            resultsFile = workDir.getFile(getWorkRelativePath());
+            setResultsFile(workDir, getWorkRelativePath());
             props = null;
             sections = null;
             execStatus = null;
 
-            reload(new InputStreamReader(new FileInputStream(resultsFile), StandardCharsets.UTF_8));
+            reloadFile();
 
             // this next line is dubious since the execStatus should have
             // been set during the reload
@@ -803,7 +1014,8 @@ public class TestResult {
      * @return true if the result file for this object can be read
      */
     public boolean isReloadable() {
-        return resultsFile != null && resultsFile.canRead();
+        return resultsFile != null
+                && (store != null && store.contains(storePath) || resultsFile.canRead());
     }
 
     /**
@@ -828,6 +1040,80 @@ public class TestResult {
         }
     }
 
+    /**
+     * Get an iterator which returns the given test results in the same order,
+     * having reloaded each of them, including the output of their sections,
+     * on a pool of threads ahead of its use. This allows a report to read
+     * the results without waiting for each result file to be read in turn.
+     * The number of results reloaded ahead is given by the system property
+     * {@code javatest.prefetchResults} (default 256), and the number of
+     * threads by {@code javatest.prefetchThreads} (default: the number of
+     * available processors); if either is 0, results are not reloaded ahead.
+     * Problems reloading a result are not reported by the iterator, but when
+     * the data is accessed, as usual.
+     * The iterator should be closed when it is no longer required.
+     *
+     * @param results the test results to be returned
+     * @return an iterator returning the given results
+     */
+    public static PrefetchIterator<TestResult> prefetch(Iterator<? extends TestResult> results) {
+        if (prefetchAmount <= 0 || prefetchThreads <= 0) {
+            return new PrefetchIterator<>(results, tr -> { }, 0, 0);
+        }
+
+        // make room in the cache for the results that have been reloaded
+        // but not yet used, so that they are not shrunk before they are used
+        int reserve = prefetchAmount + prefetchThreads;
+        synchronized (shrinkList) {
+            reservedShrinkListSize += reserve;
+        }
+        return new PrefetchIterator<TestResult>(results, TestResult::preload, prefetchThreads, prefetchAmount) {
+            private boolean closed;
+
+            @Override
+            public void close() {
+                super.close();
+                if (!closed) {
+                    closed = true;
+                    synchronized (shrinkList) {
+                        reservedShrinkListSize -= reserve;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Make sure the data for this result, including the output of its sections,
+     * is in memory, reloading it from the result file if need be. Any problem
+     * is ignored here, to be reported when the data is accessed.
+     */
+    private void preload() {
+        Section[] secs;
+        synchronized (this) {
+            if (isShrunk() && isReloadable()) {
+                try {
+                    reload();
+                } catch (Fault e) {
+                    return;
+                }
+            }
+            secs = sections;
+        }
+
+        if (secs != null) {
+            for (Section s : secs) {
+                for (String name : s.getOutputNames()) {
+                    try {
+                        s.getOutput(name);
+                    } catch (JavaTestError e) {
+                        // ignore, as above
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Get the description of the test from which this result was created.
      * Depending on how the test result was created, this information may
@@ -870,6 +1156,17 @@ public class TestResult {
 
     public void resetFile() {
         resultsFile = null;
+        store = null;
+        storePath = null;
+    }
+
+    /**
+     * Set the location of the results for this test in a work directory.
+     */
+    private void setResultsFile(WorkDirectory workDir, String workRelativePath) {
+        resultsFile = workDir.getFile(workRelativePath);
+        store = workDir.getResultStore();
+        storePath = store == null ? null : workRelativePath.replace(File.separatorChar, '/');
     }
 
     /**
@@ -1124,7 +1421,13 @@ public class TestResult {
     }
 
     /**
-     * Writes the TestResult into a version 2 jtr file.
+     * Writes the TestResult into a version 2 jtr file, or into a binary
+     * version 3 jtr file if the system property {@code javatest.jtrFormat}
+     * is set to {@code binary}.
+     * The results are written to a temporary file which then replaces any
+     * existing file, so that the file is never seen partly written.
+     * If the system property {@code javatest.jtrSync} is set to {@code true},
+     * the file is also forced to disk before this method returns.
      *
      * @param workDir      The work directory in which to write the results
      * @param backupPolicy a policy object defining what to do if a file
@@ -1146,14 +1449,29 @@ public class TestResult {
         }
 
         String wrp = getWorkRelativePath(desc).replace('/', File.separatorChar);
-        resultsFile = workDir.getFile(wrp);
+        setResultsFile(workDir, wrp);
 
+        if (store != null) {
+            writeResults(store, JTR_FORMAT_BINARY.equals(System.getProperty(JTR_FORMAT_PROP)));
+            return;
+        }
+
+        ResultFiles resultFiles = workDir.getResultFiles();
         File resultsDir = resultsFile.getParentFile();
-        resultsDir.mkdirs(); // ensure directory created for .jtr file
+        resultFiles.mkdirs(resultsDir); // ensure directory created for .jtr file
+
+        File tempFile;
+        try {
+            tempFile = createTempFile(workDir, backupPolicy);
+        } catch (IOException e) {
+            // the directory may have been removed since it was created
+            resultFiles.remkdirs(resultsDir);
+            tempFile = createTempFile(workDir, backupPolicy);
+        }
 
-        File tempFile = createTempFile(workDir, backupPolicy);
         try {
-            writeResults(tempFile, backupPolicy);
+            writeResults(tempFile, backupPolicy, resultFiles,
+                    JTR_FORMAT_BINARY.equals(System.getProperty(JTR_FORMAT_PROP)));
         } finally {
             if (tempFile.exists()) {
                 tempFile.delete();
@@ -1161,6 +1479,39 @@ public class TestResult {
         }
     }
 
+    /**
+     * Write the results to a result store, replacing any previous results
+     * for the test.
+     */
+    private void writeResults(ResultStore store, boolean binary) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            if (binary) {
+                long tableOffset = writeVersion3(out);
+                byte[] data = out.toByteArray();
+                for (int i = 0; i < 8; i++) {
+                    data[JTR_V3_TABLE_OFFSET + i] = (byte) (tableOffset >>> (56 - 8 * i));
+                }
+                store.put(storePath, data);
+            } else {
+                writeVersion2(out);
+                store.put(storePath, out.toByteArray());
+            }
+
+            // output kept in temporary files is no longer needed: it can
+            // be reloaded from the store if required
+            discardSpilledOutput();
+
+            // now that it has been successfully written out, make the object
+            // a candidate for shrinking
+            addToShrinkList();
+        } catch (IOException e) {
+            execStatus = Status.error("Problem writing result for test: " + getTestName());
+            resultsFile = null; // not successfully written after all
+            throw e;
+        }
+    }
+
     /**
      * Create a temporary file to which the results can be written, before being renamed
      * to its real name.
@@ -1179,19 +1530,80 @@ public class TestResult {
     }
 
     /**
-     * Write the results to a temporary file, and when done, rename it to resultsFile
+     * Write the results to a temporary file, and when done, rename it to resultsFile.
+     * If resultFiles is not null, it is used to make the new file durable.
      */
-    private void writeResults(File tempFile, BackupPolicy backupPolicy)
+    private void writeResults(File tempFile, BackupPolicy backupPolicy,
+                              ResultFiles resultFiles, boolean binary)
             throws IOException {
-        Writer out;
+        if (binary) {
+            try {
+                writeVersion3(tempFile);
+            } catch (IOException e) {
+                execStatus = Status.error("Write to temp. JTR file failed (old JTR intact): " +
+                        tempFile.getPath());
+                resultsFile = null; // file not successfully written after all
+                throw e;
+            }
+        } else {
+            writeVersion2(tempFile);
+        }
+
         try {
-            out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8));
+            if (resultFiles != null) {
+                resultFiles.force(tempFile);
+            }
+
+            backupPolicy.backupAndRename(tempFile, resultsFile);
+
+            if (resultFiles != null) {
+                resultFiles.forceDirectory(resultsFile.getParentFile());
+            }
+
+            // output kept in temporary files is no longer needed: it can
+            // be reloaded from the result file if required
+            discardSpilledOutput();
+
+            // now that it has been successfully written out, make the object
+            // a candidate for shrinking
+            addToShrinkList();
+        }   // try
+        catch (IOException e) {
+            // This exception could be raised when trying to create the directory
+            // for the test results; opening the results file, or closing it.
+            execStatus = Status.error("Problem writing result file: " +
+                    resultsFile.getPath());
+            resultsFile = null; // file not successfully written after all
+            throw e;
+        }   // catch
+    }
+
+    private void writeVersion2(File tempFile)
+            throws IOException {
+        OutputStream os;
+        try {
+            os = new FileOutputStream(tempFile);
         } catch (IOException e) {
             execStatus = Status.error("Problem writing result file for test: " + getTestName());
             resultsFile = null; // file not successfully written after all
             throw e;
         }
 
+        try {
+            writeVersion2(os);
+        }   // try
+        catch (IOException e) {
+            // This exception could be raised when trying to create the directory
+            // for the test results; opening the results file, or closing it.
+            execStatus = Status.error("Write to temp. JTR file failed (old JTR intact): " +
+                    tempFile.getPath());
+            resultsFile = null; // file not successfully written after all
+            throw e;
+        }   // catch
+    }
+
+    private void writeVersion2(OutputStream os) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
         try {
             // redundant, is done in setResult
             // needed though if setResult isn't being called
@@ -1294,32 +1706,202 @@ public class TestResult {
             out.write(JTR_V2_TSTRESULT);
             out.write(execStatus.toString());
             out.write(lineSeparator);
+        } finally {
             out.close();
-        }   // try
-        catch (IOException e) {
-            // This exception could be raised when trying to create the directory
-            // for the test results; opening the results file, or closing it.
-            execStatus = Status.error("Write to temp. JTR file failed (old JTR intact): " +
-                    tempFile.getPath());
-            resultsFile = null; // file not successfully written after all
-            throw e;
-        }   // catch
+        }
+    }
+
+    /**
+     * Write the results in the binary version 3 format:
+     * <pre>
+     * int    magic ("JTR3")
+     * int    version (3)
+     * long   offset of the section table
+     * header:
+     *     string   test status
+     *     string[] test result properties
+     *     string[] test description properties
+     *     long     digest of the environment
+     * string[] environment
+     * the content of each output, as UTF-8 bytes
+     * section table:
+     *     int      number of sections
+     *     for each section:
+     *         string   title
+     *         string   status, or null
+     *         int      number of outputs
+     *         for each output:
+     *             string   name
+     *             long     offset of the content
+     *             long     length of the content, in bytes
+     * </pre>
+     * Strings are written as a length in bytes (or -1 for null) followed by
+     * UTF-8 bytes, and string arrays as a count followed by the strings.
+     * The header can be read without reading the rest of the file, and
+     * the content of any output can be read directly using the table.
+     */
+    private void writeVersion3(File tempFile) throws IOException {
+        long tableOffset = writeVersion3(new BufferedOutputStream(new FileOutputStream(tempFile)));
+
+        try (RandomAccessFile raf = new RandomAccessFile(tempFile, "rw")) {
+            raf.seek(JTR_V3_TABLE_OFFSET);
+            raf.writeLong(tableOffset);
+        }
+    }
+
+    /**
+     * Write the results in the binary version 3 format, leaving the offset
+     * of the section table to be filled in, and close the stream.
+     *
+     * @return the offset of the section table
+     */
+    private long writeVersion3(OutputStream os) throws IOException {
+        // redundant, is done in setResult
+        // needed though if setResult isn't being called
+        props = PropertyArray.put(props, EXEC_STATUS, execStatus.toString());
+
+        if (sections == null) {
+            throw new JavaTestError("Cannot write test result - it contains no sections.");
+        }
 
+        long tableOffset;
+        CountingOutputStream counter = new CountingOutputStream(os);
         try {
-            backupPolicy.backupAndRename(tempFile, resultsFile);
+            DataOutputStream out = new DataOutputStream(counter);
+            out.writeInt(JTR_V3_MAGIC);
+            out.writeInt(JTR_V3_VERSION);
+            out.writeLong(0); // table offset, filled in below
 
-            // now that it has been successfully written out, make the object
-            // a candidate for shrinking
-            addToShrinkList();
-        }   // try
-        catch (IOException e) {
-            // This exception could be raised when trying to create the directory
-            // for the test results; opening the results file, or closing it.
-            execStatus = Status.error("Problem writing result file: " +
-                    resultsFile.getPath());
-            resultsFile = null; // file not successfully written after all
-            throw e;
-        }   // catch
+            writeString(out, execStatus.toString());
+            writeStrings(out, props);
+            Map<String, String> tdProps = new HashMap<>();
+            desc.save(tdProps);
+            writeStrings(out, PropertyArray.getArray(tdProps));
+            out.writeLong(env == null ? 0 : computeChecksum(env));
+            writeStrings(out, env == null ? emptyStringArray : env);
+
+            long[][] offsets = new long[sections.length][];
+            for (int i = 0; i < sections.length; i++) {
+                offsets[i] = sections[i].saveOutputs(counter);
+            }
+
+            tableOffset = counter.count;
+            out.writeInt(sections.length);
+            for (int i = 0; i < sections.length; i++) {
+                sections[i].saveTable(out, offsets[i]);
+            }
+        } finally {
+            counter.closeFile();
+        }
+
+        return tableOffset;
+    }
+
+    /**
+     * Rewrite the result file for this test in a given format.
+     *
+     * @param binary true if the file should be written in the binary
+     *               version 3 format, or false for the text format
+     * @throws TestResult.Fault if there is a problem reading the existing file
+     * @throws IOException      if there is a problem writing the new file
+     */
+    synchronized void rewriteResults(boolean binary) throws Fault, IOException {
+        if (resultsFile == null) {
+            throw new ReloadFault(i18n, "rslt.noResultFile");
+        }
+
+        if (props == null || env == null || sections == null) {
+            reload();
+        }
+
+        // make sure all the output is in memory before the file is replaced
+        for (Section section : sections) {
+            section.loadOutputs();
+        }
+
+        if (store != null && store.contains(storePath)) {
+            writeResults(store, binary);
+            return;
+        }
+
+        File tempFile = createTempFile(null, null);
+        try {
+            writeResults(tempFile, BackupPolicy.noBackups(), null, binary);
+        } finally {
+            if (tempFile.exists()) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Check whether a result file is in the binary version 3 format.
+     *
+     * @param file the result file
+     * @return true if the file is in the binary format
+     * @throws IOException if there is a problem reading the file
+     */
+    static boolean isBinaryResultFile(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return isBinaryResultFile(in);
+        }
+    }
+
+    /**
+     * Check whether a stream, positioned at the start of a result file,
+     * is for a file in the binary version 3 format. The stream is reset
+     * to the start of the file afterwards, so it must support mark and
+     * reset, or be discarded.
+     */
+    private static boolean isBinaryResultFile(InputStream in) throws IOException {
+        in.mark(4);
+        int magic = 0;
+        for (int i = 0; i < 4; i++) {
+            int b = in.read();
+            if (b == -1) {
+                break;
+            }
+            magic = (magic << 8) | b;
+        }
+        if (in.markSupported()) {
+            in.reset();
+        }
+        return magic == JTR_V3_MAGIC;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, String... strings) throws IOException {
+        out.writeInt(strings.length);
+        for (String s : strings) {
+            writeString(out, s);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String[] readStrings(DataInputStream in) throws IOException {
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(in);
+        }
+        return strings;
     }
 
     /**
@@ -1494,7 +2076,7 @@ public class TestResult {
         }
 
         try {
-            reload(new BufferedReader(new InputStreamReader(new FileInputStream(resultsFile), StandardCharsets.UTF_8)));
+            reloadFile();
 
             // Well, we have successfully reloaded it, so the object is now taking
             // up a big footprint again ... put it back on the list to be shrunk again
@@ -1506,6 +2088,39 @@ public class TestResult {
         }
     }
 
+    /**
+     * Reload from resultsFile, which may be in either the text or the binary format.
+     * If the results are kept in a store, they are reloaded from there instead,
+     * unless the store does not have them.
+     */
+    private void reloadFile() throws ReloadFault, IOException {
+        byte[] data = store == null ? null : store.get(storePath);
+        if (data != null) {
+            if (isBinaryResultFile(new ByteArrayInputStream(data))) {
+                reloadVersion3(data);
+            } else {
+                reload(new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8));
+            }
+            return;
+        }
+
+        InputStream in = new BufferedInputStream(new FileInputStream(resultsFile));
+        boolean binary;
+        try {
+            binary = isBinaryResultFile(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+
+        if (binary) {
+            in.close();
+            reloadVersion3();
+        } else {
+            reload(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+    }
+
     /**
      * @throws ReloadFault Generally describes any error which is encountered while
      *                     reading or processing the input file.  This may indicate
@@ -1517,22 +2132,137 @@ public class TestResult {
             BufferedReader br = new BufferedReader(r);
             String line = br.readLine();
 
-            // determine JTR version
-            if (line == null) {
-                throw new ReloadFault(i18n, "rslt.empty", resultsFile);
-            }
-            if (line.equals(JTR_V2_HEADER)) {
-                reloadVersion2(br);
-            } else if (line.equals(JTR_V1_HEADER)) {
-                reloadVersion1(br);
+            // determine JTR version
+            if (line == null) {
+                throw new ReloadFault(i18n, "rslt.empty", resultsFile);
+            }
+            if (line.equals(JTR_V2_HEADER)) {
+                reloadVersion2(br);
+            } else if (line.equals(JTR_V1_HEADER)) {
+                reloadVersion1(br);
+            } else {
+                throw new ReloadFault(i18n, "rslt.badHeader", resultsFile);
+            }
+        } catch (RuntimeException e) {
+            throw new ReloadFault(i18n, "rslt.badRuntimeErr", resultsFile.getPath(), e.getLocalizedMessage());
+        } finally {
+            r.close();
+        }
+    }
+
+    /**
+     * Reload from a binary version 3 result file. The content of the outputs
+     * is not read until it is needed.
+     *
+     * @see #writeVersion3
+     */
+    private void reloadVersion3() throws ReloadFault, IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(resultsFile, "r")) {
+            long tableOffset = reloadVersion3Header(new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(raf.getChannel()))));
+
+            // the section table
+            raf.seek(tableOffset);
+            reloadVersion3Table(new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(raf.getChannel()))), null);
+        } catch (RuntimeException e) {
+            throw new ReloadFault(i18n, "rslt.badRuntimeErr", resultsFile.getPath(), e.getLocalizedMessage());
+        }
+
+        // checksum support removed
+        checksumState = NO_CHECKSUM;
+    }
+
+    /**
+     * Reload from the content of a binary version 3 result file. The content
+     * of the outputs is read straight away.
+     */
+    private void reloadVersion3(byte[] data) throws ReloadFault, IOException {
+        try {
+            long tableOffset = reloadVersion3Header(new DataInputStream(new ByteArrayInputStream(data)));
+            if (tableOffset < 0 || tableOffset > data.length) {
+                throw new ReloadFault(i18n, "rslt.badHeader", resultsFile);
+            }
+            reloadVersion3Table(new DataInputStream(new ByteArrayInputStream(data,
+                    (int) tableOffset, data.length - (int) tableOffset)), data);
+        } catch (RuntimeException e) {
+            throw new ReloadFault(i18n, "rslt.badRuntimeErr", resultsFile.getPath(), e.getLocalizedMessage());
+        }
+
+        // checksum support removed
+        checksumState = NO_CHECKSUM;
+    }
+
+    /**
+     * Reload the header and environment of a binary version 3 result file.
+     *
+     * @return the offset of the section table
+     */
+    private long reloadVersion3Header(DataInputStream in) throws ReloadFault, IOException {
+        if (in.readInt() != JTR_V3_MAGIC || in.readInt() != JTR_V3_VERSION) {
+            throw new ReloadFault(i18n, "rslt.badHeader", resultsFile);
+        }
+        long tableOffset = in.readLong();
+
+        // header
+        String status = readString(in);
+        String[] trProps = readStrings(in);
+        String[] tdProps = readStrings(in);
+        in.readLong();      // environment digest
+
+        if (props == null) {
+            uniquifyStrings(trProps);
+            props = trProps;
+        }
+
+        if (desc == null) {
+            uniquifyStrings(tdProps);
+            desc = TestDescription.load(tdProps);
+        }
+
+        env = readStrings(in);
+        uniquifyStrings(env);
+
+        execStatus = Status.parse(status);
+        if (execStatus == null) {
+            execStatus = Status.error("NO STATUS RECORDED IN FILE");
+        }
+
+        return tableOffset;
+    }
+
+    /**
+     * Reload the section table of a binary version 3 result file.
+     * If the content of the file is given, the outputs are taken from it,
+     * otherwise they are read from resultsFile when needed.
+     */
+    private void reloadVersion3Table(DataInputStream in, byte[] data) throws ReloadFault, IOException {
+        Section[] sects = new Section[in.readInt()];
+        for (int i = 0; i < sects.length; i++) {
+            String title = readString(in);
+            Section s = new Section(title.equals(MSG_SECTION_NAME) ? MSG_SECTION_NAME : title);
+            String result = readString(in);
+            if (result != null) {
+                s.reloadStatus(Status.parse(result));
+            } else if (!s.getTitle().equals(MSG_SECTION_NAME)) {
+                throw new ReloadFault(i18n, "rslt.noSectionResult");
             } else {
-                throw new ReloadFault(i18n, "rslt.badHeader", resultsFile);
+                s.reloadStatus(null);
+            }
+            int nOutputs = in.readInt();
+            for (int j = 0; j < nOutputs; j++) {
+                String name = readString(in);
+                long offset = in.readLong();
+                long length = in.readLong();
+                if (data == null) {
+                    s.reloadOutput(name, resultsFile, offset, length);
+                } else {
+                    s.reloadOutput(name, new String(data, (int) offset, (int) length, StandardCharsets.UTF_8));
+                }
             }
-        } catch (RuntimeException e) {
-            throw new ReloadFault(i18n, "rslt.badRuntimeErr", resultsFile.getPath(), e.getLocalizedMessage());
-        } finally {
-            r.close();
+            sects[i] = s;
         }
+        sections = sects;
     }
 
     private void reloadVersion1(BufferedReader in)
@@ -1990,17 +2720,56 @@ public class TestResult {
                     iter.remove();
                 }
             }
-            while (shrinkList.size() >= maxShrinkListSize) {
+            while (shrinkList.size() >= maxShrinkListSize + reservedShrinkListSize) {
                 WeakReference<TestResult> wref = shrinkList.removeFirst();
                 TestResult tr = wref.get();
                 if (tr != null) {
-                    tr.shrink();
+                    // The caller holds the lock on this object, and another
+                    // thread reloading tr may hold its lock while waiting for
+                    // the shrink list, so tr is shrunk by a thread which holds
+                    // no other lock.
+                    shrinker.execute(tr::shrink);
                 }
             }
             shrinkList.addLast(new WeakReference<>(this));
         }
     }
 
+    /**
+     * Delete any temporary files holding output for this test result.
+     * If there are any such files, the sections are discarded, as for
+     * {@link #shrink}, to be reloaded from the result file if needed.
+     */
+    private void discardSpilledOutput() {
+        if (sections == null) {
+            return;
+        }
+
+        boolean spilled = false;
+        for (Section section : sections) {
+            spilled |= section.discardSpilledOutput();
+        }
+
+        if (spilled) {
+            sections = null;
+        }
+    }
+
+    /**
+     * Move any output held in temporary files back into memory, and delete
+     * the files. This is for results which are not written to a result file,
+     * from which the output could otherwise be reloaded.
+     */
+    synchronized void restoreSpilledOutput() {
+        if (sections == null) {
+            return;
+        }
+
+        for (Section section : sections) {
+            section.restoreSpilledOutput();
+        }
+    }
+
     /**
      * Tells the object that it can optimize itself for a small memory footprint.
      * Doing this may sacrifice performance when accessing object data.  This
@@ -2096,6 +2865,8 @@ public class TestResult {
 
         String getOutput();
 
+        void writeOutput(Writer out) throws IOException;
+
         PrintWriter getPrintWriter();
     }
 
@@ -2179,6 +2950,17 @@ public class TestResult {
         }
     }
 
+    // the stream returned by Section.createOutput
+    private class OutputWriter extends LockedWriter {
+        OutputWriter(Writer out) {
+            super(out, TestResult.this);
+        }
+
+        int getMaxOutputSize() {
+            return TestResult.this.getMaxOutputSize();
+        }
+    }
+
     /**
      * This "section" is the logical combination of a single action during test
      * execution.  It is designed to hold multiple (or none) buffers of
@@ -2442,8 +3224,12 @@ public class TestResult {
             out.write(lineSeparator);
 
             for (OutputBuffer buffer : buffers) {
-                String text = buffer.getOutput();
-                TextScanResult scanRes = TextScanResult.scan(text);
+                // the output is read twice, first to scan it, and then to
+                // write it, so that output held in a file need not be read
+                // into memory all at once
+                TextScanResult scanRes = new TextScanResult();
+                buffer.writeOutput(scanRes.getScanner());
+                scanRes.finish();
 
                 out.write(JTR_V2_SECTSTREAM);
                 out.write(buffer.getName());
@@ -2454,9 +3240,9 @@ public class TestResult {
                 if (scanRes.needsEscape) {
                     // count one per character, plus an additional one per \ (written as "\ \") and an
                     // additional 5 per nonASCII (written as "\ u x x x x")
-                    out.write(String.valueOf(text.length() + scanRes.numBackslashes + 5 * scanRes.numNonASCII));
+                    out.write(String.valueOf(scanRes.numChars + scanRes.numBackslashes + 5 * scanRes.numNonASCII));
                 } else {
-                    out.write(String.valueOf(text.length()));
+                    out.write(String.valueOf(scanRes.numChars));
                 }
                 out.write(')');
                 if (scanRes.needsEscape) {
@@ -2465,34 +3251,7 @@ public class TestResult {
                 out.write(JTR_V2_SECTSTREAM);
                 out.write(lineSeparator);
 
-                if (scanRes.needsEscape) {
-                    for (int i = 0; i < text.length(); i++) {
-                        char c = text.charAt(i);
-                        if (32 <= c && c < 127 && c != '\\') {
-                            out.write(c);
-                        } else {
-                            switch (c) {
-                                case '\n':
-                                case '\r':
-                                case '\t':
-                                    out.write(c);
-                                    break;
-                                case '\\':
-                                    out.write("\\\\");
-                                    break;
-                                default:
-                                    out.write("\\u");
-                                    out.write(Character.forDigit((c >> 12) & 0xF, 16));
-                                    out.write(Character.forDigit((c >> 8) & 0xF, 16));
-                                    out.write(Character.forDigit((c >> 4) & 0xF, 16));
-                                    out.write(Character.forDigit((c >> 0) & 0xF, 16));
-                                    break;
-                            }
-                        }
-                    }
-                } else {
-                    out.write(text);
-                }
+                buffer.writeOutput(scanRes.needsEscape ? new EscapeWriter(out) : out);
 
                 if (scanRes.needsFinalNewline) {
                     out.write(lineSeparator);
@@ -2508,6 +3267,66 @@ public class TestResult {
             out.write(lineSeparator);
         }
 
+        /**
+         * Write the content of each output of this section as UTF-8,
+         * for a version 3 result file.
+         *
+         * @return the offset and length in bytes of each output, in pairs
+         */
+        synchronized long[] saveOutputs(CountingOutputStream out) throws IOException {
+            long[] offsets = new long[buffers.length * 2];
+            Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            for (int i = 0; i < buffers.length; i++) {
+                w.flush();
+                offsets[2 * i] = out.count;
+                buffers[i].writeOutput(w);
+                w.flush();
+                offsets[2 * i + 1] = out.count - offsets[2 * i];
+            }
+            return offsets;
+        }
+
+        /**
+         * Write the entry for this section in the section table
+         * of a version 3 result file.
+         */
+        synchronized void saveTable(DataOutputStream out, long... offsets) throws IOException {
+            writeString(out, title);
+            // the default message section does not need a result
+            writeString(out, Objects.equals(title, MSG_SECTION_NAME) ? null : result.toString());
+            out.writeInt(buffers.length);
+            for (int i = 0; i < buffers.length; i++) {
+                writeString(out, buffers[i].getName());
+                out.writeLong(offsets[2 * i]);
+                out.writeLong(offsets[2 * i + 1]);
+            }
+        }
+
+        /**
+         * Read any output which has not yet been read from the result file
+         * into memory.
+         */
+        synchronized void loadOutputs() {
+            for (int i = 0; i < buffers.length; i++) {
+                if (buffers[i] instanceof LazyOutputBuffer) {
+                    buffers[i] = new FixedOutputBuffer(buffers[i].getName(), buffers[i].getOutput());
+                }
+            }
+        }
+
+        /**
+         * Reload an output block which is to be read from a version 3 result
+         * file when it is first needed. This method is called while reloading
+         * a test result and so bypasses the normal immutability checks.
+         */
+        synchronized void reloadOutput(String name, File file, long offset, long length) {
+            if (name.equals(MESSAGE_OUTPUT_NAME)) {
+                name = MESSAGE_OUTPUT_NAME;
+            }
+            OutputBuffer b = new LazyOutputBuffer(name, file, offset, length);
+            buffers = DynamicArray.append(buffers, b);
+        }
+
         /**
          * Reload an output block. This method is called while reloading
          * a test result and so bypasses the normal immutability checks.
@@ -2534,15 +3353,51 @@ public class TestResult {
             }
         }
 
-        private synchronized void makeOutputImmutable(OutputBuffer b, String name, String output) {
+        private synchronized void makeOutputImmutable(OutputBuffer b, OutputBuffer fixed) {
             for (int i = 0; i < buffers.length; i++) {
                 if (buffers[i] == b) {
-                    buffers[i] = new FixedOutputBuffer(name, output);
+                    buffers[i] = fixed;
                     return;
                 }
             }
         }
 
+        /**
+         * Delete any temporary files holding output for this section.
+         *
+         * @return true if there were any such files
+         */
+        synchronized boolean discardSpilledOutput() {
+            boolean spilled = false;
+            for (OutputBuffer b : buffers) {
+                if (b instanceof SpilledOutputBuffer) {
+                    ((SpilledOutputBuffer) b).discard();
+                    spilled = true;
+                }
+            }
+            return spilled;
+        }
+
+        /**
+         * Move any output held in temporary files for this section into
+         * memory, and delete the files.
+         */
+        synchronized void restoreSpilledOutput() {
+            for (int i = 0; i < buffers.length; i++) {
+                if (buffers[i] instanceof SpilledOutputBuffer) {
+                    SpilledOutputBuffer b = (SpilledOutputBuffer) buffers[i];
+                    String output;
+                    try {
+                        output = b.getOutput();
+                    } catch (JavaTestError e) {
+                        output = e.getMessage();
+                    }
+                    buffers[i] = new FixedOutputBuffer(b.getName(), output);
+                    b.discard();
+                }
+            }
+        }
+
         private synchronized OutputBuffer findOutputBuffer(String name) {
             // search backwards
             // may help in some backward compatibility cases since the most
@@ -2690,10 +3545,167 @@ public class TestResult {
                 return output;
             }
 
+            @Override
+            public void writeOutput(Writer out) throws IOException {
+                out.write(output);
+            }
+
+            @Override
+            public PrintWriter getPrintWriter() {
+                throw new IllegalStateException("This section is immutable");
+            }
+        }
+
+        /**
+         * The output of a completed stream which was too big to be kept
+         * in memory, and which is kept in temporary files until the test
+         * result has been written.
+         */
+        private class SpilledOutputBuffer implements OutputBuffer {
+            private final String name;
+            private final OutputSpool[] spools;
+
+            SpilledOutputBuffer(String name, OutputSpool... spools) {
+                this.name = name;
+                this.spools = spools;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getOutput() {
+                try {
+                    StringWriter sw = new StringWriter();
+                    writeOutput(sw);
+                    return sw.toString();
+                } catch (IOException e) {
+                    throw new JavaTestError(i18n, "rslt.badOutputSpill", e);
+                }
+            }
+
+            @Override
+            public void writeOutput(Writer out) throws IOException {
+                for (OutputSpool s : spools) {
+                    s.writeTo(0, out);
+                }
+            }
+
+            @Override
+            public PrintWriter getPrintWriter() {
+                throw new IllegalStateException("This section is immutable");
+            }
+
+            void discard() {
+                for (OutputSpool s : spools) {
+                    s.close();
+                }
+            }
+        }
+
+        /**
+         * The output of a completed stream in a version 3 result file,
+         * which is only read from the file when it is needed.
+         */
+        private class LazyOutputBuffer implements OutputBuffer {
+            private final String name;
+            private final File file;
+            private final long offset;
+            private final long length;
+            private final long lastModified;
+            private SoftReference<String> output;
+
+            LazyOutputBuffer(String name, File file, long offset, long length) {
+                this.name = name;
+                this.file = file;
+                this.offset = offset;
+                this.length = length;
+                lastModified = file.lastModified();
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getOutput() {
+                synchronized (TestResult.this) {
+                    synchronized (this) {
+                        String s = output == null ? null : output.get();
+                        if (s == null) {
+                            try {
+                                s = read();
+                            } catch (IOException e) {
+                                return reloadOutput(e);
+                            }
+                            output = new SoftReference<>(s);
+                        }
+                        return s;
+                    }
+                }
+            }
+
+            @Override
+            public void writeOutput(Writer out) throws IOException {
+                out.write(getOutput());
+            }
+
             @Override
             public PrintWriter getPrintWriter() {
                 throw new IllegalStateException("This section is immutable");
             }
+
+            /**
+             * Get the output from a full reload of the test result, for
+             * use when the output can no longer be read from the place in
+             * the result file from which this section was read, such as
+             * because the file has been rewritten since then.
+             * If the result cannot be reloaded, a message describing the
+             * problem is returned as the output.
+             */
+            private String reloadOutput(IOException cause) {
+                String title = getTitle();
+                int index = sections == null ? -1 : Arrays.asList(sections).indexOf(Section.this);
+                try {
+                    reload();
+                } catch (Fault f) {
+                    return i18n.getString("rslt.badLazyOutput", file, f.getMessage());
+                }
+
+                // find the same section in the reloaded result
+                if (index < 0 || index >= sections.length || !sections[index].getTitle().equals(title)) {
+                    index = findSection(title);
+                }
+                Section s = (index < 0 ? null : sections[index]);
+                OutputBuffer b = (s == null ? null : s.findOutputBuffer(name));
+                if (b == null) {
+                    return i18n.getString("rslt.badLazyOutput", file, cause.getMessage());
+                }
+                try {
+                    // do not reload again if the new result file has also changed
+                    return (b instanceof LazyOutputBuffer) ? ((LazyOutputBuffer) b).read() : b.getOutput();
+                } catch (IOException e) {
+                    return i18n.getString("rslt.badLazyOutput", file, e.getMessage());
+                }
+            }
+
+            private String read() throws IOException {
+                if (file.lastModified() != lastModified) {
+                    throw new IOException(i18n.getString("rslt.fileChanged", file));
+                }
+                if (length > Integer.MAX_VALUE) {
+                    throw new IOException(i18n.getString("rslt.outputTooLarge", name));
+                }
+                byte[] bytes = new byte[(int) length];
+                try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                    raf.seek(offset);
+                    raf.readFully(bytes);
+                }
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
         }
 
         private class WritableOutputBuffer extends Writer implements OutputBuffer {
@@ -2701,7 +3713,11 @@ public class TestResult {
             private final PrintWriter pw;
             private boolean overflowed;
             private int overflowStart;
-            private /*final*/ StringBuffer output; // can't easily be final in JDK 1.1 because need to reassign to it
+            // all the output, or, once the output has overflowed, the beginning
+            // of the output followed by the overflow message
+            private OutputSpool output;
+            // once the output has overflowed, the end of the output
+            private OutputSpool tail;
 
             WritableOutputBuffer(String name) {
                 super(TestResult.this);
@@ -2710,8 +3726,8 @@ public class TestResult {
                 }
 
                 this.name = name;
-                output = new StringBuffer();
-                pw = new LockedWriter(this, TestResult.this);
+                output = newSpool();
+                pw = new OutputWriter(this);
             }
 
             @Override
@@ -2721,7 +3737,19 @@ public class TestResult {
 
             @Override
             public String getOutput() {
-                return new String(output);
+                try {
+                    return tail == null ? output.getText() : output.getText() + tail.getText();
+                } catch (IOException e) {
+                    throw new JavaTestError(i18n, "rslt.badOutputSpill", e);
+                }
+            }
+
+            @Override
+            public void writeOutput(Writer out) throws IOException {
+                output.writeTo(0, out);
+                if (tail != null) {
+                    tail.writeTo(0, out);
+                }
             }
 
             @Override
@@ -2735,21 +3763,18 @@ public class TestResult {
                     throw new IOException("stream has been closed");
                 }
 
-                int end = output.length();
-                output.append(buf, offset, len);
+                int end = length();
+                (tail == null ? output : tail).write(buf, offset, len);
                 // want to avoid creating the string buf(offset..len)
                 // since likely case is no observers
                 notifyUpdatedOutput(Section.this, name, end, end, buf, offset, len);
 
-                int maxOutputSize = maxTROutputSize > 0 ? maxTROutputSize : commonOutputSize;
-                if (output.length() > maxOutputSize) {
+                int maxOutputSize = getMaxOutputSize();
+                if (length() > maxOutputSize) {
                     int overflowEnd = maxOutputSize / 3;
                     if (overflowed) {
-                        // output.delete(overflowStart, overflowEnd);
-                        // JDK 1.1--start
-                        String s = output.toString();
-                        output = new StringBuffer(s.substring(0, overflowStart) + s.substring(output.length() - overflowEnd));
-                        // JDK 1.1--end
+                        // keep the beginning, and the last overflowEnd chars
+                        tail.discardFirst(tail.length() - overflowEnd);
                         notifyUpdatedOutput(Section.this, name, overflowStart, overflowEnd, "");
                     } else {
                         String OVERFLOW_MESSAGE =
@@ -2764,11 +3789,11 @@ public class TestResult {
                                         + "value. The current value is " + maxOutputSize
                                         + "\n...\n\n";
                         overflowStart = maxOutputSize / 3;
-                        //output.replace(overflowStart, maxOutputSize*2/3, OVERFLOW_MESSAGE);
-                        // JDK 1.1--start
-                        String s = output.toString();
-                        output = new StringBuffer(s.substring(0, overflowStart) + OVERFLOW_MESSAGE + s.substring(overflowEnd));
-                        // JDK 1.1--end
+                        // split the output after the beginning, and insert the message
+                        tail = newSpool();
+                        output.writeTo(overflowEnd, tail);
+                        output.truncate(overflowStart);
+                        output.write(OVERFLOW_MESSAGE);
                         notifyUpdatedOutput(Section.this, name, overflowStart, overflowEnd, OVERFLOW_MESSAGE);
                         overflowStart += OVERFLOW_MESSAGE.length();
                         overflowed = true;
@@ -2783,16 +3808,40 @@ public class TestResult {
 
             public void deleteAllOutput() {
                 pw.flush();
-                output.setLength(0);
+                output.close();
+                if (tail != null) {
+                    tail.close();
+                    tail = null;
+                }
                 overflowStart = -1;
                 overflowed = false;
             }
 
             @Override
             public void close() {
-                makeOutputImmutable(this, name, new String(output));
+                OutputBuffer fixed;
+                if (output.isSpilled() || (tail != null && tail.isSpilled())) {
+                    fixed = (tail == null)
+                            ? new SpilledOutputBuffer(name, output)
+                            : new SpilledOutputBuffer(name, output, tail);
+                } else {
+                    fixed = new FixedOutputBuffer(name, getOutput());
+                    output.close();
+                    if (tail != null) {
+                        tail.close();
+                    }
+                }
+                makeOutputImmutable(this, fixed);
                 notifyCompletedOutput(Section.this, name);
             }
+
+            private int length() {
+                return (int) (output.length() + (tail == null ? 0 : tail.length()));
+            }
+
+            private OutputSpool newSpool() {
+                return new OutputSpool(outputSpillDir, outputSpillThreshold);
+            }
         }
     }
 
@@ -2803,48 +3852,185 @@ public class TestResult {
         int numLines;
         int numBackslashes;
         int numNonASCII;
+        long numChars;
         boolean needsFinalNewline;
         boolean needsEscape;
 
+        // state carried from one block of text to the next
+        private boolean pendingCR;
+        private char lastChar;
+
         public static TextScanResult scan(String text) {
             TextScanResult tsr = new TextScanResult();
+            tsr.scan(text, 0, text.length());
+            tsr.finish();
+            return tsr;
+        }
 
-            tsr.numLines = 0;
-            tsr.numBackslashes = 0;
-            tsr.numNonASCII = 0;
-            tsr.needsFinalNewline = false;
-
+        /**
+         * Scan a block of text, following any text that has already been scanned.
+         */
+        void scan(CharSequence text, int start, int end) {
             // scan for newlines and characters requiring escapes
-            int lastCharPos = text.length() - 1;
-            for (int i = 0; i < text.length(); i++) {
+            for (int i = start; i < end; i++) {
                 char c = text.charAt(i);
-                char nextChar = (i == lastCharPos) ? 0 : text.charAt(i + 1);
-                if (c < 32) {   // if it's "\r\n" sep we skip the \r and would count only the \n on the next step
-                    if ((c == '\n') || (c == '\r' && nextChar != '\n')) {
-                        tsr.numLines++;
-                    } else if (c != '\t' && c != '\r') {
-                        tsr.numNonASCII++;
+                if (pendingCR) {
+                    // a "\r\n" separator is only counted once, for the \n
+                    if (c != '\n') {
+                        numLines++;
+                    }
+                    pendingCR = false;
+                }
+                if (c < 32) {
+                    if (c == '\n') {
+                        numLines++;
+                    } else if (c == '\r') {
+                        pendingCR = true;
+                    } else if (c != '\t') {
+                        numNonASCII++;
                     }
                 } else if (c < 127) {
                     if (c == '\\') {
-                        tsr.numBackslashes++;
+                        numBackslashes++;
                     }
                 } else {
-                    tsr.numNonASCII++;
+                    numNonASCII++;
                 }
             }
 
-            tsr.needsEscape = tsr.numBackslashes > 0 || tsr.numNonASCII > 0;
+            if (end > start) {
+                lastChar = text.charAt(end - 1);
+                numChars += end - start;
+            }
+        }
+
+        /**
+         * Complete the scan, after all the text has been scanned.
+         */
+        void finish() {
+            if (pendingCR) {
+                numLines++;
+                pendingCR = false;
+            }
+
+            needsEscape = numBackslashes > 0 || numNonASCII > 0;
 
             // Check the text ends with a final newline ('\n', not line.separator)
             // Note this must match the check when reading the text back in,
             // when we also check for just '\n' and not line.separator, because
             // line.separator now, and line.separator then, might be different.
-            if (!text.isEmpty() && !text.endsWith("\n") && !text.endsWith("\r") && !text.endsWith("\r\n")) {
-                tsr.needsFinalNewline = true;
-                tsr.numLines++;
+            if (numChars > 0 && lastChar != '\n' && lastChar != '\r') {
+                needsFinalNewline = true;
+                numLines++;
+            }
+        }
+
+        /**
+         * Get a writer which scans the text written to it.
+         */
+        Writer getScanner() {
+            return new Writer() {
+                @Override
+                public void write(char[] cbuf, int off, int len) {
+                    scan(CharBuffer.wrap(cbuf), off, off + len);
+                }
+
+                @Override
+                public void write(String str, int off, int len) {
+                    scan(str, off, off + len);
+                }
+
+                @Override
+                public void flush() {
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+    }
+
+    /**
+     * An output stream which keeps track of the number of bytes written,
+     * and which is not closed when the writers on it are closed.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // only closed when the result file is complete
+        }
+
+        void closeFile() throws IOException {
+            super.close();
+        }
+    }
+
+    /**
+     * A writer which escapes backslashes and characters other than
+     * printable ASCII characters and line terminators, as required for the
+     * output streams in a result file.
+     */
+    private static class EscapeWriter extends FilterWriter {
+        EscapeWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (32 <= c && c < 127 && c != '\\') {
+                out.write(c);
+            } else {
+                switch (c) {
+                    case '\n':
+                    case '\r':
+                    case '\t':
+                        out.write(c);
+                        break;
+                    case '\\':
+                        out.write("\\\\");
+                        break;
+                    default:
+                        out.write("\\u");
+                        out.write(Character.forDigit((c >> 12) & 0xF, 16));
+                        out.write(Character.forDigit((c >> 8) & 0xF, 16));
+                        out.write(Character.forDigit((c >> 4) & 0xF, 16));
+                        out.write(Character.forDigit((c >> 0) & 0xF, 16));
+                        break;
+                }
+            }
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                write(cbuf[i]);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                write(str.charAt(i));
             }
-            return tsr;
         }
     }
 
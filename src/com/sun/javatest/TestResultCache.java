@@ -30,16 +30,28 @@ import com.sun.javatest.logging.WorkDirLogHandler;
 import com.sun.javatest.util.Debug;
 import com.sun.javatest.util.I18NResourceBundle;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.lang.ref.WeakReference;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.logging.Handler;
 import java.util.logging.Logger;
 
@@ -48,6 +60,11 @@ import java.util.logging.Logger;
  * work directory.  It is designed to allow the harness to get general
  * information (name, status) about tests without having to open all the
  * result files.
+ * <p>
+ * The cache is kept in a memory-mapped file with a hash index, so that
+ * individual entries can be found and updated in place; see
+ * {@link TestResultCacheFile}. A cache in the older, append-only
+ * format is migrated to the new format when it is first opened.
  */
 public class TestResultCache {
 
@@ -71,9 +88,8 @@ public class TestResultCache {
     private static final String V1_LOCKNAME = V1_FILENAME + ".lck";
     private static final String V2_FILENAME = "ResultCache2.jtw";
     private static final String V2_LOCKNAME = V2_FILENAME + ".lck";
-    // maximum length of reason string written into cache
-    // writeUTF can only write a limited length string, see writeCacheEntry()
-    private static final int MAX_REASON_LENGTH = 256;
+    private static final String V3_FILENAME = "ResultCache3.jtw";
+    private static final String V3_LOCKNAME = V3_FILENAME + ".lck";
 
     //-------------------------------------------------------------------------------------
     //
@@ -114,15 +130,9 @@ public class TestResultCache {
     private Thread worker;
     private Thread shutdownHandler;
     // worker thread data
-    private RandomAccessFile raf;
-
-    //-------------------------------------------------------------------------------------
-    private int uniqueInitialEntryCount;
-
-    //-------------------------------------------------------------------------------------
-    private int totalEntryCount;
+    private TestResultCacheFile cache;
     private int lastSerial;
-    private long lastFileSize;
+    private int lastModCount = -1;
     private boolean updateNeeded;
     // synchronized data
     private boolean fullUpdateRequested;
@@ -146,8 +156,8 @@ public class TestResultCache {
         weakWorkDir = new WeakReference<>(workDir);
         weakObserver = new WeakReference<>(observer);
 
-        cacheFile = workDir.getSystemFile(V2_FILENAME);
-        lockFile = workDir.getSystemFile(V2_LOCKNAME);
+        cacheFile = workDir.getSystemFile(V3_FILENAME);
+        lockFile = workDir.getSystemFile(V3_LOCKNAME);
 
         File old = workDir.getSystemFile(V1_FILENAME);
         if (old.exists()) {
@@ -161,7 +171,7 @@ public class TestResultCache {
             old.delete();
         }
 
-        raf = new RandomAccessFile(cacheFile, "rw");
+        cache = new TestResultCacheFile(cacheFile);
 
         worker = new Thread(this::doWorkUntilDone);
         worker.setName("TestResultCache.worker" + workerNumber++ + "[" + workDir.getRoot() + "]");
@@ -286,18 +296,11 @@ public class TestResultCache {
                         return;
                     }
 
-                    // re-evaluate compressNeeded now, while still synchronized
-                    // so that totalEntryCount and uniqueInitialEntry do not have
-                    // to be synchronized inside doWork()
-                    if (totalEntryCount == 0) {
-                        compressNeeded = false;
-                    } else {
-                        // when we read/wrote the beginning of the cache file, there was a set of
-                        // unique entries. Everything after that is essentially unknown.
-                        // If that latter part gets disproportionately big, set compressNeeded.
-                        int uncompressedEntryCount = totalEntryCount - uniqueInitialEntryCount;
-                        compressNeeded = uncompressedEntryCount * 100 / totalEntryCount > compressPercentLevel;
-                    }
+                    // re-evaluate compressNeeded now, while still synchronized;
+                    // entries are updated in place, so the only waste in the
+                    // cache file is from status reasons that have outgrown
+                    // their original space.
+                    compressNeeded = cache.getWastePercent() > compressPercentLevel;
                 }
             }
         } catch (IOException e) {
@@ -309,7 +312,7 @@ public class TestResultCache {
             // so just return, and exit the worker thread
         } finally {
             try {
-                raf.close();
+                cache.close();
             } catch (IOException e) {
                 // ignore
             }
@@ -331,10 +334,14 @@ public class TestResultCache {
             // if cache file exists and has content, read it all or read updates
             // as appropriate; if any errors occur, zap the file, so it will be rebuilt
             try {
-                if (raf.length() > 0) {
+                cache.refresh();
+                if (!cache.isEmpty()) {
                     tests = readCache();
                 } else {
-                    rebuildCache = true;
+                    // if there is an old cache file, migrate its content;
+                    // otherwise, the cache will be rebuilt
+                    tests = readV2Cache();
+                    rebuildCache = (tests == null);
                 }
             } catch (Throwable e) {
                 // cache appears to be corrupt; empty it and rebuild it
@@ -343,7 +350,7 @@ public class TestResultCache {
                 }
                 workDir.log(i18n, "trc.reloadFault", e);
                 rebuildCache = true;
-                raf.setLength(0);
+                cache.clear();
             }
 
             // if we're rebuilding the cache and the VM has started to shut down,
@@ -351,19 +358,19 @@ public class TestResultCache {
             // leaving the next client to rebuild the cache instead
             if (rebuildCache && shutdownRequested) {
                 testsToWrite.clear();
-                raf.setLength(0);
+                cache.clear();
                 return;
             }
 
             // if cache is empty, rebuild it from .jtr files;
-            // note that a valid cache with no tests has length 4
+            // note that a valid cache may contain no tests
             if (rebuildCache) {
                 observer.buildingCache(rebuildCache);
                 tests = readJTRFiles();
                 observer.builtCache();
             }
 
-            if (rebuildCache || compressRequested || raf.length() == 0) {
+            if (rebuildCache || compressRequested || cache.isEmpty()) {
                 writeCache(tests);
                 // it is safe to clear the compressRequested flag because the client
                 // can only set it to true (not false, nor read it)
@@ -410,13 +417,16 @@ public class TestResultCache {
         }
 
         try {
-            if (now - timeLastWork >= MIN_TEST_READ_INTERVAL && raf.length() != lastFileSize) {
+            // the header of the mapped file is shared with any other process
+            // using the cache, so changes to it can be seen without any I/O
+            if (now - timeLastWork >= MIN_TEST_READ_INTERVAL
+                    && (cache.getModCount() != lastModCount || cache.getSerial() != lastSerial)) {
                 if (DEBUG_CHECK_WORK) {
-                    Debug.println("TRC.haveWork (file size changed: " + raf.length() + ")");
+                    Debug.println("TRC.haveWork (file changed: " + cache.getModCount() + ")");
                 }
                 return true;
             }
-        } catch (IOException e) {
+        } catch (RuntimeException e) {
             // if an error occurred, we ought to let the worker thread go investigate
             if (DEBUG_CHECK_WORK) {
                 Debug.println("TRC.haveWork (" + e.getMessage() + ")");
@@ -460,6 +470,13 @@ public class TestResultCache {
             // ignore
         }
 
+        // the worker has finished with the store; write its index now,
+        // so that it does not have to be rebuilt from the log next time
+        WorkDirectory wd = weakWorkDir.get();
+        if (wd != null) {
+            wd.closeResultStore();
+        }
+
         try {
             if (workDir != null && workDir.getTestSuite() != null) {
                 Logger log = workDir.getTestSuite().getLog(workDir, i18n.getString("core.log.name"));
@@ -490,6 +507,11 @@ public class TestResultCache {
         Map<String, TestResult> tests = new TreeMap<>();
         readJTRFiles(workDir.getRoot(), tests);
 
+        ResultStore store = workDir.getResultStore();
+        if (store != null) {
+            readStoredResults(store, tests);
+        }
+
         // these lines are all for logging benchmark info
         long time = System.currentTimeMillis() - start;
         Logger log = null;
@@ -517,39 +539,123 @@ public class TestResultCache {
     }
 
     private void readJTRFiles(File dir, Map<String, TestResult> tests) {
-        File[] entries = dir.listFiles();
-        if (entries != null) {
+        // the directory tree is split between the threads of a fork-join pool,
+        // one task per directory, with each task reading the result files
+        // directly in its directory
+        int nThreads = Math.max(1, Integer.getInteger("javatest.trc.rebuildThreads",
+                Runtime.getRuntime().availableProcessors()).intValue());
+        ForkJoinPool pool = new ForkJoinPool(nThreads);
+        try {
+            pool.invoke(new ReadJTRFilesTask(dir.toPath(), tests, observer));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private class ReadJTRFilesTask extends RecursiveAction {
+        private final Path dir;
+        private final Map<String, TestResult> tests;
+        private final Observer obs;
+
+        ReadJTRFilesTask(Path dir, Map<String, TestResult> tests, Observer obs) {
+            this.dir = dir;
+            this.tests = tests;
+            this.obs = obs;
+        }
+
+        @Override
+        protected void compute() {
+            List<ReadJTRFilesTask> subtasks = new ArrayList<>();
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path p : entries) {
+                    if (Files.isDirectory(p)) {
+                        ReadJTRFilesTask t = new ReadJTRFilesTask(p, tests, obs);
+                        t.fork();
+                        subtasks.add(t);
+                    } else if (TestResult.isResultFile(p.toFile())) {
+                        files.add(p);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                // treat an unreadable directory as empty, as File.listFiles does
+            }
+
             // monitor shutdownRequested and give up if set true;
             // no specific notification is passed back in this case;
             // it is assumed the caller will also check shutdownRequested
             // and act appropriately
-            for (int i = 0; i < entries.length && !shutdownRequested; i++) {
-                File f = entries[i];
-                if (f.isDirectory()) {
-                    readJTRFiles(f, tests);
-                } else if (TestResult.isResultFile(f)) {
-                    try {
-                        TestResult tr = new TestResult(f);
-                        tests.put(tr.getWorkRelativePath(), tr);
-                    } catch (TestResult.ResultFileNotFoundFault e) {
-                        // hmm, should not happen, since we just read the directory
-                        workDir.log(i18n, "trc.lostjtr", f);
-                    } catch (TestResult.ReloadFault e) {
-                        // delete this jtr and continue
-                        // should we inform TRT? perhaps via observer
-                        workDir.log(i18n, "trc.badjtr", f, e.getLocalizedMessage());
-                        f.delete();
-                    }
+            for (int i = 0; i < files.size() && !shutdownRequested; i++) {
+                readJTRFile(files.get(i).toFile());
+            }
+
+            for (ReadJTRFilesTask t : subtasks) {
+                t.join();
+            }
+        }
+
+        private void readJTRFile(File f) {
+            try {
+                // most files only need their header to be read
+                TestResult tr = TestResult.readSummary(f, workDir);
+                if (tr == null) {
+                    tr = new TestResult(f);
+                }
+
+                synchronized (tests) {
+                    tests.put(tr.getWorkRelativePath(), tr);
+                    obs.buildingCache(tr);
+                }
+            } catch (TestResult.ResultFileNotFoundFault e) {
+                // hmm, should not happen, since we just read the directory
+                workDir.log(i18n, "trc.lostjtr", f);
+            } catch (TestResult.ReloadFault e) {
+                // delete this jtr and continue
+                // should we inform TRT? perhaps via observer
+                workDir.log(i18n, "trc.badjtr", f, e.getLocalizedMessage());
+                f.delete();
+            }
+        }
+    }
+
+    /**
+     * Read the results kept in a result store, replacing any read from
+     * individual result files for the same tests.
+     */
+    private void readStoredResults(ResultStore store, Map<String, TestResult> tests) {
+        for (String path : store.getPaths()) {
+            if (shutdownRequested) {
+                return;
+            }
+
+            try {
+                TestResult tr = TestResult.readSummary(store, path, workDir);
+                if (tr == null) {
+                    tr = new TestResult(workDir, path);
+                }
+
+                synchronized (tests) {
+                    tests.put(tr.getWorkRelativePath(), tr);
+                    observer.buildingCache(tr);
+                }
+            } catch (TestResult.ResultFileNotFoundFault e) {
+                // removed since the paths were listed
+            } catch (TestResult.Fault e) {
+                workDir.log(i18n, "trc.badjtr", workDir.getFile(path), e.getLocalizedMessage());
+                try {
+                    store.remove(path);
+                } catch (IOException ignore) {
                 }
-                entries[i] = null;  // just to help GC
             }
         }
     }
 
     private TestResult reload(Map<String, TestResult> tests, TestResult tr) {
-        File jtr = workDir.getFile(tr.getWorkRelativePath());
+        String wrp = tr.getWorkRelativePath();
+        File jtr = workDir.getFile(wrp);
+        ResultStore store = workDir.getResultStore();
         try {
-            return new TestResult(jtr);
+            return store == null ? new TestResult(jtr) : new TestResult(workDir, wrp);
         } catch (TestResult.ResultFileNotFoundFault e) {
             // test is presumably not run or has been purged
             // this notRun status will persist in cache until cache rebuilt
@@ -557,10 +663,16 @@ public class TestResultCache {
             tr = new TestResult(name, workDir, Status.notRun(""));
             tests.put(name, tr); // in case fullUpdateRequested
             return tr;
-        } catch (TestResult.ReloadFault e) {
+        } catch (TestResult.Fault e) {
             // bad .jtr, delete it
             workDir.log(i18n, "trc.badjtr", jtr, e.getLocalizedMessage());
             jtr.delete();
+            if (store != null) {
+                try {
+                    store.remove(wrp);
+                } catch (IOException ignore) {
+                }
+            }
             // this notRun status will persist in cache until cache rebuilt
             String name = tr.getTestName();
             tr = new TestResult(name, workDir, Status.notRun("previous results corrupted"));
@@ -577,26 +689,26 @@ public class TestResultCache {
             Debug.println("TRC.readCache");
         }
 
-        raf.seek(0);
-        int fileSerial = raf.readInt();
+        int fileSerial = cache.getSerial();
+        int fileModCount = cache.getModCount();
 
         if (DEBUG_WORK) {
-            Debug.println("TRC.readCache serial=" + fileSerial);
+            Debug.println("TRC.readCache serial=" + fileSerial + " modCount=" + fileModCount);
         }
 
-        if (lastFileSize == -1 || fileSerial != lastSerial
+        if (lastModCount == -1 || fileSerial != lastSerial
                 || fullUpdateRequested || compressRequested) {
             updateNeeded = fullUpdateRequested
                     || fileSerial != lastSerial
-                    || raf.length() > lastFileSize;
-            // read full cache
+                    || fileModCount != lastModCount;
+            // read full cache: this is a scan of every record, not a lazy
+            // open, since the test result table is given every entry
             lastSerial = fileSerial;
-            totalEntryCount = 0;
-            Map<String, TestResult> tests = readCacheEntries();
-            uniqueInitialEntryCount = tests.size();
+            Map<String, TestResult> tests = readCacheEntries(cache.readAll());
+            lastModCount = fileModCount;
 
             if (DEBUG_WORK) {
-                Debug.println("TRC.readCache read all (" + tests.size() + " tests, " + uniqueInitialEntryCount + " unique)");
+                Debug.println("TRC.readCache read all (" + tests.size() + " tests)");
             }
 
             long time = System.currentTimeMillis() - start;
@@ -622,10 +734,10 @@ public class TestResultCache {
             }
 
             return tests;
-        } else if (raf.length() > lastFileSize) {
-            // just read updates from file
-            raf.seek(lastFileSize);
-            Map<String, TestResult> tests = readCacheEntries();
+        } else if (fileModCount != lastModCount) {
+            // just read the entries that have been updated since the last read
+            Map<String, TestResult> tests = readCacheEntries(cache.readChangedSince(lastModCount));
+            lastModCount = fileModCount;
 
             if (DEBUG_WORK) {
                 Debug.println("TRC.readCache read update (" + tests.size() + " tests)");
@@ -640,26 +752,68 @@ public class TestResultCache {
         }
     }
 
-    private Map<String, TestResult> readCacheEntries()
-            throws IOException {
+    private Map<String, TestResult> readCacheEntries(List<TestResultCacheFile.Entry> entries) {
         Map<String, TestResult> tests = new TreeMap<>();
-        while (raf.getFilePointer() < raf.length()) {
-            String name = raf.readUTF();
-            int status = raf.readInt();
-            String reason = raf.readUTF();
-            long endTime = raf.readLong();
-            TestResult tr = new TestResult(name, workDir, new Status(status, reason), endTime);
+        // most tests share a handful of outcomes, so share the Status objects too
+        Map<String, Status> statuses = new HashMap<>();
+        ResultStore store = workDir.getResultStore();
+        for (TestResultCacheFile.Entry e : entries) {
+            Status s = statuses.computeIfAbsent(e.status + e.reason, k -> new Status(e.status, e.reason));
+            TestResult tr = new TestResult(e.name, workDir, s, e.endTime);
             File f = tr.getFile();
-            if (!f.exists()) {
+            if (!f.exists() && (store == null || !store.contains(tr.getWorkRelativePath()))) {
                 tr.resetFile();
             }
             tests.put(tr.getWorkRelativePath(), tr);
-            totalEntryCount++; // count all entries, including duplicates
         }
-        lastFileSize = raf.length();
         return tests;
     }
 
+    /**
+     * Read the entries from a version 2 cache file, if there is one, and
+     * delete the file; the entries will be written into the new cache.
+     * An old cache file which is locked, and so may still be in use by an
+     * older version of the harness, is left alone, as is one which cannot
+     * be read.
+     *
+     * @return the entries in the old cache, or null if there is no old
+     * cache file, or if it could not be read
+     */
+    private Map<String, TestResult> readV2Cache() {
+        File v2File = workDir.getSystemFile(V2_FILENAME);
+        if (!v2File.exists() || workDir.getSystemFile(V2_LOCKNAME).exists()) {
+            return null;
+        }
+
+        workDir.log(i18n, "trc.migrateCachev2", v2File.getAbsolutePath());
+
+        List<TestResultCacheFile.Entry> entries = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(v2File)))) {
+            in.readInt(); // serial
+            while (true) {
+                String name;
+                try {
+                    name = in.readUTF();
+                } catch (EOFException e) {
+                    break;
+                }
+                int status = in.readInt();
+                String reason = in.readUTF();
+                long endTime = in.readLong();
+                entries.add(new TestResultCacheFile.Entry(name, status, reason, endTime));
+            }
+        } catch (IOException e) {
+            workDir.log(i18n, "trc.reloadFault", e);
+            return null;
+        }
+
+        v2File.delete();
+
+        // later entries in the old file supersede earlier ones
+        return readCacheEntries(entries);
+    }
+
     private void writeCache(Map<String, TestResult> tests) throws IOException {
         if (tests == null) {
             throw new IllegalStateException();
@@ -684,23 +838,20 @@ public class TestResultCache {
         }
 
         // write cache
-        raf.seek(0);
-        long now = System.currentTimeMillis();
-        lastSerial = (int) ((now >> 16) + (now & 0xffff));
-        raf.writeInt(lastSerial);
-
+        List<TestResultCacheFile.Entry> entries = new ArrayList<>(tests.size());
         for (TestResult testResult : tests.values()) {
-            tr = testResult;
-            writeCacheEntry(tr);
+            Status status = testResult.getStatus();
+            entries.add(new TestResultCacheFile.Entry(testResult.getTestName(),
+                    status.getType(), status.getReason(), testResult.getEndTime()));
         }
+        cache.rewrite(entries);
 
         if (DEBUG_WORK) {
             Debug.println("TRC.writeCache write all (" + tests.size() + " tests)");
         }
 
-        raf.setLength(raf.getFilePointer());
-        lastFileSize = raf.length();
-        uniqueInitialEntryCount = totalEntryCount = tests.size();
+        lastSerial = cache.getSerial();
+        lastModCount = cache.getModCount();
     }
 
     private void updateCache(Map<String, TestResult> tests) throws IOException {
@@ -708,7 +859,6 @@ public class TestResultCache {
         // it till its empty, even though some tests may even have been added
         // after the worker woke up
         int debugCount = 0;
-        raf.seek(lastFileSize);
         TestResult tr;
         while ((tr = testsToWrite.poll()) != null) {
             if (tests != null) {
@@ -723,41 +873,16 @@ public class TestResultCache {
                     }
                 }
             }
-            writeCacheEntry(tr);
+            cache.put(tr.getTestName(), tr.getStatus(), tr.getEndTime());
             debugCount++;
         }
         if (DEBUG_WORK && debugCount > 0) {
             Debug.println("TRC.writeCache write update (" + debugCount + " tests)");
         }
 
-        raf.setLength(raf.getFilePointer());
-        lastFileSize = raf.length();
-    }
-
-    private void writeCacheEntry(TestResult tr) throws IOException {
-        String name = tr.getTestName();
-        Status status = tr.getStatus();
-        raf.writeUTF(name);
-        raf.writeInt(status.getType());
-
-        String reason = status.getReason();
-
-        if (reason == null) {
-            reason = "";
-        }
-
-        // writeUTF() can only accept a limited string length, additionally,
-        // in this field and in the cache, the full data is not needed
-        if (reason.length() > MAX_REASON_LENGTH) {
-            reason = reason.substring(0, 15) +
-                    "[...]" +
-                    reason.substring(reason.length() - MAX_REASON_LENGTH + 20);
-        }
-        raf.writeUTF(reason);
-
-
-        raf.writeLong(tr.getEndTime());
-        totalEntryCount++;
+        // an update may cause the file to be rewritten with more space
+        lastSerial = cache.getSerial();
+        lastModCount = cache.getModCount();
     }
 
     /**
@@ -799,9 +924,7 @@ public class TestResultCache {
                 workDir.log(i18n, "trc.lockTimeout");
 
                 try {
-                    if (raf != null) {
-                        raf.close();
-                    }
+                    cache.close();
                 } catch (IOException e) {
                     // ignore
                 }
@@ -809,7 +932,9 @@ public class TestResultCache {
                 cacheFile.delete();
                 lockFile.delete();
 
-                raf = new RandomAccessFile(cacheFile, "rw");
+                cache = new TestResultCacheFile(cacheFile);
+                // the file may not have been deleted if it is still mapped
+                cache.clear();
 
                 // leave caller to repopulate cache
             }
@@ -0,0 +1,567 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Version 3 of the test result cache file. The file is memory-mapped,
+ * and consists of a fixed size header, a hash index keyed by the
+ * work-relative path of each test, a table of fixed size records, one
+ * per test, and a heap containing the variable length strings referred
+ * to by the records.
+ * <pre>
+ * header:   magic serial modCount count recordCapacity indexCapacity heapEnd garbage
+ * index:    int[indexCapacity]         record number + 1, or 0 if the slot is free
+ * records:  record[recordCapacity]     nameOffset nameLength hash status stamp
+ *                                      endTime reasonOffset reasonLength
+ * heap:     UTF-8 bytes of test names and status reasons
+ * </pre>
+ * A test can be found, or its status updated, without reading the rest
+ * of the file. However, {@link TestResultCache} still reads every record
+ * when it first opens the file, since the test result table needs all of
+ * them; the format only makes that scan cheaper than reading a version 2
+ * file. Updates are made in place: each record is stamped with the
+ * modification count of the file when it was last written, so that a
+ * reader which has already read the file need only read the records that
+ * have changed since. When the file has to grow, or when {@link #rewrite}
+ * is called to discard obsolete strings, the file is rewritten and given
+ * a new serial number.
+ * <p>
+ * This class is not thread-safe; access to the file between processes
+ * is controlled by the lock file managed by {@link TestResultCache}.
+ */
+class TestResultCacheFile {
+    /**
+     * The contents of a record in the cache.
+     */
+    static class Entry {
+        final String name;
+        final int status;
+        final String reason;
+        final long endTime;
+
+        Entry(String name, int status, String reason, long endTime) {
+            this.name = name;
+            this.status = status;
+            this.reason = reason;
+            this.endTime = endTime;
+        }
+    }
+
+    private static final int MAGIC = 0x4a544333; // "JTC3"
+
+    // header
+    private static final int MAGIC_OFFSET = 0;
+    private static final int SERIAL_OFFSET = 4;
+    private static final int MODCOUNT_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+    private static final int RECORD_CAPACITY_OFFSET = 16;
+    private static final int INDEX_CAPACITY_OFFSET = 20;
+    private static final int HEAP_END_OFFSET = 24;
+    private static final int GARBAGE_OFFSET = 32;
+    private static final int HEADER_SIZE = 64;
+
+    // record
+    private static final int NAME_OFFSET = 0;
+    private static final int NAME_LENGTH = 8;
+    private static final int HASH = 12;
+    private static final int STATUS = 16;
+    private static final int STAMP = 20;
+    private static final int END_TIME = 24;
+    private static final int REASON_OFFSET = 32;
+    private static final int REASON_LENGTH = 40;
+    private static final int RECORD_SIZE = 48;
+
+    private static final int MIN_RECORD_CAPACITY = 1024;
+    private static final int MIN_MAPPED_SIZE = 64 * 1024;
+
+    // maximum length of reason string written into cache;
+    // the full reason is always available from the .jtr file
+    private static final int MAX_REASON_LENGTH = 256;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private MappedByteBuffer buf;  // null until the file has some content
+
+    /**
+     * Open a cache file, creating it if it does not exist.
+     *
+     * @param file the file
+     * @throws IOException if there is a problem opening the file
+     */
+    TestResultCacheFile(File file) throws IOException {
+        this.file = file;
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        refresh();
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Close the file. The mapping will be released when it is garbage collected.
+     *
+     * @throws IOException if there is a problem closing the file
+     */
+    void close() throws IOException {
+        buf = null;
+        raf.close();
+    }
+
+    /**
+     * Ensure the mapping covers the whole file, in case the file has been
+     * extended by another process.
+     *
+     * @throws IOException if there is a problem mapping the file
+     */
+    void refresh() throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("cache file too large: " + size);
+        }
+
+        if (buf == null ? size >= HEADER_SIZE : size > buf.capacity()) {
+            buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * Check whether the file contains a valid cache.
+     *
+     * @return true if the file does not contain a valid cache
+     */
+    boolean isEmpty() {
+        return buf == null || buf.getInt(MAGIC_OFFSET) != MAGIC;
+    }
+
+    /**
+     * Mark the file as not containing a valid cache.
+     */
+    void clear() {
+        if (buf != null) {
+            buf.putInt(MAGIC_OFFSET, 0);
+        }
+    }
+
+    /**
+     * Get the serial number of the file, which changes each time the file is rewritten.
+     *
+     * @return the serial number of the file
+     */
+    int getSerial() {
+        return isEmpty() ? 0 : buf.getInt(SERIAL_OFFSET);
+    }
+
+    /**
+     * Get the modification count of the file, which changes each time any
+     * record in the file is written.
+     *
+     * @return the modification count of the file
+     */
+    int getModCount() {
+        return isEmpty() ? 0 : buf.getInt(MODCOUNT_OFFSET);
+    }
+
+    /**
+     * Get the number of tests in the file.
+     *
+     * @return the number of tests in the file
+     */
+    int size() {
+        return isEmpty() ? 0 : buf.getInt(COUNT_OFFSET);
+    }
+
+    /**
+     * Get the percentage of the string heap occupied by strings which are
+     * no longer referenced, and which would be discarded by {@link #rewrite}.
+     *
+     * @return the percentage of the string heap that is no longer in use
+     */
+    int getWastePercent() {
+        if (isEmpty()) {
+            return 0;
+        }
+        long heapSize = buf.getLong(HEAP_END_OFFSET) - heapStart();
+        long garbage = buf.getLong(GARBAGE_OFFSET);
+        return heapSize <= 0 ? 0 : (int) (garbage * 100 / heapSize);
+    }
+
+    /**
+     * Find the entry for a test.
+     *
+     * @param workRelativePath the work-relative path of the result file for the test
+     * @return the entry for the test, or null if it is not in the cache
+     * @throws IOException if the file is found to be corrupt
+     */
+    Entry lookup(String workRelativePath) throws IOException {
+        if (isEmpty()) {
+            return null;
+        }
+
+        checkHeader();
+        int r = getRecord(findSlot(workRelativePath, hash(workRelativePath)));
+        return r < 0 ? null : readEntry(r);
+    }
+
+    /**
+     * Read all the entries in the file.
+     *
+     * @return the entries in the file
+     * @throws IOException if the file is found to be corrupt
+     */
+    List<Entry> readAll() throws IOException {
+        return readChangedSince(Integer.MIN_VALUE);
+    }
+
+    /**
+     * Read the entries that have been written since the file had a given
+     * modification count.
+     *
+     * @param modCount the modification count
+     * @return the entries that have been written since the given modification count
+     * @throws IOException if the file is found to be corrupt
+     * @see #getModCount
+     */
+    List<Entry> readChangedSince(int modCount) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (isEmpty()) {
+            return entries;
+        }
+
+        checkHeader();
+        int count = buf.getInt(COUNT_OFFSET);
+        for (int r = 0; r < count; r++) {
+            if (buf.getInt(recordStart(r) + STAMP) > modCount) {
+                entries.add(readEntry(r));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Write the entry for a test, updating any existing entry in place.
+     *
+     * @param name    the name of the test
+     * @param status  the status of the test
+     * @param endTime the time the test completed
+     * @throws IOException if there is a problem writing the file
+     */
+    void put(String name, Status status, long endTime) throws IOException {
+        String reason = truncate(status.getReason());
+        if (isEmpty()) {
+            List<Entry> entries = new ArrayList<>();
+            entries.add(new Entry(name, status.getType(), reason, endTime));
+            rewrite(entries);
+            return;
+        }
+
+        checkHeader();
+        String key = TestResult.getWorkRelativePath(name);
+        int hash = hash(key);
+        int slot = findSlot(key, hash);
+        int r = getRecord(slot);
+        byte[] reasonBytes = reason.getBytes(StandardCharsets.UTF_8);
+        int stamp = buf.getInt(MODCOUNT_OFFSET) + 1;
+
+        if (r >= 0) {
+            int rs = recordStart(r);
+            long oldOffset = buf.getLong(rs + REASON_OFFSET);
+            int oldLength = buf.getInt(rs + REASON_LENGTH);
+            if (reasonBytes.length <= oldLength) {
+                // reuse the existing space for the reason
+                putBytes(oldOffset, reasonBytes);
+            } else {
+                buf.putLong(rs + REASON_OFFSET, appendToHeap(reasonBytes));
+            }
+            buf.putInt(rs + REASON_LENGTH, reasonBytes.length);
+            addGarbage(oldLength - (reasonBytes.length <= oldLength ? reasonBytes.length : 0));
+            buf.putInt(rs + STATUS, status.getType());
+            buf.putLong(rs + END_TIME, endTime);
+            buf.putInt(rs + STAMP, stamp);
+        } else {
+            int count = buf.getInt(COUNT_OFFSET);
+            if (count + 1 > buf.getInt(RECORD_CAPACITY_OFFSET)) {
+                // no room for another record: rewrite the file with more space
+                List<Entry> entries = readAll();
+                entries.add(new Entry(name, status.getType(), reason, endTime));
+                rewrite(entries);
+                return;
+            }
+
+            byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            long nameOffset = appendToHeap(nameBytes);
+            long reasonOffset = appendToHeap(reasonBytes);
+            writeRecord(count, nameOffset, nameBytes.length, hash, status.getType(),
+                    stamp, endTime, reasonOffset, reasonBytes.length);
+            buf.putInt(indexStart() + 4 * slot, count + 1);
+            buf.putInt(COUNT_OFFSET, count + 1);
+        }
+
+        buf.putInt(MODCOUNT_OFFSET, stamp);
+    }
+
+    /**
+     * Write a new copy of the file containing a given set of entries,
+     * discarding any previous content.
+     *
+     * @param entries the entries to be written
+     * @throws IOException if there is a problem writing the file
+     */
+    void rewrite(Collection<Entry> entries) throws IOException {
+        int oldSerial = getSerial();
+        int modCount = getModCount() + 1;
+
+        int count = entries.size();
+        int recordCapacity = MIN_RECORD_CAPACITY;
+        while (recordCapacity < count + count / 2) {
+            recordCapacity *= 2;
+        }
+        int indexCapacity = 2 * recordCapacity;
+        long heapStart = HEADER_SIZE + 4L * indexCapacity + (long) RECORD_SIZE * recordCapacity;
+
+        byte[][] names = new byte[count][];
+        byte[][] reasons = new byte[count][];
+        long heapSize = 0;
+        int i = 0;
+        for (Entry e : entries) {
+            names[i] = e.name.getBytes(StandardCharsets.UTF_8);
+            reasons[i] = truncate(e.reason).getBytes(StandardCharsets.UTF_8);
+            heapSize += names[i].length + reasons[i].length;
+            i++;
+        }
+
+        ensureSize(heapStart + heapSize);
+
+        // invalidate the file while it is being rewritten
+        buf.putInt(MAGIC_OFFSET, 0);
+        buf.putInt(RECORD_CAPACITY_OFFSET, recordCapacity);
+        buf.putInt(INDEX_CAPACITY_OFFSET, indexCapacity);
+        buf.putInt(COUNT_OFFSET, 0);
+        buf.putLong(HEAP_END_OFFSET, heapStart);
+        buf.putLong(GARBAGE_OFFSET, 0);
+        for (int pos = indexStart(); pos < recordStart(0); pos += 4) {
+            buf.putInt(pos, 0);
+        }
+
+        i = 0;
+        for (Entry e : entries) {
+            String key = TestResult.getWorkRelativePath(e.name);
+            int hash = hash(key);
+            int slot = findSlot(key, hash);
+            if (getRecord(slot) >= 0) {
+                // duplicate entry: the later one wins
+                int r = getRecord(slot);
+                int rs = recordStart(r);
+                addGarbage(buf.getInt(rs + NAME_LENGTH) + buf.getInt(rs + REASON_LENGTH));
+                writeRecord(r, appendToHeap(names[i]), names[i].length, hash, e.status,
+                        modCount, e.endTime, appendToHeap(reasons[i]), reasons[i].length);
+            } else {
+                int r = buf.getInt(COUNT_OFFSET);
+                writeRecord(r, appendToHeap(names[i]), names[i].length, hash, e.status,
+                        modCount, e.endTime, appendToHeap(reasons[i]), reasons[i].length);
+                buf.putInt(indexStart() + 4 * slot, r + 1);
+                buf.putInt(COUNT_OFFSET, r + 1);
+            }
+            i++;
+        }
+
+        long now = System.currentTimeMillis();
+        int serial = (int) ((now >> 16) + (now & 0xffff));
+        if (serial == oldSerial) {
+            serial++;
+        }
+        buf.putInt(SERIAL_OFFSET, serial);
+        buf.putInt(MODCOUNT_OFFSET, modCount);
+        buf.putInt(MAGIC_OFFSET, MAGIC);
+    }
+
+    //--------------------------------------------------------------------------
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static String truncate(String reason) {
+        if (reason == null) {
+            return "";
+        }
+
+        // in this field and in the cache, the full data is not needed
+        if (reason.length() > MAX_REASON_LENGTH) {
+            reason = reason.substring(0, 15) +
+                    "[...]" +
+                    reason.substring(reason.length() - MAX_REASON_LENGTH + 20);
+        }
+        return reason;
+    }
+
+    private int indexStart() {
+        return HEADER_SIZE;
+    }
+
+    private int recordStart(int r) {
+        return HEADER_SIZE + 4 * buf.getInt(INDEX_CAPACITY_OFFSET) + RECORD_SIZE * r;
+    }
+
+    private long heapStart() {
+        return recordStart(buf.getInt(RECORD_CAPACITY_OFFSET));
+    }
+
+    /**
+     * Find the slot in the index for a test: either the slot referring to
+     * the record for the test, or the free slot where it should be inserted.
+     */
+    private int findSlot(String key, int hash) throws IOException {
+        int indexCapacity = buf.getInt(INDEX_CAPACITY_OFFSET);
+        int mask = indexCapacity - 1;
+        for (int n = 0, slot = hash & mask; n < indexCapacity; n++, slot = (slot + 1) & mask) {
+            int r = getRecord(slot);
+            if (r < 0) {
+                return slot;
+            }
+
+            if (buf.getInt(recordStart(r) + HASH) == hash
+                    && TestResult.getWorkRelativePath(readName(r)).equals(key)) {
+                return slot;
+            }
+        }
+
+        throw new IOException("cache index full");
+    }
+
+    private int getRecord(int slot) {
+        return buf.getInt(indexStart() + 4 * slot) - 1;
+    }
+
+    private void writeRecord(int r, long nameOffset, int nameLength, int hash, int status,
+                             int stamp, long endTime, long reasonOffset, int reasonLength) {
+        int rs = recordStart(r);
+        buf.putLong(rs + NAME_OFFSET, nameOffset);
+        buf.putInt(rs + NAME_LENGTH, nameLength);
+        buf.putInt(rs + HASH, hash);
+        buf.putInt(rs + STATUS, status);
+        buf.putInt(rs + STAMP, stamp);
+        buf.putLong(rs + END_TIME, endTime);
+        buf.putLong(rs + REASON_OFFSET, reasonOffset);
+        buf.putInt(rs + REASON_LENGTH, reasonLength);
+    }
+
+    private Entry readEntry(int r) throws IOException {
+        int rs = recordStart(r);
+        return new Entry(readName(r),
+                buf.getInt(rs + STATUS),
+                readString(buf.getLong(rs + REASON_OFFSET), buf.getInt(rs + REASON_LENGTH)),
+                buf.getLong(rs + END_TIME));
+    }
+
+    private String readName(int r) throws IOException {
+        int rs = recordStart(r);
+        return readString(buf.getLong(rs + NAME_OFFSET), buf.getInt(rs + NAME_LENGTH));
+    }
+
+    private String readString(long offset, int length) throws IOException {
+        if (length < 0 || offset < heapStart() || offset + length > buf.getLong(HEAP_END_OFFSET)) {
+            throw new IOException("corrupt cache entry");
+        }
+
+        byte[] bytes = new byte[length];
+        ByteBuffer b = buf.duplicate();
+        b.position((int) offset);
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void putBytes(long offset, byte[] bytes) {
+        ByteBuffer b = buf.duplicate();
+        b.position((int) offset);
+        b.put(bytes);
+    }
+
+    private long appendToHeap(byte[] bytes) throws IOException {
+        long offset = buf.getLong(HEAP_END_OFFSET);
+        ensureSize(offset + bytes.length);
+        putBytes(offset, bytes);
+        buf.putLong(HEAP_END_OFFSET, offset + bytes.length);
+        return offset;
+    }
+
+    private void addGarbage(long n) {
+        buf.putLong(GARBAGE_OFFSET, buf.getLong(GARBAGE_OFFSET) + n);
+    }
+
+    /**
+     * Ensure the mapped area of the file is at least a given size,
+     * extending the file if necessary.
+     */
+    private void ensureSize(long size) throws IOException {
+        int capacity = (buf == null ? 0 : buf.capacity());
+        if (size <= capacity) {
+            return;
+        }
+
+        long newSize = Math.max(Math.max(size, 2L * capacity), MIN_MAPPED_SIZE);
+        if (newSize > Integer.MAX_VALUE) {
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("cache file too large: " + size);
+            }
+            newSize = Integer.MAX_VALUE;
+        }
+
+        buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+    }
+
+    private void checkHeader() throws IOException {
+        int count = buf.getInt(COUNT_OFFSET);
+        int recordCapacity = buf.getInt(RECORD_CAPACITY_OFFSET);
+        int indexCapacity = buf.getInt(INDEX_CAPACITY_OFFSET);
+        if (recordCapacity <= 0 || indexCapacity < recordCapacity
+                || Integer.bitCount(indexCapacity) != 1
+                || count < 0 || count > recordCapacity) {
+            throw new IOException("corrupt cache header");
+        }
+
+        long heapStart = HEADER_SIZE + 4L * indexCapacity + (long) RECORD_SIZE * recordCapacity;
+        long heapEnd = buf.getLong(HEAP_END_OFFSET);
+        if (heapEnd < heapStart || heapEnd > buf.capacity()) {
+            throw new IOException("corrupt cache header");
+        }
+    }
+}
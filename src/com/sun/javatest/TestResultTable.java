@@ -48,7 +48,9 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Collected results from a test suite.
@@ -98,10 +100,12 @@ public class TestResultTable {
     // to a unique status object
     private WorkDirectory workDir;
     private TestFinder finder;
+    private TestFinderCrawler crawler;
+    private TestFinderIndex index;
     private String[] finderErrors = new String[0];
-    private Observer[] observers = new Observer[0];
+    private volatile Observer[] observers = new Observer[0];
     private TRT_HttpHandler httpHandle;     // the http handler for this instance
-    private TreeObserver[] treeObservers = new TreeObserver[0];
+    private volatile TreeObserver[] treeObservers = new TreeObserver[0];
     private TestResultCache trCache;
     private boolean suppressFinderScan = false; // false is traditional
     private Updater updater = new Updater();
@@ -115,6 +119,15 @@ public class TestResultTable {
     private TRT_TreeNode root;
     private File suiteRoot;
     private ReentrantLock processLock = new ReentrantLock();
+    /**
+     * Inserting tests holds the read lock, so that tests in different
+     * branches can be inserted concurrently, each holding only the locks on
+     * the nodes it changes.  Operations which remove or replace parts of the
+     * tree (resetting and refreshing tests, pruning) hold the write lock.
+     * The write lock must not be requested while holding the read lock or
+     * the lock on a node.
+     */
+    private final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
 
     /**
      * Create a table ready to be occupied.
@@ -122,7 +135,7 @@ public class TestResultTable {
     public TestResultTable() {
         statusTables = new ArrayList<>(Status.NUM_STATES);
         for (int i = 0; i < Status.NUM_STATES; i++) {
-            statusTables.add(new HashMap<>());
+            statusTables.add(new ConcurrentHashMap<>());
         }
 
         root = new TRT_TreeNode(this, null);
@@ -702,6 +715,9 @@ public class TestResultTable {
         if (trCache != null) {
             trCache.shutdown();
         }
+        if (index != null) {
+            index.close();
+        }
     }
 
     public void updateTestExecutionOrderOnTheFly() {
@@ -1263,7 +1279,7 @@ public class TestResultTable {
 
         TRT_TreeNode[] path = new TRT_TreeNode[0];
 
-        return insert(root, key, tr, path, suppressScan);
+        return insertShared(key, tr, path, suppressScan);
     }
 
     /**
@@ -1285,7 +1301,26 @@ public class TestResultTable {
 
         TRT_TreeNode[] path = new TRT_TreeNode[0];
 
-        return insert(root, key, tr, path, false);
+        return insertShared(key, tr, path, false);
+    }
+
+    private TestResult insertShared(String key, TestResult tr, TRT_TreeNode[] path,
+                                    boolean suppressScan) {
+        TestResult oldTR;
+        structureLock.readLock().lock();
+        try {
+            oldTR = insert(root, key, tr, path, suppressScan);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+
+        if (oldTR == tr && updateInProgress) {
+            // the insert was ignored, see insert(TRT_TreeNode, ...);
+            // this needs the write lock, so do it after the read lock is released
+            resetTest(tr.getTestName());
+        }
+
+        return oldTR;
     }
 
     /**
@@ -1321,6 +1356,28 @@ public class TestResultTable {
         return finder;
     }
 
+    /**
+     * Get the crawler used to read the test suite on several threads at once.
+     *
+     * @return the crawler, or null if the test suite is only read
+     * using the test finder
+     * @see #getTestFinder
+     */
+    TestFinderCrawler getFinderCrawler() {
+        return crawler;
+    }
+
+    /**
+     * Get the index in the work directory of files that have been read
+     * by the test finder.
+     *
+     * @return the index, or null if there is no work directory, or if
+     * the index is not being used
+     */
+    TestFinderIndex getFinderIndex() {
+        return index;
+    }
+
     /**
      * Set the test finder for this object.
      * It is illegal to call this method once the test finder for a instance
@@ -1407,6 +1464,15 @@ public class TestResultTable {
      * @since 3.0
      */
     public synchronized TestResult resetTest(TestResult tr) {
+        structureLock.writeLock().lock();
+        try {
+            return resetTest0(tr);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    private TestResult resetTest0(TestResult tr) {
         TestResult newTest = null;
 
         workDir.log(i18n, "trt.rstTest", tr.getTestName());
@@ -1497,6 +1563,15 @@ public class TestResultTable {
      *                               refreshing.
      */
     public synchronized boolean refreshIfNeeded(String test) throws Fault {
+        structureLock.writeLock().lock();
+        try {
+            return refreshIfNeeded0(test);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    private boolean refreshIfNeeded0(String test) throws Fault {
         TestResult tr = lookup(TestResult.getWorkRelativePath(test));
 
         if (tr == null) {
@@ -1533,9 +1608,11 @@ public class TestResultTable {
         }
 
         notifyStartRefresh(node);
+        structureLock.writeLock().lock();
         try {
             return recursiveRefresh((TRT_TreeNode) node);
         } finally {
+            structureLock.writeLock().unlock();
             notifyFinishRefresh(node);
         }
     }
@@ -1545,6 +1622,15 @@ public class TestResultTable {
             return false;
         }
 
+        structureLock.writeLock().lock();
+        try {
+            return prune0();
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    private boolean prune0() {
         boolean changes = false;
 
         root.scanIfNeeded();
@@ -1555,7 +1641,7 @@ public class TestResultTable {
         }
 
         for (TreeNode node : nodes) {
-            changes = changes || prune(node);
+            changes = changes || prune0(node);
         }   // for
 
         return changes;
@@ -1568,6 +1654,15 @@ public class TestResultTable {
      * @return True if some nodes were pruned, false otherwise.
      */
     synchronized public boolean prune(TreeNode node) {
+        structureLock.writeLock().lock();
+        try {
+            return prune0(node);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    private boolean prune0(TreeNode node) {
         TRT_TreeNode parent = (TRT_TreeNode) node.getParent();
 
         if (node.getChildCount() == 0) {
@@ -1587,7 +1682,7 @@ public class TestResultTable {
         }
 
         for (TreeNode childNode : childNodes) {
-            prune(childNode);
+            prune0(childNode);
         }   // for
 
         if (node.getChildCount() == 0) {
@@ -1761,6 +1856,7 @@ public class TestResultTable {
     /**
      * Recursively Insert the given test into the tree, recording the insertion
      * path along the way.  This is <em>not</em> a general purpose method.
+     * The caller must hold the read or write lock on the tree structure.
      *
      * @param path Remaining part of the path.  Must not be null.
      *             The expected format is: foo/bar/baz.html#bear
@@ -1768,14 +1864,17 @@ public class TestResultTable {
      * @return The test result which was replaced by this operation, null if no
      * previous entry existed.
      */
-    synchronized TestResult insert(TRT_TreeNode node, String path, TestResult tr,
-                                   TRT_TreeNode... rec) {
+    TestResult insert(TRT_TreeNode node, String path, TestResult tr,
+                      TRT_TreeNode... rec) {
         return insert(node, path, tr, rec, false);
     }
 
     /**
      * Recursively Insert the given test into the tree, recording the insertion
      * path along the way.  This is <em>not</em> a general purpose method.
+     * The caller must hold the read or write lock on the tree structure;
+     * each node is locked only while it is being changed, so that inserts
+     * into different branches do not block each other.
      *
      * @param path         Remaining part of the path.  Must not be null.
      *                     The expected format is: foo/bar/baz.html#bear
@@ -1784,8 +1883,8 @@ public class TestResultTable {
      * @return The test result which was replaced by this operation, null if no
      * previous entry existed.
      */
-    synchronized TestResult insert(TRT_TreeNode node, String path, TestResult tr,
-                                   TRT_TreeNode[] rec, boolean suppressScan) {
+    TestResult insert(TRT_TreeNode node, String path, TestResult tr,
+                      TRT_TreeNode[] rec, boolean suppressScan) {
         if (debug > 9) {
             Debug.println("TRT Beginning insert " + path);
         }
@@ -1793,101 +1892,112 @@ public class TestResultTable {
         String newPath = behead(path);
 
         if (Objects.equals(path, newPath)) {
-            // this should be the test name, make it a leaf
-
-            // last parameter allows the TR to be dropped if it does not exist
-            // in the test suite.
-            TestResult oldTR = node.addChild(tr, suppressScan, !cacheInitialized);
-            //tr.setParent(node);   // now done in TRT_TreeNode.addChild()
-            rec = DynamicArray.append(rec, node);
-
-            // index will be -1 if the node insertion was rejected
-            // perhaps upgrade the code so that addChild() throws and
-            // exception
-            int index = node.getIndex(tr, suppressScan);
-
-            if (oldTR == null) {
-                if (debug > 10) {
-                    Debug.println("   => Inserted TR: " + tr.getTestName());
-                    Debug.println("   => Test Ref: " + tr);
-                    Debug.println("   => Status is: " + Status.typeToString(tr.getStatus().getType()));
-                    Debug.println("   => TRT: " + this);
-                    Debug.println("   => Node Ref: " + node);
-                    Debug.println("   => Node path: " + getRootRelativePath(node));
-                    Debug.println("   => Index in node: " + node.getIndex(tr, suppressScan));
-                }   // debug
+            synchronized (node) {
+                return insertLeaf(node, tr, rec, suppressScan);
+            }
+        } else {
+            // has at least 1 dir name left
+            // find or create a TRT_TreeNode and follow it
 
-                if (index != -1) {
-                    notifyNewLeaf(rec, tr, node.getIndex(tr, suppressScan));
-                }
-            } else if (oldTR == tr) {
-                if (debug > 10) {
-                    Debug.println("   => Ignored new TR: " + tr.getTestName());
-                    Debug.println("   => Test Ref: " + tr);
-                    Debug.println("   => Status is: " + Status.typeToString(tr.getStatus().getType()));
-                    Debug.println("   => RESETTING IT! " + updateInProgress);
-                }
+            String nextDir = getDirName(path);
+            TRT_TreeNode next;
 
-                if (updateInProgress) {
-                    resetTest(tr.getTestName());
-                }
-            } else {
-                if (debug > 10) {
-                    Debug.println("   => Updated TR: " + tr.getTestName());
-                    Debug.println("   => Test Ref: " + tr);
-                    Debug.println("   => Status is: " + Status.typeToString(tr.getStatus().getType()));
-                    Debug.println("   => TRT: " + this);
-                    Debug.println("   => Node Ref: " + node);
-                    Debug.println("   => Node path: " + getRootRelativePath(node));
-                    Debug.println("   => Index in node: " + index);
-                }   // debug
+            synchronized (node) {
+                next = node.getTreeNode(nextDir, suppressScan);
 
-                if (index == -1) {
-                    // insert was ignored for some reason
-                } else if (oldTR != null && oldTR != tr) {
-                    // handover known info if new tr is minimal
-                    if (tr.isShrunk()) {
-                        try {
-                            TestDescription desc = oldTR.getDescription();
-                            if (desc != null) {
-                                tr.setTestDescription(desc);
-                            }
-                        } catch (TestResult.Fault f) {
-                            // give up
-                        }
-                    }
+                if (next == null) {     // create branch
+                    TRT_TreeNode tn = new TRT_TreeNode(this, node);
+                    tn.setName(getDirName(nextDir));
+                    node.addChild(tn, suppressScan);
 
-                    //notifyChangeLeaf(rec, tr, index, oldTR);
-                    notifyRemoveLeaf(rec, oldTR, index);
-                    notifyNewLeaf(rec, tr, index);
+                    rec = DynamicArray.append(rec, tn);
+                    notifyNewBranch(rec, tn, node.getIndex(tn, suppressScan));
+
+                    next = tn;
                 } else {
-                    notifyChangeLeaf(rec, tr, index, oldTR);
+                    rec = DynamicArray.append(rec, node);
                 }
             }
 
-            return oldTR;
-        } else {
-            // has at least 1 dir name left
-            // find or create a TRT_TreeNode and follow it
+            return insert(next, newPath, tr, rec, suppressScan);
+        }
+    }
 
-            String nextDir = getDirName(path);
-            TRT_TreeNode next = node.getTreeNode(nextDir, suppressScan);
+    /**
+     * Insert the given test into the given node, which must be locked by the caller.
+     */
+    private TestResult insertLeaf(TRT_TreeNode node, TestResult tr,
+                                  TRT_TreeNode[] rec, boolean suppressScan) {
+        // last parameter allows the TR to be dropped if it does not exist
+        // in the test suite.
+        TestResult oldTR = node.addChild(tr, suppressScan, !cacheInitialized);
+        //tr.setParent(node);   // now done in TRT_TreeNode.addChild()
+        rec = DynamicArray.append(rec, node);
 
-            if (next == null) {     // create branch
-                TRT_TreeNode tn = new TRT_TreeNode(this, node);
-                tn.setName(getDirName(nextDir));
-                node.addChild(tn, suppressScan);
+        // index will be -1 if the node insertion was rejected
+        // perhaps upgrade the code so that addChild() throws and
+        // exception
+        int index = node.getIndex(tr, suppressScan);
 
-                rec = DynamicArray.append(rec, tn);
-                notifyNewBranch(rec, tn, node.getIndex(tn, suppressScan));
+        if (oldTR == null) {
+            if (debug > 10) {
+                Debug.println("   => Inserted TR: " + tr.getTestName());
+                Debug.println("   => Test Ref: " + tr);
+                Debug.println("   => Status is: " + Status.typeToString(tr.getStatus().getType()));
+                Debug.println("   => TRT: " + this);
+                Debug.println("   => Node Ref: " + node);
+                Debug.println("   => Node path: " + getRootRelativePath(node));
+                Debug.println("   => Index in node: " + node.getIndex(tr, suppressScan));
+            }   // debug
 
-                return insert(tn, newPath, tr, rec, suppressScan);
-            } else {                  // no work, just recurse
-                rec = DynamicArray.append(rec, node);
-                return insert(next, newPath, tr, rec, suppressScan);
+            if (index != -1) {
+                notifyNewLeaf(rec, tr, node.getIndex(tr, suppressScan));
+            }
+        } else if (oldTR == tr) {
+            if (debug > 10) {
+                Debug.println("   => Ignored new TR: " + tr.getTestName());
+                Debug.println("   => Test Ref: " + tr);
+                Debug.println("   => Status is: " + Status.typeToString(tr.getStatus().getType()));
+                Debug.println("   => RESETTING IT! " + updateInProgress);
             }
 
+            // if updateInProgress, the caller resets the test
+            // after releasing the locks
+        } else {
+            if (debug > 10) {
+                Debug.println("   => Updated TR: " + tr.getTestName());
+                Debug.println("   => Test Ref: " + tr);
+                Debug.println("   => Status is: " + Status.typeToString(tr.getStatus().getType()));
+                Debug.println("   => TRT: " + this);
+                Debug.println("   => Node Ref: " + node);
+                Debug.println("   => Node path: " + getRootRelativePath(node));
+                Debug.println("   => Index in node: " + index);
+            }   // debug
+
+            if (index == -1) {
+                // insert was ignored for some reason
+            } else if (oldTR != null && oldTR != tr) {
+                // handover known info if new tr is minimal
+                if (tr.isShrunk()) {
+                    try {
+                        TestDescription desc = oldTR.getDescription();
+                        if (desc != null) {
+                            tr.setTestDescription(desc);
+                        }
+                    } catch (TestResult.Fault f) {
+                        // give up
+                    }
+                }
+
+                //notifyChangeLeaf(rec, tr, index, oldTR);
+                notifyRemoveLeaf(rec, oldTR, index);
+                notifyNewLeaf(rec, tr, index);
+            } else {
+                notifyChangeLeaf(rec, tr, index, oldTR);
+            }
         }
+
+        return oldTR;
     }
 
     /**
@@ -2087,6 +2197,11 @@ public class TestResultTable {
      */
     private void initFinder() {
         suiteRoot = finder.getRoot();
+        if (index != null) {
+            index.close();
+        }
+        index = (workDir == null ? null : TestFinderIndex.open(workDir, finder));
+        crawler = TestFinderCrawler.create(finder, index);
     }
 
     void awakeCache() {
@@ -96,6 +96,8 @@ public class TestSuite {
     private static final String TESTSUITE_HTML = "testsuite.html";
     private static final String TESTSUITE_JTT = "testsuite.jtt";
     private static final String FIND_LEGACY_CONSTRUCTOR = "com.sun.javatest.ts.findLegacyCtor";
+    private static final String TEST_RUNNER = "testRunner";
+    private static final String TEST_RUNNER_PROP = "javatest.testRunner";
 
     /**
      * Disposed of the shared TestSuite object for this test suite.  Use
@@ -721,10 +723,24 @@ public class TestSuite {
      * creates a number of test execution threads which each
      * create and run a script for each test obtained from
      * the test runners iterator.
+     * An alternative runner can be selected by name with the
+     * {@code testRunner} entry in the test suite properties, which may
+     * in turn be overridden by the {@code javatest.testRunner} system property.
+     * The alternatives currently recognized are
+     * {@link WorkStealingTestRunner#NAME "workStealing"} and
+     * {@link VirtualThreadTestRunner#NAME "virtualThreads"}.
      *
      * @return a TestRunner that can be used to run a series of tests
+     * @see WorkStealingTestRunner
+     * @see VirtualThreadTestRunner
      */
     public TestRunner createTestRunner() {
+        String name = System.getProperty(TEST_RUNNER_PROP, getTestSuiteInfo(TEST_RUNNER));
+        if (WorkStealingTestRunner.NAME.equalsIgnoreCase(name)) {
+            return new WorkStealingTestRunner();
+        } else if (VirtualThreadTestRunner.NAME.equalsIgnoreCase(name)) {
+            return new VirtualThreadTestRunner();
+        }
         return new DefaultTestRunner();
     }
 
@@ -0,0 +1,136 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import com.sun.javatest.util.VirtualThreads;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A test execution engine which runs each test on its own virtual thread.
+ * This is intended for test suites whose tests spend most of their time
+ * blocked, such as waiting on an agent connection or for the output of
+ * another process, and which can therefore usefully have many more tests
+ * in progress than there are platform threads.
+ * <p>
+ * The number of tests in progress is given by the concurrency, unless the
+ * {@code javatest.virtualThreads.concurrency} system property is set, in
+ * which case that value is used, and is not limited to
+ * {@link Parameters.ConcurrencyParameters#MAX_CONCURRENCY}.
+ * <p>
+ * Script timeouts work as usual: {@link Script#setAlarm} interrupts the
+ * thread running the test, whether or not it is a virtual thread.
+ * If virtual threads are not supported by the platform, ordinary threads
+ * are used instead.
+ *
+ * @see TestSuite#createTestRunner
+ */
+public class VirtualThreadTestRunner extends DefaultTestRunner {
+    /**
+     * The name by which this test runner can be selected, using either the
+     * {@code testRunner} entry in the test suite properties or the
+     * {@code javatest.testRunner} system property.
+     */
+    public static final String NAME = "virtualThreads";
+
+    private static final String CONCURRENCY_PROP = "javatest.virtualThreads.concurrency";
+
+    @Override
+    public synchronized boolean runTests(Iterator<TestDescription> testIter)
+            throws InterruptedException {
+        int concurrency = Math.max(1, Integer.getInteger(CONCURRENCY_PROP, getConcurrency()));
+        Semaphore slots = new Semaphore(concurrency);
+        Set<Thread> activeThreads = ConcurrentHashMap.newKeySet();
+        AtomicBoolean allPassed = new AtomicBoolean(true);
+        int n = 0;
+
+        try {
+            while (testIter.hasNext()) {
+                slots.acquire();
+                TestDescription td;
+                try {
+                    td = testIter.next();
+                } catch (RuntimeException | Error e) {
+                    slots.release();
+                    throw e;
+                }
+
+                Thread t = VirtualThreads.newThread("VirtualThreadTestRunner:Worker-" + n++, () -> {
+                    try {
+                        if (!runTest(td)) {
+                            allPassed.set(false);
+                        }
+                    } finally {
+                        activeThreads.remove(Thread.currentThread());
+                        slots.release();
+                    }
+                });
+                activeThreads.add(t);
+                t.start();
+            }
+
+            // wait for the tests in progress to complete
+            slots.acquire(concurrency);
+            slots.release(concurrency);
+        } catch (InterruptedException ex) {
+            // The thread has been interrupted: interrupt the tests in progress
+            for (Thread t : activeThreads) {
+                t.interrupt();
+            }
+
+            // while a short while (a couple of seconds) for tests to clean up
+            // before we nuke them
+            long end = System.currentTimeMillis() + 2000;
+            try {
+                for (Thread t : activeThreads) {
+                    long remaining = end - System.currentTimeMillis();
+                    if (remaining > 0) {
+                        t.join(remaining);
+                    }
+                }
+            } catch (InterruptedException e) {
+            }
+
+            // virtual threads cannot be stopped; they are left to finish
+            // in their own time
+            for (Thread t : activeThreads) {
+                if (t.isAlive() && !VirtualThreads.isVirtual(t)) {
+                    Deprecated.invokeThreadStop(t);
+                }
+            }
+
+            // rethrow the original exception so the caller knows what's happened
+            throw ex;
+        }
+
+        return allPassed.get();
+    }
+}
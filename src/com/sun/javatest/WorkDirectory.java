@@ -45,7 +45,9 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.TreeMap;
@@ -77,6 +79,9 @@ public class WorkDirectory {
     private File jtData;
     private String logFileName;
     private LogFile logFile;
+    private final ResultFiles resultFiles = new ResultFiles();
+    private volatile ResultStore resultStore;
+    private boolean resultStoreChecked;
 
     /**
      * Create a WorkDirectory object for a given directory and testsuite.
@@ -746,6 +751,63 @@ public class WorkDirectory {
         return new File(jtData, name);
     }
 
+    /**
+     * Get the object used to write result files into this work directory.
+     *
+     * @return the object used to write result files into this work directory
+     */
+    ResultFiles getResultFiles() {
+        return resultFiles;
+    }
+
+    /**
+     * Get the store in which the results for this work directory are kept,
+     * if they are not kept in individual result files.
+     *
+     * @return the store, or null if the results are kept in individual files
+     * @see ResultStore#STORE_PROP
+     */
+    ResultStore getResultStore() {
+        ResultStore s = resultStore;
+        if (s != null) {
+            return s;
+        }
+
+        synchronized (resultFiles) {
+            if (!resultStoreChecked) {
+                resultStoreChecked = true;
+                if (ResultStore.exists(jtData) || ResultStore.isRequested()) {
+                    try {
+                        resultStore = ResultStore.open(jtData, resultFiles.isSync());
+                    } catch (IOException e) {
+                        testSuite.getNotificationLog(this).throwing("WorkDirectory", "getResultStore()", e);
+                    }
+                }
+            }
+            return resultStore;
+        }
+    }
+
+    /**
+     * Close the store in which the results for this work directory are kept,
+     * if there is one, writing its index so that it can be opened quickly.
+     * The store will be opened again if it is needed after this.
+     */
+    void closeResultStore() {
+        synchronized (resultFiles) {
+            ResultStore s = resultStore;
+            resultStore = null;
+            resultStoreChecked = false;
+            if (s != null) {
+                try {
+                    s.close();
+                } catch (IOException e) {
+                    testSuite.getNotificationLog(this).throwing("WorkDirectory", "closeResultStore()", e);
+                }
+            }
+        }
+    }
+
     // ------------ PRIVATE --------------
 
     /**
@@ -1002,11 +1064,28 @@ public class WorkDirectory {
         }
 
         boolean result = true;
+        boolean stored = false;
+
+        ResultStore store = getResultStore();
+        if (store != null) {
+            List<String> paths = path.endsWith(TestResult.EXTN)
+                    ? Collections.singletonList(path) : store.getPaths(path);
+            for (String p : paths) {
+                try {
+                    if (store.remove(p)) {
+                        stored = true;
+                        testResultTable.resetTest(p);
+                    }
+                } catch (IOException e) {
+                    result = false;
+                }
+            }
+        }
 
         File f = path.isEmpty() ? root : getFile(path);
 
         if (!f.exists()) {
-            return false;
+            return stored && result;
         }
 
         if (f.isDirectory()) {
@@ -0,0 +1,333 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A test execution engine which keeps a separate queue of tests for each
+ * worker thread and lets idle workers steal tests from the queues of busy ones.
+ * Before the run starts, the tests are ordered longest-first, using the
+ * execution times recorded by previous runs, so that long tests are not left
+ * until the end of the run where they would extend its tail.
+ * Tests with no previous timing information are run first, in the order they
+ * were supplied.
+ * The execution times are kept in a small file in the work directory, which
+ * is read once before the run and updated at the end of it, so that the
+ * test results themselves do not have to be read to order the tests.
+ * <p>
+ * Unlike {@link DefaultTestRunner}, there is no single lock through which
+ * every worker must pass to obtain its next test: each queue has its own lock,
+ * which is only contended when a worker steals from another.
+ *
+ * @see TestSuite#createTestRunner
+ */
+public class WorkStealingTestRunner extends DefaultTestRunner {
+    /**
+     * The name by which this test runner can be selected, using either the
+     * {@code testRunner} entry in the test suite properties or the
+     * {@code javatest.testRunner} system property.
+     */
+    public static final String NAME = "workStealing";
+
+    // file in the work directory holding the execution times of the tests
+    private static final String TIMES_FILE = "testTimes.dat";
+    private static final int TIMES_MAGIC = 0x4a545454; // "JTTT"
+    // cost used for tests with no recorded execution time
+    private static final long UNKNOWN = Long.MAX_VALUE;
+
+    private WorkQueue[] queues;
+    private volatile boolean stopping;
+    // execution times of the tests run by this runner, in milliseconds, by test URL
+    private Map<String, Long> times;
+
+    @Override
+    public synchronized boolean runTests(Iterator<TestDescription> testIter)
+            throws InterruptedException {
+        Map<String, Long> previousTimes = readTimes();
+        List<Job> jobs = new ArrayList<>();
+        while (testIter.hasNext()) {
+            TestDescription td = testIter.next();
+            Long time = previousTimes.get(td.getRootRelativeURL());
+            jobs.add(new Job(td, time == null ? UNKNOWN : time));
+        }
+        times = new ConcurrentHashMap<>();
+
+        // stable sort: tests with equal cost keep the order given by the iterator
+        Collections.sort(jobs);
+
+        int nThreads = Math.max(1, Math.min(getConcurrency(), jobs.size()));
+        queues = new WorkQueue[nThreads];
+        for (int i = 0; i < nThreads; i++) {
+            queues[i] = new WorkQueue();
+        }
+
+        // deal the jobs out round-robin, so that each queue is itself sorted
+        // longest-first and the queues start with a similar amount of work
+        for (int i = 0; i < jobs.size(); i++) {
+            queues[i % nThreads].add(jobs.get(i));
+        }
+        jobs = null;
+
+        final AtomicBoolean allPassed = new AtomicBoolean(true);
+        Thread[] threads = new Thread[nThreads];
+        int prio = Math.max(Thread.MIN_PRIORITY, Thread.currentThread().getPriority() - 1);
+        for (int i = 0; i < nThreads; i++) {
+            final int index = i;
+            Thread t = new Thread(() -> {
+                Job job;
+                while ((job = nextJob(index)) != null) {
+                    long start = System.currentTimeMillis();
+                    if (!runTest(job.td)) {
+                        allPassed.set(false);
+                    }
+                    times.put(job.td.getRootRelativeURL(), System.currentTimeMillis() - start);
+                }
+            });
+            t.setName("WorkStealingTestRunner:Worker-" + i);
+            t.setPriority(prio);
+            threads[i] = t;
+        }
+
+        try {
+            for (Thread t : threads) {
+                t.start();
+            }
+            for (Thread t : threads) {
+                t.join();
+            }
+        } catch (InterruptedException ex) {
+            // The thread has been interrupted
+
+            stopping = true;    // stop workers from starting any new tests
+
+            // interrupt the worker threads
+            for (Thread t : threads) {
+                t.interrupt();
+            }
+
+            // while a short while (a couple of seconds) for tests to clean up
+            // before we nuke them
+            long end = System.currentTimeMillis() + 2000;
+            try {
+                for (Thread t : threads) {
+                    long remaining = end - System.currentTimeMillis();
+                    if (remaining > 0) {
+                        t.join(remaining);
+                    }
+                }
+            } catch (InterruptedException e) {
+            }
+
+            // rethrow the original exception so the caller knows what's happened
+            throw ex;
+        } finally {
+            // ensure all child threads killed
+            for (Thread t : threads) {
+                if (t.isAlive()) {
+                    Deprecated.invokeThreadStop(t);
+                }
+            }
+            queues = null;
+
+            previousTimes.putAll(times);
+            writeTimes(previousTimes);
+            times = null;
+        }
+
+        return allPassed.get();
+    }
+
+    /**
+     * Get the next test to be run by a worker: first from the worker's own
+     * queue, then, if that is empty, from the tail of the queue with the most
+     * work remaining.
+     */
+    private Job nextJob(int index) {
+        if (stopping) {
+            return null;
+        }
+
+        Job job = queues[index].takeFirst();
+        while (job == null) {
+            WorkQueue victim = null;
+            long victimCost = 0;
+            for (WorkQueue q : queues) {
+                long c = q.remainingCost();
+                if (c > victimCost) {
+                    victim = q;
+                    victimCost = c;
+                }
+            }
+
+            if (victim == null || stopping) {
+                return null;
+            }
+
+            // another thief may have emptied the victim in the meantime;
+            // if so, just look again
+            job = victim.takeLast();
+        }
+
+        return job;
+    }
+
+    /**
+     * Read the execution times of the tests recorded by previous runs.
+     *
+     * @return the execution times, in milliseconds, by test URL; the map is
+     * empty if the times are not available
+     */
+    private Map<String, Long> readTimes() {
+        Map<String, Long> map = new HashMap<>();
+        File f = getWorkDirectory().getSystemFile(TIMES_FILE);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+            if (in.readInt() != TIMES_MAGIC) {
+                return map;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String url = in.readUTF();
+                map.put(url, in.readLong());
+            }
+        } catch (FileNotFoundException e) {
+            // no times recorded yet
+        } catch (IOException e) {
+            // ignore a damaged file: it will be rewritten at the end of the run
+            map.clear();
+        }
+        return map;
+    }
+
+    /**
+     * Record the execution times of the tests, for use by subsequent runs.
+     * The file is replaced as a whole, so that a run which is stopped while
+     * the file is being written does not leave it damaged.
+     */
+    private void writeTimes(Map<String, Long> map) {
+        File f = getWorkDirectory().getSystemFile(TIMES_FILE);
+        File tmp = new File(f.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(TIMES_MAGIC);
+                out.writeInt(map.size());
+                for (Map.Entry<String, Long> e : map.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeLong(e.getValue());
+                }
+            }
+            if (!tmp.renameTo(f)) {
+                f.delete();
+                if (!tmp.renameTo(f)) {
+                    tmp.delete();
+                }
+            }
+        } catch (IOException e) {
+            // the times are only used to order the tests: not worth failing the run
+            tmp.delete();
+        }
+    }
+
+    private static class Job implements Comparable<Job> {
+        final TestDescription td;
+        final long cost;
+
+        Job(TestDescription td, long cost) {
+            this.td = td;
+            this.cost = cost;
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            // longest first
+            return Long.compare(other.cost, cost);
+        }
+    }
+
+    /**
+     * A per-worker queue of tests, ordered longest-first. The owner takes
+     * tests from the head; thieves take them from the tail.
+     */
+    private static class WorkQueue {
+        private final ArrayDeque<Job> jobs = new ArrayDeque<>();
+        // sum of the known costs of the tests in the queue, plus one per test,
+        // so that a queue of tests with no timing information is still preferred
+        // over an empty one
+        private volatile long remainingCost;
+
+        synchronized void add(Job job) {
+            jobs.addLast(job);
+            remainingCost = addCost(remainingCost, job);
+        }
+
+        synchronized Job takeFirst() {
+            return remove(jobs.pollFirst());
+        }
+
+        synchronized Job takeLast() {
+            return remove(jobs.pollLast());
+        }
+
+        long remainingCost() {
+            return remainingCost;
+        }
+
+        private Job remove(Job job) {
+            if (job != null) {
+                remainingCost = jobs.isEmpty() ? 0 : Math.max(1, remainingCost - weight(job));
+            }
+            return job;
+        }
+
+        private static long addCost(long total, Job job) {
+            long w = weight(job);
+            return (total > Long.MAX_VALUE - w ? Long.MAX_VALUE : total + w);
+        }
+
+        private static long weight(Job job) {
+            // treat unknown tests as long ones, but keep the sum from overflowing
+            return (job.cost == UNKNOWN ? Integer.MAX_VALUE : job.cost) + 1;
+        }
+    }
+}
@@ -31,11 +31,16 @@ import com.sun.javatest.Status;
 import com.sun.javatest.Test;
 import com.sun.javatest.util.DynamicArray;
 import com.sun.javatest.util.Timer;
+import com.sun.javatest.util.VirtualThreads;
 import com.sun.javatest.util.WriterStream;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.io.PrintStream;
@@ -43,10 +48,20 @@ import java.io.PrintWriter;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.zip.InflaterInputStream;
 
 /**
  * The means by which the the harness executes requests on other machines.
@@ -74,9 +89,20 @@ public class Agent implements Runnable {
      * The default port on which passive ports will listen for incoming connections.
      */
     public static final int defaultPassivePort = 1908;
+    /**
+     * The highest number of simultaneous requests that may be accepted by
+     * an agent that handles each request on a virtual thread.
+     *
+     * @see #Agent(ConnectionFactory, int, boolean)
+     */
+    public static final int MAX_VIRTUAL_CONCURRENCY = 8192;
     // The following is used to ensure consistency between Agent and AgentManager
     static final short protocolVersion = 105;
+    // The protocol in which a connection is kept open for many requests;
+    // see MultiplexedConnection
+    static final short multiplexedProtocolVersion = 106;
     static final byte CLASS = (byte) 'C';
+    static final byte CLASS_BYTES = (byte) 'B';
 
     //--------------------------------------------------------------------------
     static final byte DATA = (byte) 'D';
@@ -87,6 +113,9 @@ public class Agent implements Runnable {
     static final byte REF = (byte) 'R';
     static final byte REF_FLUSH = (byte) 'r';
     static final byte STATUS = (byte) 'S';
+    static final byte REQUEST = (byte) 'Q';
+    static final byte CANCEL = (byte) 'X';
+    static final byte PREFETCH = (byte) 'P';
 
     //----------------------------------------------------------------------------
     static final String PRODUCT_NAME = "JT Harness Agent";
@@ -104,8 +133,12 @@ public class Agent implements Runnable {
     private boolean closing;
     private Thread mainThread;
     private int maxThreads;
+    private boolean useVirtualThreads;
+    private Thread acceptor;
     private Vector<Thread> threads = new Vector<>();
     private Vector<Task> tasks = new Vector<>();
+    // multiplexed connections, each read by a thread of its own rather than one of the above
+    private Vector<MultiplexedSession> sessions = new Vector<>();
     private Notifier notifier = new Notifier();
     private Object currSystemStreamOwner = null;
     private PrintStream saveOut;
@@ -114,6 +147,7 @@ public class Agent implements Runnable {
     private ConnectionFactory connectionFactory;
     private ConfigValuesMap map;
     private Timer timer;
+    private ClassDataCache classCache = new ClassDataCache(null);
 
     /**
      * Create an agent that connects to clients using a specified connection factory.
@@ -122,14 +156,33 @@ public class Agent implements Runnable {
      * @param concurrency       The number of simultaneous requests to be accepted.
      */
     public Agent(ConnectionFactory connectionFactory, int concurrency) {
-        if (!isValidConcurrency(concurrency)) {
+        this(connectionFactory, concurrency, false);
+    }
+
+    /**
+     * Create an agent that connects to clients using a specified connection factory,
+     * optionally handling each request on a virtual thread.
+     * With virtual threads, a single thread accepts incoming connections and
+     * starts a new virtual thread for each one, instead of keeping a pool
+     * of {@code concurrency} platform threads. If virtual threads are not
+     * supported by the platform, ordinary threads are used instead.
+     *
+     * @param connectionFactory The factory from which to get connections to clients.
+     * @param concurrency       The number of simultaneous requests to be accepted.
+     * @param useVirtualThreads Whether or not to handle each request on a virtual thread.
+     * @see #MAX_VIRTUAL_CONCURRENCY
+     */
+    public Agent(ConnectionFactory connectionFactory, int concurrency, boolean useVirtualThreads) {
+        if (!isValidConcurrency(concurrency, useVirtualThreads)) {
             throw new IllegalArgumentException("bad concurrency: " + concurrency);
         }
 
         this.connectionFactory = connectionFactory;
+        this.useVirtualThreads = useVirtualThreads;
         maxThreads = concurrency;
         traceOut.println("New JT Agent: handling " + maxThreads + " concurrent request" +
-                (maxThreads > 1 ? "s" : "")  + ", using " + connectionFactory);
+                (maxThreads > 1 ? "s" : "")  + ", using " + connectionFactory +
+                (useVirtualThreads ? ", on virtual threads" : ""));
     }
 
     /**
@@ -144,6 +197,23 @@ public class Agent implements Runnable {
         return 1 <= concurrency && concurrency <= 256;
     }
 
+    /**
+     * Checks that given concurrency value is acceptable for an agent that
+     * does or does not use virtual threads.
+     *
+     * @param concurrency       value to check
+     * @param useVirtualThreads whether or not the agent uses virtual threads
+     * @return true, if concurrency is acceptable
+     * @see #MAX_VIRTUAL_CONCURRENCY
+     */
+    static boolean isValidConcurrency(int concurrency, boolean useVirtualThreads) {
+        if (useVirtualThreads) {
+            return 1 <= concurrency && concurrency <= MAX_VIRTUAL_CONCURRENCY;
+        } else {
+            return isValidConcurrency(concurrency);
+        }
+    }
+
     private static void closeIgnoreExceptions(Connection c) {
         try {
             c.close();
@@ -207,6 +277,31 @@ public class Agent implements Runnable {
         }
     }
 
+    /**
+     * Set a directory in which to keep the data for classes loaded from the
+     * harness, so that it need not be sent again, even by a later run of the agent.
+     * Class data is identified by a digest of its content, and so the directory
+     * may be shared by several agents.
+     * Class data is always kept in memory, whether or not a directory is set.
+     * The cache is only used for requests on connections which are kept open
+     * for many requests.
+     *
+     * @param dir The directory, or null if class data should only be kept in memory.
+     */
+    public synchronized void setClassCacheDirectory(File dir) {
+        classCache = new ClassDataCache(dir);
+    }
+
+    /**
+     * Get the directory in which the data for classes loaded from the harness is kept.
+     *
+     * @return the directory, or null if class data is only kept in memory
+     * @see #setClassCacheDirectory
+     */
+    public synchronized File getClassCacheDirectory() {
+        return classCache.getDirectory();
+    }
+
     /**
      * Enable or disable tracing for agent activities.
      * It is best to call this as early as possible - objects created by
@@ -269,7 +364,26 @@ public class Agent implements Runnable {
 
 
             while (!closing) {
-                while (threads.size() < maxThreads && !closing) {
+                if (useVirtualThreads && acceptor == null) {
+                    acceptor = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                acceptRequestsUntilClosed();
+                            } catch (InterruptedException e) {
+                            } finally {
+                                synchronized (Agent.this) {
+                                    acceptor = null;
+                                    Agent.this.notifyAll();
+                                }
+                            }
+                        }
+                    });
+                    acceptor.setName("Agent" + nextThreadNum() + ":Acceptor");
+                    acceptor.start();
+                }
+
+                while (!useVirtualThreads && threads.size() < maxThreads && !closing) {
                     Thread t = new Thread(new Runnable() {
                         @Override
                         public void run() {
@@ -337,6 +451,9 @@ public class Agent implements Runnable {
         closing = true;  // will prevent new tasks from being created
 
         // interrupt any threads that are running
+        if (acceptor != null) {
+            acceptor.interrupt();
+        }
         for (Thread t : threads) {
             if (tracing) {
                 traceOut.println("INTERRUPTING THREAD " + t.getName());
@@ -357,6 +474,14 @@ public class Agent implements Runnable {
             t.close();
         }
 
+        // close any multiplexed connections, abandoning the requests on them
+        for (MultiplexedSession s : sessions) {
+            if (tracing) {
+                traceOut.println("CLOSING CONNECTION " + s.mc.getConnection().getName());
+            }
+            closeIgnoreExceptions(s.mc.getConnection());
+        }
+
         try {
             if (tracing) {
                 traceOut.println("CLOSING CONNECTION FACTORY");
@@ -430,6 +555,70 @@ public class Agent implements Runnable {
         }
     }
 
+    private void acceptRequestsUntilClosed() throws InterruptedException {
+        Semaphore slots = new Semaphore(maxThreads);
+        while (!closing) {
+            slots.acquire();
+            boolean started = false;
+            try {
+                // The call of nextConnection() will block until a connection is
+                // open; this can be for an indefinite amount of time.
+                // Therefore we must not hold the object lock while calling this routine.
+                Connection connection = connectionFactory.nextConnection();
+
+                Task t;
+                Thread thread;
+                synchronized (this) {
+                    // Having opened a connection, we check that the agent has not been
+                    // marked for shutdown before updating connection.
+                    if (closing) {
+                        closeIgnoreExceptions(connection);
+                        return;
+                    }
+
+                    t = new Task(connection);
+                    thread = VirtualThreads.newThread("Agent" + nextThreadNum(), new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                t.handleRequest();
+                            } finally {
+                                synchronized (Agent.this) {
+                                    tasks.remove(t);
+                                    threads.remove(Thread.currentThread());
+                                    Agent.this.notifyAll();
+                                }
+                                slots.release();
+                            }
+                        }
+                    });
+                    tasks.add(t);
+                    threads.add(thread);
+                }
+
+                thread.start();
+                started = true;
+            } catch (ConnectionFactory.Fault e) {
+                notifier.errorOpeningConnection(e.getException());
+                if (tracing) {
+                    traceOut.println("THREAD " + Thread.currentThread().getName() + " " + e);
+                }
+
+                if (e.isFatal()) {
+                    close();
+                    return;
+                } else {
+                    int millis = MILLIS_PER_SECOND * Math.min(5, getRetryDelay());
+                    Thread.sleep(millis);
+                }
+            } finally {
+                if (!started) {
+                    slots.release();
+                }
+            }
+        }
+    }
+
     private synchronized void setSystemStreams(Object owner, PrintStream out, PrintStream err)
             throws InterruptedException {
         if (owner == null) {
@@ -651,6 +840,18 @@ public class Agent implements Runnable {
         private String tag;
         private String request;
         private Integer timeoutValue;
+        // the following are only used for requests on a multiplexed connection
+        private MultiplexedSession session;
+        private int requestId;
+        private byte[] requestData;
+        private BlockingQueue<byte[]> replies;
+        private volatile boolean cancelled;
+        private volatile Thread thread;
+        // set when the connection has been handed over to a multiplexed session
+        private boolean detached;
+        // the classes sent ahead of the request, mapping class name to code source and digest
+        private Map<String, String[]> prefetched = Collections.emptyMap();
+        private int prefetchHits;
 
         Task(Connection c) {
             if (c == null) {
@@ -659,7 +860,23 @@ public class Agent implements Runnable {
             connection = c;
         }
 
+        Task(MultiplexedSession session, int requestId, Map<String, String[]> prefetched, byte... requestData) {
+            this(session.mc.getConnection());
+            this.session = session;
+            this.requestId = requestId;
+            if (prefetched != null) {
+                this.prefetched = prefetched;
+            }
+            this.requestData = requestData;
+            // room for the reply to the one outstanding request, and for cancel
+            replies = new ArrayBlockingQueue<>(2);
+        }
+
         public void handleRequest() {
+            if (session != null) {
+                handleMultiplexedRequest();
+                return;
+            }
 
             try {
                 notifier.openedConnection(connection);
@@ -670,6 +887,10 @@ public class Agent implements Runnable {
 
                 in = new DataInputStream(connection.getInputStream());
                 short pVer = in.readShort();
+                if (pVer == multiplexedProtocolVersion) {
+                    handleMultiplexedConnection();
+                    return;
+                }
                 if (pVer != protocolVersion) {
                     throw new IOException("protocol mismatch;" +
                             " expected " + protocolVersion +
@@ -787,6 +1008,141 @@ public class Agent implements Runnable {
             }
         }
 
+        /**
+         * Handle the requests on a connection using the multiplexed protocol.
+         * The connection is read by a thread of its own until it is closed by
+         * the client, so that this thread is free to accept other connections,
+         * and the requests are run on threads of their own.
+         */
+        private void handleMultiplexedConnection() throws IOException {
+            if (tracing) {
+                traceOut.println("MULTIPLEXED CONNECTION");
+            }
+
+            out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            out.writeShort(multiplexedProtocolVersion);
+            out.flush();
+
+            MultiplexedConnection mc = new MultiplexedConnection(connection,
+                    new DataInputStream(new BufferedInputStream(in)), out);
+            MultiplexedSession s = new MultiplexedSession(mc);
+            Connection c = connection;
+            Runnable r = () -> {
+                try {
+                    mc.readFrames(s);
+                } finally {
+                    sessions.remove(s);
+                }
+
+                if (tracing) {
+                    traceOut.println("MULTIPLEXED CONNECTION CLOSED");
+                }
+                notifier.completed(c);
+            };
+            String name = "Agent" + nextThreadNum() + ":" + connection.getName();
+            Thread t = useVirtualThreads ? VirtualThreads.newThread(name, r) : new Thread(r, name);
+            t.setDaemon(true);
+            synchronized (Agent.this) {
+                if (closing) {
+                    return;
+                }
+                sessions.add(s);
+                detached = true;
+            }
+            t.start();
+        }
+
+        /**
+         * Handle a single request received on a multiplexed connection.
+         */
+        private void handleMultiplexedRequest() {
+            thread = Thread.currentThread();
+            try {
+                if (cancelled) {
+                    return;
+                }
+                in = new DataInputStream(new ByteArrayInputStream(requestData));
+                tag = in.readUTF();
+                request = in.readUTF();
+
+                if (tracing) {
+                    traceOut.println("REQUEST " + requestId + " IS `" + request + "', TAG IS `" + tag + "'");
+                }
+
+                Status status;
+                if (request.equals("executeTest") || request.equals("executeCommand") || request.equals("executeMain")) {
+                    status = execute();
+                } else {
+                    status = Status.error("Unrecognized request for agent: `" + request + "'");
+                }
+                if (status == null) {
+                    // a command which was interrupted
+                    status = Status.error("request interrupted");
+                }
+
+                if (tracing) {
+                    traceOut.println("RETURN " + requestId + " " + status);
+                }
+
+                notifier.result(connection, status);
+                sendStatus(status);
+            } catch (IOException e) {
+                if (tracing) {
+                    traceOut.println("EXCEPTION IS `" + e + "'");
+                }
+
+                notifier.exception(connection, e);
+            } finally {
+                thread = null;
+            }
+        }
+
+        /**
+         * Abandon a request on a multiplexed connection, such as when it has
+         * timed out. The thread running the request is interrupted, and any
+         * further output from the request is discarded.
+         */
+        void cancel() {
+            cancelled = true;
+            // wake up any thread waiting for a reply
+            replies.offer(new byte[0]);
+            Thread t = thread;
+            if (t != null) {
+                t.interrupt();
+            }
+        }
+
+        /**
+         * Receive the reply to a request for class or resource data, for
+         * a request on a multiplexed connection.
+         *
+         * @throws IOException if the request was not expecting a reply
+         */
+        void reply(byte... data) throws IOException {
+            if (!replies.offer(data) && !cancelled) {
+                throw new IOException("unexpected reply for request " + requestId);
+            }
+        }
+
+        private DataInputStream sendAndAwaitReply(byte type, String name) throws IOException {
+            session.mc.writeFrame(type, requestId, MultiplexedConnection.toBytes(o -> o.writeUTF(name)), true);
+            try {
+                byte[] data = replies.take();
+                if (cancelled) {
+                    throw new EOFException("request cancelled");
+                }
+                return new DataInputStream(new ByteArrayInputStream(data));
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("interrupted while waiting for " + name);
+            }
+        }
+
+        private void checkCancelled() throws IOException {
+            if (cancelled) {
+                throw new EOFException("request cancelled");
+            }
+        }
+
         private Status execute() throws IOException {
             String className = in.readUTF();
 
@@ -951,6 +1307,11 @@ public class Agent implements Runnable {
          * Close the task, abandoning any request in progress.
          */
         synchronized void close() {
+            if (session != null || detached) {
+                // the connection is shared with other requests
+                return;
+            }
+
             if (!connection.isClosed()) {
                 closeIgnoreExceptions(connection);
                 // don't nullify connections because handleRequest might still be using it
@@ -979,6 +1340,14 @@ public class Agent implements Runnable {
          * Send wrapped data back to the client.
          */
         synchronized void sendChars(byte type, char b[], int off, int len) throws IOException {
+            if (session != null) {
+                checkCancelled();
+                // no need to truncate the data, as for writeUTF
+                byte[] data = new String(b, off, len).getBytes(StandardCharsets.UTF_8);
+                session.mc.writeFrame(type, requestId, data, type == LOG_FLUSH || type == REF_FLUSH);
+                return;
+            }
+
             out.write(type);
 
             String message = new String(b, off, len);
@@ -1023,6 +1392,16 @@ public class Agent implements Runnable {
          * Send the final status back to the client.
          */
         private synchronized void sendStatus(Status s) throws IOException {
+            if (session != null) {
+                checkCancelled();
+                session.mc.writeFrame(STATUS, requestId, MultiplexedConnection.toBytes(o -> {
+                    o.write((byte) s.getType());
+                    o.writeUTF(s.getReason());
+                    o.writeInt(prefetchHits);
+                }), true);
+                return;
+            }
+
             out.write(STATUS);
             out.write((byte) s.getType());
             out.writeUTF(s.getReason());
@@ -1037,6 +1416,10 @@ public class Agent implements Runnable {
             }
 
             try {
+                if (session != null) {
+                    return getCachedClassData(className);
+                }
+
                 out.write(CLASS);
                 out.writeUTF(className);
                 out.flush();
@@ -1051,6 +1434,54 @@ public class Agent implements Runnable {
             }
         }
 
+        /**
+         * Get the bytecodes for a class on a multiplexed connection. The harness
+         * first sends a digest of the class data, and the data itself is only
+         * requested if it is not already in the agent's class cache.
+         */
+        private AgentRemoteClassData getCachedClassData(String className)
+                throws IOException, ClassNotFoundException {
+            ClassDataCache cache;
+            synchronized (Agent.this) {
+                cache = classCache;
+            }
+
+            // classes sent ahead of the request need no round trip to the harness
+            String[] p = prefetched.get(className);
+            if (p != null) {
+                byte[] data = cache.get(p[1]);
+                if (data != null) {
+                    if (tracing) {
+                        traceOut.println("PREFETCHED CLASS " + className + " " + p[1]);
+                    }
+                    prefetchHits++;
+                    return new AgentRemoteClassData(className, p[0], data);
+                }
+            }
+
+            DataInputStream in = sendAndAwaitReply(CLASS, className);
+            if (!in.readBoolean()) {
+                throw new ClassNotFoundException(className);
+            }
+            String codeSource = in.readUTF();
+            String digest = in.readUTF();
+
+            byte[] data = cache.get(digest);
+            if (data != null) {
+                if (tracing) {
+                    traceOut.println("CACHED CLASS " + className + " " + digest);
+                }
+                return new AgentRemoteClassData(className, codeSource, data);
+            }
+
+            AgentRemoteClassData classData = new AgentRemoteClassData(sendAndAwaitReply(CLASS_BYTES, className));
+            cache.put(ClassDataCache.digest(classData.getByteData()), classData.getByteData());
+            if (tracing) {
+                traceOut.println("REMOTE LOADED CLASS " + classData.toString());
+            }
+            return classData;
+        }
+
         /**
          * Get a resource
          */
@@ -1059,9 +1490,15 @@ public class Agent implements Runnable {
                 traceOut.println("REMOTE LOAD " + resourceName);
             }
 
-            out.write(DATA);
-            out.writeUTF(resourceName);
-            out.flush();
+            DataInputStream in;
+            if (session != null) {
+                in = sendAndAwaitReply(DATA, resourceName);
+            } else {
+                out.write(DATA);
+                out.writeUTF(resourceName);
+                out.flush();
+                in = this.in;
+            }
 
             int size = in.readInt();
             if (size == -1) {
@@ -1142,8 +1579,163 @@ public class Agent implements Runnable {
         }
     }
 
+    /**
+     * The requests received on a multiplexed connection. Each request is
+     * handled on its own thread, with no more than the agent's concurrency
+     * running at once; any others wait until a thread is free.
+     */
+    private class MultiplexedSession implements MultiplexedConnection.Handler {
+        private final MultiplexedConnection mc;
+        private final Map<Integer, Task> requests = new HashMap<>();
+        private final Deque<Task> pending = new ArrayDeque<>();
+        // the classes sent ahead of requests which have not yet been received
+        private final Map<Integer, Map<String, String[]>> prefetches = new HashMap<>();
+        private int running;
+
+        MultiplexedSession(MultiplexedConnection mc) {
+            this.mc = mc;
+        }
+
+        @Override
+        public void handleFrame(MultiplexedConnection.Frame f) throws IOException {
+            Task t;
+            switch (f.type) {
+                case PREFETCH:
+                    Map<String, String[]> p = readPrefetch(f);
+                    synchronized (this) {
+                        prefetches.put(f.id, p);
+                    }
+                    break;
+
+                case REQUEST:
+                    synchronized (this) {
+                        t = new Task(this, f.id, prefetches.remove(f.id), f.data);
+                        requests.put(f.id, t);
+                        pending.add(t);
+                    }
+                    startPending();
+                    break;
+
+                case CLASS:
+                case CLASS_BYTES:
+                case DATA:
+                    t = getRequest(f.id);
+                    if (t != null) {
+                        t.reply(f.data);
+                    }
+                    break;
+
+                case CANCEL:
+                    synchronized (this) {
+                        t = requests.get(f.id);
+                        // a request which has not yet started is simply dropped
+                        if (t != null && pending.remove(t)) {
+                            requests.remove(f.id);
+                        }
+                    }
+                    if (t != null) {
+                        if (tracing) {
+                            traceOut.println("CANCEL " + f.id);
+                        }
+                        t.cancel();
+                    }
+                    break;
+
+                default:
+                    throw new IOException("data format error: unexpected message type " + f.type);
+            }
+        }
+
+        @Override
+        public void connectionClosed(IOException e) {
+            if (e != null) {
+                notifier.exception(mc.getConnection(), e);
+            }
+
+            Task[] tt;
+            synchronized (this) {
+                pending.clear();
+                prefetches.clear();
+                tt = requests.values().toArray(new Task[0]);
+            }
+            for (Task t : tt) {
+                t.cancel();
+            }
+        }
+
+        /**
+         * Read the classes sent by the harness ahead of a request. Class data
+         * is added to the class cache straight away, so that it is available
+         * to later requests; classes for which only the digest is given are
+         * expected to be in the cache already, from an earlier request.
+         */
+        private Map<String, String[]> readPrefetch(MultiplexedConnection.Frame f) throws IOException {
+            ClassDataCache cache;
+            synchronized (Agent.this) {
+                cache = classCache;
+            }
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new InflaterInputStream(new ByteArrayInputStream(f.data))));
+            int n = in.readInt();
+            Map<String, String[]> p = new HashMap<>(n * 2);
+            for (int i = 0; i < n; i++) {
+                String className = in.readUTF();
+                String codeSource = in.readUTF();
+                String digest = in.readUTF();
+                int size = in.readInt();
+                if (size >= 0) {
+                    byte[] data = new byte[size];
+                    in.readFully(data);
+                    cache.put(ClassDataCache.digest(data), data);
+                }
+                p.put(className, new String[]{codeSource, digest});
+            }
+
+            if (tracing) {
+                traceOut.println("PREFETCHED " + n + " CLASSES FOR " + f.id);
+            }
+            return p;
+        }
+
+        private synchronized Task getRequest(int id) {
+            return requests.get(id);
+        }
+
+        private synchronized void startPending() {
+            while (running < maxThreads && !pending.isEmpty()) {
+                Task t = pending.remove();
+                Runnable r = new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            t.handleRequest();
+                        } finally {
+                            finished(t);
+                        }
+                    }
+                };
+                String name = "Agent" + nextThreadNum() + ":" + t.requestId;
+                Thread thread = useVirtualThreads ? VirtualThreads.newThread(name, r) : new Thread(r, name);
+                running++;
+                thread.start();
+            }
+        }
+
+        private void finished(Task t) {
+            synchronized (this) {
+                requests.remove(t.requestId);
+                running--;
+            }
+            startPending();
+        }
+    }
+
         private static class CommandExecutor {
 
+            // shared by all executors, rather than a timer thread for each command
+            private static final Timer alarmTimer = new Timer();
+
             private final Object LOCK = new Object();
             private String[] args;
             private PrintWriter testLog;
@@ -1165,10 +1757,9 @@ public class Agent implements Runnable {
 
             public Status execute() {
 
-                Timer alarmTimer = null;
+                Timer.Entry alarm = null;
                 if (timeoutValue != 0) {
-                    alarmTimer = new Timer();
-                    alarmTimer.requestDelayedCallback(() -> {
+                    alarm = alarmTimer.requestDelayedCallback(() -> {
                         result = Status.error("Marked as error by timeout after " + timeout + " seconds");
                         timeout = true;
                         synchronized (LOCK) {
@@ -1206,8 +1797,8 @@ public class Agent implements Runnable {
 
                 executeThread.setPriority(Thread.MIN_PRIORITY);
                 executeThread.interrupt();
-                if (alarmTimer != null) {
-                    alarmTimer.finished();
+                if (alarm != null) {
+                    alarmTimer.cancel(alarm);
                 }
 
                 return result;
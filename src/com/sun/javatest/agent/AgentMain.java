@@ -29,6 +29,7 @@ package com.sun.javatest.agent;
 import com.sun.javatest.JavaTestSecurityManager;
 import com.sun.javatest.Status;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.lang.reflect.InvocationTargetException;
@@ -61,6 +62,8 @@ public class AgentMain {
     private Map<String, String> mappedArgs = new HashMap<>();
     private String observerClassName;
     private boolean tracing;
+    private boolean useVirtualThreads;
+    private String classCacheDir;
 
     /**
      * Create and start an Agent, based on the supplied command line arguments.
@@ -75,7 +78,9 @@ public class AgentMain {
      *             <tr><td> -passive                        <td> set mode to be passive
      *             <tr><td> -passivePort <em>port</em>      <td> set the port for passive connections (implies -passive)
      *             <tr><td> -concurrency <em>number</em>    <td> set the maximum number of simultaneous connections
+     *             <tr><td> -virtualThreads                 <td> handle each request on a virtual thread
      *             <tr><td> -map         <em>file</em>      <td> map file for translating arguments of incoming requests
+     *             <tr><td> -classCache  <em>dir</em>       <td> directory in which to keep classes loaded from the harness
      *             <tr><td> -trace                          <td> trace the execution of the agent
      *             <tr><td> -observer    <em>classname</em> <td> add an observer to the agent that is used
      *             </table>
@@ -260,9 +265,15 @@ public class AgentMain {
             } else if (args[i].equalsIgnoreCase("-concurrency")) {
                 concurrency = Integer.parseInt(args[++i]);
                 return 2;
+            } else if (args[i].equalsIgnoreCase("-virtualThreads")) {
+                useVirtualThreads = true;
+                return 1;
             } else if (args[i].equalsIgnoreCase("-map")) {
                 mapFile = args[++i];
                 return 2;
+            } else if (args[i].equalsIgnoreCase("-classCache")) {
+                classCacheDir = args[++i];
+                return 2;
             } else if (args[i].equalsIgnoreCase("-mapArg")) {
                 mappedArgs.put(args[++i], args[++i]);
                 return 3;
@@ -319,7 +330,7 @@ public class AgentMain {
                 }
         }
 
-        if (!Agent.isValidConcurrency(concurrency)) {
+        if (!Agent.isValidConcurrency(concurrency, useVirtualThreads)) {
             throw new BadArgs("Bad value for concurrency: " + concurrency);
         }
     }
@@ -413,7 +424,7 @@ public class AgentMain {
      */
     protected Agent createAgent() throws Fault {
         ConnectionFactory cf = createConnectionFactory();
-        Agent agent = new Agent(cf, concurrency);
+        Agent agent = new Agent(cf, concurrency, useVirtualThreads);
         agent.setTracing(tracing);
 
         if (observerClassName != null) {
@@ -447,6 +458,10 @@ public class AgentMain {
             agent.setMap(new ConfigValuesMap(mappedArgs));
         }
 
+        if (classCacheDir != null) {
+            agent.setClassCacheDirectory(new File(classCacheDir));
+        }
+
         Integer delay = Integer.getInteger("agent.retry.delay");
         if (delay != null) {
             agent.setRetryDelay(delay.intValue());
@@ -474,7 +489,9 @@ public class AgentMain {
         out.println("        -serialPort port  set the port for serial port connections");
         out.println("        -map file         map file for translating arguments of incoming requests");
         out.println("        -mapArg from to   map \"from\" arg to \"to\" arg for incoming requests");
+        out.println("        -classCache dir   directory in which to keep classes loaded from the harness");
         out.println("        -concurrency num  set the maximum number of simultaneous connections");
+        out.println("        -virtualThreads   handle each request on a virtual thread");
         out.println("        -trace            trace the execution of the agent");
         out.println("        -observer class   add an observer to the agent");
     }
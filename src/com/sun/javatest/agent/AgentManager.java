@@ -31,6 +31,7 @@ import com.sun.javatest.util.DynamicArray;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
@@ -41,9 +42,25 @@ import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.PrintWriter;
 import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -60,7 +77,30 @@ public class AgentManager {
 
     private static final AgentManager theManager = new AgentManager();
     private static final int PASSIVE_AGENT_RETRY_LIMIT = 12;
+    // set to false to always open a new connection for each request to a passive agent
+    private static final String MULTIPLEX_PROP = "javatest.agent.multiplex";
+    // set to false to never send classes to agents ahead of the requests which use them
+    private static final String PREFETCH_PROP = "javatest.agent.prefetch";
+    // time to wait for an agent to accept a multiplexed connection, in milliseconds
+    private static final int HANDSHAKE_TIMEOUT = 30 * 1000;
+    // the most classes to remember for each test, to be sent ahead of its next request
+    private static final int MAX_PREFETCH_CLASSES = 500;
+    // the most class data, in bytes, to assume that an agent still has in its cache;
+    // well within the default size of the cache, since the agent may discard data
+    // that was sent for other tests
+    private static final long MAX_PREFETCHED_BYTES = ClassDataCache.DEFAULT_MEMORY_LIMIT / 2;
     private Observer[] observers = new Observer[0];
+    // long-lived connections to passive agents, keyed by host:port
+    private final Map<String, MultiplexedClient> multiplexedClients = new HashMap<>();
+    // long-lived connections being opened, keyed by host:port; guarded by multiplexedClients
+    private final Map<String, FutureTask<MultiplexedClient>> pendingClients = new HashMap<>();
+    // passive agents which do not support multiplexed connections, keyed by host:port
+    private final Set<String> oneShotAgents = new HashSet<>();
+    // digests of the class files offered to agents, keyed by classpath entry and file name
+    private final Map<String, ClassDigest> classDigests = new ConcurrentHashMap<>();
+    // the classes loaded by earlier requests, keyed by executable, test class and classpath
+    private final Map<String, Set<String>> prefetchRecords = new ConcurrentHashMap<>();
+    private final ClassStatistics classStatistics = new ClassStatistics();
 
     //--------------------------------------------------------------------------
     private ActiveAgentPool pool = new ActiveAgentPool();
@@ -124,6 +164,17 @@ public class AgentManager {
         return pool;
     }
 
+    /**
+     * Get the statistics for the classes given to agents by tasks
+     * which share a long-lived connection to a passive agent.
+     *
+     * @return the statistics
+     * @see #connectToPassiveAgent
+     */
+    public ClassStatistics getClassStatistics() {
+        return classStatistics;
+    }
+
     //--------------------------------------------------------------------------
 
     /**
@@ -173,6 +224,17 @@ public class AgentManager {
     /**
      * Create a connection to a passive agent running on a nominated host,
      * and which is listening on a specified port.
+     * If the agent supports it, the task will use a long-lived connection
+     * to the agent, which is shared with other tasks for the same agent;
+     * otherwise, a new connection is opened for the task.
+     * Shared connections can be disabled by setting the system property
+     * {@code javatest.agent.multiplex} to {@code false}.
+     * <p>
+     * When a task on a shared connection uses a classpath, the classes that the
+     * agent loaded the last time the same test was executed by the same class with the
+     * same classpath are sent to the agent in a single compressed batch ahead of the request,
+     * instead of one at a time as the agent asks for them. This can be disabled
+     * by setting the system property {@code javatest.agent.prefetch} to {@code false}.
      *
      * @param host The host on which the agent should be running.
      * @param port The port on which the agent should be listening.
@@ -187,6 +249,10 @@ public class AgentManager {
 
         for (int i = 0; ; i++) {
             try {
+                MultiplexedClient mc = getMultiplexedClient(host, port);
+                if (mc != null) {
+                    return new Task(mc);
+                }
 //              return connect(new SocketConnection(host, port));
                 return connect(new InterruptableSocketConnection(host, port));
             } catch (ConnectException e) {
@@ -202,6 +268,109 @@ public class AgentManager {
         }
     }
 
+    /**
+     * Get a long-lived connection to a passive agent, opening it if necessary.
+     * The connection is opened without holding any lock that is needed by
+     * tasks for other agents; tasks for the same agent wait for it to be opened.
+     *
+     * @return the connection, or null if the agent does not support
+     * long-lived connections, or if they have been disabled
+     */
+    private MultiplexedClient getMultiplexedClient(String host, int port) throws IOException {
+        if (Boolean.FALSE.toString().equals(System.getProperty(MULTIPLEX_PROP))) {
+            return null;
+        }
+
+        String key = host + ":" + port;
+        FutureTask<MultiplexedClient> f;
+        boolean open = false;
+        synchronized (multiplexedClients) {
+            if (oneShotAgents.contains(key)) {
+                return null;
+            }
+
+            MultiplexedClient mc = multiplexedClients.get(key);
+            if (mc != null && !mc.mc.isClosed()) {
+                return mc;
+            }
+
+            f = pendingClients.get(key);
+            if (f == null) {
+                f = new FutureTask<>(() -> openMultiplexedClient(host, port, key));
+                pendingClients.put(key, f);
+                open = true;
+            }
+        }
+
+        if (open) {
+            try {
+                f.run();
+            } finally {
+                synchronized (multiplexedClients) {
+                    pendingClients.remove(key);
+                }
+            }
+        }
+
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable t = e.getCause();
+            if (t instanceof IOException) {
+                throw (IOException) t;
+            } else if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            } else if (t instanceof Error) {
+                throw (Error) t;
+            } else {
+                throw new IOException(t);
+            }
+        }
+    }
+
+    /**
+     * Open a long-lived connection to a passive agent.
+     *
+     * @return the connection, or null if the agent rejected the connection,
+     * or did not respond in time
+     */
+    private MultiplexedClient openMultiplexedClient(String host, int port, String key) throws IOException {
+        SocketConnection c = new SocketConnection(host, port);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(c.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(c.getOutputStream()));
+        short reply;
+        try {
+            c.setSoTimeout(HANDSHAKE_TIMEOUT);
+            out.writeShort(Agent.multiplexedProtocolVersion);
+            out.flush();
+            reply = in.readShort();
+            c.setSoTimeout(0);
+        } catch (EOFException e) {
+            // older agents reject the version, and close the connection
+            reply = -1;
+        } catch (IOException e) {
+            // not a rejection: a later task will try again
+            c.close();
+            return null;
+        }
+
+        if (reply != Agent.multiplexedProtocolVersion) {
+            c.close();
+            synchronized (multiplexedClients) {
+                oneShotAgents.add(key);
+            }
+            return null;
+        }
+
+        MultiplexedClient mc = new MultiplexedClient(new MultiplexedConnection(c, in, out));
+        synchronized (multiplexedClients) {
+            multiplexedClients.put(key, mc);
+        }
+        return mc;
+    }
+
     /**
      * An Observer class to monitor Agent activity.
      */
@@ -233,6 +402,172 @@ public class AgentManager {
 
     //--------------------------------------------------------------------------
 
+    /**
+     * A long-lived connection to a passive agent, shared by all the tasks
+     * for that agent. A daemon thread reads the frames from the agent and
+     * passes them to the task for the request to which they belong.
+     */
+    private static class MultiplexedClient implements MultiplexedConnection.Handler {
+        // the type of the frame given to each task when the connection is closed
+        static final byte CLOSED = 0;
+        final MultiplexedConnection mc;
+        // the sizes of the class data that has been sent ahead of requests on this
+        // connection, keyed by digest, least recently used first
+        private final Map<String, Integer> prefetchedDigests = new LinkedHashMap<>(256, 0.75f, true);
+        private long prefetchedBytes;
+        private final Map<Integer, Task> tasks = new HashMap<>();
+        private int nextId;
+
+        MultiplexedClient(MultiplexedConnection mc) {
+            this.mc = mc;
+            Thread t = new Thread(() -> mc.readFrames(this), "AgentManager:" + mc.getConnection().getName());
+            t.setDaemon(true);
+            t.start();
+        }
+
+        synchronized int register(Task t) throws IOException {
+            if (mc.isClosed()) {
+                throw new EOFException("connection closed: " + mc.getConnection().getName());
+            }
+            int id = nextId++;
+            tasks.put(id, t);
+            return id;
+        }
+
+        synchronized void unregister(int id) {
+            tasks.remove(id);
+        }
+
+        /**
+         * Check whether class data is expected to be in the agent's cache,
+         * because it was sent ahead of an earlier request on this connection.
+         */
+        synchronized boolean isPrefetched(String digest) {
+            return prefetchedDigests.get(digest) != null;
+        }
+
+        /**
+         * Record that class data has been sent ahead of a request. The least
+         * recently used data is forgotten first, and is sent again if it is
+         * needed later, in case the agent has discarded it from its cache.
+         */
+        synchronized void addPrefetched(Map<String, Integer> sizes) {
+            for (Map.Entry<String, Integer> e : sizes.entrySet()) {
+                Integer prev = prefetchedDigests.put(e.getKey(), e.getValue());
+                prefetchedBytes += e.getValue() - (prev == null ? 0 : prev);
+            }
+            for (Iterator<Integer> iter = prefetchedDigests.values().iterator();
+                 prefetchedBytes > MAX_PREFETCHED_BYTES && iter.hasNext(); ) {
+                prefetchedBytes -= iter.next();
+                iter.remove();
+            }
+        }
+
+        @Override
+        public void handleFrame(MultiplexedConnection.Frame f) {
+            Task t;
+            synchronized (this) {
+                t = tasks.get(f.id);
+            }
+            // frames for a task that has been abandoned are ignored
+            if (t != null) {
+                t.frames.add(f);
+            }
+        }
+
+        @Override
+        public void connectionClosed(IOException e) {
+            byte[] reason = String.valueOf(e == null ? "EOF" : e).getBytes(StandardCharsets.UTF_8);
+            synchronized (this) {
+                for (Map.Entry<Integer, Task> entry : tasks.entrySet()) {
+                    entry.getValue().frames.add(new MultiplexedConnection.Frame(CLOSED, entry.getKey(), reason));
+                }
+            }
+        }
+    }
+
+    /**
+     * Statistics for the classes given to agents by tasks which share
+     * a long-lived connection to a passive agent.
+     */
+    public static class ClassStatistics {
+        private final AtomicLong prefetched = new AtomicLong();
+        private final AtomicLong prefetchBytes = new AtomicLong();
+        private final AtomicLong prefetchHits = new AtomicLong();
+        private final AtomicLong requested = new AtomicLong();
+
+        ClassStatistics() {
+        }
+
+        /**
+         * Get the number of classes sent to agents ahead of the requests for which
+         * they were expected to be needed.
+         *
+         * @return the number of classes
+         */
+        public long getPrefetchedClasses() {
+            return prefetched.get();
+        }
+
+        /**
+         * Get the total size of the compressed batches of classes sent to agents
+         * ahead of requests.
+         *
+         * @return the number of bytes
+         */
+        public long getPrefetchedBytes() {
+            return prefetchBytes.get();
+        }
+
+        /**
+         * Get the number of classes loaded by agents from the classes sent ahead
+         * of the requests, without having to ask for them.
+         *
+         * @return the number of classes
+         */
+        public long getPrefetchHits() {
+            return prefetchHits.get();
+        }
+
+        /**
+         * Get the number of classes which agents had to ask for while
+         * executing a request.
+         *
+         * @return the number of classes
+         */
+        public long getPrefetchMisses() {
+            return requested.get();
+        }
+
+        /**
+         * Reset all the statistics to zero.
+         */
+        public void reset() {
+            prefetched.set(0);
+            prefetchBytes.set(0);
+            prefetchHits.set(0);
+            requested.set(0);
+        }
+    }
+
+    /**
+     * The digest of a class file in a classpath entry, together with
+     * the modification time and size of the file from which it was read:
+     * for a directory, the class file, and for a jar file, the jar file.
+     */
+    private static class ClassDigest {
+        final long lastModified;
+        final long length;
+        // null if the class file was not found
+        final String digest;
+
+        ClassDigest(long lastModified, long length, String digest) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.digest = digest;
+        }
+    }
+
     /**
      * A Task provides the ability to do work remotely on an agent.
      */
@@ -245,6 +580,12 @@ public class AgentManager {
         private boolean sharedCl;
         private int timeout = 0;
         private Hashtable<File, ZipFile> zips = new Hashtable<>();
+        // the following are only used for tasks on a multiplexed connection
+        private MultiplexedClient client;
+        private BlockingQueue<MultiplexedConnection.Frame> frames;
+        // the classes requested by the agent for the current request
+        private Set<String> requestedClasses;
+        private int prefetchHits;
 
         /**
          * Create a connection to a agent retrieved from the agent pool.
@@ -257,6 +598,17 @@ public class AgentManager {
             out = new DataOutputStream(new BufferedOutputStream(c.getOutputStream()));
         }
 
+        /**
+         * Create a task which shares a multiplexed connection with other tasks.
+         *
+         * @param client The connection with which to communicate to the agent.
+         */
+        Task(MultiplexedClient client) {
+            this.client = client;
+            connection = client.mc.getConnection();
+            frames = new LinkedBlockingQueue<>();
+        }
+
         /**
          * Get the connection being used for this task.
          *
@@ -424,27 +776,14 @@ public class AgentManager {
                            boolean localizeArgs,
                            PrintWriter log, PrintWriter ref) {
             notifyStarted(connection, tag, request, executable, args, localizeArgs);
+            if (client != null) {
+                return runMultiplexed(tag, request, executable, args, localizeArgs, log, ref);
+            }
+
             Status result = null;
             try {
-//                boolean sharedClOption = false;
                 out.writeShort(Agent.protocolVersion);
-                out.writeUTF(tag);
-                out.writeUTF(request);
-                out.writeUTF(executable);
-                out.writeShort(args.length);
-                for (String arg : args) {
-                    out.writeUTF(arg);
-//                    if ("-sharedCl".equalsIgnoreCase(args[i]) ||
-//                        "-sharedClassLoader".equalsIgnoreCase(args[i])) {
-//                        sharedClOption = true;
-//                    }
-                }
-
-                out.writeBoolean(localizeArgs);
-                out.writeBoolean(classPath != null); // specify remoteClasses if classPath has been given
-                out.writeBoolean(sharedCl);
-                out.writeInt(timeout);
-                out.writeByte(0);
+                writeRequest(out, tag, request, executable, args, localizeArgs);
                 out.flush();
 
                 result = readResults(log, ref);
@@ -470,6 +809,180 @@ public class AgentManager {
             return result;
         }
 
+        private void writeRequest(DataOutputStream out, String tag, String request,
+                                  String executable, String[] args, boolean localizeArgs)
+                throws IOException {
+//            boolean sharedClOption = false;
+            out.writeUTF(tag);
+            out.writeUTF(request);
+            out.writeUTF(executable);
+            out.writeShort(args.length);
+            for (String arg : args) {
+                out.writeUTF(arg);
+//                if ("-sharedCl".equalsIgnoreCase(args[i]) ||
+//                    "-sharedClassLoader".equalsIgnoreCase(args[i])) {
+//                    sharedClOption = true;
+//                }
+            }
+
+            out.writeBoolean(localizeArgs);
+            out.writeBoolean(classPath != null); // specify remoteClasses if classPath has been given
+            out.writeBoolean(sharedCl);
+            out.writeInt(timeout);
+            out.writeByte(0);
+        }
+
+        private Status runMultiplexed(String tag, String request, String executable, String[] args,
+                                      boolean localizeArgs,
+                                      PrintWriter log, PrintWriter ref) {
+            Status result = null;
+            int id = -1;
+            try {
+                id = client.register(this);
+
+                String prefetchKey = null;
+                Set<String> prefetch = null;
+                if (classPath != null && !Boolean.FALSE.toString().equals(System.getProperty(PREFETCH_PROP))) {
+                    prefetchKey = getPrefetchKey(executable, args);
+                    prefetch = prefetchRecords.get(prefetchKey);
+                    if (prefetch != null) {
+                        prefetch = writePrefetch(id, prefetch);
+                    }
+                    requestedClasses = new HashSet<>();
+                }
+
+                byte[] data = MultiplexedConnection.toBytes(o ->
+                        writeRequest(o, tag, request, executable, args, localizeArgs));
+                client.mc.writeFrame(Agent.REQUEST, id, data, true);
+
+                result = readMultiplexedResults(id, log, ref);
+
+                if (prefetchKey != null) {
+                    classStatistics.prefetchHits.addAndGet(prefetchHits);
+                    // remember the classes that might be needed next time: those
+                    // requested this time come first, then those that were sent ahead
+                    Set<String> record = new LinkedHashSet<>();
+                    addPrefetchClasses(record, requestedClasses);
+                    if (prefetch != null) {
+                        addPrefetchClasses(record, prefetch);
+                    }
+                    prefetchRecords.put(prefetchKey, record);
+                }
+            } catch (InterruptedException e) {
+                result = Status.error("Communication with agent interrupted! (timed out?)." +
+                        "\n InterruptedException: " + e);
+                try {
+                    client.mc.writeFrame(Agent.CANCEL, id);
+                } catch (IOException ignore) {
+                }
+            } catch (IOException e) {
+                result = Status.error("Problem communicating with agent: " + e);
+            } finally {
+                client.unregister(id);
+                closeZips();
+                notifyFinished(connection, result);
+            }
+            return result;
+        }
+
+        private Status readMultiplexedResults(int id, PrintWriter log, PrintWriter ref)
+                throws IOException, InterruptedException {
+            Status status = null;
+
+            while (status == null) {
+                MultiplexedConnection.Frame f = frames.take();
+                switch (f.type) {
+                    case MultiplexedClient.CLOSED:
+                        status = Status.error("connection to agent closed: " + new String(f.data, StandardCharsets.UTF_8));
+                        break;
+
+                    case Agent.CLASS:
+                        String className = f.getDataInput().readUTF();
+                        if (requestedClasses != null) {
+                            requestedClasses.add(className);
+                            classStatistics.requested.incrementAndGet();
+                        }
+                        client.mc.writeFrame(Agent.CLASS, id,
+                                MultiplexedConnection.toBytes(o -> writeClassDigest(className, o)), true);
+                        break;
+
+                    case Agent.CLASS_BYTES:
+                        AgentRemoteClassData classData = locateClass(f.getDataInput().readUTF());
+                        client.mc.writeFrame(Agent.CLASS_BYTES, id, MultiplexedConnection.toBytes(classData::write), true);
+                        break;
+
+                    case Agent.DATA:
+                        byte[] resourceData = locateData(f.getDataInput().readUTF());
+                        client.mc.writeFrame(Agent.DATA, id, MultiplexedConnection.toBytes(o -> {
+                            if (resourceData == null) {
+                                o.writeInt(-1);
+                            } else {
+                                o.writeInt(resourceData.length);
+                                o.write(resourceData, 0, resourceData.length);
+                            }
+                        }), true);
+                        break;
+
+                    case Agent.STATUS:
+                        DataInputStream statusIn = f.getDataInput();
+                        status = readStatus(statusIn);
+                        prefetchHits = statusIn.readInt();
+                        break;
+
+                    case Agent.LOG:
+                        log.write(new String(f.data, StandardCharsets.UTF_8));
+                        break;
+
+                    case Agent.LOG_FLUSH:
+                        log.write(new String(f.data, StandardCharsets.UTF_8));
+                        log.flush();
+                        break;
+
+                    case Agent.REF:
+                        ref.write(new String(f.data, StandardCharsets.UTF_8));
+                        break;
+
+                    case Agent.REF_FLUSH:
+                        ref.write(new String(f.data, StandardCharsets.UTF_8));
+                        ref.flush();
+                        break;
+                }
+            }
+
+            log.flush();
+            ref.flush();
+
+            return status;
+        }
+
+        private Status readStatus(DataInputStream in) throws IOException {
+            int type = in.read();
+            String reason = in.readUTF();
+            switch (type) {
+                case Status.PASSED:
+                    return Status.passed(reason);
+                case Status.FAILED:
+                    return Status.failed(reason);
+                case Status.ERROR:
+                    return Status.error(reason);
+                default:
+                    return Status.failed("Bad status from test: type=" + type + " reason=" + reason);
+            }
+        }
+
+        private void closeZips() {
+            // might be better not to flush these ...
+            for (Enumeration<File> e = zips.keys(); e.hasMoreElements(); ) {
+                File f = e.nextElement();
+                ZipFile z = zips.get(f);
+                zips.remove(f);
+                try {
+                    z.close();
+                } catch (IOException ignore) {
+                }
+            }
+        }
+
         private Status readResults(PrintWriter log, PrintWriter ref)
                 throws IOException {
             Status status = null;
@@ -506,22 +1019,7 @@ public class AgentManager {
                         break;
 
                     case Agent.STATUS:
-                        int type = in.read();
-                        String reason = in.readUTF();
-                        switch (type) {
-                            case Status.PASSED:
-                                status = Status.passed(reason);
-                                break;
-                            case Status.FAILED:
-                                status = Status.failed(reason);
-                                break;
-                            case Status.ERROR:
-                                status = Status.error(reason);
-                                break;
-                            default:
-                                status = Status.failed("Bad status from test: type=" + type + " reason=" + reason);
-                                break;
-                        }
+                        status = readStatus(in);
                         break;
 
                     case Agent.LOG:
@@ -588,6 +1086,170 @@ public class AgentManager {
             return AgentRemoteClassData.NO_CLASS_DATA;
         }
 
+        /**
+         * Get the key for the record of the classes used by a request.
+         * Commands such as {@code ExecStdTestSameJVMCmd} are given the name of
+         * the test class in their arguments: the first argument which names a
+         * class on the classpath is included in the key, so that each test has
+         * a record of its own, rather than sharing one with every other test
+         * run by the same command.
+         */
+        private String getPrefetchKey(String executable, String... args) {
+            StringBuilder sb = new StringBuilder(executable);
+            for (String arg : args) {
+                if (isClassName(arg) && findClass(arg.replace('.', '/') + ".class") != null) {
+                    sb.append(' ').append(arg);
+                    break;
+                }
+            }
+            for (File f : classPath) {
+                sb.append(File.pathSeparatorChar).append(f.getPath());
+            }
+            return sb.toString();
+        }
+
+        private void addPrefetchClasses(Set<String> record, Set<String> classNames) {
+            for (Iterator<String> iter = classNames.iterator();
+                 record.size() < MAX_PREFETCH_CLASSES && iter.hasNext(); ) {
+                record.add(iter.next());
+            }
+        }
+
+        private boolean isClassName(String s) {
+            if (s.isEmpty() || !Character.isJavaIdentifierStart(s.charAt(0))) {
+                return false;
+            }
+            for (int i = 1; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (!Character.isJavaIdentifierPart(c) && !(c == '.' && s.charAt(i - 1) != '.')) {
+                    return false;
+                }
+            }
+            return !s.endsWith(".");
+        }
+
+        /**
+         * Send the agent a compressed batch of classes, ahead of the request which
+         * is expected to use them. Class data which has already been sent on the
+         * same connection is not sent again: just the digest is sent, and the agent
+         * gets the data from its class cache.
+         *
+         * @return the names of the classes which were sent
+         */
+        private Set<String> writePrefetch(int id, Set<String> classNames) throws IOException {
+            Set<String> sent = new HashSet<>();
+            Map<String, Integer> sentDigests = new HashMap<>();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ByteArrayOutputStream entries = new ByteArrayOutputStream();
+            DataOutputStream o = new DataOutputStream(entries);
+            for (String name : classNames) {
+                String cname = name.replace('.', '/') + ".class";
+                File entry = findClass(cname);
+                if (entry == null) {
+                    continue;
+                }
+                String digest = getClassDigest(cname, entry).digest;
+                byte[] data = null;
+                if (!client.isPrefetched(digest)) {
+                    data = entry.isDirectory() ? readFromDir(cname, entry) : readFromJar(cname, entry);
+                    if (data == null) {
+                        continue;
+                    }
+                    digest = ClassDataCache.digest(data);
+                    sentDigests.put(digest, data.length);
+                }
+                o.writeUTF(name);
+                o.writeUTF(getCodeSource(entry));
+                o.writeUTF(digest);
+                if (data == null) {
+                    o.writeInt(-1);
+                } else {
+                    o.writeInt(data.length);
+                    o.write(data);
+                }
+                sent.add(name);
+            }
+
+            if (sent.isEmpty()) {
+                return sent;
+            }
+
+            try (DataOutputStream d = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+                d.writeInt(sent.size());
+                entries.writeTo(d);
+            }
+            if (bytes.size() > MultiplexedConnection.MAX_FRAME_SIZE) {
+                // the agent will ask for the classes one at a time instead
+                return Collections.emptySet();
+            }
+            client.mc.writeFrame(Agent.PREFETCH, id, bytes.toByteArray(), false);
+            classStatistics.prefetched.addAndGet(sent.size());
+            classStatistics.prefetchBytes.addAndGet(bytes.size());
+            // the agent adds the class data to its cache as soon as it is received
+            client.addPrefetched(sentDigests);
+            return sent;
+        }
+
+        /**
+         * Write the digest of a class file, so that the agent can check
+         * whether it already has the class data in its cache.
+         * The digests are remembered, so that unchanged class files need not
+         * be read again.
+         */
+        private void writeClassDigest(String name, DataOutputStream out) throws IOException {
+            String cname = name.replace('.', '/') + ".class";
+            File entry = findClass(cname);
+            if (entry == null) {
+                out.writeBoolean(false);
+                return;
+            }
+
+            out.writeBoolean(true);
+            out.writeUTF(getCodeSource(entry));
+            out.writeUTF(getClassDigest(cname, entry).digest);
+        }
+
+        /**
+         * Find the first entry on the classpath which contains a class file.
+         *
+         * @return the classpath entry, or null if the class file was not found
+         */
+        private File findClass(String cname) {
+            if (classPath != null) {
+                for (File aClassPath : classPath) {
+                    if (getClassDigest(cname, aClassPath).digest != null) {
+                        return aClassPath;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private ClassDigest getClassDigest(String cname, File classPathEntry) {
+            boolean isDir = classPathEntry.isDirectory();
+            File stampFile = isDir ? new File(classPathEntry, cname) : classPathEntry;
+            long lastModified = stampFile.lastModified();
+            long length = stampFile.length();
+            String key = classPathEntry.getPath() + File.pathSeparator + cname;
+            ClassDigest d = classDigests.get(key);
+            if (d == null || d.lastModified != lastModified || d.length != length) {
+                byte[] data = isDir ? readFromDir(cname, classPathEntry) : readFromJar(cname, classPathEntry);
+                d = new ClassDigest(lastModified, length,
+                        data == null ? null : ClassDataCache.digest(data));
+                classDigests.put(key, d);
+            }
+            return d;
+        }
+
+        private String getCodeSource(File classPathEntry) {
+            try {
+                return classPathEntry.toURI().toURL().getPath();
+            } catch (IOException e) {
+                //codeSource will not be set
+                return "";
+            }
+        }
+
         private byte[] locateData(String name) {
             //System.err.println("locateData: " + name);
             if (classPath != null) {
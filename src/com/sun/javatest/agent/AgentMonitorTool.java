@@ -45,6 +45,8 @@ import java.awt.Component;
 import java.awt.EventQueue;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.io.IOException;
@@ -75,6 +77,7 @@ public class AgentMonitorTool extends Tool {
     private JMenuBar menuBar;
     private AgentPoolSubpanel agentPoolSubpanel;
     private CurrentAgentsSubpanel currAgentsSubpanel;
+    private ClassStatisticsSubpanel classStatsSubpanel;
     AgentMonitorTool(AgentMonitorToolManager m) {
         super(m, "agentMonitor", "agent.window.csh");
         setI18NTitle("tool.title");
@@ -99,6 +102,10 @@ public class AgentMonitorTool extends Tool {
 
         currAgentsSubpanel = new CurrentAgentsSubpanel();
         add(currAgentsSubpanel, c);
+
+        c.weighty = 0;
+        classStatsSubpanel = new ClassStatisticsSubpanel();
+        add(classStatsSubpanel, c);
     }
 
     @Override
@@ -507,4 +514,79 @@ public class AgentMonitorTool extends Tool {
             }
         }
     }
+
+    private class ClassStatisticsSubpanel extends JPanel
+            implements ActionListener, AgentManager.Observer {
+        private AgentManager.ClassStatistics stats = agentManager.getClassStatistics();
+        private JTextField prefetchedField;
+        private JTextField bytesField;
+        private JTextField hitsField;
+        private JTextField missesField;
+
+        ClassStatisticsSubpanel() {
+            setName("tool.stats");
+            setBorder(uif.createTitledBorder("tool.stats"));
+            setLayout(new GridBagLayout());
+            uif.setToolTip(this, "tool.stats");
+
+            GridBagConstraints lc = new GridBagConstraints();
+            lc.anchor = GridBagConstraints.EAST;
+            lc.insets.right = 5;
+
+            GridBagConstraints fc = new GridBagConstraints();
+            fc.anchor = GridBagConstraints.WEST;
+            fc.fill = GridBagConstraints.HORIZONTAL;
+            fc.weightx = 1;
+            fc.insets.right = 10;
+
+            prefetchedField = createField("tool.stats.prefetched", lc, fc);
+            bytesField = createField("tool.stats.bytes", lc, fc);
+
+            fc.gridwidth = GridBagConstraints.REMAINDER;
+            add(uif.createButton("tool.stats.reset", this), fc);
+
+            fc.gridwidth = 1;
+            hitsField = createField("tool.stats.hits", lc, fc);
+            missesField = createField("tool.stats.misses", lc, fc);
+
+            update();
+            agentManager.addObserver(this);
+        }
+
+        private JTextField createField(String uiKey, GridBagConstraints lc, GridBagConstraints fc) {
+            JLabel label = uif.createLabel(uiKey, true);
+            add(label, lc);
+            JTextField field = uif.createOutputField(uiKey, 8, label);
+            add(field, fc);
+            return field;
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            stats.reset();
+            update();
+        }
+
+        @Override
+        public void started(Connection c,
+                            String tag, String request, String executable,
+                            String[] args, boolean localizeArgs) {
+        }
+
+        @Override
+        public void finished(Connection c, Status status) {
+            if (!EventQueue.isDispatchThread()) {
+                EventQueue.invokeLater(this::update);
+            } else {
+                update();
+            }
+        }
+
+        private void update() {
+            prefetchedField.setText(String.valueOf(stats.getPrefetchedClasses()));
+            bytesField.setText(String.valueOf(stats.getPrefetchedBytes()));
+            hitsField.setText(String.valueOf(stats.getPrefetchHits()));
+            missesField.setText(String.valueOf(stats.getPrefetchMisses()));
+        }
+    }
 }
@@ -0,0 +1,197 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.agent;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of class data on an agent, keyed by a digest of the content of
+ * each class file. When the harness offers a class, it first sends the digest
+ * of the class file, and only sends the content if the agent does not already
+ * have it. A class file that has changed has a different digest, and so is
+ * never confused with an older version.
+ * <p>
+ * Class data is kept in memory, up to a limit on the total size, with the
+ * least recently used data being discarded first. If a directory is given,
+ * class data is also kept there, and so is available to later runs of the agent.
+ */
+class ClassDataCache {
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    static final long DEFAULT_MEMORY_LIMIT = 32 * 1024 * 1024;
+    private static final char[] hexDigits = "0123456789abcdef".toCharArray();
+
+    private final File dir;
+    private final long memoryLimit;
+    private final Map<String, byte[]> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryUsed;
+
+    /**
+     * Create a cache which keeps class data in memory, and optionally on disk.
+     *
+     * @param dir a directory in which to keep class data, or null if the data
+     *            should only be kept in memory
+     */
+    ClassDataCache(File dir) {
+        this(dir, Long.getLong("javatest.agent.classCacheSize", DEFAULT_MEMORY_LIMIT));
+    }
+
+    ClassDataCache(File dir, long memoryLimit) {
+        this.dir = dir;
+        this.memoryLimit = memoryLimit;
+        if (dir != null) {
+            dir.mkdirs();
+        }
+    }
+
+    /**
+     * Compute the digest used to identify some class data.
+     *
+     * @param data the class data
+     * @return the digest, as a string of hex digits
+     */
+    static String digest(byte... data) {
+        try {
+            byte[] d = MessageDigest.getInstance(DIGEST_ALGORITHM).digest(data);
+            char[] chars = new char[d.length * 2];
+            for (int i = 0; i < d.length; i++) {
+                chars[2 * i] = hexDigits[(d[i] >> 4) & 0xf];
+                chars[2 * i + 1] = hexDigits[d[i] & 0xf];
+            }
+            return new String(chars);
+        } catch (NoSuchAlgorithmException e) {
+            // every implementation of the Java platform is required to support SHA-256
+            throw new Error(e);
+        }
+    }
+
+    /**
+     * Get the directory in which class data is kept, if any.
+     *
+     * @return the directory, or null if class data is only kept in memory
+     */
+    File getDirectory() {
+        return dir;
+    }
+
+    /**
+     * Get the class data with a given digest.
+     *
+     * @param digest the digest of the class data
+     * @return the class data, or null if it is not in the cache
+     */
+    byte[] get(String digest) {
+        synchronized (this) {
+            byte[] data = entries.get(digest);
+            if (data != null) {
+                return data;
+            }
+        }
+
+        if (dir != null && isValidDigest(digest)) {
+            File f = new File(dir, digest);
+            if (f.isFile()) {
+                try {
+                    byte[] data = Files.readAllBytes(f.toPath());
+                    // ignore any file that has been damaged
+                    if (digest.equals(digest(data))) {
+                        putInMemory(digest, data);
+                        return data;
+                    }
+                } catch (IOException ignore) {
+                }
+                f.delete();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Add class data to the cache.
+     *
+     * @param digest the digest of the class data
+     * @param data   the class data
+     */
+    void put(String digest, byte... data) {
+        putInMemory(digest, data);
+
+        if (dir != null && isValidDigest(digest)) {
+            File f = new File(dir, digest);
+            if (!f.exists()) {
+                try {
+                    // write to a temporary file first, so that other agents
+                    // sharing the directory never see a partly written file
+                    File tmp = File.createTempFile(digest, ".tmp", dir);
+                    Files.write(tmp.toPath(), data);
+                    try {
+                        Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    } finally {
+                        tmp.delete();
+                    }
+                } catch (IOException ignore) {
+                    // the data is still available in memory
+                }
+            }
+        }
+    }
+
+    private synchronized void putInMemory(String digest, byte... data) {
+        if (data.length > memoryLimit) {
+            return;
+        }
+
+        byte[] prev = entries.put(digest, data);
+        if (prev != null) {
+            memoryUsed -= prev.length;
+        }
+        memoryUsed += data.length;
+
+        for (Iterator<byte[]> iter = entries.values().iterator(); memoryUsed > memoryLimit && iter.hasNext(); ) {
+            memoryUsed -= iter.next().length;
+            iter.remove();
+        }
+    }
+
+    private static boolean isValidDigest(String digest) {
+        // the digest is used as a file name, so make sure it is just hex digits
+        for (int i = 0; i < digest.length(); i++) {
+            char c = digest.charAt(i);
+            if (!('0' <= c && c <= '9' || 'a' <= c && c <= 'f')) {
+                return false;
+            }
+        }
+        return !digest.isEmpty();
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.agent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * A long-lived connection between the harness and an agent, over which the
+ * messages for many concurrent requests are interleaved. Each message is
+ * sent as a frame, tagged with the type of the message and the id of the
+ * request to which it belongs:
+ * <pre>
+ *     byte   type
+ *     int    request id
+ *     int    length of data
+ *     byte[] data
+ * </pre>
+ * Frames may be written by any thread; a single thread reads the incoming
+ * frames and passes them to a {@link Handler}. The data in a frame may not
+ * be bigger than {@link #MAX_FRAME_SIZE}; a connection on which a bigger
+ * frame is received is closed.
+ */
+class MultiplexedConnection {
+    /**
+     * The maximum number of bytes of data in a frame.
+     */
+    static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+    private static final byte[] NO_DATA = new byte[0];
+    private final Connection connection;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private volatile boolean closed;
+
+    /**
+     * Create a multiplexed connection, using streams that have already been
+     * used to establish that both ends support the multiplexed protocol.
+     *
+     * @param connection the underlying connection
+     * @param in         the input stream of the connection
+     * @param out        the output stream of the connection
+     */
+    MultiplexedConnection(Connection connection, DataInputStream in, DataOutputStream out) {
+        this.connection = connection;
+        this.in = in;
+        this.out = out;
+    }
+
+    /**
+     * Serialize data to be sent in a frame.
+     *
+     * @param w an object to write the data
+     * @return the bytes of the data
+     * @throws IOException if the writer throws it
+     */
+    static byte[] toBytes(DataWriter w) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        w.write(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Write a frame with no data.
+     */
+    void writeFrame(byte type, int id) throws IOException {
+        writeFrame(type, id, NO_DATA, true);
+    }
+
+    /**
+     * Write a frame.
+     *
+     * @param type  the type of the message
+     * @param id    the id of the request to which the message belongs
+     * @param data  the content of the message
+     * @param flush whether the frame should be sent immediately, or may be
+     *              buffered until a later frame is flushed
+     * @throws IOException if there is a problem writing the frame, or if
+     *                     there is too much data for a frame
+     */
+    synchronized void writeFrame(byte type, int id, byte[] data, boolean flush) throws IOException {
+        if (closed) {
+            throw new EOFException("connection closed: " + connection.getName());
+        }
+        if (data.length > MAX_FRAME_SIZE) {
+            throw new IOException("frame too large: " + data.length + " bytes");
+        }
+        out.writeByte(type);
+        out.writeInt(id);
+        out.writeInt(data.length);
+        out.write(data);
+        if (flush) {
+            out.flush();
+        }
+    }
+
+    /**
+     * Read frames and pass them to a handler, until the connection is closed
+     * or there is an error reading from it. The handler is always notified
+     * when the connection is closed.
+     *
+     * @param handler the handler for the frames that are read
+     */
+    void readFrames(Handler handler) {
+        IOException ex = null;
+        try {
+            int type;
+            while (!closed && (type = in.read()) != -1) {
+                int id = in.readInt();
+                int length = in.readInt();
+                if (length < 0 || length > MAX_FRAME_SIZE) {
+                    throw new IOException("data format error");
+                }
+                byte[] data = new byte[length];
+                in.readFully(data);
+                handler.handleFrame(new Frame((byte) type, id, data));
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                ex = e;
+            }
+        } finally {
+            close();
+            handler.connectionClosed(ex);
+        }
+    }
+
+    /**
+     * Close the connection.
+     */
+    void close() {
+        closed = true;
+        try {
+            connection.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    /**
+     * An object to write the data for a frame.
+     */
+    interface DataWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Receives the frames read from a multiplexed connection.
+     */
+    interface Handler {
+        /**
+         * Called for each frame read from the connection.
+         *
+         * @param frame the frame
+         * @throws IOException if the frame is not valid; the connection will be closed
+         */
+        void handleFrame(Frame frame) throws IOException;
+
+        /**
+         * Called when the connection has been closed.
+         *
+         * @param e the exception that caused the connection to be closed,
+         *          or null if it was closed normally
+         */
+        void connectionClosed(IOException e);
+    }
+
+    /**
+     * A message read from a multiplexed connection.
+     */
+    static class Frame {
+        final byte type;
+        final int id;
+        final byte[] data;
+
+        Frame(byte type, int id, byte... data) {
+            this.type = type;
+            this.id = id;
+            this.data = data;
+        }
+
+        DataInputStream getDataInput() {
+            return new DataInputStream(new ByteArrayInputStream(data));
+        }
+    }
+}
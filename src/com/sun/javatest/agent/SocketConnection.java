@@ -36,6 +36,7 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketException;
 import java.util.Hashtable;
 
 /**
@@ -111,6 +112,16 @@ public class SocketConnection implements Connection {
         socketOutput = socket.getOutputStream();
     }
 
+    /**
+     * Set a timeout for reads from the connection.
+     *
+     * @param timeout the timeout in milliseconds, or 0 for no timeout
+     * @throws SocketException if the timeout cannot be set
+     */
+    void setSoTimeout(int timeout) throws SocketException {
+        socket.setSoTimeout(timeout);
+    }
+
     private static String getHostName(InetAddress addr) {
         String s = addressCache.get(addr);
         if (s == null) {
@@ -32,6 +32,7 @@ import com.sun.javatest.TestResultTable;
 import com.sun.javatest.TestSuite;
 import com.sun.javatest.WorkDirectory;
 import com.sun.javatest.util.I18NResourceBundle;
+import com.sun.javatest.util.PrefetchIterator;
 import com.sun.javatest.util.XMLWriter;
 
 import java.io.File;
@@ -133,10 +134,14 @@ class COFTestSuite extends COFItem {
         if (!legacyMode) {
             trt.waitUntilReady();
         }
-        for (Iterator<TestResult> iter = trt.getIterator(); iter.hasNext(); ) {
-            TestResult tr = iter.next();
-            out.newLine();
-            new COFTest(tr, cofData).write(out);
+        // the results are reloaded ahead on other threads, but each COFTest
+        // must be created and written on this thread, in order
+        try (PrefetchIterator<TestResult> iter = TestResult.prefetch(trt.getIterator())) {
+            while (iter.hasNext()) {
+                TestResult tr = iter.next();
+                out.newLine();
+                new COFTest(tr, cofData).write(out);
+            }
         }
         out.endTag("tests");
         out.endTag("testsuite");
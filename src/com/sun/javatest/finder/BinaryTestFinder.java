@@ -32,12 +32,16 @@ import com.sun.javatest.TestFinder;
 import com.sun.javatest.util.I18NResourceBundle;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -49,6 +53,13 @@ import java.util.zip.ZipFile;
 /**
  * A TestFinder to read a compressed binary file containing the
  * previously "compiled" results of some other test finder.
+ * <p>
+ * If the string table and test table were written without compression
+ * (see the -stored option of BinaryTestWriter), the file is mapped into
+ * memory, and strings and test descriptions are decoded from the mapped
+ * data as they are required, rather than being read onto the heap.
+ * The "-intern" argument can be used to intern the strings decoded in
+ * this way, so that the test descriptions that are created share them.
  */
 
 public class BinaryTestFinder extends TestFinder {
@@ -59,6 +70,8 @@ public class BinaryTestFinder extends TestFinder {
     private ZipEntry testsEntry;
     private ZipEntry treeEntry;
     private boolean zipFileRead;
+    private boolean mapped;
+    private boolean intern;
     private StringTable stringTable;
     private TestTable testTable;
     private TestTree testTree;
@@ -110,7 +123,7 @@ public class BinaryTestFinder extends TestFinder {
      * The integer is read in 7 bit chunks in big-endian order, with
      * the top bit in each byte indicating more data to be read.
      */
-    private static int readInt(DataInputStream in) throws IOException {
+    static int readInt(DataInputStream in) throws IOException {
         int n = 0;
         int b;
         while ((b = in.readUnsignedByte()) >= 0x80) {
@@ -157,9 +170,10 @@ public class BinaryTestFinder extends TestFinder {
     }
 
     /**
-     * Decodes any args needed by BinaryTestFinder. The only supported args
+     * Decodes any args needed by BinaryTestFinder. The supported args
      * are "-binary" or "-jtd" followed by the name of the binary file,
-     * or the name of the binary file as the last argument.
+     * or the name of the binary file as the last argument, and "-intern",
+     * to intern the strings read from a mapped binary file.
      *
      * @param args An array of arguments, containing the next argument to be
      *             decoded.
@@ -175,6 +189,9 @@ public class BinaryTestFinder extends TestFinder {
             String e = args[i + 1];
             jtdFile = new File(e);
             return 2;
+        } else if (args[i].equalsIgnoreCase("-intern")) {
+            intern = true;
+            return 1;
         } else if (i == args.length - 1 && !args[i].startsWith("-")) {
             jtdFile = new File(args[i]);
             return 1;
@@ -319,6 +336,8 @@ public class BinaryTestFinder extends TestFinder {
             if (stringsEntry == null || testsEntry == null || treeEntry == null) {
                 throw new Fault(i18n, "bin.badBinFile", zipFile.getName());
             }
+            mapped = stringsEntry.getMethod() == ZipEntry.STORED
+                    && testsEntry.getMethod() == ZipEntry.STORED;
             zipFileRead = true;
         } catch (FileNotFoundException e) {
             throw new Fault(i18n, "bin.cantFindFile", jtdFile.getPath());
@@ -345,7 +364,9 @@ public class BinaryTestFinder extends TestFinder {
      * Read the binary file. The input file should be a zip file as written by
      * BinaryTestWriter. All three sections are read, but only the string table
      * and test tree are parsed at this point. The test table is read from an
-     * internal byte array as required.
+     * internal byte array as required. If the string table and test table
+     * are stored without compression, they are mapped from the file instead,
+     * and the strings are also decoded as required.
      */
     public synchronized void readBinaryFile() {
         if (zipFile == null && zipFileRead) {
@@ -361,8 +382,14 @@ public class BinaryTestFinder extends TestFinder {
         }
 
         try {
-            stringTable = StringTable.read(zipFile, stringsEntry);
-            testTable = TestTable.read(zipFile, testsEntry, stringTable);
+            if (mapped) {
+                Map<String, ByteBuffer> entries = mapStoredEntries(new File(zipFile.getName()));
+                stringTable = new StringTable(entries.get(stringsEntry.getName()), intern);
+                testTable = new TestTable(entries.get(testsEntry.getName()), stringTable);
+            } else {
+                stringTable = StringTable.read(zipFile, stringsEntry);
+                testTable = TestTable.read(zipFile, testsEntry, stringTable);
+            }
             testTree = TestTree.read(zipFile, treeEntry);
             zipFileRead = false;
         } catch (IOException e) {
@@ -397,6 +424,92 @@ public class BinaryTestFinder extends TestFinder {
         return Optional.of(testTree.testsTotal);
     }
 
+    /**
+     * Map a zip file into memory, and return the data of the entries that
+     * are stored without compression. The mapping remains valid after the
+     * file has been closed.
+     */
+    private static Map<String, ByteBuffer> mapStoredEntries(File file) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+
+        // find the end of central directory record, which may be followed by a comment
+        int end = buf.limit() - 22;
+        while (end >= 0 && buf.getInt(end) != 0x06054b50) {
+            end--;
+        }
+        if (end < 0) {
+            throw new IOException("zip end header not found");
+        }
+
+        Map<String, ByteBuffer> entries = new HashMap<>();
+        int count = buf.getShort(end + 10) & 0xffff;
+        int p = buf.getInt(end + 16);
+        for (int i = 0; i < count; i++) {
+            if (buf.getInt(p) != 0x02014b50) {
+                throw new IOException("invalid zip central directory");
+            }
+            int method = buf.getShort(p + 10) & 0xffff;
+            int size = buf.getInt(p + 20);
+            int nameLength = buf.getShort(p + 28) & 0xffff;
+            int extraLength = buf.getShort(p + 30) & 0xffff;
+            int commentLength = buf.getShort(p + 32) & 0xffff;
+            int header = buf.getInt(p + 42);
+            byte[] name = new byte[nameLength];
+            ((ByteBuffer) buf.duplicate().position(p + 46)).get(name);
+
+            if (method == ZipEntry.STORED) {
+                // the data follows the local header, whose name and extra field
+                // lengths may differ from those in the central directory
+                int data = header + 30 + (buf.getShort(header + 26) & 0xffff)
+                        + (buf.getShort(header + 28) & 0xffff);
+                ByteBuffer b = buf.duplicate();
+                b.position(data);
+                b.limit(data + size);
+                entries.put(new String(name, StandardCharsets.UTF_8), b.slice());
+            }
+
+            p += 46 + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    /**
+     * Create a stream to read data from a buffer, starting at a given position.
+     * The position of the buffer itself is not changed.
+     */
+    private static DataInputStream open(ByteBuffer data, int pos) {
+        ByteBuffer b = data.duplicate();
+        b.position(pos);
+        return new DataInputStream(new InputStream() {
+            @Override
+            public int read() {
+                return b.hasRemaining() ? b.get() & 0xff : -1;
+            }
+
+            @Override
+            public int available() {
+                return b.remaining();
+            }
+
+            @Override
+            public int read(byte[] bytes, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                if (!b.hasRemaining()) {
+                    return -1;
+                }
+                int n = Math.min(len, b.remaining());
+                b.get(bytes, off, n);
+                return n;
+            }
+        });
+    }
+
     //------------------------------------------------------------------------------------------
 
     /**
@@ -408,6 +521,28 @@ public class BinaryTestFinder extends TestFinder {
      */
     static class StringTable {
         private String[] strings;
+        private ByteBuffer data;
+        private int[] offsets;
+        private boolean intern;
+
+        /**
+         * Create a string table from the data of a mapped "strings" entry.
+         * Only the position of each string is recorded; the strings are
+         * decoded as required.
+         */
+        StringTable(ByteBuffer data, boolean intern) throws IOException {
+            this.data = data;
+            this.intern = intern;
+            DataInputStream in = open(data, 0);
+            int count = readInt(in);
+            offsets = new int[count];
+            int p = data.limit() - in.available();
+            for (int i = 0; i < count; i++) {
+                // each string is written by writeUTF, preceded by its length
+                offsets[i] = p;
+                p += 2 + (data.getShort(p) & 0xffff);
+            }
+        }
 
         /**
          * Read a string table from a stream.
@@ -436,9 +571,10 @@ public class BinaryTestFinder extends TestFinder {
         String readRef(DataInputStream in) throws IOException {
             int index = readInt(in);
             if (index == 0) {
-                return in.readUTF();
+                String s = in.readUTF();
+                return intern ? s.intern() : s;
             } else {
-                return strings[index];
+                return get(index);
             }
         }
 
@@ -446,7 +582,17 @@ public class BinaryTestFinder extends TestFinder {
          * Get a string from the table.
          */
         String get(int i) {
-            return strings[i];
+            if (strings != null) {
+                return strings[i];
+            }
+
+            try {
+                String s = open(data, offsets[i]).readUTF();
+                return intern ? s.intern() : s;
+            } catch (IOException e) {
+                // the data is all in memory, and was checked when the table was created
+                throw new IllegalStateException(e);
+            }
         }
     }
 
@@ -456,7 +602,7 @@ public class BinaryTestFinder extends TestFinder {
      * A TestTable is a collection of TestDescriptions.
      */
     public static class TestTable {
-        private ByteArrayInputStream bais;
+        private ByteBuffer data;
         private StringTable stringTable;
 
         /**
@@ -464,7 +610,15 @@ public class BinaryTestFinder extends TestFinder {
          * The data of the entry is stored, and analyzed as required.
          */
         TestTable(byte[] data, StringTable stringTable) {
-            bais = new ByteArrayInputStream(data);
+            this(ByteBuffer.wrap(data), stringTable);
+        }
+
+        /**
+         * Create a TestTable from a buffer, such as the data of a mapped
+         * "tests" entry. The data is analyzed as required.
+         */
+        TestTable(ByteBuffer data, StringTable stringTable) {
+            this.data = data;
             this.stringTable = stringTable;
         }
 
@@ -491,10 +645,8 @@ public class BinaryTestFinder extends TestFinder {
          * name value pairs to be put in the test description.
          */
         TestDescription get(File root, File file, int index) throws IOException {
-            bais.reset();
-            bais.skip(index);
             Map<String, String> m = new HashMap<>();
-            DataInputStream in = new DataInputStream(bais);
+            DataInputStream in = open(data, index);
             int n = readInt(in);
             for (int i = 0; i < n; i++) {
                 String key = stringTable.readRef(in);
@@ -0,0 +1,570 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.finder;
+
+import com.sun.javatest.TestDescription;
+import com.sun.javatest.TestFinder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * BinaryTestUpdater updates an existing data file written by
+ * BinaryTestWriter, rereading only the files of the test suite that
+ * have been changed, added or removed.
+ * <br>
+ * The string table, test table and test tree of the existing file are read
+ * in their encoded form. The tree nodes for the changed files are replaced,
+ * and the test descriptions found in them are appended to the test table;
+ * any new strings that they use more than once are appended to the string
+ * table, so that the existing references into the test and string tables
+ * remain valid. The result has the same format as a file written by
+ * BinaryTestWriter, and is read by BinaryTestFinder in the same way.
+ * The test descriptions that are replaced are left in the test table
+ * until they make up more than half of it, at which point the table is
+ * compacted.
+ *
+ * @see BinaryTestWriter
+ * @see BinaryTestFinder
+ */
+class BinaryTestUpdater {
+    private final TestFinder finder;
+    private final File rootFile;
+    private final File rootDir;
+    private final PrintStream log;
+
+    private List<String> strings;
+    private Map<String, Integer> stringIndexes;
+    private byte[] testData;        // encoded tests, without the leading count
+    private Node root;
+    private boolean stored;
+
+    private final Set<File> filesRead = new HashSet<>();
+    private final List<TestDescription> newTests = new ArrayList<>();
+
+    /**
+     * Create an updater, using a test finder to read the files that
+     * have changed.
+     */
+    BinaryTestUpdater(TestFinder finder, PrintStream log) {
+        this.finder = finder;
+        this.rootFile = finder.getRoot();
+        this.rootDir = finder.getRootDir();
+        this.log = log;
+    }
+
+    /**
+     * Read an existing data file.
+     */
+    void read(File jtdFile) throws IOException {
+        try (ZipFile zf = new ZipFile(jtdFile)) {
+            ZipEntry stringsEntry = zf.getEntry("strings");
+            ZipEntry testsEntry = zf.getEntry("tests");
+            ZipEntry treeEntry = zf.getEntry("tree");
+            if (stringsEntry == null || testsEntry == null || treeEntry == null) {
+                throw new IOException("bad binary file: " + jtdFile);
+            }
+            stored = stringsEntry.getMethod() == ZipEntry.STORED
+                    && testsEntry.getMethod() == ZipEntry.STORED;
+
+            try (DataInputStream in = open(zf, stringsEntry)) {
+                int count = BinaryTestFinder.readInt(in);
+                strings = new ArrayList<>(count);
+                stringIndexes = new HashMap<>(count * 2);
+                for (int i = 0; i < count; i++) {
+                    String s = in.readUTF();
+                    strings.add(s);
+                    // index 0 is reserved for strings written inline
+                    if (i > 0) {
+                        stringIndexes.put(s, i);
+                    }
+                }
+            }
+
+            byte[] data;
+            try (DataInputStream in = open(zf, testsEntry)) {
+                data = readAll(in);
+            }
+            int headerLength = varIntLength(data, 0);
+            testData = Arrays.copyOfRange(data, headerLength, data.length);
+
+            try (DataInputStream in = open(zf, treeEntry)) {
+                root = new Node(in, headerLength);
+            }
+        }
+    }
+
+    /**
+     * Reread the given files, which may have been changed, added or removed.
+     * If a file has been added or removed, the directory containing it is
+     * read again, to update the list of files in that directory.
+     *
+     * @return the number of files that were read
+     */
+    int update(File... files) {
+        for (File f : files) {
+            update(f.isAbsolute() ? f : new File(rootDir, f.getPath()));
+        }
+        return filesRead.size();
+    }
+
+    /**
+     * Write the updated data to a file, replacing any existing file.
+     *
+     * @return true if the test table was compacted
+     */
+    boolean write(File jtdFile) throws IOException {
+        Map<String, Integer> added = addStrings();
+
+        // append the new tests to the test table
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(testData);
+        DataOutputStream out = new DataOutputStream(bytes);
+        Map<TestDescription, Integer> newIndexes = new HashMap<>();
+        for (TestDescription td : newTests) {
+            newIndexes.put(td, out.size() + testData.length);
+            BinaryTestWriter.writeInt(out, td.getParameterCount());
+            for (Iterator<String> i = td.getParameterKeys(); i.hasNext(); ) {
+                String key = i.next();
+                writeRef(out, key);
+                writeRef(out, td.getParameter(key));
+            }
+        }
+        out.flush();
+        testData = bytes.toByteArray();
+        root.resolve(newIndexes);
+
+        boolean compacted = false;
+        int liveSize = root.liveSize(new HashSet<>());
+        if (testData.length - liveSize > liveSize) {
+            compact();
+            compacted = true;
+        }
+
+        int testCount = root.getTestCount();
+        File tmp = new File(jtdFile.getPath() + ".tmp");
+        try (ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            zos.setMethod(ZipOutputStream.DEFLATED);
+            zos.setLevel(9);
+
+            // the entries keep the compression of the file that was read
+
+            bytes.reset();
+            BinaryTestWriter.writeInt(out, strings.size());
+            for (String s : strings) {
+                out.writeUTF(s);
+            }
+            out.flush();
+            BinaryTestWriter.writeEntry(zos, "strings", bytes.toByteArray(), stored);
+
+            bytes.reset();
+            BinaryTestWriter.writeInt(out, testCount);
+            out.flush();
+            int headerLength = bytes.size();
+            out.write(testData);
+            out.flush();
+            BinaryTestWriter.writeEntry(zos, "tests", bytes.toByteArray(), stored);
+
+            bytes.reset();
+            root.write(out, headerLength);
+            out.flush();
+            BinaryTestWriter.writeEntry(zos, "tree", bytes.toByteArray(), stored);
+        }
+        Files.move(tmp.toPath(), jtdFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        if (log != null) {
+            log.println("strings: " + strings.size() + " entries, " + added.size() + " added");
+            log.println("tests: " + testCount + " tests, " + newTests.size() + " read"
+                    + (compacted ? ", table compacted" : ""));
+            log.println("tree: " + root.getSize() + " nodes");
+        }
+
+        return compacted;
+    }
+
+    //------------------------------------------------------------------------------------------
+
+    private void update(File f) {
+        // if the test suite root is a file, the node for the root directory
+        // was not read from the finder, and the root file is read instead
+        File file = f.equals(rootDir) ? rootFile : f;
+        if (filesRead.contains(file)) {
+            return;
+        }
+
+        Node node = findNode(file);
+        if (node != null && file.exists()) {
+            refresh(node, file);
+            if (node.isEmpty() && node != root) {
+                // the node would not have been written by BinaryTestWriter
+                Node parent = findNode(file.getParentFile());
+                if (parent != null) {
+                    parent.children.remove(node);
+                }
+            }
+        } else if (!file.equals(rootFile) && file.getParentFile() != null) {
+            // the file has been added or removed, so the list of files
+            // in its parent has changed
+            update(file.getParentFile());
+        }
+    }
+
+    /**
+     * Reread the file for a node, keeping the existing nodes for any files
+     * it contains that have been read before.
+     */
+    private void refresh(Node node, File file) {
+        filesRead.add(file);
+        finder.read(file);
+        TestDescription[] tests = sortTests(finder.getTests());
+        File[] files = finder.getFiles();
+        Arrays.sort(files);
+
+        List<Node> children = new ArrayList<>();
+        for (File f : files) {
+            Node c = node.getChild(f.getName());
+            if (c == null) {
+                c = readNode(f);
+            }
+            if (c != null && !children.contains(c)) {
+                children.add(c);
+            }
+        }
+
+        node.setTests(tests);
+        node.children = children;
+    }
+
+    /**
+     * Read the tests from a file that has not been read before,
+     * in the same way as BinaryTestWriter.
+     */
+    private Node readNode(File file) {
+        if (!filesRead.add(file)) {
+            return null;
+        }
+
+        finder.read(file);
+        TestDescription[] tests = sortTests(finder.getTests());
+        File[] files = finder.getFiles();
+
+        if (tests.length == 0 && files.length == 0) {
+            return null;
+        }
+
+        Arrays.sort(files);
+        List<Node> children = new ArrayList<>();
+        for (File f : files) {
+            Node c = readNode(f);
+            if (c != null) {
+                children.add(c);
+            }
+        }
+
+        Node n = new Node(file.getName(), children);
+        n.setTests(tests);
+        return n;
+    }
+
+    private Node findNode(File file) {
+        String rootPath = rootDir.getPath();
+        String path = file.getPath();
+        if (path.equals(rootPath)) {
+            return root;
+        }
+        if (!path.startsWith(rootPath + File.separator)) {
+            return null;
+        }
+
+        Node n = root;
+        for (String name : path.substring(rootPath.length() + 1).split(File.separator.replace("\\", "\\\\"))) {
+            n = n.getChild(name);
+            if (n == null) {
+                return null;
+            }
+        }
+        return n;
+    }
+
+    private TestDescription[] sortTests(TestDescription... tests) {
+        Arrays.sort(tests, (td1, td2) -> td1.getRootRelativeURL().compareTo(td2.getRootRelativeURL()));
+        newTests.addAll(Arrays.asList(tests));
+        return tests;
+    }
+
+    /**
+     * Append to the string table any strings that are used more than once
+     * by the new tests, and which are not already in the table.
+     */
+    private Map<String, Integer> addStrings() {
+        Map<String, Integer> useCounts = new HashMap<>();
+        for (TestDescription td : newTests) {
+            for (Iterator<String> i = td.getParameterKeys(); i.hasNext(); ) {
+                String key = i.next();
+                useCounts.merge(key, 1, Integer::sum);
+                useCounts.merge(td.getParameter(key), 1, Integer::sum);
+            }
+        }
+
+        Map<String, Integer> added = new HashMap<>();
+        useCounts.entrySet().stream()
+                .filter(e -> e.getValue() > 1 && !stringIndexes.containsKey(e.getKey()))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .forEach(s -> {
+                    added.put(s, strings.size());
+                    stringIndexes.put(s, strings.size());
+                    strings.add(s);
+                });
+        return added;
+    }
+
+    private void writeRef(DataOutputStream out, String s) throws IOException {
+        Integer index = stringIndexes.get(s);
+        if (index == null) {
+            BinaryTestWriter.writeInt(out, 0);
+            out.writeUTF(s);
+        } else {
+            BinaryTestWriter.writeInt(out, index);
+        }
+    }
+
+    /**
+     * Rewrite the test table to contain only the tests that are still
+     * referenced from the tree. The encoded tests are copied as they are,
+     * since the string table is not changed.
+     */
+    private void compact() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Map<Integer, Integer> moved = new HashMap<>();
+        root.compact(bytes, moved);
+        testData = bytes.toByteArray();
+    }
+
+    /**
+     * Get the length of an encoded test description in the test table.
+     */
+    private int testLength(int index) {
+        int p = index;
+        int n = readVarInt(testData, p);
+        p += varIntLength(testData, p);
+        for (int i = 0; i < n * 2; i++) {
+            int ref = readVarInt(testData, p);
+            p += varIntLength(testData, p);
+            if (ref == 0) {
+                // inline string, as written by DataOutput.writeUTF
+                p += 2 + (((testData[p] & 0xff) << 8) | (testData[p + 1] & 0xff));
+            }
+        }
+        return p - index;
+    }
+
+    private static int readVarInt(byte[] data, int p) {
+        int n = 0;
+        int b;
+        while (((b = data[p++] & 0xff)) >= 0x80) {
+            n = (n << 7) | (b & 0x7f);
+        }
+        return (n << 7) | b;
+    }
+
+    private static int varIntLength(byte[] data, int p) {
+        int start = p;
+        while ((data[p++] & 0xff) >= 0x80) {
+            // skip
+        }
+        return p - start;
+    }
+
+    private static DataInputStream open(ZipFile zf, ZipEntry ze) throws IOException {
+        return new DataInputStream(new BufferedInputStream(zf.getInputStream(ze)));
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    //------------------------------------------------------------------------------------------
+
+    /**
+     * A node within the test tree. The tests in a node are either held
+     * as indexes into the existing test table, or, if the node has been
+     * reread, as test descriptions which have yet to be written.
+     */
+    private class Node {
+        private final String name;
+        private int[] testIndexes;
+        private TestDescription[] tests;
+        private List<Node> children;
+
+        /**
+         * Read a node as written by BinaryTestWriter.TestTree.Node.
+         * Test indexes are made relative to the start of the test data,
+         * excluding the header.
+         */
+        Node(DataInputStream in, int headerLength) throws IOException {
+            name = in.readUTF();
+            testIndexes = new int[BinaryTestFinder.readInt(in)];
+            for (int i = 0; i < testIndexes.length; i++) {
+                testIndexes[i] = BinaryTestFinder.readInt(in) - headerLength;
+            }
+            int childCount = BinaryTestFinder.readInt(in);
+            children = new ArrayList<>(childCount);
+            for (int i = 0; i < childCount; i++) {
+                children.add(new Node(in, headerLength));
+            }
+        }
+
+        Node(String name, List<Node> children) {
+            this.name = name;
+            this.children = children;
+            testIndexes = new int[0];
+        }
+
+        void setTests(TestDescription... tests) {
+            this.tests = tests;
+            testIndexes = null;
+        }
+
+        Node getChild(String name) {
+            for (Node c : children) {
+                if (c.name.equals(name)) {
+                    return c;
+                }
+            }
+            return null;
+        }
+
+        boolean isEmpty() {
+            return (tests == null ? testIndexes.length == 0 : tests.length == 0) && children.isEmpty();
+        }
+
+        int getSize() {
+            int n = 1;
+            for (Node c : children) {
+                n += c.getSize();
+            }
+            return n;
+        }
+
+        int getTestCount() {
+            int n = testIndexes.length;
+            for (Node c : children) {
+                n += c.getTestCount();
+            }
+            return n;
+        }
+
+        /**
+         * Replace the test descriptions for reread nodes with their
+         * indexes in the test table.
+         */
+        void resolve(Map<TestDescription, Integer> newIndexes) {
+            if (tests != null) {
+                testIndexes = new int[tests.length];
+                for (int i = 0; i < tests.length; i++) {
+                    testIndexes[i] = newIndexes.get(tests[i]);
+                }
+                tests = null;
+            }
+            for (Node c : children) {
+                c.resolve(newIndexes);
+            }
+        }
+
+        int liveSize(Set<Integer> seen) {
+            int size = 0;
+            for (int index : testIndexes) {
+                if (seen.add(index)) {
+                    size += testLength(index);
+                }
+            }
+            for (Node c : children) {
+                size += c.liveSize(seen);
+            }
+            return size;
+        }
+
+        void compact(ByteArrayOutputStream out, Map<Integer, Integer> moved) {
+            for (int i = 0; i < testIndexes.length; i++) {
+                int index = testIndexes[i];
+                Integer newIndex = moved.get(index);
+                if (newIndex == null) {
+                    newIndex = out.size();
+                    out.write(testData, index, testLength(index));
+                    moved.put(index, newIndex);
+                }
+                testIndexes[i] = newIndex;
+            }
+            for (Node c : children) {
+                c.compact(out, moved);
+            }
+        }
+
+        /**
+         * Write a node in the form read by BinaryTestFinder.TestTree.Node.
+         */
+        void write(DataOutputStream out, int headerLength) throws IOException {
+            out.writeUTF(name);
+            BinaryTestWriter.writeInt(out, testIndexes.length);
+            for (int index : testIndexes) {
+                BinaryTestWriter.writeInt(out, index + headerLength);
+            }
+            BinaryTestWriter.writeInt(out, children.size());
+            for (Node c : children) {
+                c.write(out, headerLength);
+            }
+        }
+    }
+}
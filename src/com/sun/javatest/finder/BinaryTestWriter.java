@@ -30,20 +30,24 @@ import com.sun.javatest.TestDescription;
 import com.sun.javatest.TestFinder;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.Vector;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -62,6 +66,15 @@ import java.util.zip.ZipOutputStream;
  * <dd>Do not ignore errors from the source finder, exit with error code instead
  * <dt>-o output-file
  * <dd>specify the name of the output file; the default is testsuite.jtd in the root directory of the test suite.
+ * <dt>-stored
+ * <dd>store the entries in the output file without compression, so that BinaryTestFinder can
+ * map the file into memory and decode test descriptions from it as they are needed
+ * <dt>-update
+ * <dd>update an existing output file, rather than creating a new one; any files given after
+ * the test suite are the files that have been changed, added or removed since the output
+ * file was written, and only those files are read again
+ * <dt>-changes file
+ * <dd>(with -update) a file listing the files that have been changed, added or removed, one per line
  * <dt>testsuite
  * <dd>(Required.) The test suite root file.
  * <dt>initial-files
@@ -74,6 +87,7 @@ public class BinaryTestWriter {
 
     //------------------------------------------------------------------------------------------
     private boolean strictFinder = false;
+    private boolean stored = false;
     private int numFinderErrors = 0;
 
     //------------------------------------------------------------------------------------------
@@ -125,6 +139,8 @@ public class BinaryTestWriter {
         out.println("  -finder finderClass finderArgs... -end");
         out.println("  -o output-file");
         out.println("  -strictFinder");
+        out.println("  -stored");
+        out.println("  -update [-changes file]");
     }
 
     /**
@@ -135,7 +151,7 @@ public class BinaryTestWriter {
      *
      * @see BinaryTestFinder#readInt
      */
-    private static void writeInt(DataOutputStream out, int v) throws IOException {
+    static void writeInt(DataOutputStream out, int v) throws IOException {
         if (v < 0) {
             throw new IllegalArgumentException();
         }
@@ -151,6 +167,28 @@ public class BinaryTestWriter {
         out.writeByte(v & 0x7f);
     }
 
+    /**
+     * Write an entry to a zip file. A stored entry is written without
+     * compression, so that its data can be mapped directly from the file.
+     *
+     * @see BinaryTestFinder#readBinaryFile
+     */
+    static ZipEntry writeEntry(ZipOutputStream zos, String name, byte[] data, boolean stored) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        if (stored) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(data.length);
+            entry.setCompressedSize(data.length);
+            entry.setCrc(crc.getValue());
+        }
+        zos.putNextEntry(entry);
+        zos.write(data);
+        zos.closeEntry();
+        return entry;
+    }
+
     /**
      * Main work method.
      * Reads all the arguments on the command line, makes sure a valid
@@ -172,6 +210,8 @@ public class BinaryTestWriter {
         String[] finderArgs = {};
         File outFile = null;
         File[] tests = null;
+        boolean update = false;
+        File changesFile = null;
 
         for (int i = 0; i < args.length; i++) {
             if (args[i].equalsIgnoreCase("-finder") && (i + 1 < args.length)) {
@@ -186,6 +226,12 @@ public class BinaryTestWriter {
                 outFile = new File(args[++i]);
             } else if (args[i].equalsIgnoreCase("-strictFinder")) {
                 strictFinder = true;
+            } else if (args[i].equalsIgnoreCase("-stored")) {
+                stored = true;
+            } else if (args[i].equalsIgnoreCase("-update")) {
+                update = true;
+            } else if (args[i].equalsIgnoreCase("-changes") && (i + 1 < args.length)) {
+                changesFile = new File(args[++i]);
             } else if (args[i].startsWith("-")) {
                 throw new BadArgs(args[i]);
             } else {
@@ -205,12 +251,12 @@ public class BinaryTestWriter {
             throw new BadArgs("testsuite.html file not specified");
         }
 
-        TestFinder testFinder = initializeTestFinder(finder, finderArgs, testSuite);
-
-        if (tests == null) {
-            tests = new File[]{testFinder.getRoot()}; // equals testSuite, adjusted by finder as necessary .. e.g. for dirWalk, webWalk etc
+        if (changesFile != null && !update) {
+            throw new BadArgs("-changes can only be used with -update");
         }
 
+        TestFinder testFinder = initializeTestFinder(finder, finderArgs, testSuite);
+
         if (outFile == null) {
             outFile = new File(testFinder.getRootDir(), "testsuite.jtd");
         }
@@ -224,6 +270,25 @@ public class BinaryTestWriter {
             );
         }
 
+        if (update) {
+            Set<File> changes = new LinkedHashSet<>();
+            if (tests != null) {
+                changes.addAll(Arrays.asList(tests));
+            }
+            if (changesFile != null) {
+                for (String line : Files.readAllLines(changesFile.toPath())) {
+                    if (!line.trim().isEmpty()) {
+                        changes.add(new File(line.trim()));
+                    }
+                }
+            }
+            return update(testFinder, outFile, changes.toArray(new File[changes.size()]));
+        }
+
+        if (tests == null) {
+            tests = new File[]{testFinder.getRoot()}; // equals testSuite, adjusted by finder as necessary .. e.g. for dirWalk, webWalk etc
+        }
+
         StringTable stringTable = new StringTable();
         TestTable testTable = new TestTable(stringTable);
         TestTree testTree = new TestTree(testTable);
@@ -248,9 +313,9 @@ public class BinaryTestWriter {
              ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(fos))) {
             zos.setMethod(ZipOutputStream.DEFLATED);
             zos.setLevel(9);
-            ZipEntry stringZipEntry = stringTable.write(zos);
-            ZipEntry testTableZipEntry = testTable.write(zos);
-            ZipEntry testTreeZipEntry = testTree.write(zos);
+            ZipEntry stringZipEntry = stringTable.write(zos, stored);
+            ZipEntry testTableZipEntry = testTable.write(zos, stored);
+            ZipEntry testTreeZipEntry = testTree.write(zos, stored);
 
             // report statistics
             if (log != null) {
@@ -268,6 +333,38 @@ public class BinaryTestWriter {
         }
     }
 
+    /**
+     * Update an existing output file, reading only the files that have changed.
+     */
+    private int update(TestFinder testFinder, File outFile, File... changes) throws Fault, IOException {
+        if (!outFile.exists()) {
+            throw new Fault("Cannot update " + outFile + ": file not found");
+        }
+
+        BinaryTestUpdater updater = new BinaryTestUpdater(testFinder, log);
+        updater.read(outFile);
+
+        if (log != null) {
+            log.println("Reading changed tests...");
+        }
+
+        int n = updater.update(changes);
+
+        if (log != null) {
+            log.println(n + " files read");
+            log.println("Writing " + outFile);
+        }
+
+        updater.write(outFile);
+
+        if (strictFinder && numFinderErrors > 0) {
+            System.err.println("*** Source finder reported " + numFinderErrors + " errors during execution. ***");
+            return 4;
+        } else {
+            return 0;
+        }
+    }
+
     //------------------------------------------------------------------------------------------
 
     /**
@@ -507,14 +604,12 @@ public class BinaryTestWriter {
          * Write the contents of the table to an entry called "strings"
          * in a zip file.
          */
-        ZipEntry write(ZipOutputStream zos) throws IOException {
-            ZipEntry entry = new ZipEntry("strings");
-            zos.putNextEntry(entry);
-            DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(zos));
+        ZipEntry write(ZipOutputStream zos, boolean stored) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream dos = new DataOutputStream(bytes);
             write(dos);
             dos.flush();
-            zos.closeEntry();
-            return entry;
+            return writeEntry(zos, "strings", bytes.toByteArray(), stored);
         }
 
         /**
@@ -642,14 +737,12 @@ public class BinaryTestWriter {
          * Write the contents of the table to an entry called "tests"
          * in a zip file.
          */
-        ZipEntry write(ZipOutputStream zos) throws IOException {
-            ZipEntry entry = new ZipEntry("tests");
-            zos.putNextEntry(entry);
-            DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(zos));
+        ZipEntry write(ZipOutputStream zos, boolean stored) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream dos = new DataOutputStream(bytes);
             write(dos);
             dos.flush();
-            zos.closeEntry();
-            return entry;
+            return writeEntry(zos, "tests", bytes.toByteArray(), stored);
         }
 
         /**
@@ -736,14 +829,12 @@ public class BinaryTestWriter {
          * Write the contents of the tree to an entry called "tree"
          * in a zip file.
          */
-        ZipEntry write(ZipOutputStream zos) throws IOException {
-            ZipEntry entry = new ZipEntry("tree");
-            zos.putNextEntry(entry);
-            DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(zos));
+        ZipEntry write(ZipOutputStream zos, boolean stored) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream dos = new DataOutputStream(bytes);
             write(dos);
             dos.flush();
-            zos.closeEntry();
-            return entry;
+            return writeEntry(zos, "tree", bytes.toByteArray(), stored);
         }
 
         /**
@@ -131,6 +131,19 @@ public class HTMLTestFinder extends TestFinder {
         }
     }
 
+    @Override
+    public TestFinder copy() throws Fault {
+        // subtypes may have state that is not known here
+        if (getClass() != HTMLTestFinder.class) {
+            return super.copy();
+        }
+
+        HTMLTestFinder f = initCopy(new HTMLTestFinder());
+        f.mode = mode;
+        f.ignoreErrors = ignoreErrors;
+        return f;
+    }
+
     @Override
     public File getRoot() {
         // we assume that providedRoot exists - see Parameters class
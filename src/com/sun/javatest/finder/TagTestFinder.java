@@ -100,6 +100,23 @@ public class TagTestFinder extends TestFinder {
         }
     }
 
+    @Override
+    public TestFinder copy() throws Fault {
+        // subtypes may have state that is not known here
+        if (getClass() != TagTestFinder.class) {
+            return super.copy();
+        }
+
+        TagTestFinder f = initCopy(new TagTestFinder());
+        f.excludeList.clear();
+        f.excludeList.putAll(excludeList);
+        f.extensionTable.clear();
+        f.extensionTable.putAll(extensionTable);
+        f.fastScan = fastScan;
+        f.initialTag = initialTag;
+        return f;
+    }
+
     /**
      * Scan a file, looking for test descriptions and/or more files to scan.
      *
@@ -85,6 +85,11 @@ public class TestFinderDecorator extends TestFinder {
         currentTestFinder.read(file);
     }
 
+    @Override
+    public TestFinder copy() throws Fault {
+        return currentTestFinder.copy();
+    }
+
     @Override
     public TestDescription[] getTests() {
         return currentTestFinder.getTests();
@@ -95,6 +100,21 @@ public class TestFinderDecorator extends TestFinder {
         return currentTestFinder.getFiles();
     }
 
+    @Override
+    public int getErrorCount() {
+        return currentTestFinder.getErrorCount();
+    }
+
+    @Override
+    public String[] getErrors() {
+        return currentTestFinder.getErrors();
+    }
+
+    @Override
+    public void clearErrors() {
+        currentTestFinder.clearErrors();
+    }
+
     @Override
     public Comparator<String> getComparator() {
         return currentTestFinder.getComparator();
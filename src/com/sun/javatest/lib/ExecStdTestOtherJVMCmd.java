@@ -28,13 +28,101 @@ package com.sun.javatest.lib;
 
 import com.sun.javatest.Status;
 
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * This is a modification of {@code ProcessCommand} suitable
  * for executing standard tests in a separate JVM.  When run in a
  * separate process, these tests report their exit status by calling
  * {@code Status.exit()}.
+ * <p>
+ * In addition to the options of {@code ProcessCommand}, the following
+ * options may be given before the environment variables and command:
+ * <dl>
+ * <dt>-pool
+ * <dd>Run the test in a JVM kept in a pool, which runs one test after
+ * another, instead of starting a new JVM for the test. The JVM is started
+ * with the same command, environment and directory as the test would have,
+ * but runs {@link PooledJVMMain}, which calls {@code Test.run} on the test
+ * class directly instead of its {@code main} method. A JVM is not used again
+ * after a test which calls {@code System.exit} or leaves threads running.
+ * Tests which are not standard tests, and commands which do not name a
+ * class, such as {@code java -jar}, are run in a JVM of their own.
+ * <dt>-keywords <i>keywords</i>
+ * <dd>The keywords of the test, such as from {@code "$testKeywords"};
+ * tests with the keyword {@value #ISOLATED_KEYWORD} are always run in
+ * a JVM of their own.
+ * <dt>-isolated
+ * <dd>Run the test in a JVM of its own, even if {@code -pool} is given.
+ * </dl>
  **/
 public class ExecStdTestOtherJVMCmd extends ProcessCommand {
+    /**
+     * The keyword which marks tests which must be run in a JVM of their own.
+     */
+    public static final String ISOLATED_KEYWORD = "isolated";
+
+    private boolean pool;
+
+    @Override
+    public Status run(String[] args, PrintWriter log, PrintWriter ref) {
+        boolean isolated = false;
+        List<String> rest = new ArrayList<>();
+        int i = 0;
+        for (; i < args.length && args[i].startsWith("-"); i++) {
+            if (args[i].equals("-pool")) {
+                pool = true;
+            } else if (args[i].equals("-isolated")) {
+                isolated = true;
+            } else if (args[i].equals("-keywords") && i + 1 < args.length) {
+                isolated |= Arrays.asList(args[++i].split("\\s+")).contains(ISOLATED_KEYWORD);
+            } else if (args[i].equals("-end")) {
+                break;
+            } else {
+                // an option for ProcessCommand
+                rest.add(args[i]);
+                int nArgs = args[i].equals("-execDir") || args[i].equals("-encoding") ? 1
+                        : args[i].equals("-pass") || args[i].equals("-fail") || args[i].equals("-error") ? 2
+                        : 0;
+                for (int j = 0; j < nArgs && i + 1 < args.length; j++) {
+                    rest.add(args[++i]);
+                }
+            }
+        }
+        rest.addAll(Arrays.asList(args).subList(i, args.length));
+
+        if (isolated) {
+            pool = false;
+        }
+        return super.run(rest.toArray(new String[rest.size()]), log, ref);
+    }
+
+    @Override
+    public Status exec(String[] cmd, String[] cmdEnv, PrintWriter log, PrintWriter ref) {
+        if (pool) {
+            String[] env = getProcessEnv(cmdEnv);
+            if (isVerbose()) {
+                logCommand(cmd, env, log);
+                log.println("Command is run in a pooled JVM");
+            }
+            try {
+                Status s = JVMPool.getInstance().exec(this, cmd, env, getExecDir(), log, ref);
+                if (s != null) {
+                    return s;
+                }
+                if (isVerbose()) {
+                    log.println("No pooled JVM available; starting a new JVM");
+                }
+            } catch (InterruptedException e) {
+                return getExceptionStatus("Program `" + cmd[0] + "' interrupted! (timed out?)");
+            }
+        }
+
+        return super.exec(cmd, cmdEnv, log, ref);
+    }
 
     /**
      * Generate a status for the command, based upon the command's exit code
@@ -0,0 +1,548 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.lib;
+
+import com.sun.javatest.Status;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pool of JVMs, each running {@link PooledJVMMain}, which can run
+ * standard tests one after another instead of starting a new JVM for
+ * each test.
+ * <p>
+ * JVMs are kept for each distinct combination of the command used to start
+ * Java (the executable and the options which come before the class name),
+ * the environment and the execution directory; a test is only run in a JVM
+ * which was started the same way as the JVM it would otherwise have had.
+ * A JVM is retired after it has run a number of tests, or after a test which
+ * calls {@code System.exit} or leaves threads running, and a new one is
+ * started in its place in the background.
+ */
+class JVMPool {
+    private static final String MAX_TESTS_PROP = "javatest.jvmPool.maxTests";
+    private static final String MAX_IDLE_PROP = "javatest.jvmPool.maxIdle";
+    private static final long START_TIMEOUT = TimeUnit.SECONDS.toMillis(60);
+
+    // options of the java launcher which take a separate argument
+    private static final Set<String> OPTIONS_WITH_ARG = new HashSet<>(Arrays.asList(
+            "-cp", "-classpath", "--class-path", "-p", "--module-path", "--upgrade-module-path",
+            "--add-modules", "--limit-modules", "--add-exports", "--add-opens", "--add-reads",
+            "--patch-module", "--enable-native-access"));
+
+    private static JVMPool instance;
+
+    private final int maxTests;
+    private final int maxIdle;
+    private final Map<List<String>, Deque<PooledJVM>> idle = new HashMap<>();
+    private final Deque<PooledJVM> idleOrder = new ArrayDeque<>();    // least recently used first
+    private final Set<List<String>> unusable = new HashSet<>();
+    private int idleCount;
+    private boolean closed;
+
+    JVMPool(int maxTests, int maxIdle) {
+        this.maxTests = maxTests;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Get the pool shared by all commands in this JVM.
+     *
+     * @return the pool
+     */
+    static synchronized JVMPool getInstance() {
+        if (instance == null) {
+            instance = new JVMPool(Integer.getInteger(MAX_TESTS_PROP, 100),
+                    Integer.getInteger(MAX_IDLE_PROP, Runtime.getRuntime().availableProcessors()));
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::close));
+        }
+        return instance;
+    }
+
+    /**
+     * Run a standard test in a JVM from the pool.
+     *
+     * @param command the command running the test, used to determine its status
+     * @param cmd     the command to start a JVM to run the test; the class name
+     *                and its arguments follow the options for the JVM
+     * @param cmdEnv  the environment for the JVM
+     * @param execDir the directory in which to start the JVM, or null
+     * @param log     the stream to which to write the standard error of the test
+     * @param ref     the stream to which to write the standard output of the test
+     * @return the status of the test, or null if the test cannot be run in
+     * a pooled JVM, and should be run in a JVM of its own
+     * @throws InterruptedException if the test was interrupted, such as by
+     *                              a timeout; the JVM is destroyed
+     */
+    Status exec(ProcessCommand command, String[] cmd, String[] cmdEnv, File execDir,
+                PrintWriter log, PrintWriter ref) throws InterruptedException {
+        int classIndex = findClassName(cmd);
+        if (classIndex < 0) {
+            return null;
+        }
+
+        String[] jvmCmd = Arrays.copyOf(cmd, classIndex);
+        List<String> key = new ArrayList<>();
+        key.add(execDir == null ? null : execDir.getPath());
+        key.add(cmdEnv == null ? null : String.valueOf(cmdEnv.length));
+        key.addAll(Arrays.asList(cmdEnv == null ? new String[0] : cmdEnv));
+        key.addAll(Arrays.asList(jvmCmd));
+
+        PooledJVM jvm = take(key, jvmCmd, cmdEnv, execDir);
+        if (jvm == null) {
+            return null;
+        }
+
+        String[] request = Arrays.copyOfRange(cmd, classIndex, cmd.length);
+        Session session = new Session(log, ref);
+        try {
+            jvm.run(session, request);
+            session.waitUntilDone();
+        } catch (InterruptedException e) {
+            jvm.destroy();
+            throw e;
+        } catch (IOException e) {
+            // the JVM has exited, so find out how
+            session.jvmExited();
+            session.waitUntilDone();
+        }
+
+        if (session.result == PooledJVMMain.RESULT_NOT_A_TEST) {
+            release(jvm);
+            return null;
+        }
+
+        if (session.exited) {
+            // the test called System.exit, or the JVM crashed
+            jvm.destroy();
+            replace(key, jvmCmd, cmdEnv, execDir);
+            return command.getStatus(session.exitCode, session.err.exitStatus());
+        }
+
+        if (!session.clean || ++jvm.testsRun >= maxTests) {
+            jvm.destroy();
+            replace(key, jvmCmd, cmdEnv, execDir);
+        } else {
+            release(jvm);
+        }
+
+        if (session.result == PooledJVMMain.RESULT_EXCEPTION) {
+            // as if the JVM had exited after an uncaught exception
+            return command.getStatus(1, session.err.exitStatus());
+        }
+        return command.getStatus(Status.exitCodes[session.status.getType()], session.status);
+    }
+
+    /**
+     * Destroy all the idle JVMs in the pool, and any which are returned
+     * to the pool after this, such as those being started in the background.
+     */
+    synchronized void close() {
+        closed = true;
+        for (PooledJVM jvm : idleOrder) {
+            jvm.destroy();
+        }
+        idle.clear();
+        idleOrder.clear();
+        idleCount = 0;
+    }
+
+    /**
+     * Find the position of the class name in a command to run Java.
+     *
+     * @return the position, or -1 if the command does not name a class to
+     * be run, such as if it runs a jar file or a module
+     */
+    static int findClassName(String... cmd) {
+        for (int i = 1; i < cmd.length; i++) {
+            String arg = cmd[i];
+            if (arg.equals("-jar") || arg.equals("-m") || arg.equals("--module")
+                    || arg.startsWith("--module=") || arg.startsWith("@")) {
+                return -1;
+            } else if (OPTIONS_WITH_ARG.contains(arg)) {
+                i++;
+            } else if (!arg.startsWith("-")) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private PooledJVM take(List<String> key, String[] jvmCmd, String[] cmdEnv, File execDir) {
+        synchronized (this) {
+            if (unusable.contains(key)) {
+                return null;
+            }
+
+            Deque<PooledJVM> jvms = idle.get(key);
+            PooledJVM jvm;
+            while (jvms != null && (jvm = jvms.pollLast()) != null) {
+                idleOrder.remove(jvm);
+                idleCount--;
+                if (jvm.isAlive()) {
+                    return jvm;
+                }
+            }
+        }
+
+        PooledJVM jvm = start(key, jvmCmd, cmdEnv, execDir);
+        if (jvm == null) {
+            synchronized (this) {
+                unusable.add(key);
+            }
+        }
+        return jvm;
+    }
+
+    private synchronized void release(PooledJVM jvm) {
+        if (closed) {
+            jvm.destroy();
+            return;
+        }
+
+        idle.computeIfAbsent(jvm.key, k -> new ArrayDeque<>()).addLast(jvm);
+        idleOrder.addLast(jvm);
+        idleCount++;
+
+        while (idleCount > maxIdle) {
+            PooledJVM oldest = idleOrder.removeFirst();
+            Deque<PooledJVM> jvms = idle.get(oldest.key);
+            jvms.remove(oldest);
+            if (jvms.isEmpty()) {
+                idle.remove(oldest.key);
+            }
+            idleCount--;
+            oldest.destroy();
+        }
+    }
+
+    /**
+     * Start a JVM in the background to take the place of one which has been retired.
+     */
+    private void replace(List<String> key, String[] jvmCmd, String[] cmdEnv, File execDir) {
+        Thread t = new Thread(() -> {
+            PooledJVM jvm = start(key, jvmCmd, cmdEnv, execDir);
+            if (jvm != null) {
+                release(jvm);
+            }
+        }, "JVMPool-start");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private PooledJVM start(List<String> key, String[] jvmCmd, String[] cmdEnv, File execDir) {
+        String[] cmd = Arrays.copyOf(jvmCmd, jvmCmd.length + 1);
+        cmd[jvmCmd.length] = PooledJVMMain.class.getName();
+        try {
+            Process p = Runtime.getRuntime().exec(cmd, cmdEnv, execDir);
+            PooledJVM jvm = new PooledJVM(key, p);
+            if (jvm.awaitReady()) {
+                return jvm;
+            }
+            jvm.destroy();
+        } catch (IOException e) {
+            // fall through
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Collects lines of output from a test, as {@link ProcessOutputPump}
+     * does for a test run in a JVM of its own.
+     */
+    private static class Lines {
+        private final PrintWriter out;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private String lastStatusLine;
+
+        Lines(PrintWriter out) {
+            this.out = out;
+        }
+
+        void write(byte[] b) {
+            int start = 0;
+            for (int i = 0; i < b.length; i++) {
+                if (b[i] == '\n') {
+                    line.write(b, start, i - start);
+                    endLine();
+                    start = i + 1;
+                }
+            }
+            line.write(b, start, b.length - start);
+        }
+
+        void finish() {
+            if (line.size() > 0) {
+                endLine();
+            }
+            out.flush();
+        }
+
+        private void endLine() {
+            String s = new String(line.toByteArray(), StandardCharsets.UTF_8);
+            line.reset();
+            if (s.endsWith("\r")) {
+                s = s.substring(0, s.length() - 1);
+            }
+            if (s.startsWith(Status.EXIT_PREFIX)) {
+                s = Status.decode(s);
+                lastStatusLine = s;
+            }
+            out.println(s);
+        }
+
+        Status exitStatus() {
+            if (lastStatusLine == null) {
+                return null;
+            } else {
+                return Status.parse(lastStatusLine.substring(Status.EXIT_PREFIX.length()));
+            }
+        }
+    }
+
+    /**
+     * The execution of one test in a pooled JVM.
+     */
+    private static class Session {
+        final Lines out;
+        final Lines err;
+        final PrintWriter log;
+        PooledJVM jvm;
+        boolean done;
+        boolean exited;
+        int exitCode;
+        int result;
+        Status status;
+        boolean clean;
+
+        Session(PrintWriter log, PrintWriter ref) {
+            this.log = log;
+            out = new Lines(ref);
+            err = new Lines(log);
+        }
+
+        synchronized void completed(int result, Status status, boolean clean) {
+            this.result = result;
+            this.status = status;
+            this.clean = clean;
+            finish();
+        }
+
+        void jvmExited() {
+            int code;
+            try {
+                code = jvm.process.waitFor();
+            } catch (InterruptedException e) {
+                code = -1;
+            }
+
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                exitCode = code;
+                exited = true;
+                result = PooledJVMMain.RESULT_STATUS;
+                finish();
+            }
+        }
+
+        private void finish() {
+            out.finish();
+            err.finish();
+            done = true;
+            notifyAll();
+        }
+
+        /**
+         * Blocks until the test is complete, or until the thread is interrupted.
+         */
+        synchronized void waitUntilDone() throws InterruptedException {
+            while (!done) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                wait(1000);
+            }
+        }
+    }
+
+    /**
+     * A JVM in the pool, with a thread to read what it sends back to the
+     * harness, and another to copy anything it writes to its standard error
+     * stream, which is not used by tests, to the log of the current test.
+     */
+    private static class PooledJVM {
+        final List<String> key;
+        final Process process;
+        private final DataOutputStream out;
+        private volatile Session session;
+        private boolean ready;
+        int testsRun;
+
+        PooledJVM(List<String> key, Process process) {
+            this.key = key;
+            this.process = process;
+            out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+
+            Thread reader = new Thread(this::readFrames, "JVMPool-reader");
+            reader.setDaemon(true);
+            reader.start();
+
+            Thread errCopier = new Thread(this::copyErrors, "JVMPool-stderr");
+            errCopier.setDaemon(true);
+            errCopier.start();
+        }
+
+        synchronized boolean awaitReady() throws InterruptedException {
+            long end = System.currentTimeMillis() + START_TIMEOUT;
+            long now;
+            while (!ready && process.isAlive() && (now = System.currentTimeMillis()) < end) {
+                wait(Math.min(end - now, 1000));
+            }
+            return ready;
+        }
+
+        boolean isAlive() {
+            return process.isAlive();
+        }
+
+        void run(Session s, String... request) throws IOException {
+            s.jvm = this;
+            session = s;
+            if (!process.isAlive()) {
+                throw new IOException("exited");
+            }
+            out.writeInt(request.length);
+            for (String r : request) {
+                PooledJVMMain.writeString(out, r);
+            }
+            out.flush();
+        }
+
+        void destroy() {
+            process.destroy();
+        }
+
+        private void readFrames() {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(process.getInputStream()))) {
+                while (true) {
+                    int type = in.readByte();
+                    int length = in.readInt();
+                    if (length < 0 || length > PooledJVMMain.MAX_FRAME_SIZE) {
+                        // something other than a frame, such as output written
+                        // directly to FileDescriptor.out by a test
+                        throw new IOException("bad frame length: " + length);
+                    }
+                    byte[] data = new byte[length];
+                    in.readFully(data);
+                    Session s = session;
+                    switch (type) {
+                        case PooledJVMMain.READY:
+                            synchronized (this) {
+                                ready = true;
+                                notifyAll();
+                            }
+                            break;
+                        case PooledJVMMain.OUT:
+                            if (s != null) {
+                                s.out.write(data);
+                            }
+                            break;
+                        case PooledJVMMain.ERR:
+                            if (s != null) {
+                                s.err.write(data);
+                            }
+                            break;
+                        case PooledJVMMain.DONE:
+                            if (s != null) {
+                                session = null;
+                                DataInputStream d = new DataInputStream(new ByteArrayInputStream(data));
+                                int result = d.readInt();
+                                int type3 = d.readInt();
+                                Status status = type3 < 0 ? null : new Status(type3, PooledJVMMain.readString(d));
+                                s.completed(result, status, d.readBoolean());
+                            }
+                            break;
+                        default:
+                            throw new IOException("bad frame: " + type);
+                    }
+                }
+            } catch (IOException e) {
+                // the JVM has exited, or is no longer usable
+            }
+
+            process.destroy();
+            synchronized (this) {
+                notifyAll();
+            }
+            Session s = session;
+            if (s != null) {
+                s.jvmExited();
+            }
+        }
+
+        private void copyErrors() {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    Session s = session;
+                    if (s != null) {
+                        synchronized (s) {
+                            s.log.println(line);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
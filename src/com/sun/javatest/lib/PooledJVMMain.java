@@ -0,0 +1,309 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.lib;
+
+import com.sun.javatest.Status;
+import com.sun.javatest.Test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * The main program of a JVM kept in a pool by {@link ExecStdTestOtherJVMCmd},
+ * to run one standard test after another.
+ * <p>
+ * The harness writes requests to the standard input of the JVM: the name of
+ * a class implementing {@link Test}, and its arguments. The test is run, and
+ * anything it writes to {@code System.out} and {@code System.err}, or to
+ * the streams given to {@code Test.run}, is sent back to the harness on the
+ * standard output of the JVM, in frames, followed by the status of the test.
+ * <p>
+ * If a test calls {@code System.exit}, the JVM exits as it would if the test
+ * were run in a JVM of its own, and the harness does not use it again.
+ * The harness also stops using a JVM if a test leaves threads running.
+ */
+public class PooledJVMMain {
+    static final int READY = 0;
+    static final int OUT = 1;
+    static final int ERR = 2;
+    static final int DONE = 3;
+
+    // the outcome of a test, in a DONE frame
+    static final int RESULT_STATUS = 0;
+    static final int RESULT_EXCEPTION = 1;
+    static final int RESULT_NOT_A_TEST = 2;
+
+    // the maximum amount of data in a frame; bigger writes are split
+    static final int MAX_FRAME_SIZE = 64 * 1024;
+
+    private static final long THREAD_GRACE_PERIOD = 500;
+
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final PrintStream testOut;
+    private final PrintStream testErr;
+    private final InputStream testIn = new ByteArrayInputStream(new byte[0]);
+    private final Properties sysProps;
+    private final Set<Thread> baseline;
+
+    private PooledJVMMain() throws UnsupportedEncodingException {
+        in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        testOut = new PrintStream(new FrameOutputStream(out, OUT), true, "UTF-8");
+        testErr = new PrintStream(new FrameOutputStream(out, ERR), true, "UTF-8");
+        sysProps = (Properties) System.getProperties().clone();
+        baseline = new HashSet<>(Thread.getAllStackTraces().keySet());
+    }
+
+    /**
+     * Command line entry point. There are no arguments.
+     *
+     * @param args not used
+     */
+    public static void main(String... args) {
+        try {
+            new PooledJVMMain().run();
+            System.exit(0);
+        } catch (IOException e) {
+            // the harness has gone away
+            System.exit(1);
+        }
+    }
+
+    private void run() throws IOException {
+        resetSystem();
+        writeFrame(READY, new byte[0]);
+
+        while (true) {
+            String[] request;
+            try {
+                request = new String[in.readInt()];
+            } catch (EOFException e) {
+                return;
+            }
+            for (int i = 0; i < request.length; i++) {
+                request[i] = readString(in);
+            }
+
+            String[] testArgs = new String[request.length - 1];
+            System.arraycopy(request, 1, testArgs, 0, testArgs.length);
+            runTest(request[0], testArgs);
+        }
+    }
+
+    private void runTest(String className, String... args) throws IOException {
+        int result = RESULT_STATUS;
+        Status status = null;
+        Test t = null;
+        try {
+            // the class is not initialized unless it is a standard test,
+            // since otherwise it will be run in a JVM of its own
+            Class<?> c = Class.forName(className, false, PooledJVMMain.class.getClassLoader());
+            if (Test.class.isAssignableFrom(c)) {
+                t = c.asSubclass(Test.class).getDeclaredConstructor().newInstance();
+            } else {
+                result = RESULT_NOT_A_TEST;
+            }
+        } catch (NoSuchMethodException e) {
+            // not a standard test: let the harness run it in a JVM of its own
+            result = RESULT_NOT_A_TEST;
+        } catch (ClassNotFoundException e) {
+            status = Status.failed("Can't load test: " + e);
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            status = Status.failed("Can't instantiate test: " + e);
+        } catch (Throwable e) {
+            reportUncaught(e);
+            result = RESULT_EXCEPTION;
+        }
+
+        if (t != null) {
+            PrintWriter log = new PrintWriter(new OutputStreamWriter(System.err, StandardCharsets.UTF_8));
+            PrintWriter ref = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            Throwable thrown = null;
+            try {
+                status = t.run(args, log, ref);
+            } catch (Throwable e) {
+                thrown = e;
+            } finally {
+                log.flush();
+                ref.flush();
+            }
+
+            if (thrown != null) {
+                // including a ClassCastException: the test has been run,
+                // and must not be run again in another JVM
+                reportUncaught(thrown);
+                status = null;
+                result = RESULT_EXCEPTION;
+            } else if (status == null) {
+                status = Status.error("no status returned by test");
+            }
+        }
+
+        System.out.flush();
+        System.err.flush();
+        boolean clean = threadsFinished();
+        resetSystem();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream d = new DataOutputStream(bytes);
+        d.writeInt(result);
+        if (status != null) {
+            d.writeInt(status.getType());
+            String reason = status.getReason() == null ? "" : status.getReason();
+            // keep the frame within MAX_FRAME_SIZE, at up to 3 bytes a char
+            int maxReason = (MAX_FRAME_SIZE - 16) / 3;
+            if (reason.length() > maxReason) {
+                reason = reason.substring(0, maxReason);
+            }
+            writeString(d, reason);
+        } else {
+            d.writeInt(-1);
+        }
+        d.writeBoolean(clean);
+        writeFrame(DONE, bytes.toByteArray());
+    }
+
+    /**
+     * Report an exception thrown by a test, as the default handler for an
+     * uncaught exception would report it.
+     */
+    private static void reportUncaught(Throwable t) {
+        System.err.print("Exception in thread \"" + Thread.currentThread().getName() + "\" ");
+        t.printStackTrace();
+    }
+
+    /**
+     * Restore the state of the JVM which a test may have changed, and
+     * which would otherwise affect later tests.
+     */
+    private void resetSystem() {
+        System.setOut(testOut);
+        System.setErr(testErr);
+        System.setIn(testIn);
+        System.setProperties((Properties) sysProps.clone());
+    }
+
+    /**
+     * Check that a test has not left any threads running, giving them
+     * a short time to finish.
+     */
+    private boolean threadsFinished() {
+        long deadline = System.currentTimeMillis() + THREAD_GRACE_PERIOD;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (baseline.contains(t) || t.isDaemon() || t == Thread.currentThread()) {
+                continue;
+            }
+            try {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait > 0) {
+                    t.join(wait);
+                }
+            } catch (InterruptedException e) {
+                return false;
+            }
+            if (t.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeFrame(int type, byte[] data) throws IOException {
+        writeFrame(out, type, data, 0, data.length);
+    }
+
+    static void writeFrame(DataOutputStream out, int type, byte[] data, int off, int len) throws IOException {
+        synchronized (out) {
+            out.writeByte(type);
+            out.writeInt(len);
+            out.write(data, off, len);
+            out.flush();
+        }
+    }
+
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] b = new byte[in.readInt()];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A stream which sends everything written to it to the harness,
+     * as frames of a given type.
+     */
+    private static class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final int type;
+
+        FrameOutputStream(DataOutputStream out, int type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, MAX_FRAME_SIZE);
+                writeFrame(out, type, b, off, n);
+                off += n;
+                len -= n;
+            }
+        }
+    }
+}
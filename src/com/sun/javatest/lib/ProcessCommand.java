@@ -28,16 +28,15 @@ package com.sun.javatest.lib;
 
 import com.sun.javatest.Command;
 import com.sun.javatest.Status;
+import com.sun.javatest.TestResult;
 import com.sun.javatest.util.StringArray;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
-import java.io.Reader;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Hashtable;
@@ -51,13 +50,14 @@ import java.util.Set;
 public class ProcessCommand extends Command {
     private static boolean useFailedOnException =
             Boolean.getBoolean("javatest.processCommand.useFailedOnException");
-    private static int serial;
+    private static final Charset defaultEncoding = getDefaultEncoding();
     private boolean verbose;
     private Map<Integer, Status> statusTable;
     private Status defaultStatus;
     private File execDir;
     private boolean inheritEnv =
             Boolean.getBoolean("javatest.processCommand.inheritEnv");
+    private Charset encoding = defaultEncoding;
 
     /**
      * A stand-alone entry point for this command. An instance of this
@@ -184,6 +184,11 @@ public class ProcessCommand extends Command {
      *             <dt>-inheritEnv
      *             <dd>Instructs the code which invokes the new process to
      *             allow it to inherit the parent environment values.
+     *             <dt>-encoding <i>charset</i>
+     *             <dd>    set the charset in which the command writes its
+     *             output. The default is given by the system property
+     *             {@code javatest.processCommand.encoding}, or is
+     *             the default charset of this JVM.
      *             </dl>
      *             <br>
      *             <p>
@@ -232,6 +237,12 @@ public class ProcessCommand extends Command {
                 setStatus(args[++i], Status.error(args[++i]));
             } else if (args[i].equals("-inheritEnv")) {
                 inheritEnv = true;
+            } else if (args[i].equals("-encoding") && i + 1 < args.length) {
+                try {
+                    encoding = Charset.forName(args[++i]);
+                } catch (IllegalArgumentException e) {
+                    return Status.error("Unsupported encoding: " + args[i]);
+                }
             } else if (args[i].equals("-end")) {
                 // -end is supported for the improbable event someone wants an
                 // env var or command beginning with -
@@ -276,114 +287,128 @@ public class ProcessCommand extends Command {
      */
     public Status exec(String[] cmd, String[] cmdEnv, PrintWriter log, PrintWriter ref) {
         Process p = null;
-        Status s = null;
-        Reader inReader = null;
-        Reader errReader = null;
+        ProcessOutputPump.Pipe refConnector = null;
+        ProcessOutputPump.Pipe logConnector = null;
         try {
-            // The following is a workaround for a JDK problem ... if the cmdEnv
-            // is empty, JDK assumes this means to inherit the parent environment.
-            // (There is a separate call which more reasonably means that.)
-            // So, to prevent the parent process' environment being inherited
-            // we set the command environment to a dummy entry which will hopefully
-            // not cause any problems for either the Runtime machinery or the
-            // child process.
-            if (inheritEnv) {
-                // copy env from system
-                // then apply cmdEnv
-                ArrayList<String> out = new ArrayList<>();
-                Map<String, String> sysenv = System.getenv();
-                Set<String> keys = sysenv.keySet();
-                for (String key : keys) {
-                    String value = sysenv.get(key);
-                    key = key.replaceAll(" ", "_"); // sanitize
-                    key = key.replaceAll("=", ">"); // sanitize
-                    out.add(key + "=" + (value == null ? "" : value));
-                }   // while
-
-                if (cmdEnv != null && cmdEnv.length != 0) {
-                    for (String str : cmdEnv) {
-                        out.add(str);
-                    }
-                }
-
-                // set new cmdEnv with system env injected
-                // NOTE: upgrade should be made to eliminate duplicate keys
-                cmdEnv = out.toArray(new String[cmdEnv.length]);
-            } else if (cmdEnv != null && cmdEnv.length == 0) {
-                String[] envWithDummyEntry = {/*empty*/"="/*empty*/};
-                cmdEnv = envWithDummyEntry;
-            }
-
+            cmdEnv = getProcessEnv(cmdEnv);
             if (verbose) {
-                log.println("Command is: " + StringArray.join(cmd));
-                if (cmdEnv == null) {
-                    log.println("Command environment is inherited from parent process");
-                } else if (cmdEnv.length == 0) {
-                    log.println("Command environment is empty");
-                } else {
-                    log.println("Command environment is:");
-                    for (String aCmdEnv : cmdEnv) {
-                        log.println(aCmdEnv);
-                    }
-                }
-                if (execDir != null) {
-                    log.println("Execution directory is " + execDir);
-                }
+                logCommand(cmd, cmdEnv, log);
             }
 
             Runtime r = Runtime.getRuntime();
             p = execDir == null ? r.exec(cmd, cmdEnv) : r.exec(cmd, cmdEnv, execDir);
 
-            inReader = new InputStreamReader(p.getInputStream()); // output stream from process
-            StreamCopier refConnector = new StreamCopier(inReader, ref);
-            refConnector.start();
-            errReader = new InputStreamReader(p.getErrorStream());
-            StreamCopier logConnector = new StreamCopier(errReader, log);
-            logConnector.start();
+            // output going to a test result need not be kept beyond what the result will keep
+            ProcessOutputPump pump = ProcessOutputPump.getInstance();
+            refConnector = pump.add(p.getInputStream(), encoding, ref,
+                    TestResult.getMaxOutputSize(ref)); // output stream from process
+            logConnector = pump.add(p.getErrorStream(), encoding, log,
+                    TestResult.getMaxOutputSize(log));
 
             OutputStream out = p.getOutputStream();  // input stream to process
             if (out != null) {
                 out.close();
             }
 
-            // wait for the stream copiers to complete (which may be interrupted by the
-            // timeout thread
+            // wait for the process to complete (which may be interrupted by the
+            // timeout thread), and then for the rest of its output to be copied
+            int exitCode = p.waitFor();
+            refConnector.exited();
+            logConnector.exited();
             refConnector.waitUntilDone();
             logConnector.waitUntilDone();
 
-            // wait for the process to complete;
-            // WARNING: in JDK1.0.2 this does not appear to be interruptible, which is
-            // why we waited for the stream copiers to complete first ... because they are
-            // interruptible.
-            int exitCode = p.waitFor();
-            //if (verbose > 0)
-            //  log.report("command exited, exit=" + exitCode);
-
             return getStatus(exitCode, logConnector.exitStatus());
         } catch (InterruptedException e) {
             if (p != null) {
                 p.destroy();
             }
-            String msg = "Program `" + cmd[0] + "' interrupted! (timed out?)";
-            s = useFailedOnException ? Status.failed(msg) : Status.error(msg);
+            return getExceptionStatus("Program `" + cmd[0] + "' interrupted! (timed out?)");
         } catch (IOException e) {
-            String msg = "Error invoking program `" + cmd[0] + "': " + e;
-            s = useFailedOnException ? Status.failed(msg) : Status.error(msg);
+            return getExceptionStatus("Error invoking program `" + cmd[0] + "': " + e);
         } finally {
-            try {
-                if (inReader != null) {
-                    inReader.close();
-                }
-            } catch (Exception whatever) {
+            if (refConnector != null) {
+                refConnector.cancel();
             }
-            try {
-                if (errReader != null) {
-                    errReader.close();
+            if (logConnector != null) {
+                logConnector.cancel();
+            }
+        }
+    }
+
+    /**
+     * Get the environment with which to start the process, taking
+     * the {@code -inheritEnv} option into account.
+     */
+    String[] getProcessEnv(String[] cmdEnv) {
+        // The following is a workaround for a JDK problem ... if the cmdEnv
+        // is empty, JDK assumes this means to inherit the parent environment.
+        // (There is a separate call which more reasonably means that.)
+        // So, to prevent the parent process' environment being inherited
+        // we set the command environment to a dummy entry which will hopefully
+        // not cause any problems for either the Runtime machinery or the
+        // child process.
+        if (inheritEnv) {
+            // copy env from system
+            // then apply cmdEnv
+            ArrayList<String> out = new ArrayList<>();
+            Map<String, String> sysenv = System.getenv();
+            Set<String> keys = sysenv.keySet();
+            for (String key : keys) {
+                String value = sysenv.get(key);
+                key = key.replaceAll(" ", "_"); // sanitize
+                key = key.replaceAll("=", ">"); // sanitize
+                out.add(key + "=" + (value == null ? "" : value));
+            }   // while
+
+            if (cmdEnv != null && cmdEnv.length != 0) {
+                for (String str : cmdEnv) {
+                    out.add(str);
                 }
-            } catch (Exception whatever) {
             }
+
+            // set new cmdEnv with system env injected
+            // NOTE: upgrade should be made to eliminate duplicate keys
+            cmdEnv = out.toArray(new String[cmdEnv.length]);
+        } else if (cmdEnv != null && cmdEnv.length == 0) {
+            String[] envWithDummyEntry = {/*empty*/"="/*empty*/};
+            cmdEnv = envWithDummyEntry;
         }
-        return s;
+        return cmdEnv;
+    }
+
+    /**
+     * Write the details of the command to be executed to the log.
+     */
+    void logCommand(String[] cmd, String[] cmdEnv, PrintWriter log) {
+        log.println("Command is: " + StringArray.join(cmd));
+        if (cmdEnv == null) {
+            log.println("Command environment is inherited from parent process");
+        } else if (cmdEnv.length == 0) {
+            log.println("Command environment is empty");
+        } else {
+            log.println("Command environment is:");
+            for (String aCmdEnv : cmdEnv) {
+                log.println(aCmdEnv);
+            }
+        }
+        if (execDir != null) {
+            log.println("Execution directory is " + execDir);
+        }
+    }
+
+    /**
+     * Check whether verbose mode has been selected.
+     */
+    boolean isVerbose() {
+        return verbose;
+    }
+
+    /**
+     * Get the status to report when a command could not be run to completion.
+     */
+    static Status getExceptionStatus(String msg) {
+        return useFailedOnException ? Status.failed(msg) : Status.error(msg);
     }
 
     /**
@@ -418,93 +443,14 @@ public class ProcessCommand extends Command {
         }
     }
 
-    /**
-     * A thread to copy an input stream to an output stream
-     */
-    static class StreamCopier extends Thread {
-        private BufferedReader in;
-        private PrintWriter out;
-        private String lastStatusLine;
-        private boolean done;
-
-        /**
-         * Create one.
-         *
-         * @param from the stream to copy from
-         * @param out  the log to copy to
-         */
-        StreamCopier(Reader from, PrintWriter to) {
-            super(Thread.currentThread().getName() + "_StreamCopier_" + serial++);
-            in = new BufferedReader(from);
-            out = to;
-            lastStatusLine = null;
-        }
-
-        /**
-         * Set the thread going.
-         */
-        @Override
-        public void run() {
-            //System.out.println("Copying stream");
+    private static Charset getDefaultEncoding() {
+        String name = System.getProperty("javatest.processCommand.encoding");
+        if (name != null) {
             try {
-                String line;
-                while ((line = in.readLine()) != null) {
-                    // take care lastLine doesn't get set to null at EOF
-                    // and ignore trailing newlines
-                    if (line.startsWith(Status.EXIT_PREFIX)) {
-                        line = Status.decode(line);
-                        lastStatusLine = line;
-                    }
-                    out.println(line);
-                }
-            } catch (IOException e) {
-            }
-            //System.out.println("Stream copied");
-            synchronized (this) {
-                done = true;
-                notifyAll();
+                return Charset.forName(name);
+            } catch (IllegalArgumentException ignore) {
             }
         }
-
-        public synchronized boolean isDone() {
-            return done;
-        }
-
-        /**
-         * Blocks until the copy is complete, or until the thread is interrupted
-         */
-        public synchronized void waitUntilDone() throws InterruptedException {
-            boolean interrupted = false;
-
-            // poll interrupted flag, while waiting for copy to complete
-            while (!(interrupted = Thread.interrupted()) && !done) {
-                wait(1000);
-            }
-
-            //if (interrupted)
-            //    System.out.println("TESTSCRIPT DETECTS interrupted() " + Thread.currentThread().getName());
-            //else
-            //    System.out.println("TESTSCRIPT waitUntilDone OK " + Thread.currentThread().getName());
-
-            // workaround; if the exception hasn't been thrown already, do it now
-            if (interrupted) {
-                //System.out.println("Stream copier: throwing InterruptedException");
-                throw new InterruptedException();
-            }
-        }
-
-        /**
-         * Return the status information from the child process if it returned
-         * any on the log stream, otherwise return null.
-         */
-        public Status exitStatus() {
-            if (lastStatusLine == null) {
-                return null;
-            } else {
-                return Status.parse(lastStatusLine.substring(Status.EXIT_PREFIX.length()));
-            }
-        }
-
+        return Charset.defaultCharset();
     }
 }
-
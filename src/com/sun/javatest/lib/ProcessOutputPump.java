@@ -0,0 +1,444 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.lib;
+
+import com.sun.javatest.Status;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Copies the output of child processes to the streams of the tests which
+ * started them. A single daemon thread serves all the processes, instead
+ * of a pair of threads for each one: the thread polls each stream for the
+ * bytes which can be read without blocking, and reads them in large chunks.
+ * <p>
+ * The bytes are decoded with the charset given for each stream, and
+ * written out line by line, just as {@code BufferedReader.readLine} and
+ * {@code PrintWriter.println} would. A line beginning with
+ * {@link Status#EXIT_PREFIX} is decoded, and remembered as the exit status.
+ * <p>
+ * Output much larger than the amount kept by the test result to which it
+ * is being copied can be trimmed as it is read: only enough of the beginning
+ * and the end is written for the test result to show what it would have
+ * shown for the full output. The rest is still decoded, to look for a
+ * status line, but is not written.
+ */
+class ProcessOutputPump {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MIN_IDLE = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MAX_IDLE = TimeUnit.MILLISECONDS.toNanos(10);
+    // allowance for the characters lost at the edges of the skipped output
+    private static final int SLACK = 1024;
+    private static ProcessOutputPump instance;
+
+    private final Queue<Pipe> added = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    // the following are only used by the pump thread
+    private final List<Pipe> pipes = new ArrayList<>();
+    private final byte[] buf = new byte[BUFFER_SIZE];
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE + SLACK);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+
+    private ProcessOutputPump() {
+        thread = new Thread(this::pump, "ProcessOutputPump");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Get the pump shared by all the processes started by this JVM.
+     *
+     * @return the pump
+     */
+    static synchronized ProcessOutputPump getInstance() {
+        if (instance == null) {
+            instance = new ProcessOutputPump();
+        }
+        return instance;
+    }
+
+    /**
+     * Start copying a stream.
+     *
+     * @param in      the output of the process
+     * @param charset the charset in which the process writes its output
+     * @param out           the stream to which to copy the output
+     * @param maxOutputSize the number of characters of output kept by the
+     *                      stream, beyond which very large output can be
+     *                      trimmed, or 0 or less if all output is kept
+     * @return an object with which to follow the copying
+     */
+    Pipe add(InputStream in, Charset charset, PrintWriter out, int maxOutputSize) {
+        Pipe p = new Pipe(in, charset, out, maxOutputSize);
+        added.add(p);
+        LockSupport.unpark(thread);
+        return p;
+    }
+
+    private void pump() {
+        long idle = MIN_IDLE;
+        while (true) {
+            Pipe p;
+            while ((p = added.poll()) != null) {
+                pipes.add(p);
+            }
+
+            if (pipes.isEmpty()) {
+                LockSupport.park(this);
+                idle = MIN_IDLE;
+                continue;
+            }
+
+            boolean busy = false;
+            for (Iterator<Pipe> iter = pipes.iterator(); iter.hasNext(); ) {
+                p = iter.next();
+                // check for the end before polling, so that nothing written
+                // before the process exited can be missed
+                boolean exited = p.exited;
+                int n;
+                try {
+                    n = p.cancelled ? -1 : p.poll();
+                } catch (RuntimeException e) {
+                    n = -1;
+                }
+                if (n > 0) {
+                    busy = true;
+                } else if (n < 0 || exited) {
+                    iter.remove();
+                    p.finish();
+                }
+            }
+
+            if (busy) {
+                idle = MIN_IDLE;
+            } else {
+                LockSupport.parkNanos(this, idle);
+                idle = Math.min(2 * idle, MAX_IDLE);
+            }
+        }
+    }
+
+    /**
+     * The copying of the output from one stream of a process.
+     */
+    class Pipe {
+        private final InputStream in;
+        private final PrintWriter out;
+        private final CharsetDecoder decoder;
+        private final int headLimit;
+        private final int tailLimit;
+
+        private volatile boolean exited;
+        private volatile boolean cancelled;
+        private boolean done;
+        private String lastStatusLine;
+
+        // the following are only used by the pump thread
+        private long count;
+        private byte[] carry = new byte[16];
+        private int carryLength;
+        private byte[] tail;
+        private int tailStart;
+        private int tailLength;
+        // set while output which is not to be written is being decoded
+        private boolean discard;
+        // the start of the current line, while it may yet be a status line
+        private final StringBuilder line = new StringBuilder();
+        private boolean matching = true;
+        private boolean inLine;
+        private boolean skipLF;
+
+        Pipe(InputStream in, Charset charset, PrintWriter out, int maxOutputSize) {
+            this.in = in;
+            this.out = out;
+            decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+            // Keep enough bytes for maxOutputSize/3 chars at the beginning, and
+            // maxOutputSize chars at the end, so that the result keeps the same
+            // beginning, and at least as much of the end, as if all the output
+            // had been written to it.
+            int bytesPerChar = charset.canEncode()
+                    ? Math.max(2, (int) Math.ceil(charset.newEncoder().maxBytesPerChar()))
+                    : 4;
+            long head = (long) bytesPerChar * (maxOutputSize / 3 + SLACK);
+            long end = (long) bytesPerChar * (maxOutputSize + SLACK);
+            if (maxOutputSize <= 0 || head + end > Integer.MAX_VALUE / 2) {
+                head = Integer.MAX_VALUE;
+                end = 0;
+            }
+            headLimit = (int) head;
+            tailLimit = (int) end;
+        }
+
+        /**
+         * Note that the process has exited, so that the copying will be
+         * complete once the output still to be read has been read.
+         */
+        void exited() {
+            exited = true;
+            LockSupport.unpark(thread);
+        }
+
+        /**
+         * Stop copying the output.
+         */
+        void cancel() {
+            cancelled = true;
+            exited();
+        }
+
+        /**
+         * Blocks until the copy is complete, or until the thread is interrupted.
+         *
+         * @throws InterruptedException if the thread is interrupted
+         */
+        synchronized void waitUntilDone() throws InterruptedException {
+            while (!done) {
+                wait();
+            }
+        }
+
+        /**
+         * Return the status information from the child process if it returned
+         * any on this stream, otherwise return null.
+         *
+         * @return the status returned by the child process, or null
+         */
+        synchronized Status exitStatus() {
+            if (lastStatusLine == null) {
+                return null;
+            } else {
+                return Status.parse(lastStatusLine.substring(Status.EXIT_PREFIX.length()));
+            }
+        }
+
+        /**
+         * Read whatever can be read without blocking.
+         *
+         * @return the number of bytes read, or -1 at the end of the stream
+         */
+        private int poll() {
+            try {
+                int avail = in.available();
+                if (avail <= 0) {
+                    return 0;
+                }
+                int n = in.read(buf, 0, Math.min(avail, buf.length));
+                if (n > 0) {
+                    accept(buf, 0, n);
+                }
+                return n;
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+
+        private void accept(byte[] b, int off, int len) {
+            if (count < headLimit) {
+                int n = (int) Math.min(len, headLimit - count);
+                decode(b, off, n, false);
+                count += n;
+                off += n;
+                len -= n;
+            }
+            if (len == 0) {
+                return;
+            }
+
+            // past the beginning: keep the last tailLimit bytes, and only
+            // look for a status line in the bytes which do not fit
+            if (tail == null) {
+                tail = new byte[tailLimit];
+            }
+            count += len;
+            int overflow = tailLength + len - tailLimit;
+            if (overflow > 0) {
+                discard = true;
+                int n = Math.min(overflow, tailLength);
+                decodeTail(n);
+                if (overflow > n) {
+                    decode(b, off, overflow - n, false);
+                    off += overflow - n;
+                    len -= overflow - n;
+                }
+                discard = false;
+            }
+            int pos = (tailStart + tailLength) % tailLimit;
+            int n = Math.min(len, tailLimit - pos);
+            System.arraycopy(b, off, tail, pos, n);
+            System.arraycopy(b, off + n, tail, 0, len - n);
+            tailLength += len;
+        }
+
+        /**
+         * Decode the first bytes of the tail, and remove them from it.
+         */
+        private void decodeTail(int len) {
+            int n = Math.min(len, tailLimit - tailStart);
+            decode(tail, tailStart, n, false);
+            decode(tail, 0, len - n, false);
+            tailStart = (tailStart + len) % tailLimit;
+            tailLength -= len;
+        }
+
+        private void finish() {
+            try {
+                if (!cancelled) {
+                    if (tailLength > 0) {
+                        decodeTail(tailLength);
+                    }
+                    decode(buf, 0, 0, true);
+                    if (inLine) {
+                        endLine();
+                    }
+                }
+            } finally {
+                tail = null;
+                try {
+                    in.close();
+                } catch (IOException ignore) {
+                }
+                synchronized (this) {
+                    done = true;
+                    notifyAll();
+                }
+            }
+        }
+
+        private void decode(byte[] b, int off, int len, boolean endOfInput) {
+            while (len > BUFFER_SIZE) {
+                decode(b, off, BUFFER_SIZE, false);
+                off += BUFFER_SIZE;
+                len -= BUFFER_SIZE;
+            }
+
+            bytes.clear();
+            bytes.put(carry, 0, carryLength);
+            bytes.put(b, off, len);
+            bytes.flip();
+            CoderResult cr;
+            do {
+                cr = decoder.decode(bytes, chars, endOfInput);
+                writeChars();
+            } while (cr.isOverflow());
+            if (endOfInput) {
+                do {
+                    cr = decoder.flush(chars);
+                    writeChars();
+                } while (cr.isOverflow());
+            }
+
+            // keep any partial character for next time
+            carryLength = Math.min(bytes.remaining(), SLACK);
+            if (carryLength > carry.length) {
+                carry = new byte[carryLength];
+            }
+            bytes.get(carry, 0, carryLength);
+        }
+
+        private void writeChars() {
+            chars.flip();
+            char[] a = chars.array();
+            int end = chars.limit();
+            int run = 0;  // the start of the chars to be written as they are
+            for (int i = 0; i < end; i++) {
+                char c = a[i];
+                if (c == '\n' || c == '\r') {
+                    if (c == '\n' && skipLF) {
+                        skipLF = false;
+                    } else {
+                        if (!discard) {
+                            out.write(a, run, i - run);
+                        }
+                        endLine();
+                        skipLF = c == '\r';
+                    }
+                    run = i + 1;
+                    continue;
+                }
+
+                skipLF = false;
+                inLine = true;
+                if (matching) {
+                    int n = line.length();
+                    line.append(c);
+                    run = i + 1;
+                    if (n < Status.EXIT_PREFIX.length() && Status.EXIT_PREFIX.charAt(n) != c) {
+                        // not a status line
+                        if (!discard) {
+                            out.write(line.toString());
+                        }
+                        line.setLength(0);
+                        matching = false;
+                    }
+                }
+            }
+            if (!discard) {
+                out.write(a, run, end - run);
+            }
+            chars.clear();
+        }
+
+        private void endLine() {
+            if (matching && line.length() > 0) {
+                String s = line.toString();
+                if (s.startsWith(Status.EXIT_PREFIX)) {
+                    s = Status.decode(s);
+                    synchronized (this) {
+                        lastStatusLine = s;
+                    }
+                }
+                if (!discard) {
+                    out.write(s);
+                }
+                line.setLength(0);
+            }
+            if (!discard) {
+                out.println();
+            }
+            matching = true;
+            inLine = false;
+        }
+    }
+}
@@ -26,9 +26,7 @@
  */
 package com.sun.javatest.report;
 
-import com.sun.javatest.JavaTestError;
 import com.sun.javatest.TestResult;
-import com.sun.javatest.TestResultTable;
 import com.sun.javatest.util.I18NResourceBundle;
 import com.sun.javatest.util.TextWriter;
 
@@ -61,33 +59,17 @@ public class PlainTextReport implements ReportFormat {
 
     @Override
     public ReportLink write(ReportSettings s, File dir) throws IOException {
-        TestResultTable resultTable = s.getInterview().getWorkDirectory().getTestResultTable();
-
-        File[] initFiles = s.getInitialFiles();
-
         SortedSet<TestResult> tests = new TreeSet<>(new TestResultsByFileComparator());
         int width = 0;
 
-        Iterator<TestResult> iter = null;
-        try {
-            if (initFiles == null) {
-                iter = resultTable.getIterator(s.filter);
-            } else {
-                iter = resultTable.getIterator(initFiles, s.filter);
-            }
-        } catch (TestResultTable.Fault f) {
-            throw new JavaTestError(i18n.getString("report.testResult.err"));
-        }   // catch
-
-        for (; iter.hasNext(); ) {
-            TestResult tr = iter.next();
+        for (TestResult tr : s.getFilteredResults()) {
             // build a list of TestResults, sorted by test name
             width = Math.max(width, tr.getTestName().length());
             tests.add(tr);
         }
 
         TextWriter out = new TextWriter(openWriter(dir, files[SMRY_TXT]));
-        for (iter = tests.iterator(); iter.hasNext(); ) {
+        for (Iterator<TestResult> iter = tests.iterator(); iter.hasNext(); ) {
             TestResult tr = iter.next();
             String u = tr.getTestName();
             out.print(u);
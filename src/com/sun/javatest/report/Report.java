@@ -48,9 +48,17 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 /**
@@ -66,6 +74,11 @@ public class Report implements ReportModel {
      */
     public static final String REPORT_FORMATS_TO_LOAD = "services.com.sun.javatest.report.ReportFormat";
     private static I18NResourceBundle i18n = I18NResourceBundle.getBundleForClass(Report.class);
+    // the formats which can be written at the same time as each other
+    private static final Set<Class<?>> PARALLEL_FORMATS = new HashSet<>(Arrays.asList(
+            HTMLReport.class, PlainTextReport.class, XMLReport.class, COFReport.class));
+    private static final int reportThreads = Math.max(1, Integer.getInteger("javatest.report.threads",
+            Runtime.getRuntime().availableProcessors()).intValue());
     private InterviewParameters params;     // legacy
     private TestFilter[] paramFilters;      // legacy
     private File reportDir;
@@ -177,15 +190,17 @@ public class Report implements ReportModel {
         s.setupSortedResults();
         s.setupKfl();
 
-        ArrayList<ReportLink> links = new ArrayList<>();
+        List<ReportLink> links;
 
         try {
+            List<ReportFormat> formats = new ArrayList<>();
             Iterable<ReportFormat> reportLoader = loadSupportedReportFormats();
             for (ReportFormat rf : reportLoader) {
-                boolean wasInterrapted = doReport(rf, s, links);
-                if (wasInterrapted) {
-                    return;
-                }
+                collectReports(rf, s, formats);
+            }
+            links = writeReports(s, formats);
+            if (links == null) {
+                return;
             }
 
             writePrefs(s); // write settings to Preferences
@@ -201,34 +216,19 @@ public class Report implements ReportModel {
     }
 
     /**
-     * Process single ReportFormat and its sub-reports if any
+     * Collect a ReportFormat and its sub-reports, if they are to be written.
      *
-     * @param rf
-     * @param s
-     * @param links
-     * @return true if the process was interrupted
-     * @throws RuntimeException
-     * @throws IOException
+     * @param rf      the report format
+     * @param s       the settings for the reports
+     * @param formats the list to which to add the formats to be written
      */
-    private boolean doReport(ReportFormat rf, ReportSettings s, ArrayList<ReportLink> links) throws IOException {
+    private void collectReports(ReportFormat rf, ReportSettings s, List<ReportFormat> formats) {
         if (rf.acceptSettings(s)) {
-            try {
-                links.add(writeReport(s, rf));
-            } catch (RuntimeException t) {
-                t.printStackTrace();
-                throw t;
-            }
-            if (Thread.currentThread().isInterrupted()) {
-                return true;
-            }
+            formats.add(rf);
         }
         for (ReportFormat sub : rf.getSubReports()) {
-            boolean wasInterrapted = doReport(sub, s, links);
-            if (wasInterrapted) {
-                return true;
-            }
+            collectReports(sub, s, formats);
         }
-        return false;
     }
 
     /**
@@ -274,9 +274,13 @@ public class Report implements ReportModel {
         settings.setupKfl();
 
         Iterable<ReportFormat> reportLoader = loadSupportedReportFormats();
-        ArrayList<ReportLink> links = new ArrayList<>();
+        List<ReportFormat> formats = new ArrayList<>();
         for (ReportFormat rf : reportLoader) {
-            doCLReport(rf, settings, typesToGen, links);
+            collectCLReports(rf, typesToGen, formats);
+        }
+        List<ReportLink> links = writeReports(settings, formats);
+        if (links == null) {
+            return;
         }
         if (links.isEmpty()) {
             throw new IllegalArgumentException("Unknown report types: " + Arrays.toString(types));
@@ -305,19 +309,93 @@ public class Report implements ReportModel {
         }
     }
 
-    private void doCLReport(ReportFormat rf, ReportSettings settings,
-                            String[] types, ArrayList<ReportLink> links) throws IOException {
+    private void collectCLReports(ReportFormat rf, String[] types, List<ReportFormat> formats) {
         String id = rf.getTypeName();
         for (String t : types) {
             if (t.toLowerCase().equals(id)) {
-                links.add(writeReport(settings, rf));
+                formats.add(rf);
             }
         }
         for (ReportFormat sub : rf.getSubReports()) {
-            doCLReport(sub, settings, types, links);
+            collectCLReports(sub, types, formats);
         }
     }
 
+    /**
+     * Write the reports for the given formats. The results are read once,
+     * by ReportSettings.setupSortedResults, and shared by all the formats.
+     * The standard formats only read the results and the settings, so they
+     * are written at the same time, on separate threads; other formats,
+     * including custom reports, which may use the XML report or exchange
+     * data through the settings, are then written one after another.
+     *
+     * @param s       the settings for the reports
+     * @param formats the formats to be written
+     * @return the links to the reports written, in the order of the formats,
+     * or null if the thread was interrupted
+     * @throws IOException if an error occurs writing any of the reports
+     */
+    private List<ReportLink> writeReports(ReportSettings s, List<ReportFormat> formats) throws IOException {
+        ReportLink[] links = new ReportLink[formats.size()];
+        Map<Integer, Future<ReportLink>> tasks = new LinkedHashMap<>();
+        ExecutorService pool = null;
+        try {
+            for (int i = 0; i < formats.size(); i++) {
+                ReportFormat rf = formats.get(i);
+                if (reportThreads > 1 && PARALLEL_FORMATS.contains(rf.getClass())) {
+                    if (pool == null) {
+                        pool = Executors.newFixedThreadPool(Math.min(reportThreads, formats.size()));
+                    }
+                    File out = startReport(s, rf);
+                    tasks.put(i, pool.submit(() -> rf.write(s, out)));
+                }
+            }
+
+            for (Map.Entry<Integer, Future<ReportLink>> e : tasks.entrySet()) {
+                try {
+                    links[e.getKey()] = e.getValue().get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                } catch (ExecutionException ex) {
+                    Throwable t = ex.getCause();
+                    if (t instanceof IOException) {
+                        throw (IOException) t;
+                    } else if (t instanceof RuntimeException) {
+                        t.printStackTrace();
+                        throw (RuntimeException) t;
+                    } else if (t instanceof Error) {
+                        throw (Error) t;
+                    } else {
+                        throw new IOException(t);
+                    }
+                }
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+
+        for (int i = 0; i < formats.size(); i++) {
+            if (links[i] == null) {
+                try {
+                    links[i] = writeReport(s, formats.get(i));
+                } catch (RuntimeException t) {
+                    t.printStackTrace();
+                    throw t;
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    return null;
+                }
+            }
+        }
+        return Arrays.asList(links);
+    }
+
     /**
      * This is entry point to report backup mechanism.
      * Invokes methods, which rename existing report subdirs, index.html file;
@@ -518,10 +596,14 @@ public class Report implements ReportModel {
     }
 
     private ReportLink writeReport(ReportSettings settings, ReportFormat rf) throws IOException {
+        return rf.write(settings, startReport(settings, rf));
+    }
+
+    private File startReport(ReportSettings settings, ReportFormat rf) {
         File out = new File(reportDir, rf.getBaseDirName());
         out.mkdir();
         notifyStartGenListeners(settings, rf.getReportID());
-        return rf.write(settings, out);
+        return out;
     }
 
     //---------- data members -----------------------------------------------
@@ -114,6 +114,7 @@ public class ReportSettings {
     boolean doBackups = true;
     int backups = 1; // backup levels
     private List<TreeSet<TestResult>> sortedTestResults;
+    private List<TestResult> filteredResults;
     private KflSorter kflSorter;
     private File[] mif = new File[0];
     private HashMap<?, ?> exchangeData;
@@ -500,12 +501,17 @@ public class ReportSettings {
         return exchangeData;
     }
 
-    void setupSortedResults() {
+    /**
+     * Read the results for the report from the test result table, once for
+     * all the report formats, and sort them by status and test name.
+     */
+    synchronized void setupSortedResults() {
         if (sortedTestResults != null) {
             return;
         }
         TestResultTable resultTable = interviewParameters.getWorkDirectory().getTestResultTable();
         File[] initFiles = getInitialFiles();
+        filteredResults = new ArrayList<>();
         sortedTestResults = new ArrayList<>();
         for (int i = 0; i < Status.NUM_STATES; i++) {
             sortedTestResults.add(new TreeSet<>(new TestResultsByNameComparator()));
@@ -526,6 +532,7 @@ public class ReportSettings {
         }
         for (; testResultIterator.hasNext(); ) {
             TestResult result = testResultIterator.next();
+            filteredResults.add(result);
             Status status = result.getStatus();
             TreeSet<TestResult> results = sortedTestResults.get(status == null ? Status.NOT_RUN : status.getType());
             results.add(result);
@@ -580,6 +587,18 @@ public class ReportSettings {
         return sortedTestResults;
     }
 
+    /**
+     * Get the results selected for the report, in the order in which they
+     * are found in the test result table. Unlike the sorted results, these
+     * do not include the tests rejected by the filters of the last test run.
+     *
+     * @return the results selected for the report
+     */
+    synchronized List<TestResult> getFilteredResults() {
+        setupSortedResults();
+        return filteredResults;
+    }
+
     public List<CustomReport> getCustomReports() {
         return customReports;
     }
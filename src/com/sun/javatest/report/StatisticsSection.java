@@ -26,12 +26,10 @@
  */
 package com.sun.javatest.report;
 
-import com.sun.javatest.JavaTestError;
 import com.sun.javatest.Status;
 import com.sun.javatest.TestDescription;
 import com.sun.javatest.TestFilter;
 import com.sun.javatest.TestResult;
-import com.sun.javatest.TestResultTable;
 import com.sun.javatest.util.I18NResourceBundle;
 import com.sun.javatest.util.StringArray;
 
@@ -40,15 +38,12 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Vector;
 
 class StatisticsSection extends HTMLSection {
     private final I18NResourceBundle i18n;
     private final String[] headings;
-    private TestResultTable resultTable;
-    private File[] initFiles;
 
     //-----------------------------------------------------------------------
     private Map<String, int[]> keywordTable = new HashMap<>();
@@ -63,21 +58,7 @@ class StatisticsSection extends HTMLSection {
                 i18n.getString("stats.heading.error"),
                 i18n.getString("stats.heading.notRun")};
 
-        initFiles = settings.getInitialFiles();
-
-        resultTable = settings.getInterview().getWorkDirectory().getTestResultTable();
-        Iterator<TestResult> iter = null;
-        try {
-            iter = (initFiles == null) ?
-                    resultTable.getIterator(settings.filter) :
-                    resultTable.getIterator(initFiles, settings.filter);
-        } catch (TestResultTable.Fault f) {
-            throw new JavaTestError(i18n.getString("stats.testResult.err"));
-        }       // catch
-
-        for (; iter.hasNext(); ) {
-            TestResult tr = iter.next();
-
+        for (TestResult tr : settings.getFilteredResults()) {
             try {
                 Status s = tr.getStatus();
                 TestDescription td = tr.getDescription();
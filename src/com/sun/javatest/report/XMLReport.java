@@ -48,6 +48,7 @@ import com.sun.javatest.TestResult.Section;
 import com.sun.javatest.TestResultTable;
 import com.sun.javatest.WorkDirectory;
 import com.sun.javatest.util.I18NResourceBundle;
+import com.sun.javatest.util.PrefetchIterator;
 import org.xml.sax.SAXException;
 
 import java.io.BufferedWriter;
@@ -147,25 +148,12 @@ public class XMLReport implements ReportFormat {
 
     private void writeResults(XMLReportMaker maker, ReportSettings sett) throws SAXException, JavaTestError, IOException {
         maker.sTestResults();
-
-        File[] initFiles = sett.getInitialFiles();
-        Iterator<TestResult> iter = null;
-        TestResultTable resultTable = sett.getInterview().getWorkDirectory().getTestResultTable();
-
-        try {
-            if (initFiles == null) {
-                iter = resultTable.getIterator(sett.getTestFilter());
-            } else {
-                iter = resultTable.getIterator(initFiles, sett.getTestFilter());
-            }
-            for (; iter.hasNext(); ) {
-                TestResult tr = iter.next();
-                writeResult(maker, tr);
+        try (PrefetchIterator<TestResult> iter = TestResult.prefetch(sett.getFilteredResults().iterator())) {
+            while (iter.hasNext()) {
+                writeResult(maker, iter.next());
             }
-            maker.eTestResults();
-        } catch (TestResultTable.Fault f) {
-            throw new JavaTestError(i18n.getString("report.testResult.err"), f);
         }
+        maker.eTestResults();
     }
 
     private void writeResult(XMLReportMaker maker, TestResult testResult) throws SAXException, IOException {
@@ -35,6 +35,9 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Vector;
 
 /**
@@ -204,15 +207,25 @@ public abstract class BackupPolicy {
 
         if (isBackupRequired(target)) {
             backup(target);
-        } else if (target.exists()) {
-            // remove the file we are about to overwrite
-            // not really needed on Solaris, seems to be needed on Win32
-            target.delete();
         }
 
-        boolean result = source.renameTo(target);
-        if (!result) {
-            throw new IOException("Rename of " + target.getPath() + " failed.");
+        try {
+            // replace any existing file in a single step, so that there is
+            // never a time when the target has been removed but not replaced
+            Files.move(source.toPath(), target.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            if (target.exists()) {
+                // remove the file we are about to overwrite
+                target.delete();
+            }
+
+            boolean result = source.renameTo(target);
+            if (!result) {
+                throw new IOException("Rename of " + target.getPath() + " failed.");
+            }
+        } catch (IOException e) {
+            throw new IOException("Rename of " + target.getPath() + " failed.", e);
         }
     }
 
@@ -0,0 +1,195 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.util;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * An iterator that prepares the items of another iterator ahead of their use,
+ * such as by loading data for them, on a pool of threads. The items are
+ * returned in the same order as by the underlying iterator, each one once
+ * it has been prepared.
+ * Unlike {@link ReadAheadIterator}, the underlying iterator is only accessed
+ * by the thread using this iterator; only the action to prepare the items is
+ * run by the pool.
+ * An iterator that is not used to the end should be closed, so that no
+ * further work is done for the items that have not been returned.
+ */
+public class PrefetchIterator<T> implements Iterator<T>, AutoCloseable {
+    /**
+     * A counter for generating names for worker threads.
+     */
+    private static int poolNum;
+    /**
+     * The underlying source iterator.
+     */
+    private final Iterator<? extends T> source;
+    /**
+     * The action to prepare each item.
+     */
+    private final Consumer<? super T> action;
+    /**
+     * The maximum number of items to be prepared ahead of the one being returned.
+     */
+    private final int amount;
+    /**
+     * The items that have been read from the source iterator and submitted to
+     * the pool, in the order they were read.
+     */
+    private final Queue<Future<T>> queue = new ArrayDeque<>();
+    /**
+     * The threads that run the action, or null if the action is run by the
+     * thread that calls next().
+     */
+    private ThreadPoolExecutor pool;
+
+    /**
+     * Create a PrefetchIterator.
+     *
+     * @param source  The iterator whose items are to be prepared
+     * @param action  The action to prepare each item
+     * @param threads The number of threads to run the action. If less than 1,
+     *                the action is run for each item as it is returned.
+     * @param amount  The maximum number of items to be prepared ahead of the
+     *                one being returned. If less than 1, the action is run for
+     *                each item as it is returned.
+     */
+    public PrefetchIterator(Iterator<? extends T> source, Consumer<? super T> action,
+                            int threads, int amount) {
+        this.source = source;
+        this.action = action;
+        this.amount = amount;
+        if (threads > 0 && amount > 0) {
+            String name = "PrefetchIterator" + nextPoolNum() + ".";
+            int[] threadNum = {0};
+            pool = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, name + threadNum[0]++);
+                t.setDaemon(true);
+                return t;
+            });
+            pool.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    private static synchronized int nextPoolNum() {
+        return poolNum++;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !queue.isEmpty() || source.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (pool == null) {
+            T item = source.next();
+            action.accept(item);
+            return item;
+        }
+
+        fill();
+        Future<T> f = queue.poll();
+        if (f == null) {
+            throw new NoSuchElementException();
+        }
+        fill();
+        if (queue.isEmpty()) {
+            // nothing more to be submitted
+            pool.shutdown();
+        }
+        return get(f);
+    }
+
+    /**
+     * Stop preparing any items that have not yet been returned.
+     * Work that has already started is allowed to complete.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            for (Future<T> f : queue) {
+                f.cancel(false);
+            }
+            queue.clear();
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * Submit items from the source iterator, until the given amount of items
+     * are waiting to be returned.
+     */
+    private void fill() {
+        while (queue.size() < amount && source.hasNext()) {
+            T item = source.next();
+            queue.add(pool.submit(() -> action.accept(item), item));
+        }
+    }
+
+    /**
+     * Wait for an item to be prepared. The wait is not interruptible, since the
+     * item has already been taken from the source iterator, but the interrupt
+     * status of the thread is preserved.
+     */
+    private T get(Future<T> f) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return f.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable t = e.getCause();
+                    if (t instanceof RuntimeException) {
+                        throw (RuntimeException) t;
+                    } else if (t instanceof Error) {
+                        throw (Error) t;
+                    } else {
+                        throw new IllegalStateException(t);
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
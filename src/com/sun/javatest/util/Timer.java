@@ -26,79 +26,74 @@
  */
 package com.sun.javatest.util;
 
-//import java.util.Date;
-
-import java.util.Vector;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Timer objects accept requests to call back on Timeable objects after a
  * specifiable delay.
+ * <p>
+ * Requests are kept in a hashed timing wheel: a ring of buckets, each
+ * covering one tick of time, which the timer thread visits in turn.
+ * A request goes into the bucket for the tick in which it expires, so that
+ * requesting and cancelling a callback take constant time, however many
+ * requests are outstanding. Requests and cancellations are queued without
+ * locking, and moved into the wheel by the timer thread.
+ * <p>
+ * Callbacks are made on a small pool of threads, so that a callback which
+ * takes a long time does not delay other callbacks.
  *
  * @see Timeable
  */
 
 public class Timer {
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int WHEEL_SIZE = 512;      // must be a power of 2
+    private static final int CALLBACK_THREADS = 4;
+
     /* For autonumbering anonymous threads. */
     private static int threadInitNumber;
-    /**
-     * Original code ... problem is timeout is called while synchronized
-     * <p>
-     * public synchronized void run() {
-     * try {
-     * while (acceptingRequests) {
-     * if (entries.size() == 0) {
-     * // nothing on list; wait until new requests come in
-     * wait();
-     * } else {
-     * long now = System.currentTimeMillis();
-     * Entry e = (Entry)(entries.elementAt(0));
-     * if (e.expiration > now) {
-     * // not ready to invoke e yet; wait until nearer the time
-     * wait(e.expiration - now);
-     * // update current time
-     * now = System.currentTimeMillis();
-     * // list might have been updated during wait, so go round and
-     * // process list again
-     * } else {
-     * // time to call back e.obj; do so and remove it from list
-     * entries.removeElementAt(0);
-     * e.obj.timeout();
-     * }
-     * e = null; // for GC
-     * }
-     * }
-     * }
-     * catch (InterruptedException e) {
-     * }
-     * }
-     */
 
     //-----member variables-------------------------------------------------------
 
-    private Vector<Entry> entries = new Vector<>();
-    private boolean acceptingRequests = true;
+    private final Queue<Entry> additions = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> cancellations = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private final ThreadPoolExecutor callbacks;
+    private volatile boolean acceptingRequests = true;
+    private volatile boolean idle;
+
+    // the following are only used by the timer thread
+    private final Entry[] wheel = new Entry[WHEEL_SIZE];   // heads of the buckets
+    private final long startTime = System.nanoTime();
+    private long tick;                                      // the next tick to be visited
+    private int size;                                       // number of entries in the wheel
 
     /**
      * Create and start a timer object.
      */
     public Timer() {
-        Thread t = new Thread() {
-            @Override
-            public void run() {
-                try {
-                    Entry e;
-                    while ((e = getNextEntry()) != null) {
-                        e.obj.timeout();
-                        e = null; // for GC
-                    }
-                } catch (InterruptedException e) {
-                }
-            }
-        };
+        String name = "Timer" + nextThreadNum();
+
+        AtomicInteger callbackThreadNum = new AtomicInteger();
+        callbacks = new ThreadPoolExecutor(CALLBACK_THREADS, CALLBACK_THREADS,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, name + "-callback" + callbackThreadNum.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        callbacks.allowCoreThreadTimeOut(true);
 
-        t.setName("Timer" + nextThreadNum());
-        t.setDaemon(true);
-        t.start();
+        thread = new Thread(this::run);
+        thread.setName(name);
+        thread.setDaemon(true);
+        thread.start();
     }
 
     private static synchronized int nextThreadNum() {
@@ -114,76 +109,147 @@ public class Timer {
      *              timemout method on the callback object.
      * @return An object which can be passed to cancel() to cancel this request
      */
-    public synchronized Entry requestDelayedCallback(Timeable obj, long delay) {
-        try {
-            // add a new entry into a vector of entries sorted by increasing
-            // absolute callback time
-            long absCallbackTime = System.currentTimeMillis() + delay;
-            //System.out.println("timeout set for " + obj + " at " + (new Date(absCallbackTime)));
-            Entry e = new Entry(obj, absCallbackTime);
-            for (int i = 0; i < entries.size(); i++) {
-                Entry ee = entries.get(i);
-                if (e.expiration < ee.expiration) {
-                    entries.add(i, e);
-                    return e;
-                }
-            }
-            entries.add(e);
-            return e;
-        } finally {
-            // kick timer thread awake to check this entry if necessary
-            notify();
+    public Entry requestDelayedCallback(Timeable obj, long delay) {
+        Entry e = new Entry(obj, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(delay, 0)));
+        additions.add(e);
+        // kick timer thread awake if it is waiting for requests to come in
+        if (idle) {
+            LockSupport.unpark(thread);
         }
+        return e;
     }
 
     /**
      * Cancel a prior request to requestDelayedEntry().
+     * If the callback has already been made, or is about to be made,
+     * this has no effect.
      *
      * @param e The result of the prior call to requestDelayedEntry
      */
-    public synchronized void cancel(Entry e) {
-        entries.remove(e);
-        // kick timer thread awake so it can exit if necessary
-        notify();
+    public void cancel(Entry e) {
+        if (e != null && e.setState(Entry.PENDING, Entry.CANCELLED)) {
+            e.obj = null;
+            cancellations.add(e);
+        }
     }
 
     /**
      * Stop accepting requests.
      */
-    public synchronized void finished() {
+    public void finished() {
         acceptingRequests = false;
-        // kick timer thread awake so it can exit if necessary
-        notify();
+        // kick timer thread awake so it can exit
+        LockSupport.unpark(thread);
     }
 
     /**
-     * Main body of timer thread .... get next entry to have its timeout called
-     *
-     * @return The next entry to have timed out, or null if the timer is closing down.
+     * Main body of timer thread: visit the buckets of the wheel as their
+     * time comes, and make the callbacks for the entries which have expired.
      */
-    private synchronized Entry getNextEntry() throws InterruptedException {
-        while (acceptingRequests) {
-            if (entries.isEmpty()) {
-                // nothing on list; wait until new requests come in
-                wait();
-            } else {
-                long now = System.currentTimeMillis();
-                Entry e = entries.get(0);
-                if (e.expiration <= now) {
-                    // time to call back e.obj; do so and remove it from list
-                    entries.remove(0);
-                    return e;
+    private void run() {
+        try {
+            while (acceptingRequests) {
+                long now = System.nanoTime();
+                long current = (now - startTime) / TICK;
+                if (size == 0) {
+                    // nothing to visit in between
+                    tick = current;
+                }
+
+                transferRequests();
+
+                if (current - tick >= WHEEL_SIZE) {
+                    // fallen behind, by a whole turn of the wheel
+                    for (int i = 0; i < WHEEL_SIZE; i++) {
+                        expire(i, now);
+                    }
+                    tick = current + 1;
                 } else {
-                    // not ready to invoke e yet; wait until nearer the time
-                    wait(e.expiration - now);
-                    // update current time
-                    now = System.currentTimeMillis();
-                    // list might have been updated during wait, so go round and
-                    // process list again
+                    for (; tick <= current; tick++) {
+                        expire((int) (tick & (WHEEL_SIZE - 1)), now);
+                    }
+                }
+
+                if (size == 0) {
+                    // nothing in the wheel; wait until new requests come in
+                    idle = true;
+                    if (additions.isEmpty() && acceptingRequests) {
+                        LockSupport.park(this);
+                    }
+                    idle = false;
+                } else {
+                    // wait until the next tick
+                    LockSupport.parkNanos(this, startTime + tick * TICK - System.nanoTime());
+                }
+            }
+        } finally {
+            callbacks.shutdown();
+        }
+    }
+
+    /**
+     * Move newly requested entries into the wheel, and take cancelled ones out.
+     */
+    private void transferRequests() {
+        Entry e;
+        while ((e = additions.poll()) != null) {
+            if (e.state != Entry.PENDING) {
+                continue;
+            }
+            // the first tick which ends at or after the expiration time
+            long t = (e.deadline - startTime + TICK - 1) / TICK;
+            link(e, (int) (Math.max(t, tick) & (WHEEL_SIZE - 1)));
+        }
+
+        while ((e = cancellations.poll()) != null) {
+            if (e.bucket >= 0) {
+                unlink(e);
+            }
+        }
+    }
+
+    /**
+     * Make the callbacks for the entries in a bucket which have expired;
+     * the others are left for a later turn of the wheel.
+     */
+    private void expire(int bucket, long now) {
+        Entry e = wheel[bucket];
+        while (e != null) {
+            Entry next = e.next;
+            if (e.deadline - now <= 0) {
+                unlink(e);
+                if (e.setState(Entry.PENDING, Entry.EXPIRED)) {
+                    Timeable obj = e.obj;
+                    e.obj = null;
+                    callbacks.execute(obj::timeout);
                 }
             }
+            e = next;
+        }
+    }
+
+    private void link(Entry e, int bucket) {
+        e.bucket = bucket;
+        e.next = wheel[bucket];
+        if (e.next != null) {
+            e.next.prev = e;
         }
-        return null;
+        wheel[bucket] = e;
+        size++;
+    }
+
+    private void unlink(Entry e) {
+        if (e.prev == null) {
+            wheel[e.bucket] = e.next;
+        } else {
+            e.prev.next = e.next;
+        }
+        if (e.next != null) {
+            e.next.prev = e.prev;
+        }
+        e.bucket = -1;
+        e.next = e.prev = null;
+        size--;
     }
 
     /**
@@ -205,11 +271,28 @@ public class Timer {
      * requestDelayedCallback on a timer; they may be used to cancel the request.
      */
     public static class Entry {
-        Timeable obj;
-        long expiration;
-        Entry(Timeable obj, long expiration) {
+        private static final int PENDING = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+        private static final AtomicIntegerFieldUpdater<Entry> stateUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+        volatile Timeable obj;
+        final long deadline;        // in terms of System.nanoTime()
+        private volatile int state;
+
+        // the position in the wheel, only used by the timer thread
+        private int bucket = -1;
+        private Entry next;
+        private Entry prev;
+
+        Entry(Timeable obj, long deadline) {
             this.obj = obj;
-            this.expiration = expiration;
+            this.deadline = deadline;
+        }
+
+        private boolean setState(int expect, int update) {
+            return stateUpdater.compareAndSet(this, expect, update);
         }
     }
 }
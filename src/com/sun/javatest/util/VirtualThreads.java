@@ -0,0 +1,127 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Access to virtual threads, when the platform provides them.
+ * The harness is compiled for older versions of the platform, so the
+ * virtual thread API is accessed reflectively; if it is not available,
+ * ordinary platform threads are used instead.
+ */
+public class VirtualThreads {
+    private static final Method ofVirtual;
+    private static final Method builderName;
+    private static final Method builderUnstarted;
+    private static final Method isVirtual;
+
+    static {
+        Method ov = null, bn = null, bu = null, iv = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ov = Thread.class.getMethod("ofVirtual");
+            bn = builderClass.getMethod("name", String.class);
+            bu = builderClass.getMethod("unstarted", Runnable.class);
+            iv = Thread.class.getMethod("isVirtual");
+            // check that virtual threads can actually be created: they may
+            // be a preview feature that has not been enabled
+            bu.invoke(ov.invoke(null), (Runnable) () -> { });
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            ov = bn = bu = iv = null;
+        }
+        ofVirtual = ov;
+        builderName = bn;
+        builderUnstarted = bu;
+        isVirtual = iv;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Check whether virtual threads are available on this platform.
+     *
+     * @return true if and only if {@link #newThread} will create virtual threads
+     */
+    public static boolean isAvailable() {
+        return ofVirtual != null;
+    }
+
+    /**
+     * Create a new, unstarted thread to run a task. If virtual threads are
+     * available, the thread will be a virtual thread; otherwise, it will be
+     * a daemon platform thread.
+     *
+     * @param name the name for the thread
+     * @param task the task to be run by the thread
+     * @return the new thread
+     */
+    public static Thread newThread(String name, Runnable task) {
+        if (ofVirtual != null) {
+            try {
+                Object builder = builderName.invoke(ofVirtual.invoke(null), name);
+                return (Thread) builderUnstarted.invoke(builder, task);
+            } catch (IllegalAccessException e) {
+                throw new Error(e);
+            } catch (InvocationTargetException e) {
+                Throwable t = e.getTargetException();
+                if (t instanceof RuntimeException) {
+                    throw (RuntimeException) t;
+                } else if (t instanceof Error) {
+                    throw (Error) t;
+                } else {
+                    throw new Error(t);
+                }
+            }
+        }
+
+        Thread t = new Thread(task, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    /**
+     * Check whether a thread is a virtual thread.
+     * Virtual threads cannot be stopped with {@code Thread.stop}.
+     *
+     * @param t the thread to be checked
+     * @return true if and only if the thread is a virtual thread
+     */
+    public static boolean isVirtual(Thread t) {
+        if (isVirtual == null) {
+            return false;
+        }
+
+        try {
+            return ((Boolean) isVirtual.invoke(t)).booleanValue();
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            return false;
+        }
+    }
+}
@@ -26,6 +26,7 @@
  */
 package com.sun.javatest;
 
+import java.io.File;
 import java.io.PrintStream;
 import java.util.*;
 
@@ -126,6 +127,18 @@ public class KeyTest {
 
     private void check(Keywords k, Set<String> s, boolean expected) {
         boolean actual = k.accepts(s);
+
+        // the compiled form used by KeywordsFilter should give the same result,
+        // whatever the case of the keywords on the test
+        Map<String, String> params = new HashMap<>();
+        params.put("id", "test");
+        params.put("keywords", String.join(" ", s).toUpperCase());
+        TestDescription td = new TestDescription(new File("/ts"), new File("/ts/test.html"), params);
+        if (new KeywordsFilter(k).accepts(td) != actual) {
+            out.println("mismatch between compiled and uncompiled keywords");
+            actual = !expected;
+        }
+
         if (actual != expected) {
             out.println("mismatch");
             out.println("Keywords: " + k);
@@ -0,0 +1,263 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class OutputSpoolTest {
+
+    static {
+        // small enough for the tests below to spill output to files
+        System.setProperty("javatest.outputSpillThreshold", "1000");
+    }
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("OutputSpoolTest").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void inMemory() throws IOException {
+        check(new OutputSpool(), false);
+    }
+
+    @Test
+    public void spilled() throws IOException {
+        check(new OutputSpool(dir, 100), true);
+    }
+
+    private void check(OutputSpool spool, boolean expectSpill) throws IOException {
+        StringBuilder expect = new StringBuilder();
+        Random r = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String s = randomText(r, r.nextInt(200));
+            spool.write(s);
+            expect.append(s);
+
+            switch (r.nextInt(10)) {
+                case 0:
+                    int n = r.nextInt(expect.length() + 1);
+                    spool.discardFirst(n);
+                    expect.delete(0, n);
+                    break;
+                case 1:
+                    int len = r.nextInt(expect.length() + 1);
+                    spool.truncate(len);
+                    expect.setLength(len);
+                    break;
+            }
+
+            Assert.assertEquals(expect.length(), spool.length());
+        }
+
+        Assert.assertEquals(expectSpill, spool.isSpilled());
+        Assert.assertEquals(expect.toString(), spool.getText());
+
+        int start = expect.length() / 3;
+        StringWriter sw = new StringWriter();
+        spool.writeTo(start, sw);
+        Assert.assertEquals(expect.substring(start), sw.toString());
+
+        spool.close();
+        Assert.assertEquals(0, spool.length());
+        Assert.assertEquals(0, dir.list().length);
+    }
+
+    @Test
+    public void compaction() throws IOException {
+        OutputSpool spool = new OutputSpool(dir, 100);
+        StringBuilder expect = new StringBuilder();
+        Random r = new Random(7);
+        for (int i = 0; i < 100; i++) {
+            String s = randomText(r, 100_000);
+            spool.write(s);
+            expect.append(s);
+            spool.discardFirst(expect.length() - 50_000);
+            expect.delete(0, expect.length() - 50_000);
+        }
+
+        Assert.assertEquals(expect.toString(), spool.getText());
+        // the file does not grow without bound
+        Assert.assertTrue(dir.listFiles()[0].length() < 10_000_000);
+        spool.close();
+    }
+
+    @Test
+    public void overflow() throws Exception {
+        int[] sizes = {0, 1, 100, 999, 1000, 1001, 5000, 20000};
+        for (int size : sizes) {
+            for (boolean spill : new boolean[]{false, true}) {
+                TestResult tr = newTestResult(3000, spill);
+                TestResult.Section s = tr.createSection("test");
+                PrintWriter out = s.createOutput("out");
+                Reference ref = new Reference(3000);
+                Random r = new Random(size);
+                int written = 0;
+                while (written < size) {
+                    String text = randomText(r, Math.min(size - written, r.nextInt(300) + 1));
+                    out.write(text);
+                    ref.write(text);
+                    written += text.length();
+                }
+                out.close();
+                Assert.assertEquals(ref.output.toString(), s.getOutput("out"));
+
+                s.setStatus(Status.passed(""));
+                tr.setStatus(Status.passed(""));
+
+                // the saved form is the same, whether or not the output was spilled
+                TestResult tr2 = newTestResult(3000, false);
+                TestResult.Section s2 = tr2.createSection("test");
+                PrintWriter out2 = s2.createOutput("out");
+                out2.write(ref.output.toString());
+                out2.close();
+                s2.setStatus(Status.passed(""));
+
+                StringWriter sw1 = new StringWriter();
+                s.save(sw1);
+                StringWriter sw2 = new StringWriter();
+                s2.save(sw2);
+                Assert.assertEquals(sw2.toString(), sw1.toString());
+            }
+        }
+    }
+
+    @Test
+    public void restoreSpilled() throws IOException {
+        TestResult tr = newTestResult(2_000_000, true);
+        TestResult.Section s = tr.createSection("test");
+        PrintWriter out = s.createOutput("out");
+        String text = randomText(new Random(0), 1_000_000);
+        out.write(text);
+        out.close();
+        Assert.assertEquals(1, dir.listFiles().length);
+
+        // a result which is not written keeps its output in memory instead
+        tr.restoreSpilledOutput();
+        Assert.assertEquals(0, dir.listFiles().length);
+        Assert.assertEquals(text, s.getOutput("out"));
+    }
+
+    private TestResult newTestResult(int maxOutputSize, boolean spill) {
+        Map<String, String> params = new HashMap<>();
+        params.put("id", "test");
+        TestDescription td = new TestDescription(dir, new File(dir, "Test.html"), params);
+        TestResult tr = new TestResult(td);
+        tr.setMaxOutputSize(maxOutputSize);
+        if (spill) {
+            tr.setOutputSpillDir(dir);
+        }
+        return tr;
+    }
+
+    private static String randomText(Random r, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            switch (r.nextInt(20)) {
+                case 0:
+                    sb.append('\n');
+                    break;
+                case 1:
+                    sb.append('\\');
+                    break;
+                case 2:
+                    sb.append((char) (0x400 + r.nextInt(0x100)));
+                    break;
+                default:
+                    sb.append((char) ('a' + r.nextInt(26)));
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The original, string-based, handling of output overflow.
+     */
+    private static class Reference {
+        final int maxOutputSize;
+        StringBuffer output = new StringBuffer();
+        boolean overflowed;
+        int overflowStart;
+
+        Reference(int maxOutputSize) {
+            this.maxOutputSize = maxOutputSize;
+        }
+
+        void write(String text) {
+            output.append(text);
+            if (output.length() > maxOutputSize) {
+                int overflowEnd = maxOutputSize / 3;
+                String s = output.toString();
+                if (overflowed) {
+                    output = new StringBuffer(s.substring(0, overflowStart) + s.substring(output.length() - overflowEnd));
+                } else {
+                    String OVERFLOW_MESSAGE =
+                            "\n\n...\n"
+                                    + "Output overflow:\n"
+                                    + "JT Harness has limited the test output to the text\n"
+                                    + "at the beginning and the end, so that you can see how the\n"
+                                    + "test began, and how it completed.\n"
+                                    + "\n"
+                                    + "If you need to see more of the output from the test,\n"
+                                    + "set the system property javatest.maxOutputSize to a higher\n"
+                                    + "value. The current value is " + maxOutputSize
+                                    + "\n...\n\n";
+                    overflowStart = maxOutputSize / 3;
+                    output = new StringBuffer(s.substring(0, overflowStart) + OVERFLOW_MESSAGE + s.substring(overflowEnd));
+                    overflowStart += OVERFLOW_MESSAGE.length();
+                    overflowed = true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.sun.javatest.util.BackupPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResultFilesTest {
+
+    @Test
+    public void directories() throws IOException {
+        File root = Files.createTempDirectory("ResultFilesTest").toFile();
+        File dir = new File(root, "a/b");
+        ResultFiles rf = new ResultFiles(false);
+
+        rf.mkdirs(dir);
+        Assert.assertTrue(dir.isDirectory());
+
+        // a directory which is removed is only created again when asked
+        Files.delete(dir.toPath());
+        rf.mkdirs(dir);
+        Assert.assertFalse(dir.exists());
+        rf.remkdirs(dir);
+        Assert.assertTrue(dir.isDirectory());
+    }
+
+    @Test
+    public void replace() throws IOException {
+        File root = Files.createTempDirectory("ResultFilesTest").toFile();
+        File target = write(new File(root, "t.jtr"), "old");
+        File temp = write(new File(root, "t.jtr.0.tmp"), "new");
+
+        BackupPolicy.noBackups().backupAndRename(temp, target);
+        Assert.assertFalse(temp.exists());
+        Assert.assertEquals("new", read(target));
+    }
+
+    @Test
+    public void sync() throws Exception {
+        File root = Files.createTempDirectory("ResultFilesTest").toFile();
+        ResultFiles rf = new ResultFiles(true);
+        Assert.assertTrue(rf.isSync());
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<File>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                File dir = new File(root, "d" + (i % 3));
+                String name = "t" + i + ".jtr";
+                results.add(pool.submit(() -> {
+                    rf.mkdirs(dir);
+                    File target = new File(dir, name);
+                    File temp = write(new File(dir, name + ".0.tmp"), name);
+                    rf.force(temp);
+                    BackupPolicy.noBackups().backupAndRename(temp, target);
+                    rf.forceDirectory(dir);
+                    return target;
+                }));
+            }
+
+            for (Future<File> f : results) {
+                File target = f.get();
+                Assert.assertEquals(target.getName(), read(target));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static File write(File f, String s) throws IOException {
+        Files.write(f.toPath(), s.getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+
+    private static String read(File f) throws IOException {
+        return new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8);
+    }
+}
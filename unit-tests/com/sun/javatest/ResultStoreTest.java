@@ -0,0 +1,219 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResultStoreTest {
+
+    @Test
+    public void putGetRemove() throws IOException {
+        File dir = Files.createTempDirectory("ResultStoreTest").toFile();
+        ResultStore store = new ResultStore(dir, 1024 * 1024, false);
+
+        store.put("a/b/t1.jtr", bytes("one"));
+        store.put("a/b/t2.jtr", bytes("two"));
+        store.put("a/c/t3.jtr", bytes("three"));
+        store.put("a/b/t1.jtr", bytes("one again"));
+
+        Assert.assertEquals("one again", string(store.get("a/b/t1.jtr")));
+        Assert.assertNull(store.get("a/b/t4.jtr"));
+        Assert.assertEquals(Arrays.asList("a/b/t1.jtr", "a/b/t2.jtr"), store.getPaths("a/b"));
+        Assert.assertEquals(3, store.getPaths("").size());
+
+        Assert.assertTrue(store.remove("a/b/t2.jtr"));
+        Assert.assertFalse(store.remove("a/b/t2.jtr"));
+        Assert.assertFalse(store.contains("a/b/t2.jtr"));
+        Assert.assertEquals(Arrays.asList("a/b/t1.jtr", "a/c/t3.jtr"), store.getPaths());
+        store.close();
+    }
+
+    @Test
+    public void reopen() throws IOException {
+        File dir = Files.createTempDirectory("ResultStoreTest").toFile();
+        ResultStore store = new ResultStore(dir, 1024 * 1024, true);
+        Map<String, String> expect = fill(store, 500, 50);
+        store.close();
+
+        check(new ResultStore(dir, 1024 * 1024, false), expect).close();
+
+        // without the index, the whole log is read
+        Files.delete(new File(dir, "index").toPath());
+        check(new ResultStore(dir, 1024 * 1024, false), expect).close();
+    }
+
+    @Test
+    public void tornTail() throws IOException {
+        File dir = Files.createTempDirectory("ResultStoreTest").toFile();
+        ResultStore store = new ResultStore(dir, 1024 * 1024, false);
+        store.put("t1.jtr", bytes("one"));
+        store.writeIndex();
+        store.put("t2.jtr", bytes("two"));
+        store.put("t3.jtr", bytes("three"));
+        store.close();
+
+        // lose the end of the last record, as if the harness stopped while writing it
+        File seg = dir.listFiles((d, n) -> n.endsWith(".log"))[0];
+        try (RandomAccessFile raf = new RandomAccessFile(seg, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+        Files.delete(new File(dir, "index").toPath());
+
+        store = new ResultStore(dir, 1024 * 1024, false);
+        Assert.assertEquals("one", string(store.get("t1.jtr")));
+        Assert.assertEquals("two", string(store.get("t2.jtr")));
+        Assert.assertNull(store.get("t3.jtr"));
+
+        store.put("t3.jtr", bytes("three again"));
+        store.close();
+
+        store = new ResultStore(dir, 1024 * 1024, false);
+        Assert.assertEquals("three again", string(store.get("t3.jtr")));
+        store.close();
+    }
+
+    @Test
+    public void compaction() throws IOException {
+        File dir = Files.createTempDirectory("ResultStoreTest").toFile();
+        ResultStore store = new ResultStore(dir, 16 * 1024, false);
+        Map<String, String> expect = fill(store, 20_000, 100);
+        check(store, expect);
+
+        // old segments are removed, so the log does not grow without bound
+        Assert.assertTrue(dir.list().length < 10);
+        store.close();
+
+        check(new ResultStore(dir, 16 * 1024, false), expect).close();
+    }
+
+    @Test
+    public void export() throws Exception {
+        File wd = Files.createTempDirectory("ResultStoreTest").toFile();
+        File jtData = new File(wd, WorkDirectory.JTDATA);
+        ResultStore store = ResultStore.open(jtData, false);
+        store.put("a/t1.jtr", bytes("one"));
+        store.put("a/b/t2.jtr", bytes("two"));
+
+        Assert.assertEquals(2, new ExportJTR(wd.getPath()).run());
+        Assert.assertEquals("one", string(Files.readAllBytes(new File(wd, "a/t1.jtr").toPath())));
+        Assert.assertEquals("two", string(Files.readAllBytes(new File(wd, "a/b/t2.jtr").toPath())));
+        store.close();
+    }
+
+    @Test
+    public void closeWritesIndex() throws Exception {
+        File wd = Files.createTempDirectory("ResultStoreTest").toFile();
+        File jtData = new File(wd, WorkDirectory.JTDATA);
+        ResultStore store = ResultStore.open(jtData, false);
+        store.put("a/t1.jtr", bytes("one"));
+        File index = new File(new File(jtData, ResultStore.DIR_NAME), "index");
+        Assert.assertFalse(index.exists());
+
+        store.close();
+        Assert.assertTrue(index.exists());
+        Assert.assertTrue(store.isClosed());
+        store.close();
+        try {
+            store.put("a/t2.jtr", bytes("two"));
+            Assert.fail("put into a closed store");
+        } catch (IOException e) {
+            // expected
+        }
+
+        ResultStore reopened = ResultStore.open(jtData, false);
+        Assert.assertNotSame(store, reopened);
+        Assert.assertEquals("one", string(reopened.get("a/t1.jtr")));
+        reopened.close();
+    }
+
+    @Test
+    public void closedWithTable() throws Exception {
+        TestSuite ts = TestSuite.open(new File(TestUtil.getAbsPathToTestTestSuite("basic")));
+        WorkDirectory wd = WorkDirectory.create(
+                TestUtil.createTempDirectory("ResultStoreTest").resolve("work").toFile(), ts);
+        File dir = new File(new File(wd.getRoot(), WorkDirectory.JTDATA), ResultStore.DIR_NAME);
+        Files.createDirectories(dir.toPath());
+        ResultStore store = wd.getResultStore();
+        store.put("a/t1.jtr", bytes("one"));
+
+        wd.getTestResultTable().dispose();
+        Assert.assertTrue(store.isClosed());
+        Assert.assertTrue(new File(dir, "index").exists());
+
+        ResultStore reopened = wd.getResultStore();
+        Assert.assertNotSame(store, reopened);
+        Assert.assertEquals("one", string(reopened.get("a/t1.jtr")));
+        reopened.close();
+    }
+
+    /**
+     * Put, replace and remove random results, returning what should be left.
+     */
+    private static Map<String, String> fill(ResultStore store, int n, int nPaths) throws IOException {
+        Map<String, String> expect = new HashMap<>();
+        Random r = new Random(n);
+        for (int i = 0; i < n; i++) {
+            String path = "d" + r.nextInt(5) + "/t" + r.nextInt(nPaths) + ".jtr";
+            if (r.nextInt(10) == 0) {
+                store.remove(path);
+                expect.remove(path);
+            } else {
+                String s = "result " + i + " " + new String(new char[r.nextInt(200)]).replace('\0', 'x');
+                store.put(path, bytes(s));
+                expect.put(path, s);
+            }
+        }
+        return expect;
+    }
+
+    private static ResultStore check(ResultStore store, Map<String, String> expect) throws IOException {
+        Assert.assertEquals(expect.size(), store.getPaths().size());
+        for (Map.Entry<String, String> e : expect.entrySet()) {
+            Assert.assertEquals(e.getValue(), string(store.get(e.getKey())));
+        }
+        return store;
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] b) {
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that copies of an environment share resolved values correctly,
+ * and that values put in one environment do not affect the others.
+ */
+public class TestEnvCopyTest {
+
+    private TestEnvironment env;
+
+    @Before
+    public void setUp() throws Exception {
+        Map<String, String> props = new HashMap<>();
+        props.put("env.e.javaHome", "/jdk");
+        props.put("env.e.java", "$javaHome/bin/java");
+        props.put("env.e.testDir", "$testWorkDir/classes");
+        props.put("env.e.command", "$java -cp $testDir");
+        props.put("env.e.other", "x y");
+        env = new TestEnvironment("e", props, "test");
+        env.put("testWorkDir", "/work");
+    }
+
+    @Test
+    public void copies() throws Exception {
+        Assert.assertArrayEquals(new String[]{"/jdk/bin/java", "-cp", "/work/classes"}, env.lookup("command"));
+
+        // a value put in a copy replaces the values that depend on it, in that copy only
+        TestEnvironment c1 = env.copy();
+        c1.put("testWorkDir", "/work/t1");
+        Assert.assertArrayEquals(new String[]{"/jdk/bin/java", "-cp", "/work/t1/classes"}, c1.lookup("command"));
+        Assert.assertArrayEquals(new String[]{"/jdk/bin/java"}, c1.lookup("java"));
+
+        TestEnvironment c2 = env.copy();
+        Assert.assertArrayEquals(new String[]{"/jdk/bin/java", "-cp", "/work/classes"}, c2.lookup("command"));
+        Assert.assertArrayEquals(new String[]{"/jdk/bin/java", "-cp", "/work/classes"}, env.lookup("command"));
+
+        // a value put in the original after it was copied does not affect the copies
+        env.put("javaHome", "/jdk2");
+        Assert.assertArrayEquals(new String[]{"/jdk2/bin/java", "-cp", "/work/classes"}, env.lookup("command"));
+        Assert.assertArrayEquals(new String[]{"/jdk/bin/java", "-cp", "/work/classes"}, c2.lookup("command"));
+        Assert.assertArrayEquals(new String[]{"/jdk2/bin/java", "-cp", "/work/classes"}, env.copy().lookup("command"));
+    }
+
+    @Test
+    public void elementsUsed() throws Exception {
+        env.lookup("command");
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("command", "java", "javaHome", "testDir")), used(env));
+
+        // a copy that finds the value already resolved still records all the entries used
+        TestEnvironment c = env.copy();
+        Assert.assertTrue(used(c).isEmpty());
+        c.lookup("command");
+        Assert.assertEquals(used(env), used(c));
+
+        c.resetElementsUsed();
+        c.resolve("$other $java");
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("java", "javaHome", "other")), used(c));
+    }
+
+    @Test
+    public void results() throws Exception {
+        // the values returned can be changed without affecting the environment
+        String[] v = env.lookup("other");
+        v[0] = "changed";
+        Assert.assertArrayEquals(new String[]{"x", "y"}, env.lookup("other"));
+
+        env.put("path", "/a/b");
+        Assert.assertArrayEquals(new String[]{"_a_b"}, env.resolve("${path:FS=_}"));
+        Assert.assertArrayEquals(new String[]{"/a/b"}, env.lookup("path"));
+        Assert.assertArrayEquals(new String[]{"/a/b"}, env.getExtraValues().get("path"));
+    }
+
+    private static Set<String> used(TestEnvironment env) {
+        Set<String> s = new TreeSet<>();
+        for (TestEnvironment.Element e : env.elementsUsed()) {
+            s.add(e.getKey());
+        }
+        return s;
+    }
+}
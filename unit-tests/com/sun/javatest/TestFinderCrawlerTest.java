@@ -0,0 +1,206 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.sun.javatest.finder.HTMLTestFinder;
+import com.sun.javatest.finder.TagTestFinder;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that reading a test suite with {@link TestFinderCrawler} finds the
+ * same tests, in the same order, as reading it with a single test finder.
+ */
+public class TestFinderCrawlerTest {
+
+    @Test
+    public void copy() throws Exception {
+        File suite = new File(TestUtil.getAbsPathToTestTestSuite("basic"));
+        TestFinder tf = htmlFinder(suite);
+        TestFinder copy = tf.copy();
+        Assert.assertNotNull(copy);
+        Assert.assertNotSame(tf, copy);
+        Assert.assertEquals(tf.getRoot(), copy.getRoot());
+        Assert.assertSame(tf.getComparator(), copy.getComparator());
+
+        File comp = new File("comp/index.html");
+        tf.read(comp);
+        copy.read(comp);
+        Assert.assertEquals(names(tf.getTests()), names(copy.getTests()));
+        Assert.assertTrue(tf.getTests().length > 0);
+    }
+
+    @Test
+    public void copySubtype() throws Exception {
+        // a subtype may have state that the supertype cannot copy
+        TestFinder tf = new HTMLTestFinder() { };
+        tf.init(null, new File(TestUtil.getAbsPathToTestTestSuite("basic")), null);
+        Assert.assertNull(tf.copy());
+        Assert.assertNull(TestFinderCrawler.newInstance(tf, null));
+    }
+
+    @Test
+    public void basicSuite() throws Exception {
+        checkOrder(htmlFinder(new File(TestUtil.getAbsPathToTestTestSuite("basic"))));
+    }
+
+    @Test
+    public void varietySuite() throws Exception {
+        checkOrder(htmlFinder(new File(TestUtil.getAbsPathToTestTestSuite("variety_tests"))));
+    }
+
+    @Test
+    public void tagSuite() throws Exception {
+        TestFinder tf = new TagTestFinder();
+        tf.init(null, new File(TestUtil.getPathToData("tagtests")).getAbsoluteFile(), null);
+        checkOrder(tf);
+    }
+
+    @Test
+    public void largeSuite() throws Exception {
+        File dir = TestUtil.createTempDirectory("TestFinderCrawlerTest").toFile();
+        for (int d = 0; d < 20; d++) {
+            File sub = new File(dir, "dir" + d);
+            sub.mkdirs();
+            for (int f = 0; f < 10; f++) {
+                writeTests(new File(sub, "tests" + f + ".html"), 5);
+            }
+        }
+        List<String> names = checkOrder(htmlFinder(dir));
+        Assert.assertEquals(20 * 10 * 5, names.size());
+    }
+
+    @Test
+    public void takeOnce() throws Exception {
+        File suite = new File(TestUtil.getAbsPathToTestTestSuite("basic"));
+        TestFinderCrawler crawler = TestFinderCrawler.newInstance(htmlFinder(suite), null);
+        crawler.prefetch(Collections.singletonList(suite));
+
+        TestFinderCrawler.Entry e = crawler.take(suite);
+        Assert.assertNotNull(e);
+        Assert.assertTrue(e.getFiles().length > 0);
+        // the result may only be taken once; after that the file must be read again
+        Assert.assertNull(crawler.take(suite));
+        Assert.assertEquals(files(e.getFiles()), files(crawler.read(suite).getFiles()));
+    }
+
+    private List<String> checkOrder(TestFinder tf) {
+        List<String> expect = new ArrayList<>();
+        TestFinderQueue tfq = new TestFinderQueue(tf);
+        tfq.setTests((String[]) null);
+        TestDescription td;
+        while ((td = tfq.next()) != null) {
+            expect.add(td.getRootRelativeURL());
+        }
+        Assert.assertFalse(expect.isEmpty());
+
+        // the same walk as done by TestFinderQueue, reading files with the finder
+        List<String> serial = walk(tf.getRoot(), f -> {
+            tf.read(f);
+            return new TestFinderCrawler.Entry(tf.getTests(), tf.getFiles(), new String[0], 0);
+        });
+        Assert.assertEquals(expect, serial);
+
+        TestFinderCrawler crawler = TestFinderCrawler.newInstance(tf, null);
+        Assert.assertNotNull(crawler);
+        crawler.prefetch(Collections.singletonList(tf.getRoot()));
+        List<String> parallel = walk(tf.getRoot(), crawler::take);
+        Assert.assertEquals(expect, parallel);
+        return parallel;
+    }
+
+    private static List<String> walk(File root, Function<File, TestFinderCrawler.Entry> reader) {
+        List<String> names = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        Deque<File> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            TestFinderCrawler.Entry e = reader.apply(stack.pop());
+            Assert.assertNotNull(e);
+            for (TestDescription td : e.getTests()) {
+                names.add(td.getRootRelativeURL());
+            }
+            File[] files = e.getFiles();
+            for (int i = files.length - 1; i >= 0; i--) {
+                if (seen.add(files[i].getPath())) {
+                    stack.push(files[i]);
+                }
+            }
+        }
+        return names;
+    }
+
+    private static TestFinder htmlFinder(File root) throws TestFinder.Fault {
+        TestFinder tf = new HTMLTestFinder();
+        tf.init(null, root, null);
+        return tf;
+    }
+
+    private static void writeTests(File file, int count) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file.toPath()))) {
+            out.println("<html><body>");
+            for (int i = 0; i < count; i++) {
+                out.println("<a name=T" + i + ">Test</a>");
+                out.println("<table class=TestDescription>");
+                out.println("<tr><td>title</td><td>Test " + i + "</td></tr>");
+                out.println("<tr><td>source</td><td>T" + i + ".java</td></tr>");
+                out.println("<tr><td>keywords</td><td>positive</td></tr>");
+                out.println("</table>");
+            }
+            out.println("</body></html>");
+        }
+    }
+
+    private static List<String> names(TestDescription... tds) {
+        List<String> names = new ArrayList<>();
+        for (TestDescription td : tds) {
+            names.add(td.getRootRelativeURL());
+        }
+        return names;
+    }
+
+    private static List<String> files(File... files) {
+        List<String> paths = new ArrayList<>();
+        for (File f : files) {
+            paths.add(f.getPath());
+        }
+        return paths;
+    }
+}
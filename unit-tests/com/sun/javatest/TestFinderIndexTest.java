@@ -0,0 +1,226 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import com.sun.javatest.finder.HTMLTestFinder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the test finder index in the work directory is used to avoid
+ * reading files that have not changed when a work directory is reopened.
+ */
+public class TestFinderIndexTest {
+
+    private File suiteDir;
+    private WorkDirectory workDir;
+
+    @Before
+    public void setUp() throws Exception {
+        Path tmp = TestUtil.createTempDirectory("TestFinderIndexTest");
+        suiteDir = tmp.resolve("suite").toFile();
+        copy(new File(TestUtil.getAbsPathToTestTestSuite("basic")).toPath(), suiteDir.toPath());
+        workDir = WorkDirectory.create(tmp.resolve("work").toFile(), TestSuite.open(suiteDir));
+        // CountingFinder is a subtype of HTMLTestFinder, and so is not indexed by default
+        System.setProperty("javatest.finder.index", "true");
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("javatest.finder.index");
+    }
+
+    @Test
+    public void reopen() throws Exception {
+        CountingFinder f1 = new CountingFinder(suiteDir);
+        List<String> tests = readAll(f1);
+        Assert.assertFalse(tests.isEmpty());
+        Assert.assertFalse(f1.scanned.isEmpty());
+        Assert.assertTrue(workDir.getSystemFile(TestFinderIndex.FILE_NAME).exists());
+
+        // nothing has changed, so nothing need be read
+        CountingFinder f2 = new CountingFinder(suiteDir);
+        Assert.assertEquals(tests, readAll(f2));
+        Assert.assertTrue(f2.scanned.toString(), f2.scanned.isEmpty());
+
+        // only the changed file should be read
+        File comp = new File(suiteDir, "comp/index.html");
+        String html = new String(Files.readAllBytes(comp.toPath()), StandardCharsets.UTF_8);
+        Files.write(comp.toPath(), html.replace(
+                "Should Pass: Compilation succeeded as expected</td>",
+                "Should Pass: Compilation succeeded</td>").getBytes(StandardCharsets.UTF_8));
+        comp.setLastModified(comp.lastModified() + 2000);
+
+        CountingFinder f3 = new CountingFinder(suiteDir);
+        TestResultTable trt = new TestResultTable(workDir, f3);
+        try {
+            Assert.assertEquals(tests, names(trt));
+            Assert.assertEquals(1, f3.scanned.size());
+            Assert.assertEquals(comp, f3.scanned.iterator().next());
+            TestResult tr = trt.lookup(TestResult.getWorkRelativePath("comp/index.html#CompSucc"));
+            Assert.assertEquals("Should Pass: Compilation succeeded", tr.getDescription().getTitle());
+        } finally {
+            trt.dispose();
+        }
+    }
+
+    @Test
+    public void corrupt() throws Exception {
+        List<String> tests = readAll(new CountingFinder(suiteDir));
+
+        // a damaged record is ignored, and the file read again
+        File index = workDir.getSystemFile(TestFinderIndex.FILE_NAME);
+        byte[] data = Files.readAllBytes(index.toPath());
+        data[data.length - 1] ^= 0x55;
+        Files.write(index.toPath(), data);
+
+        CountingFinder f = new CountingFinder(suiteDir);
+        Assert.assertEquals(tests, readAll(f));
+        Assert.assertEquals(1, f.scanned.size());
+
+        // and the index is good again
+        CountingFinder f2 = new CountingFinder(suiteDir);
+        Assert.assertEquals(tests, readAll(f2));
+        Assert.assertTrue(f2.scanned.isEmpty());
+    }
+
+    @Test
+    public void tornTail() throws Exception {
+        List<String> tests = readAll(new CountingFinder(suiteDir));
+
+        // an incomplete record at the end of the file, as if the harness
+        // exited while writing it
+        File index = workDir.getSystemFile(TestFinderIndex.FILE_NAME);
+        long size = index.length();
+        Files.write(index.toPath(), new byte[]{0, 0, 0x10, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        // the file is repaired, so that later records are not lost after the damage
+        Assert.assertEquals(tests, readAll(new CountingFinder(suiteDir)));
+        Assert.assertEquals(size, index.length());
+
+        // a change is recorded after the repaired records
+        File comp = new File(suiteDir, "comp/index.html");
+        comp.setLastModified(comp.lastModified() - 2000);
+        CountingFinder f = new CountingFinder(suiteDir);
+        Assert.assertEquals(tests, readAll(f));
+        Assert.assertEquals(1, f.scanned.size());
+
+        CountingFinder f2 = new CountingFinder(suiteDir);
+        Assert.assertEquals(tests, readAll(f2));
+        Assert.assertTrue(f2.scanned.toString(), f2.scanned.isEmpty());
+    }
+
+    @Test
+    public void changedArgs() throws Exception {
+        List<String> tests = readAll(new CountingFinder(suiteDir));
+
+        // the index is not used if the finder is given different args
+        CountingFinder f = new CountingFinder(suiteDir, "-ignore-errors");
+        Assert.assertEquals(tests, readAll(f));
+        Assert.assertFalse(f.scanned.isEmpty());
+
+        CountingFinder f2 = new CountingFinder(suiteDir, "-ignore-errors");
+        Assert.assertEquals(tests, readAll(f2));
+        Assert.assertTrue(f2.scanned.toString(), f2.scanned.isEmpty());
+    }
+
+    @Test
+    public void applicable() throws Exception {
+        System.clearProperty("javatest.finder.index");
+        HTMLTestFinder html = new HTMLTestFinder();
+        html.init(null, suiteDir, null);
+        TestFinderIndex index = TestFinderIndex.open(workDir, html);
+        Assert.assertNotNull(index);
+        index.close();
+
+        // other finders must be enabled explicitly
+        Assert.assertNull(TestFinderIndex.open(workDir, new CountingFinder(suiteDir)));
+
+        System.setProperty("javatest.finder.index", "false");
+        Assert.assertNull(TestFinderIndex.open(workDir, html));
+    }
+
+    private List<String> readAll(TestFinder tf) {
+        TestResultTable trt = new TestResultTable(workDir, tf);
+        try {
+            return names(trt);
+        } finally {
+            trt.dispose();
+        }
+    }
+
+    private static List<String> names(TestResultTable trt) {
+        List<String> names = new ArrayList<>();
+        for (Iterator<TestResult> iter = trt.getIterator(); iter.hasNext(); ) {
+            names.add(iter.next().getTestName());
+        }
+        return names;
+    }
+
+    private static void copy(Path from, Path to) throws IOException {
+        try (Stream<Path> paths = Files.walk(from)) {
+            for (Iterator<Path> iter = paths.iterator(); iter.hasNext(); ) {
+                Path p = iter.next();
+                Path target = to.resolve(from.relativize(p).toString());
+                if (Files.isDirectory(p)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(p, target);
+                }
+            }
+        }
+    }
+
+    public static class CountingFinder extends HTMLTestFinder {
+        final Set<File> scanned = new TreeSet<>();
+
+        CountingFinder(File root, String... args) throws TestFinder.Fault {
+            init(args.length == 0 ? null : args, root, null);
+        }
+
+        @Override
+        protected void scan(File file) {
+            scanned.add(file);
+            super.scan(file);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestResultCacheFileTest {
+
+    private File file;
+    private TestResultCacheFile cache;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("ResultCache3", ".jtw");
+        cache = new TestResultCacheFile(file);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        cache.close();
+        file.delete();
+    }
+
+    @Test
+    public void emptyFile() throws IOException {
+        Assert.assertTrue(cache.isEmpty());
+        Assert.assertEquals(0, cache.size());
+        Assert.assertTrue(cache.readAll().isEmpty());
+        Assert.assertNull(cache.lookup("a/b/c.jtr"));
+    }
+
+    @Test
+    public void emptyCache() throws IOException {
+        cache.rewrite(Collections.<TestResultCacheFile.Entry>emptyList());
+        Assert.assertFalse(cache.isEmpty());
+        Assert.assertEquals(0, cache.size());
+        Assert.assertTrue(cache.readAll().isEmpty());
+    }
+
+    @Test
+    public void lookupAndUpdate() throws IOException {
+        List<TestResultCacheFile.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            entries.add(new TestResultCacheFile.Entry("dir/Test" + i + ".html", Status.PASSED, "ok " + i, i));
+        }
+        cache.rewrite(entries);
+        int serial = cache.getSerial();
+        int modCount = cache.getModCount();
+
+        TestResultCacheFile.Entry e = cache.lookup(TestResult.getWorkRelativePath("dir/Test3.html"));
+        Assert.assertNotNull(e);
+        Assert.assertEquals("dir/Test3.html", e.name);
+        Assert.assertEquals("ok 3", e.reason);
+        Assert.assertEquals(3, e.endTime);
+
+        // shorter reason: updated in place
+        cache.put("dir/Test3.html", Status.failed("no"), 33);
+        // longer reason: appended to the string heap
+        cache.put("dir/Test4.html", Status.error("a much longer reason than before"), 44);
+        // new test
+        cache.put("dir/Test10.html", Status.passed("new"), 100);
+
+        Assert.assertEquals(serial, cache.getSerial());
+        Assert.assertEquals(11, cache.size());
+
+        e = cache.lookup(TestResult.getWorkRelativePath("dir/Test3.html"));
+        Assert.assertEquals(Status.FAILED, e.status);
+        Assert.assertEquals("no", e.reason);
+        Assert.assertEquals(33, e.endTime);
+
+        e = cache.lookup(TestResult.getWorkRelativePath("dir/Test4.html"));
+        Assert.assertEquals(Status.ERROR, e.status);
+        Assert.assertEquals("a much longer reason than before", e.reason);
+        Assert.assertTrue(cache.getWastePercent() > 0);
+
+        List<TestResultCacheFile.Entry> changed = cache.readChangedSince(modCount);
+        Assert.assertEquals(3, changed.size());
+
+        // compressing discards the obsolete strings
+        cache.rewrite(cache.readAll());
+        Assert.assertNotEquals(serial, cache.getSerial());
+        Assert.assertEquals(0, cache.getWastePercent());
+        Assert.assertEquals(11, cache.size());
+        Assert.assertEquals("no", cache.lookup(TestResult.getWorkRelativePath("dir/Test3.html")).reason);
+    }
+
+    @Test
+    public void growAndReopen() throws IOException {
+        int count = 5000;
+        for (int i = 0; i < count; i++) {
+            cache.put("dir" + (i % 7) + "/Test" + i + ".html#id" + i, Status.passed("ok"), i);
+        }
+        Assert.assertEquals(count, cache.size());
+
+        cache.close();
+        cache = new TestResultCacheFile(file);
+        Assert.assertEquals(count, cache.size());
+
+        Map<String, TestResultCacheFile.Entry> all = new HashMap<>();
+        for (TestResultCacheFile.Entry e : cache.readAll()) {
+            all.put(e.name, e);
+        }
+        Assert.assertEquals(count, all.size());
+        for (int i = 0; i < count; i += 97) {
+            String name = "dir" + (i % 7) + "/Test" + i + ".html#id" + i;
+            Assert.assertEquals(i, all.get(name).endTime);
+            Assert.assertEquals(i, cache.lookup(TestResult.getWorkRelativePath(name)).endTime);
+        }
+    }
+
+    @Test
+    public void longReasonIsTruncated() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append('x');
+        }
+        cache.put("Test.html", Status.failed(sb.toString()), 1);
+        String reason = cache.lookup(TestResult.getWorkRelativePath("Test.html")).reason;
+        Assert.assertTrue(reason.length() < 300);
+        Assert.assertTrue(reason.contains("[...]"));
+    }
+
+    @Test
+    public void clear() throws IOException {
+        cache.put("Test.html", Status.passed("ok"), 1);
+        cache.clear();
+        Assert.assertTrue(cache.isEmpty());
+        Assert.assertTrue(cache.readAll().isEmpty());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sun.javatest.util.BackupPolicy;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the summary of a result can be read from the start of a
+ * result file, in either format, without reading the whole file.
+ */
+public class TestResultSummaryTest {
+
+    private WorkDirectory workDir;
+
+    @Before
+    public void setUp() throws Exception {
+        Path tmp = TestUtil.createTempDirectory("TestResultSummaryTest");
+        TestSuite ts = TestSuite.open(new File(TestUtil.getAbsPathToTestTestSuite("basic")));
+        workDir = WorkDirectory.create(tmp.resolve("work").toFile(), ts);
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("javatest.jtrFormat");
+    }
+
+    @Test
+    public void text() throws Exception {
+        check(false);
+    }
+
+    @Test
+    public void binary() throws Exception {
+        check(true);
+    }
+
+    private void check(boolean binary) throws Exception {
+        if (binary) {
+            System.setProperty("javatest.jtrFormat", "binary");
+        }
+        TestResult tr = writeResult(Status.failed("expected failure"));
+        Assert.assertEquals(binary, TestResult.isBinaryResultFile(tr.getFile()));
+
+        TestResult summary = TestResult.readSummary(tr.getFile(), workDir);
+        Assert.assertNotNull(summary);
+        Assert.assertEquals(tr.getTestName(), summary.getTestName());
+        Assert.assertEquals(Status.FAILED, summary.getStatus().getType());
+        Assert.assertEquals("expected failure", summary.getStatus().getReason());
+        Assert.assertEquals(tr.getEndTime(), summary.getEndTime());
+    }
+
+    private TestResult writeResult(Status status) throws Exception {
+        File root = workDir.getTestSuite().getRootDir();
+        Map<String, String> params = new HashMap<>();
+        params.put("id", "Summary");
+        params.put("title", "summary test");
+        TestDescription td = new TestDescription(root, new File(root, "Summary.html"), params);
+
+        TestResult tr = new TestResult(td);
+        // as set by Script
+        tr.putProperty(TestResult.TEST, td.getRootRelativeURL());
+        TestResult.Section s = tr.createSection("test");
+        try (PrintWriter out = s.createOutput("out")) {
+            out.println("some output");
+        }
+        s.setStatus(status);
+        tr.setStatus(status);
+        tr.writeResults(workDir, BackupPolicy.noBackups());
+        return tr;
+    }
+}
@@ -32,9 +32,11 @@ import java.io.PrintStream;
 
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
 
 import com.sun.javatest.finder.HTMLTestFinder;
 import org.junit.Assert;
@@ -58,6 +60,166 @@ public class TestResultTableTest {
         Assert.assertTrue(new TestResultTableTest().run(System.out, TestUtil.getPathToTestTestSuite("simplehtml")));
     }
 
+    @Test
+    public void largeNode() throws TestResult.Fault {
+        File root = new File("ts").getAbsoluteFile();
+        TestResultTable tab = new TestResultTable();
+        int nTests = 1000;
+
+        for (int i = 0; i < nTests; i++) {
+            tab.update(new TestResult(newTD(root, "dir/t" + i + ".html"), Status.passed("ok")));
+            if (i % 100 == 0) {
+                tab.update(new TestResult(newTD(root, "dir/sub" + i + "/t.html"), Status.passed("ok")));
+            }
+        }
+
+        TestResultTable.TreeNode node = (TestResultTable.TreeNode) tab.getRoot().getChild(0);
+        Assert.assertEquals(nTests + nTests / 100, node.getChildCount());
+        Assert.assertEquals(nTests, node.getTestResults().length);
+        Assert.assertEquals(nTests / 100, node.getTreeNodes().length);
+        for (int i = 0; i < node.getChildCount(); i++) {
+            Object child = node.getChild(i);
+            Assert.assertEquals(i, node.getIndex(child));
+            if (child instanceof TestResult) {
+                Assert.assertSame(child, tab.lookup(((TestResult) child).getWorkRelativePath()));
+            }
+        }
+
+        int[] replaced = {-1};
+        node.addObserver(new TestResultTable.TreeNodeObserver() {
+            public void insertedBranch(TestResultTable.TreeNode parent, TestResultTable.TreeNode newNode, int index) { }
+            public void insertedResult(TestResultTable.TreeNode parent, TestResult test, int index) { }
+            public void replacedResult(TestResultTable.TreeNode parent, TestResult oldTest, TestResult newTest, int index) {
+                replaced[0] = index;
+            }
+            public void removedBranch(TestResultTable.TreeNode parent, int index) { }
+            public void removedResult(TestResultTable.TreeNode parent, TestResult test, int index) { }
+            public void countersInvalidated(TestResultTable.TreeNode node) { }
+        });
+
+        TestResult tr = new TestResult(newTD(root, "dir/t500.html"), Status.failed("not ok"));
+        int index = node.getIndex(tab.lookup("dir/t500.jtr"));
+        tab.update(tr);
+        Assert.assertEquals(index, replaced[0]);
+        Assert.assertSame(tr, node.getChild(index));
+        Assert.assertSame(tr, tab.lookup("dir/t500.jtr"));
+        Assert.assertEquals(1, node.getChildStatus()[Status.FAILED]);
+        Assert.assertNull(tab.lookup("dir/t" + nTests + ".jtr"));
+    }
+
+    @Test
+    public void concurrentUpdates() throws Exception {
+        File root = new File("ts").getAbsoluteFile();
+        TestResultTable tab = new TestResultTable();
+        int nThreads = 8;
+        int nTests = 500;
+
+        Thread[] writers = new Thread[nThreads];
+        Throwable[] errors = new Throwable[nThreads + 1];
+        for (int t = 0; t < nThreads; t++) {
+            int id = t;
+            writers[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < nTests; i++) {
+                        // some tests share a branch with other threads, most do not
+                        String dir = (i % 10 == 0 ? "shared/" : "b" + id + "/d" + (i % 7) + "/");
+                        String path = dir + "t" + id + "_" + i + ".html";
+                        tab.update(new TestResult(newTD(root, path), Status.passed("ok")));
+                        tab.update(new TestResult(newTD(root, path), Status.failed("not ok")));
+                    }
+                } catch (Throwable e) {
+                    errors[id] = e;
+                }
+            });
+        }
+
+        Thread reader = new Thread(() -> {
+            try {
+                while (writers[nThreads - 1].isAlive()) {
+                    for (Iterator<TestResult> iter = tab.getIterator(); iter.hasNext(); ) {
+                        Assert.assertNotNull(iter.next());
+                    }
+                }
+            } catch (Throwable e) {
+                errors[nThreads] = e;
+            }
+        });
+
+        for (Thread w : writers) {
+            w.start();
+        }
+        reader.start();
+        for (Thread w : writers) {
+            w.join();
+        }
+        reader.join();
+
+        for (Throwable e : errors) {
+            if (e != null) {
+                throw new AssertionError(e);
+            }
+        }
+
+        Assert.assertEquals(nThreads * nTests, tab.size());
+        Assert.assertEquals(nThreads * nTests, tab.getRoot().getChildStatus()[Status.FAILED]);
+        Assert.assertEquals(0, tab.getRoot().getChildStatus()[Status.PASSED]);
+        for (int t = 0; t < nThreads; t++) {
+            for (int i = 0; i < nTests; i++) {
+                String dir = (i % 10 == 0 ? "shared/" : "b" + t + "/d" + (i % 7) + "/");
+                TestResult tr = tab.lookup(dir + "t" + t + "_" + i + ".jtr");
+                Assert.assertNotNull(tr);
+                Assert.assertEquals(Status.FAILED, tr.getStatus().getType());
+            }
+        }
+    }
+
+    @Test
+    public void concurrentScan() throws Exception {
+        File suiteDir = new File(TestUtil.getAbsPathToTestTestSuite("basic"));
+        WorkDirectory wd = WorkDirectory.create(
+                TestUtil.createTempDirectory("TestResultTableTest").resolve("work").toFile(),
+                TestSuite.open(suiteDir));
+        CountDownLatch started = new CountDownLatch(1);
+        HTMLTestFinder tf = new HTMLTestFinder() {
+            @Override
+            protected void scan(File file) {
+                started.countDown();
+                try {
+                    // give the reader below time to look at the root while it is being scanned
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.scan(file);
+            }
+        };
+        tf.init(null, suiteDir, null);
+        TestResultTable tab = new TestResultTable(wd, tf);
+
+        // a node which is being scanned is not seen as up to date
+        int[] count = new int[1];
+        Thread reader = new Thread(() -> {
+            try {
+                started.await();
+                count[0] = tab.getRoot().getChildCount();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        reader.start();
+        int expect = tab.getRoot().getChildCount();
+        reader.join();
+        Assert.assertTrue(expect > 0);
+        Assert.assertEquals(expect, count[0]);
+        tab.dispose();
+    }
+
+    private static TestDescription newTD(File root, String path) {
+        Hashtable<String, String> params = new Hashtable<>();
+        params.put("title", path);
+        return new TestDescription(root, new File(root, path), params);
+    }
+
     /**
      * Test the TestResultTable class.
      * Argument 1 is the work dir with jtr files.
@@ -0,0 +1,121 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.agent;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class ClassDataCacheTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("classCache").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void digest() {
+        String d = ClassDataCache.digest(data(1, 10));
+        Assert.assertEquals(64, d.length());
+        Assert.assertEquals(d, ClassDataCache.digest(data(1, 10)));
+        Assert.assertNotEquals(d, ClassDataCache.digest(data(2, 10)));
+    }
+
+    @Test
+    public void memoryOnly() {
+        ClassDataCache cache = new ClassDataCache(null, 100);
+        byte[] a = data(1, 40);
+        byte[] b = data(2, 40);
+        byte[] c = data(3, 40);
+        String da = ClassDataCache.digest(a);
+        String db = ClassDataCache.digest(b);
+        String dc = ClassDataCache.digest(c);
+
+        Assert.assertNull(cache.get(da));
+        cache.put(da, a);
+        cache.put(db, b);
+        Assert.assertArrayEquals(a, cache.get(da));
+
+        // b is the least recently used, and so is discarded to make room for c
+        cache.put(dc, c);
+        Assert.assertArrayEquals(a, cache.get(da));
+        Assert.assertNull(cache.get(db));
+        Assert.assertArrayEquals(c, cache.get(dc));
+
+        // too big to keep
+        byte[] big = data(4, 101);
+        cache.put(ClassDataCache.digest(big), big);
+        Assert.assertNull(cache.get(ClassDataCache.digest(big)));
+    }
+
+    @Test
+    public void directory() throws IOException {
+        byte[] a = data(1, 40);
+        String da = ClassDataCache.digest(a);
+        new ClassDataCache(dir, 100).put(da, a);
+
+        // available to a new cache using the same directory
+        ClassDataCache cache = new ClassDataCache(dir, 100);
+        Assert.assertArrayEquals(a, cache.get(da));
+
+        // damaged files are ignored and removed
+        byte[] b = data(2, 40);
+        String db = ClassDataCache.digest(b);
+        Files.write(new File(dir, db).toPath(), data(3, 40));
+        Assert.assertNull(cache.get(db));
+        Assert.assertFalse(new File(dir, db).exists());
+
+        // names that are not digests are never used as file names
+        Assert.assertNull(cache.get("../" + da));
+    }
+
+    private static byte[] data(int seed, int length) {
+        byte[] b = new byte[length];
+        for (int i = 0; i < length; i++) {
+            b[i] = (byte) (seed * 31 + i);
+        }
+        return b;
+    }
+}
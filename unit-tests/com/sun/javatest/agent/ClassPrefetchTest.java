@@ -0,0 +1,217 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.agent;
+
+import com.sun.javatest.Status;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class ClassPrefetchTest {
+
+    private static final String TEST_CLASS = "PrefetchedTest";
+    private static final String TEST_SOURCE =
+            "import com.sun.javatest.Status;\n" +
+            "import java.io.PrintWriter;\n" +
+            "public class " + TEST_CLASS + " implements com.sun.javatest.Test {\n" +
+            "    static class A { int f() { return new B().g() + 1; } }\n" +
+            "    static class B { int g() { return new C().h(); } }\n" +
+            "    static class C { int h() { return 41; } }\n" +
+            "    public Status run(String[] args, PrintWriter log, PrintWriter ref) {\n" +
+            "        return Status.passed(String.valueOf(new A().f()));\n" +
+            "    }\n" +
+            "}\n";
+    // the test class and its nested classes
+    private static final int CLASS_COUNT = 4;
+    private static final String OTHER_CLASS = "OtherPrefetchedTest";
+    private static final String OTHER_SOURCE =
+            "import com.sun.javatest.Status;\n" +
+            "import java.io.PrintWriter;\n" +
+            "public class " + OTHER_CLASS + " implements com.sun.javatest.Test {\n" +
+            "    static class D { int f() { return 7; } }\n" +
+            "    public Status run(String[] args, PrintWriter log, PrintWriter ref) {\n" +
+            "        return Status.passed(String.valueOf(new D().f()));\n" +
+            "    }\n" +
+            "}\n";
+    private static final String COMMAND = "com.sun.javatest.lib.ExecStdTestSameJVMCmd";
+
+    private File dir;
+    private Agent agent;
+    private int port;
+
+    @Before
+    public void setUp() throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(compiler);
+
+        // the classes must not be on the agent's own classpath,
+        // so that the agent has to get them from the harness
+        dir = Files.createTempDirectory("prefetch").toFile();
+        File src = new File(dir, TEST_CLASS + ".java");
+        Files.write(src.toPath(), TEST_SOURCE.getBytes(StandardCharsets.UTF_8));
+        File otherSrc = new File(dir, OTHER_CLASS + ".java");
+        Files.write(otherSrc.toPath(), OTHER_SOURCE.getBytes(StandardCharsets.UTF_8));
+        int rc = compiler.run(null, null, null,
+                "-cp", System.getProperty("java.class.path"), "-d", dir.getPath(),
+                src.getPath(), otherSrc.getPath());
+        Assert.assertEquals(0, rc);
+
+        ServerSocket ss = new ServerSocket(0);
+        port = ss.getLocalPort();
+        agent = new Agent(new PassiveConnectionFactory(ss), 1);
+        Thread t = new Thread(agent);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @After
+    public void tearDown() {
+        if (agent != null) {
+            agent.interrupt();
+        }
+        if (dir != null) {
+            for (File f : dir.listFiles()) {
+                f.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void prefetch() throws IOException {
+        AgentManager.ClassStatistics stats = AgentManager.access().getClassStatistics();
+
+        // the first run records the classes that are loaded
+        long misses = stats.getPrefetchMisses();
+        long hits = stats.getPrefetchHits();
+        long prefetched = stats.getPrefetchedClasses();
+        Assert.assertEquals("Passed. 42", run().toString());
+        Assert.assertEquals(CLASS_COUNT, stats.getPrefetchMisses() - misses);
+        Assert.assertEquals(0, stats.getPrefetchHits() - hits);
+        Assert.assertEquals(0, stats.getPrefetchedClasses() - prefetched);
+
+        // later runs get all the classes ahead of the request
+        for (int i = 0; i < 2; i++) {
+            misses = stats.getPrefetchMisses();
+            hits = stats.getPrefetchHits();
+            prefetched = stats.getPrefetchedClasses();
+            Assert.assertEquals("Passed. 42", run().toString());
+            Assert.assertEquals(0, stats.getPrefetchMisses() - misses);
+            Assert.assertEquals(CLASS_COUNT, stats.getPrefetchHits() - hits);
+            Assert.assertEquals(CLASS_COUNT, stats.getPrefetchedClasses() - prefetched);
+        }
+    }
+
+    @Test
+    public void commandPerTest() throws IOException {
+        AgentManager.ClassStatistics stats = AgentManager.access().getClassStatistics();
+        Assert.assertEquals("Passed. 42", runCommand(TEST_CLASS).toString());
+
+        // a test run by the same command is not sent the classes of another test
+        long prefetched = stats.getPrefetchedClasses();
+        Assert.assertEquals("Passed. 7", runCommand(OTHER_CLASS).toString());
+        Assert.assertEquals(0, stats.getPrefetchedClasses() - prefetched);
+
+        // but each test is sent its own classes
+        prefetched = stats.getPrefetchedClasses();
+        Assert.assertEquals("Passed. 42", runCommand(TEST_CLASS).toString());
+        Assert.assertEquals(CLASS_COUNT, stats.getPrefetchedClasses() - prefetched);
+        prefetched = stats.getPrefetchedClasses();
+        Assert.assertEquals("Passed. 7", runCommand(OTHER_CLASS).toString());
+        Assert.assertEquals(2, stats.getPrefetchedClasses() - prefetched);
+    }
+
+    @Test
+    public void prefetchDisabled() throws IOException {
+        System.setProperty("javatest.agent.prefetch", "false");
+        try {
+            AgentManager.ClassStatistics stats = AgentManager.access().getClassStatistics();
+            for (int i = 0; i < 2; i++) {
+                long prefetched = stats.getPrefetchedClasses();
+                Assert.assertEquals("Passed. 42", run().toString());
+                Assert.assertEquals(0, stats.getPrefetchedClasses() - prefetched);
+            }
+        } finally {
+            System.clearProperty("javatest.agent.prefetch");
+        }
+    }
+
+    @Test
+    public void changedClass() throws IOException {
+        Assert.assertEquals("Passed. 42", run().toString());
+
+        // a class which has changed is not taken from the agent's cache
+        File c = new File(dir, TEST_CLASS + "$C.class");
+        byte[] data = Files.readAllBytes(c.toPath());
+        byte[] changed = replace(data, (byte) 41, (byte) 40);
+        Files.write(c.toPath(), changed);
+        c.setLastModified(c.lastModified() + 2000);
+
+        Assert.assertEquals("Passed. 41", run().toString());
+    }
+
+    private Status run() throws IOException {
+        AgentManager.Task task = AgentManager.access().connectToPassiveAgent("localhost", port);
+        task.setClassPath(new File[]{dir});
+        StringWriter out = new StringWriter();
+        return task.executeTest("prefetch", TEST_CLASS, new String[0], false,
+                new PrintWriter(out), new PrintWriter(out));
+    }
+
+    private Status runCommand(String testClass) throws IOException {
+        AgentManager.Task task = AgentManager.access().connectToPassiveAgent("localhost", port);
+        task.setClassPath(new File[]{dir});
+        StringWriter out = new StringWriter();
+        return task.executeCommand("prefetch", COMMAND, new String[]{testClass}, false,
+                new PrintWriter(out), new PrintWriter(out));
+    }
+
+    private static byte[] replace(byte[] data, byte from, byte to) {
+        // the constant is loaded with "bipush 41"
+        byte[] result = Arrays.copyOf(data, data.length);
+        for (int i = 0; i < result.length - 1; i++) {
+            if (result[i] == 0x10 && result[i + 1] == from) {
+                result[i + 1] = to;
+                return result;
+            }
+        }
+        throw new AssertionError("constant not found");
+    }
+}
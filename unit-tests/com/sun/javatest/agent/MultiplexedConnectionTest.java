@@ -0,0 +1,141 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.agent;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MultiplexedConnectionTest {
+
+    @Test
+    public void frames() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MultiplexedConnection writer = newConnection(new byte[0], bytes);
+        writer.writeFrame((byte) 1, 7, new byte[]{1, 2, 3}, false);
+        writer.writeFrame((byte) 2, 8);
+
+        Recorder r = new Recorder();
+        newConnection(bytes.toByteArray(), new ByteArrayOutputStream()).readFrames(r);
+        Assert.assertEquals(2, r.frames.size());
+        Assert.assertEquals(7, r.frames.get(0).id);
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, r.frames.get(0).data);
+        Assert.assertEquals(8, r.frames.get(1).id);
+        Assert.assertTrue(r.closed);
+        Assert.assertNull(r.exception);
+    }
+
+    @Test
+    public void frameTooLarge() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(1);
+        out.writeInt(7);
+        out.writeInt(Integer.MAX_VALUE);
+        out.flush();
+
+        Recorder r = new Recorder();
+        MultiplexedConnection mc = newConnection(bytes.toByteArray(), new ByteArrayOutputStream());
+        mc.readFrames(r);
+        Assert.assertTrue(r.frames.isEmpty());
+        Assert.assertTrue(r.closed);
+        Assert.assertNotNull(r.exception);
+        Assert.assertTrue(mc.isClosed());
+
+        try {
+            newConnection(new byte[0], new ByteArrayOutputStream())
+                    .writeFrame((byte) 1, 7, new byte[MultiplexedConnection.MAX_FRAME_SIZE + 1], true);
+            Assert.fail("expected exception");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static MultiplexedConnection newConnection(byte[] input, OutputStream output) {
+        Connection c = new Connection() {
+            private final InputStream in = new ByteArrayInputStream(input);
+            private boolean closed;
+
+            @Override
+            public String getName() {
+                return "test";
+            }
+
+            @Override
+            public InputStream getInputStream() {
+                return in;
+            }
+
+            @Override
+            public OutputStream getOutputStream() {
+                return output;
+            }
+
+            @Override
+            public void close() {
+                closed = true;
+            }
+
+            @Override
+            public boolean isClosed() {
+                return closed;
+            }
+
+            @Override
+            public void waitUntilClosed(int timeout) {
+            }
+        };
+        return new MultiplexedConnection(c, new DataInputStream(c.getInputStream()),
+                new DataOutputStream(c.getOutputStream()));
+    }
+
+    private static class Recorder implements MultiplexedConnection.Handler {
+        final List<MultiplexedConnection.Frame> frames = new ArrayList<>();
+        boolean closed;
+        IOException exception;
+
+        @Override
+        public void handleFrame(MultiplexedConnection.Frame frame) {
+            frames.add(frame);
+        }
+
+        @Override
+        public void connectionClosed(IOException e) {
+            closed = true;
+            exception = e;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.agent;
+
+import com.sun.javatest.Status;
+import com.sun.javatest.Test;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.ServerSocket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class MultiplexedSessionTest {
+
+    private Agent agent;
+    private int port;
+
+    @Before
+    public void setUp() throws IOException {
+        ServerSocket ss = new ServerSocket(0);
+        port = ss.getLocalPort();
+        agent = new Agent(new PassiveConnectionFactory(ss), 1);
+        Thread t = new Thread(agent);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("javatest.agent.multiplex");
+        agent.interrupt();
+    }
+
+    @org.junit.Test(timeout = 60000)
+    public void cancelInterruptsTest() throws Exception {
+        Status[] status = new Status[1];
+        Thread harness = new Thread(() -> status[0] = run(SleepingTest.class.getName()));
+        harness.start();
+        Assert.assertTrue(SleepingTest.started.await(30, TimeUnit.SECONDS));
+
+        // as when the test times out
+        harness.interrupt();
+        harness.join();
+        Assert.assertEquals(Status.ERROR, status[0].getType());
+        Assert.assertTrue(SleepingTest.interrupted.await(30, TimeUnit.SECONDS));
+    }
+
+    @org.junit.Test(timeout = 60000)
+    public void sessionDoesNotHoldThread() throws Exception {
+        // the multiplexed connection is left open after the request
+        Assert.assertEquals("Passed. ok", run(PassingTest.class.getName()).toString());
+
+        // with a concurrency of 1, another connection can still be accepted
+        System.setProperty("javatest.agent.multiplex", "false");
+        Assert.assertEquals("Passed. ok", run(PassingTest.class.getName()).toString());
+    }
+
+    private Status run(String className) {
+        try {
+            AgentManager.Task task = AgentManager.access().connectToPassiveAgent("localhost", port);
+            StringWriter out = new StringWriter();
+            return task.executeTest("session", className, new String[0], false,
+                    new PrintWriter(out), new PrintWriter(out));
+        } catch (IOException e) {
+            return Status.error(e.toString());
+        }
+    }
+
+    public static class PassingTest implements Test {
+        @Override
+        public Status run(String[] args, PrintWriter log, PrintWriter ref) {
+            return Status.passed("ok");
+        }
+    }
+
+    public static class SleepingTest implements Test {
+        static final CountDownLatch started = new CountDownLatch(1);
+        static final CountDownLatch interrupted = new CountDownLatch(1);
+
+        @Override
+        public Status run(String[] args, PrintWriter log, PrintWriter ref) {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(5));
+                return Status.failed("not interrupted");
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                return Status.error("interrupted");
+            }
+        }
+    }
+}
@@ -27,14 +27,22 @@
 package com.sun.javatest.agent;
 
 import java.io.BufferedReader;
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PipedReader;
 import java.io.PipedWriter;
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.io.PushbackInputStream;
 import java.io.Reader;
 import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.sun.javatest.Status;
 import com.sun.javatest.Test;
@@ -50,46 +58,123 @@ public class RemoteTest {
         Assert.assertTrue(ok);
     }
 
+    @org.junit.Test
+    public void virtualThreads() {
+        RemoteTest t = new RemoteTest();
+        t.useVirtualThreads = true;
+        boolean ok = t.run(System.out);
+        Assert.assertTrue(ok);
+    }
+
+    @org.junit.Test
+    public void concurrentRequests() {
+        RemoteTest t = new RemoteTest();
+        t.agentConcurrency = 4;
+        t.nClients = 4;
+        boolean ok = t.run(System.out);
+        Assert.assertTrue(ok);
+        // all requests share a single connection
+        Assert.assertEquals(1, t.connections.size());
+    }
+
+    @org.junit.Test
+    public void oneShotConnections() {
+        System.setProperty("javatest.agent.multiplex", "false");
+        try {
+            RemoteTest t = new RemoteTest();
+            boolean ok = t.run(System.out);
+            Assert.assertTrue(ok);
+            Assert.assertEquals(t.nTests, t.connections.size());
+        } finally {
+            System.clearProperty("javatest.agent.multiplex");
+        }
+    }
+
+    @org.junit.Test
+    public void olderAgent() {
+        RemoteTest t = new RemoteTest();
+        t.olderAgent = true;
+        boolean ok = t.run(System.out);
+        Assert.assertTrue(ok);
+        Assert.assertEquals(t.nTests, t.connections.size());
+        // the agent is only asked once to use a multiplexed connection
+        Assert.assertEquals(1, t.rejected.get());
+    }
+
     public boolean run(PrintStream log) {
         String host = "localhost";
         int port = 0;
         int seed = 0;
 
+        AgentManager.Observer obs = new AgentManager.Observer() {
+            public void started(Connection connection, String tag, String request, String executable,
+                                String[] args, boolean localizeArgs) {
+                connections.add(connection);
+            }
+
+            public void finished(Connection connection, Status status) {
+            }
+        };
+        AgentManager.access().addObserver(obs);
+
         try {
             ServerSocket ss = new ServerSocket(port);
             if (port == 0)
                 port = ss.getLocalPort();
-            ConnectionFactory cf = new PassiveConnectionFactory(ss);
-            Agent agent = new Agent(cf, 1);
+            ConnectionFactory cf = olderAgent ? new OlderAgentConnectionFactory(ss) : new PassiveConnectionFactory(ss);
+            Agent agent = new Agent(cf, agentConcurrency, useVirtualThreads);
             Thread t = new Thread(agent);
             t.setName("Test Agent");
             t.start();
             log.println("Test Agent started");
 
             Random rgen = new Random(seed);
-            int nTestsOK = 0;
-
-            for (int i = 0; i < nTests; i++) {
-                Parent p = new Parent(host, port, Child.class.getName(), rgen.nextInt(), log);
-                Status s = p.run();
-                if (s.getType() == Status.PASSED)
-                    nTestsOK++;
+            AtomicInteger nTestsOK = new AtomicInteger();
+
+            ThreadSet clients = new ThreadSet();
+            for (int c = 0; c < nClients; c++) {
+                int[] seeds = new int[nTests / nClients];
+                for (int i = 0; i < seeds.length; i++)
+                    seeds[i] = rgen.nextInt();
+                final int agentPort = port;
+                clients.add(new Thread(() -> {
+                    try {
+                        for (int s : seeds) {
+                            Parent p = new Parent(host, agentPort, Child.class.getName(), s, log);
+                            if (p.run().getType() == Status.PASSED)
+                                nTestsOK.incrementAndGet();
+                        }
+                    } finally {
+                        clients.notifyExiting();
+                    }
+                }));
             }
+            clients.start();
+            clients.join();
+            nTests = nTests / nClients * nClients;
 
-            if (nTestsOK == nTests) {
+            if (nTestsOK.get() == nTests) {
                 log.println("all tests succeeded");
                 return true;
             } else {
-                log.println((nTests - nTestsOK) + " tests failed out of " + nTests);
+                log.println((nTests - nTestsOK.get()) + " tests failed out of " + nTests);
                 return false;
             }
-        } catch (IOException e) {
+        } catch (IOException | InterruptedException e) {
             log.println("Unexpected exception: " + e);
             return false;
+        } finally {
+            AgentManager.access().removeObserver(obs);
         }
     }
 
     private int nTests = 10;
+    private boolean useVirtualThreads;
+    private int agentConcurrency = 1;
+    private int nClients = 1;
+    private boolean olderAgent;
+    private final Set<Connection> connections = Collections.synchronizedSet(new HashSet<>());
+    private final AtomicInteger rejected = new AtomicInteger();
     static final int MAX_LINES_PER_TEST = 128;
     static final int MAX_CHARS_PER_LINE = 128;
 
@@ -193,6 +278,50 @@ public class RemoteTest {
 
     }
 
+    /**
+     * Simulates an agent which only supports one request per connection,
+     * by rejecting any connection which asks for a newer protocol.
+     */
+    private class OlderAgentConnectionFactory implements ConnectionFactory {
+        OlderAgentConnectionFactory(ServerSocket ss) {
+            this.ss = ss;
+        }
+
+        public Connection nextConnection() throws Fault {
+            try {
+                while (true) {
+                    Socket s = ss.accept();
+                    PushbackInputStream in = new PushbackInputStream(s.getInputStream(), 2);
+                    byte[] version = new byte[2];
+                    new DataInputStream(in).readFully(version);
+                    if (version[0] == 0 && version[1] == Agent.protocolVersion) {
+                        in.unread(version);
+                        return new SocketConnection(s) {
+                            @Override
+                            public InputStream getInputStream() {
+                                return in;
+                            }
+                        };
+                    }
+                    rejected.incrementAndGet();
+                    s.close();
+                }
+            } catch (IOException e) {
+                throw new Fault(e, true);
+            }
+        }
+
+        public void close() throws Fault {
+            try {
+                ss.close();
+            } catch (IOException e) {
+                throw new Fault(e, true);
+            }
+        }
+
+        private final ServerSocket ss;
+    }
+
     private static class RandomReader extends Thread {
         RandomReader(int seed, Reader in, ThreadSet t) {
             this.seed = seed;
@@ -46,6 +46,8 @@ import org.junit.Test;
 
 public class BinaryTestFinderTest {
 
+    private boolean stored;
+
     public class Fault extends Exception {
         static final long serialVersionUID = 0L;
         Fault(String msg) {
@@ -64,6 +66,18 @@ public class BinaryTestFinderTest {
         Assert.assertTrue(ok);
     }
 
+    @Test
+    public void testDemoTCKStored() throws IOException, Fault {
+        boolean ok;
+        BinaryTestFinderTest t = new BinaryTestFinderTest();
+        t.stored = true;
+        Path absTmpPath = Paths.get(System.getProperty("build.tmp")).toAbsolutePath().normalize();
+        String workDir = Files.createTempDirectory(absTmpPath, "BinaryTestFinderTestWorkDir_demotck_stored").toAbsolutePath().toString();
+        String testSuiteHtml = TestUtil.getPathToTestTestSuite("demotck", "testsuite.html");
+        ok = t.run(System.out, 11, testSuiteHtml, workDir);
+        Assert.assertTrue(ok);
+    }
+
     @Test
     public void testIniturlTCK() throws IOException, Fault {
         boolean ok;
@@ -108,13 +122,16 @@ public class BinaryTestFinderTest {
                 testWorkDir.mkdirs();
             }
 
-            String[] btwArgs = {
+            List<String> btwArgs = new ArrayList<>(Arrays.asList(
                     "-finder", "com.sun.javatest.finder.HTMLTestFinder", "-dirWalk", "-end",
                     "-o", binaryFile.getCanonicalPath(),
                     testSuite.getPath()
-            };
+            ));
+            if (stored) {
+                btwArgs.add(0, "-stored");
+            }
             BinaryTestWriter m = new BinaryTestWriter();
-            m.run(btwArgs);
+            m.run(btwArgs.toArray(new String[btwArgs.size()]));
 
             log.println("Created binary file at: " + binaryFile.getCanonicalPath());
         } catch (IOException e) {
@@ -221,7 +238,7 @@ public class BinaryTestFinderTest {
     private BinaryTestFinder initializeBTF(File ts, String binary) throws Fault {
         BinaryTestFinder tf = new BinaryTestFinder();
         try {
-            String[] args = {"-binary", binary};
+            String[] args = stored ? new String[]{"-intern", "-binary", binary} : new String[]{"-binary", binary};
             tf.init(args, ts, null);
         } catch (TestFinder.Fault e) {
             throw new Fault("Error: Can't initialize test-finder: " + e.getMessage());
@@ -0,0 +1,193 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.finder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.sun.javatest.TestDescription;
+import com.sun.javatest.TestFinderQueue;
+import com.sun.javatest.TestUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that a data file updated by BinaryTestWriter -update contains
+ * the same tests as one written from scratch.
+ */
+public class BinaryTestUpdaterTest {
+
+    private File suiteDir;
+    private File testSuite;
+    private File jtd;
+
+    @Before
+    public void setUp() throws Exception {
+        Path tmp = TestUtil.createTempDirectory("BinaryTestUpdaterTest");
+        suiteDir = tmp.resolve("suite").toFile();
+        copy(new File(TestUtil.getAbsPathToTestTestSuite("demotck")).toPath(), suiteDir.toPath());
+        testSuite = new File(suiteDir, "testsuite.html");
+        jtd = tmp.resolve("testsuite.jtd").toFile();
+        write(jtd);
+    }
+
+    @Test
+    public void noChanges() throws Exception {
+        List<String> tests = readAll(jtd);
+        write(jtd, "-update", "comp/index.html");
+        Assert.assertEquals(tests, readAll(jtd));
+    }
+
+    @Test
+    public void changes() throws Exception {
+        // change a test, remove a directory of tests and add a new one
+        File comp = new File(suiteDir, "comp/index.html");
+        String html = new String(Files.readAllBytes(comp.toPath()), StandardCharsets.UTF_8);
+        Files.write(comp.toPath(), html.replace(
+                "Should Pass: Compilation succeeded as expected</td>",
+                "Should Pass: Compilation succeeded</td>").getBytes(StandardCharsets.UTF_8));
+        File exec = new File(suiteDir, "exec/index.html");
+        Assert.assertTrue(exec.delete());
+        File extra = new File(suiteDir, "extra/index.html");
+        Files.createDirectories(extra.getParentFile().toPath());
+        Files.write(extra.toPath(), html.getBytes(StandardCharsets.UTF_8));
+
+        write(jtd, "-update", comp.getPath(), "exec/index.html", "extra/index.html");
+
+        File full = new File(jtd.getParentFile(), "full.jtd");
+        write(full);
+        List<String> tests = readAll(jtd);
+        Assert.assertEquals(readAll(full), tests);
+        Assert.assertTrue(tests.toString(), tests.stream().anyMatch(s -> s.startsWith("comp/index.html#CompSucc ")
+                && s.endsWith(" title=Should Pass: Compilation succeeded")));
+        Assert.assertTrue(tests.toString(), tests.stream().anyMatch(s -> s.startsWith("extra/index.html#")));
+        Assert.assertFalse(tests.stream().anyMatch(s -> s.startsWith("exec/")));
+    }
+
+    @Test
+    public void storedChanges() throws Exception {
+        // an updated file keeps the entries uncompressed, so that it can still be mapped
+        write(jtd, "-stored");
+        File comp = new File(suiteDir, "comp/index.html");
+        String html = new String(Files.readAllBytes(comp.toPath()), StandardCharsets.UTF_8);
+        Files.write(comp.toPath(), html.replace("Should Pass:", "Should Pass (changed):")
+                .getBytes(StandardCharsets.UTF_8));
+        write(jtd, "-update", "comp/index.html");
+        try (ZipFile zf = new ZipFile(jtd)) {
+            Assert.assertEquals(ZipEntry.STORED, zf.getEntry("strings").getMethod());
+            Assert.assertEquals(ZipEntry.STORED, zf.getEntry("tests").getMethod());
+        }
+
+        File full = new File(jtd.getParentFile(), "full.jtd");
+        write(full);
+        Assert.assertEquals(readAll(full), readAll(jtd));
+    }
+
+    @Test
+    public void repeatedChanges() throws Exception {
+        // enough updates of the same file for the test table to be compacted
+        File comp = new File(suiteDir, "comp/index.html");
+        File changes = new File(jtd.getParentFile(), "changes.txt");
+        Files.write(changes.toPath(), Arrays.asList("comp/index.html", ""));
+        String html = new String(Files.readAllBytes(comp.toPath()), StandardCharsets.UTF_8);
+        long size = 0;
+        for (int i = 0; i < 10; i++) {
+            Files.write(comp.toPath(), html.replace("Should Pass:", "Should Pass " + i + ":")
+                    .getBytes(StandardCharsets.UTF_8));
+            write(jtd, "-update", "-changes", changes.getPath());
+            if (i == 1) {
+                size = jtd.length();
+            }
+        }
+        Assert.assertTrue(jtd.length() < size * 2);
+
+        File full = new File(jtd.getParentFile(), "full.jtd");
+        write(full);
+        Assert.assertEquals(readAll(full), readAll(jtd));
+    }
+
+    @Test(expected = BinaryTestWriter.BadArgs.class)
+    public void changesWithoutUpdate() throws Exception {
+        write(jtd, "-changes", "changes.txt");
+    }
+
+    private void write(File out, String... args) throws Exception {
+        List<String> l = new ArrayList<>(Arrays.asList(
+                "-finder", "com.sun.javatest.finder.HTMLTestFinder", "-dirWalk", "-end",
+                "-o", out.getPath()));
+        int i = args.length > 0 && args[0].equals("-update")
+                ? (args.length > 1 && args[1].equals("-changes") ? 3 : 1)
+                : args.length;
+        l.addAll(Arrays.asList(args).subList(0, i));
+        l.add(testSuite.getPath());
+        l.addAll(Arrays.asList(args).subList(i, args.length));
+        Assert.assertEquals(0, new BinaryTestWriter().run(l.toArray(new String[l.size()])));
+    }
+
+    private List<String> readAll(File binary) throws Exception {
+        BinaryTestFinder tf = new BinaryTestFinder();
+        tf.init(new String[]{"-binary", binary.getPath()}, testSuite, null);
+        TestFinderQueue tfq = new TestFinderQueue(tf);
+        tfq.setTests(new String[]{""});
+        List<String> tests = new ArrayList<>();
+        TestDescription td;
+        while ((td = tfq.next()) != null) {
+            StringBuilder sb = new StringBuilder(td.getRootRelativeURL());
+            for (Iterator<String> iter = td.getParameterKeys(); iter.hasNext(); ) {
+                String key = iter.next();
+                sb.append(' ').append(key).append('=').append(td.getParameter(key));
+            }
+            tests.add(sb.toString());
+        }
+        return tests;
+    }
+
+    private static void copy(Path from, Path to) throws IOException {
+        try (Stream<Path> paths = Files.walk(from)) {
+            for (Iterator<Path> iter = paths.iterator(); iter.hasNext(); ) {
+                Path p = iter.next();
+                Path target = to.resolve(from.relativize(p).toString());
+                if (Files.isDirectory(p)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(p, target);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.functional.basic2;
+
+import com.sun.javatest.ConvertJTR;
+import com.sun.javatest.TestResult;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class AllTestsRunBinaryJTR extends AllTestsRun {
+
+    @Before
+    public void selectBinaryFormat() {
+        System.setProperty("javatest.jtrFormat", "binary");
+    }
+
+    @After
+    public void resetFormat() {
+        System.clearProperty("javatest.jtrFormat");
+    }
+
+    @Override
+    @Test
+    public void test() {
+        runJavaTest();
+        try {
+            List<Path> jtrs = findJTRs();
+            Assert.assertEquals(12, jtrs.size());
+
+            List<String> binaryResults = new ArrayList<>();
+            for (Path p : jtrs) {
+                Assert.assertTrue(p.toString(), startsWith(p, "JTR3"));
+                binaryResults.add(dump(new TestResult(p.toFile())));
+            }
+
+            ConvertJTR c = new ConvertJTR();
+            c.setBinary(false);
+            Assert.assertEquals(12, c.convert(new File(workDirAbsPath)));
+            // nothing left to convert
+            Assert.assertEquals(0, c.convert(new File(workDirAbsPath)));
+
+            for (int i = 0; i < jtrs.size(); i++) {
+                Path p = jtrs.get(i);
+                Assert.assertTrue(p.toString(), startsWith(p, "#Test Results"));
+                Assert.assertEquals(binaryResults.get(i), dump(new TestResult(p.toFile())));
+            }
+
+            c.setBinary(true);
+            Assert.assertEquals(12, c.convert(new File(workDirAbsPath)));
+            for (Path p : jtrs) {
+                Assert.assertTrue(p.toString(), startsWith(p, "JTR3"));
+            }
+
+            // output which cannot be read from where it was, because the
+            // file has been rewritten, is taken from the new file instead
+            File f = jtrs.get(0).toFile();
+            TestResult tr = new TestResult(f);
+            List<TestResult.Section> sections = new ArrayList<>();
+            for (int i = 0; i < tr.getSectionCount(); i++) {
+                sections.add(tr.getSection(i));
+            }
+            c.setBinary(false);
+            Assert.assertEquals(1, c.convert(f));
+            Assert.assertTrue(f.setLastModified(f.lastModified() + 2000));
+            TestResult expect = new TestResult(f);
+            for (int i = 0; i < sections.size(); i++) {
+                for (String name : sections.get(i).getOutputNames()) {
+                    Assert.assertEquals(expect.getSection(i).getOutput(name), sections.get(i).getOutput(name));
+                }
+            }
+
+            // if the file has gone, the problem is reported as the output
+            f = jtrs.get(1).toFile();
+            TestResult.Section s = new TestResult(f).getSection(0);
+            Assert.assertTrue(f.delete());
+            for (String name : s.getOutputNames()) {
+                Assert.assertTrue(s.getOutput(name).contains(f.getName()));
+            }
+        } catch (IOException | TestResult.Fault e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String dump(TestResult tr) throws TestResult.Fault {
+        StringBuilder sb = new StringBuilder();
+        sb.append(tr.getStatus()).append('\n');
+        sb.append(tr.getProperty("end")).append('\n');
+        for (int i = 0; i < tr.getSectionCount(); i++) {
+            TestResult.Section s = tr.getSection(i);
+            sb.append(s.getTitle()).append(' ').append(s.getStatus()).append('\n');
+            for (String name : s.getOutputNames()) {
+                sb.append(name).append(':').append(s.getOutput(name)).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private List<Path> findJTRs() throws IOException {
+        try (Stream<Path> s = Files.walk(Paths.get(workDirAbsPath))) {
+            return s.filter(p -> p.toString().endsWith(".jtr")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static boolean startsWith(Path p, String prefix) throws IOException {
+        byte[] bytes = Files.readAllBytes(p);
+        return new String(bytes, 0, Math.min(bytes.length, prefix.length()), StandardCharsets.ISO_8859_1).equals(prefix);
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.functional.basic2;
+
+import com.sun.javatest.Status;
+import com.sun.javatest.TestResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+public class AllTestsRunPooledJVM extends AllTestsRun {
+
+    @Override
+    protected String getEnvName() {
+        return "basic-pool";
+    }
+
+    @Override
+    @Test
+    public void test() {
+        runJavaTest();
+        for (String name : new String[]{"ExecSucc", "ExecSucc2", "ExecArgs"}) {
+            File jtr = Paths.get(workDirAbsPath, "exec", "index_" + name + ".jtr").toFile();
+            try {
+                String log = new String(Files.readAllBytes(jtr.toPath()), "UTF-8");
+                Assert.assertTrue(name, log.contains("Command is run in a pooled JVM"));
+                Assert.assertFalse(name, log.contains("No pooled JVM available"));
+                Assert.assertEquals(name, Status.PASSED, new TestResult(jtr).getStatus().getType());
+            } catch (IOException | TestResult.Fault e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.functional.basic2;
+
+import com.sun.javatest.ExportJTR;
+import com.sun.javatest.TestResult;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class AllTestsRunResultStore extends AllTestsRun {
+
+    @Before
+    public void selectResultStore() {
+        System.setProperty("javatest.resultStore", "log");
+    }
+
+    @After
+    public void resetResultStore() {
+        System.clearProperty("javatest.resultStore");
+    }
+
+    @Override
+    @Test
+    public void test() {
+        runJavaTest();
+        try {
+            // the results are all in the store
+            Assert.assertEquals(0, findJTRs(Paths.get(workDirAbsPath)).size());
+            Assert.assertTrue(Files.isDirectory(Paths.get(workDirAbsPath, "jtData", "results")));
+
+            File exportDir = Files.createTempDirectory("jt-export-").toFile();
+            Assert.assertEquals(12, new ExportJTR(new File(workDirAbsPath), exportDir).run());
+
+            List<Path> jtrs = findJTRs(exportDir.toPath());
+            Assert.assertEquals(12, jtrs.size());
+            for (Path p : jtrs) {
+                TestResult tr = new TestResult(p.toFile());
+                Assert.assertTrue(p.toString().endsWith(tr.getWorkRelativePath().replace('/', File.separatorChar)));
+                Assert.assertTrue(tr.getSectionCount() > 0);
+            }
+        } catch (IOException | TestResult.Fault e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static List<Path> findJTRs(Path dir) throws IOException {
+        try (Stream<Path> s = Files.walk(dir)) {
+            return s.filter(p -> p.toString().endsWith(".jtr")).sorted().collect(Collectors.toList());
+        }
+    }
+
+}
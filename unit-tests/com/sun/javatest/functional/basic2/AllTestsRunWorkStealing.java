@@ -0,0 +1,65 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.functional.basic2;
+
+import com.sun.javatest.WorkDirectory;
+import com.sun.javatest.WorkStealingTestRunner;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+public class AllTestsRunWorkStealing extends AllTestsRun {
+
+    @Before
+    public void selectTestRunner() {
+        System.setProperty("javatest.testRunner", WorkStealingTestRunner.NAME);
+    }
+
+    @After
+    public void resetTestRunner() {
+        System.clearProperty("javatest.testRunner");
+    }
+
+    @Override
+    @Test
+    public void test() {
+        runJavaTest();
+        // the execution times are recorded for the next run
+        Assert.assertTrue(Paths.get(workDirAbsPath, WorkDirectory.JTDATA, "testTimes.dat").toFile().length() > 0);
+    }
+
+    @Override
+    protected List<String> getTailArgs() {
+        return Arrays.asList("-concurrency", "4");
+    }
+
+}
@@ -0,0 +1,247 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.lib;
+
+import com.sun.javatest.Status;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Checks when {@link JVMPool} reuses a JVM, when it retires one, and when
+ * it leaves a test to be run in a JVM of its own.
+ */
+public class JVMPoolTest {
+
+    private static final String JAVA = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    private static final String CLASSPATH = System.getProperty("java.class.path");
+
+    private JVMPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new JVMPool(2, 4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    public void reused() throws Exception {
+        Run first = run(IdTest.class);
+        Run second = run(IdTest.class);
+        Assert.assertTrue(first.status.isPassed());
+        Assert.assertTrue(second.status.isPassed());
+        Assert.assertEquals(first.jvm, second.jvm);
+    }
+
+    @Test
+    public void recycledAfterMaxTests() throws Exception {
+        Run first = run(IdTest.class);
+        Run second = run(IdTest.class);
+        Run third = run(IdTest.class);
+        Assert.assertEquals(first.jvm, second.jvm);
+        Assert.assertNotEquals(second.jvm, third.jvm);
+        Assert.assertTrue(third.status.isPassed());
+    }
+
+    @Test
+    public void recycledAfterExit() throws Exception {
+        Run first = run(IdTest.class);
+        Run exit = run(ExitTest.class);
+        Assert.assertTrue(exit.status.isFailed());
+        Assert.assertEquals("exit called", exit.status.getReason());
+
+        Run next = run(IdTest.class);
+        Assert.assertNotEquals(first.jvm, next.jvm);
+        Assert.assertTrue(next.status.isPassed());
+    }
+
+    @Test
+    public void recycledAfterLeakedThread() throws Exception {
+        Run leak = run(LeakThreadTest.class);
+        Assert.assertTrue(leak.status.isPassed());
+
+        Run next = run(IdTest.class);
+        Assert.assertNotEquals(leak.jvm, next.jvm);
+        Assert.assertTrue(next.status.isPassed());
+    }
+
+    @Test
+    public void notATest() throws Exception {
+        Run first = run(IdTest.class);
+        Assert.assertNull(exec(NotATest.class.getName()).status);
+
+        // the JVM is still used, since the class was not run
+        Run next = run(IdTest.class);
+        Assert.assertEquals(first.jvm, next.jvm);
+    }
+
+    @Test
+    public void badFrame() throws Exception {
+        Run first = run(IdTest.class);
+        Run bad = run(BadFrameTest.class);
+        Assert.assertFalse(bad.status.isPassed());
+
+        Run next = run(IdTest.class);
+        Assert.assertNotEquals(first.jvm, next.jvm);
+        Assert.assertTrue(next.status.isPassed());
+    }
+
+    @Test
+    public void isolated() {
+        Assert.assertTrue(runCommand("-pool").contains("Command is run in a pooled JVM"));
+        Assert.assertFalse(runCommand("-pool", "-isolated").contains("pooled JVM"));
+        Assert.assertFalse(runCommand("-pool", "-keywords", "positive " + ExecStdTestOtherJVMCmd.ISOLATED_KEYWORD)
+                .contains("pooled JVM"));
+    }
+
+    @Test
+    public void findClassName() {
+        Assert.assertEquals(3, JVMPool.findClassName(JAVA, "-cp", CLASSPATH, "Test", "-arg"));
+        Assert.assertEquals(-1, JVMPool.findClassName(JAVA, "-jar", "test.jar"));
+        Assert.assertEquals(-1, JVMPool.findClassName(JAVA, "-cp", CLASSPATH, "--module=m/Test"));
+    }
+
+    /**
+     * Run a test class with the command, and return its log.
+     */
+    private static String runCommand(String... options) {
+        String[] cmd = {"-v", JAVA, "-cp", CLASSPATH, IdTest.class.getName()};
+        String[] args = new String[options.length + cmd.length];
+        System.arraycopy(options, 0, args, 0, options.length);
+        System.arraycopy(cmd, 0, args, options.length, cmd.length);
+
+        StringWriter log = new StringWriter();
+        StringWriter ref = new StringWriter();
+        Status s = new ExecStdTestOtherJVMCmd().run(args, new PrintWriter(log), new PrintWriter(ref));
+        Assert.assertTrue(log.toString(), s.isPassed());
+        Assert.assertTrue(ref.toString(), ref.toString().startsWith("jvm "));
+        return log.toString();
+    }
+
+    private Run run(Class<?> testClass) throws InterruptedException {
+        Run r = exec(testClass.getName());
+        Assert.assertNotNull(testClass.getName(), r.status);
+        return r;
+    }
+
+    private Run exec(String className) throws InterruptedException {
+        String[] cmd = {JAVA, "-cp", CLASSPATH, className};
+        StringWriter log = new StringWriter();
+        StringWriter ref = new StringWriter();
+        Status s = pool.exec(new ExecStdTestOtherJVMCmd(), cmd, null, null,
+                new PrintWriter(log), new PrintWriter(ref));
+        return new Run(s, ref.toString().trim());
+    }
+
+    private static class Run {
+        final Status status;
+        final String jvm;
+
+        Run(Status status, String jvm) {
+            this.status = status;
+            this.jvm = jvm;
+        }
+    }
+
+    /**
+     * Writes the identity of the JVM it runs in.
+     */
+    public static class IdTest implements com.sun.javatest.Test {
+        public static void main(String... args) {
+            PrintWriter out = new PrintWriter(System.out);
+            Status s = new IdTest().run(args, new PrintWriter(System.err), out);
+            out.flush();
+            s.exit();
+        }
+
+        @Override
+        public Status run(String[] args, PrintWriter log, PrintWriter ref) {
+            ref.println("jvm " + ManagementFactory.getRuntimeMXBean().getName());
+            return Status.passed("OK");
+        }
+    }
+
+    public static class ExitTest implements com.sun.javatest.Test {
+        @Override
+        public Status run(String[] args, PrintWriter log, PrintWriter ref) {
+            Status.failed("exit called").exit();
+            return Status.passed("not reached");
+        }
+    }
+
+    public static class LeakThreadTest implements com.sun.javatest.Test {
+        @Override
+        public Status run(String[] args, PrintWriter log, PrintWriter ref) {
+            ref.println("jvm " + ManagementFactory.getRuntimeMXBean().getName());
+            Thread t = new Thread(() -> {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    // exit
+                }
+            });
+            t.start();
+            return Status.passed("OK");
+        }
+    }
+
+    /**
+     * Writes directly to the standard output of the JVM, which the
+     * pool uses to receive frames.
+     */
+    public static class BadFrameTest implements com.sun.javatest.Test {
+        @Override
+        public Status run(String[] args, PrintWriter log, PrintWriter ref) {
+            try {
+                new FileOutputStream(FileDescriptor.out).write("garbage\n".getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                return Status.error(e.toString());
+            }
+            return Status.passed("OK");
+        }
+    }
+
+    public static class NotATest {
+        public static void main(String... args) {
+            Status.passed("OK").exit();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.lib;
+
+import com.sun.javatest.Status;
+import com.sun.javatest.TestDescription;
+import com.sun.javatest.TestResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ProcessOutputPumpTest {
+
+    private static final String NL = System.getProperty("line.separator");
+
+    @Test
+    public void lines() throws Exception {
+        String text = "first\r\nsecond\rthird\n\n" + Status.EXIT_PREFIX + "Passed. all done";
+        Copy c = copy(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+        Assert.assertEquals("first" + NL + "second" + NL + "third" + NL + NL
+                + Status.EXIT_PREFIX + "Passed. all done" + NL, c.output);
+        Assert.assertTrue(c.status.isPassed());
+        Assert.assertEquals("all done", c.status.getReason());
+    }
+
+    @Test
+    public void noStatus() throws Exception {
+        String text = "STATUS-Passed. not at the start of a line " + Status.EXIT_PREFIX + "Passed.\n";
+        Copy c = copy(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+        Assert.assertEquals(text.replace("\n", NL), c.output);
+        Assert.assertNull(c.status);
+    }
+
+    @Test
+    public void splitCharacters() throws Exception {
+        String text = "na\u00efve \u20ac \ud83d\ude00" + NL;
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        // one byte at a time, so that every multi-byte character is split
+        InputStream in = new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int available() {
+                return Math.min(1, super.available());
+            }
+        };
+        Assert.assertEquals(text, copy(in, StandardCharsets.UTF_8).output);
+
+        Charset latin1 = StandardCharsets.ISO_8859_1;
+        Assert.assertEquals("na\u00efve" + NL,
+                copy(new ByteArrayInputStream("na\u00efve\n".getBytes(latin1)), latin1).output);
+    }
+
+    @Test
+    public void largeOutput() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < 8 * 1024 * 1024; i++) {
+            sb.append("line ").append(i).append(NL);
+        }
+        sb.append(Status.EXIT_PREFIX).append("Failed. too much").append(NL);
+        String text = sb.toString();
+
+        Copy c = copy(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+        Assert.assertTrue(c.output.length() < text.length() / 4);
+        // enough of the beginning and the end are kept for the test result
+        int keep = 100000;
+        Assert.assertTrue(c.output.startsWith(text.substring(0, keep)));
+        Assert.assertTrue(c.output.endsWith(text.substring(text.length() - keep)));
+        Assert.assertTrue(c.status.isFailed());
+        Assert.assertEquals("too much", c.status.getReason());
+    }
+
+    @Test
+    public void statusInSkippedOutput() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < 4 * 1024 * 1024; i++) {
+            sb.append("line ").append(i).append(NL);
+            if (i == 100000) {
+                sb.append(Status.EXIT_PREFIX).append("Failed. in the middle").append(NL);
+            }
+        }
+        String text = sb.toString();
+
+        // the status line is not written, but is still found
+        Copy c = copy(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+        Assert.assertFalse(c.output.contains("in the middle"));
+        Assert.assertTrue(c.status.isFailed());
+        Assert.assertEquals("in the middle", c.status.getReason());
+    }
+
+    @Test
+    public void untrimmed() throws Exception {
+        byte[] bytes = new byte[4 * 1024 * 1024];
+        Arrays.fill(bytes, (byte) 'x');
+        Copy c = copy(new ByteArrayInputStream(bytes), StandardCharsets.US_ASCII, 0);
+        Assert.assertEquals(bytes.length + NL.length(), c.output.length());
+
+        // output is only trimmed for a test result
+        Assert.assertEquals(-1, TestResult.getMaxOutputSize(new PrintWriter(new StringWriter())));
+    }
+
+    @Test
+    public void testResultLimit() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < 8 * 1024 * 1024; i++) {
+            sb.append("line ").append(i).append(NL);
+        }
+        String text = sb.toString();
+
+        // the limit of the test result is used, not the default
+        TestResult.Section expect = newSection(1000000);
+        try (PrintWriter out = expect.createOutput("out")) {
+            for (String line : text.split(NL)) {
+                out.println(line);
+            }
+        }
+        TestResult.Section s = newSection(1000000);
+        try (PrintWriter out = s.createOutput("out")) {
+            Assert.assertEquals(1000000, TestResult.getMaxOutputSize(out));
+            ProcessOutputPump.Pipe p = ProcessOutputPump.getInstance().add(
+                    new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)),
+                    StandardCharsets.UTF_8, out, TestResult.getMaxOutputSize(out));
+            p.exited();
+            p.waitUntilDone();
+        }
+
+        // the beginning, up to the end of the overflow message, and at least the
+        // last third of the limit are the same as if all the output had been written
+        String e = expect.getOutput("out");
+        String o = s.getOutput("out");
+        int head = e.indexOf("\n...\n\n") + 6;
+        Assert.assertTrue(head > 1000000 / 3);
+        Assert.assertEquals(e.substring(0, head), o.substring(0, head));
+        Assert.assertEquals(e.substring(e.length() - 1000000 / 3), o.substring(o.length() - 1000000 / 3));
+    }
+
+    private static TestResult.Section newSection(int maxOutputSize) {
+        File dir = new File("ts").getAbsoluteFile();
+        Map<String, String> params = new HashMap<>();
+        params.put("id", "test");
+        TestResult tr = new TestResult(new TestDescription(dir, new File(dir, "Test.html"), params));
+        tr.setMaxOutputSize(maxOutputSize);
+        return tr.createSection("test");
+    }
+
+    private static Copy copy(InputStream in, Charset charset) throws InterruptedException {
+        return copy(in, charset, 100000);
+    }
+
+    private static Copy copy(InputStream in, Charset charset, int maxOutputSize) throws InterruptedException {
+        StringWriter sw = new StringWriter();
+        PrintWriter out = new PrintWriter(sw);
+        ProcessOutputPump.Pipe p = ProcessOutputPump.getInstance().add(in, charset, out, maxOutputSize);
+        p.exited();
+        p.waitUntilDone();
+        out.flush();
+        Copy c = new Copy();
+        c.output = sw.toString();
+        c.status = p.exitStatus();
+        return c;
+    }
+
+    private static class Copy {
+        String output;
+        Status status;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PrefetchIteratorTest {
+
+    @Test
+    public void order() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(i);
+        }
+        Set<Integer> prepared = ConcurrentHashMap.newKeySet();
+        Random random = new Random(0);
+        List<Integer> returned = new ArrayList<>();
+        try (PrefetchIterator<Integer> iter = new PrefetchIterator<>(items.iterator(), i -> {
+            if (i % 7 == 0) {
+                sleep(1);
+            }
+            prepared.add(i);
+        }, 4, 50)) {
+            while (iter.hasNext()) {
+                Integer i = iter.next();
+                Assert.assertTrue(prepared.contains(i));
+                returned.add(i);
+                if (random.nextInt(10) == 0) {
+                    sleep(1);
+                }
+            }
+        }
+
+        Assert.assertEquals(items, returned);
+    }
+
+    @Test
+    public void bounded() {
+        AtomicInteger read = new AtomicInteger();
+        Iterator<Integer> source = new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return read.get() < 100;
+            }
+
+            @Override
+            public Integer next() {
+                return read.getAndIncrement();
+            }
+        };
+
+        try (PrefetchIterator<Integer> iter = new PrefetchIterator<>(source, i -> { }, 2, 10)) {
+            for (int i = 0; i < 5; i++) {
+                Assert.assertEquals(i, iter.next().intValue());
+                Assert.assertTrue(read.get() <= i + 1 + 10);
+            }
+        }
+        Assert.assertEquals(15, read.get());
+    }
+
+    @Test
+    public void inline() {
+        List<String> prepared = new ArrayList<>();
+        List<String> items = new ArrayList<>();
+        Collections.addAll(items, "a", "b", "c");
+        try (PrefetchIterator<String> iter = new PrefetchIterator<>(items.iterator(), prepared::add, 0, 10)) {
+            Assert.assertEquals("a", iter.next());
+            Assert.assertEquals(Collections.singletonList("a"), prepared);
+            Assert.assertEquals("b", iter.next());
+            Assert.assertEquals("c", iter.next());
+            Assert.assertFalse(iter.hasNext());
+        }
+        Assert.assertEquals(items, prepared);
+    }
+
+    @Test
+    public void exception() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            items.add(i);
+        }
+        try (PrefetchIterator<Integer> iter = new PrefetchIterator<>(items.iterator(), i -> {
+            if (i == 3) {
+                throw new IllegalArgumentException("bad item");
+            }
+        }, 3, 5)) {
+            for (int i = 0; i < 3; i++) {
+                Assert.assertEquals(i, iter.next().intValue());
+            }
+            try {
+                iter.next();
+                Assert.fail("expected exception");
+            } catch (IllegalArgumentException e) {
+                Assert.assertEquals("bad item", e.getMessage());
+            }
+            Assert.assertEquals(4, iter.next().intValue());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TimerTest {
+
+    @Test
+    public void notEarly() throws InterruptedException {
+        Timer timer = new Timer();
+        int n = 50;
+        CountDownLatch done = new CountDownLatch(n);
+        AtomicInteger early = new AtomicInteger();
+        for (int i = 0; i < n; i++) {
+            long delay = i * 7;
+            long start = System.nanoTime();
+            timer.requestDelayedCallback(() -> {
+                if (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(delay)) {
+                    early.incrementAndGet();
+                }
+                done.countDown();
+            }, delay);
+        }
+
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(0, early.get());
+        timer.finished();
+    }
+
+    @Test
+    public void cancel() throws InterruptedException {
+        Timer timer = new Timer();
+        AtomicInteger calls = new AtomicInteger();
+        List<Timer.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            entries.add(timer.requestDelayedCallback(calls::incrementAndGet, 200));
+        }
+        for (int i = 0; i < entries.size(); i += 2) {
+            timer.cancel(entries.get(i));
+        }
+
+        CountDownLatch done = new CountDownLatch(1);
+        timer.requestDelayedCallback(done::countDown, 400);
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(50, calls.get());
+        timer.finished();
+    }
+
+    @Test
+    public void concurrent() throws Exception {
+        Timer timer = new Timer();
+        int nThreads = 8;
+        int perThread = 2000;
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(nThreads * perThread / 2);
+        ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+        try {
+            for (int t = 0; t < nThreads; t++) {
+                pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        // half are cancelled before they expire, as most test timeouts are
+                        if (i % 2 == 0) {
+                            Timer.Entry e = timer.requestDelayedCallback(calls::incrementAndGet, 60_000);
+                            timer.cancel(e);
+                        } else {
+                            timer.requestDelayedCallback(done::countDown, i % 100);
+                        }
+                    }
+                });
+            }
+            Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+            Assert.assertEquals(0, calls.get());
+        } finally {
+            pool.shutdown();
+            timer.finished();
+        }
+    }
+
+    @Test
+    public void slowCallback() throws InterruptedException {
+        Timer timer = new Timer();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        timer.requestDelayedCallback(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignore) {
+            }
+        }, 0);
+        // not held up by the callback above
+        timer.requestDelayedCallback(done::countDown, 50);
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        release.countDown();
+        timer.finished();
+    }
+}